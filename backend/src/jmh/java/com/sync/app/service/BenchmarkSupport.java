@@ -0,0 +1,90 @@
+package com.sync.app.service;
+
+import com.sync.app.FolderSyncApplication;
+import com.sync.app.entity.SyncTask;
+import com.sync.app.repository.SyncTaskRepository;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Outils communs aux benchmarks : arborescences synthétiques et contexte Spring
+ * sur une base H2 fichier propre à chaque exécution.
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Répertoire de travail, sous {@code -Dbench.dir} (un tmpfs de préférence).
+     */
+    static Path createWorkDir(String prefix) throws IOException {
+        Path base = Paths.get(System.getProperty("bench.dir", System.getProperty("java.io.tmpdir")));
+        Files.createDirectories(base);
+        return Files.createTempDirectory(base, prefix);
+    }
+
+    /**
+     * Démarre l'application sans serveur web, avec une base H2 fichier dans {@code workDir}.
+     */
+    static ConfigurableApplicationContext startContext(Path workDir) {
+        return new SpringApplicationBuilder(FolderSyncApplication.class)
+            .web(WebApplicationType.NONE)
+            .logStartupInfo(false)
+            // Arguments plutôt que propriétés par défaut : ces dernières céderaient devant application.yml
+            .run("--spring.datasource.url=jdbc:h2:file:" + workDir.resolve("db").resolve("syncdb").toAbsolutePath(),
+                "--spring.jpa.show-sql=false",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN");
+    }
+
+    static SyncTask createTask(ConfigurableApplicationContext context, Path source, Path destination,
+                               SyncTask.ChangeDetection changeDetection) {
+        SyncTask task = new SyncTask();
+        task.setName("benchmark");
+        task.setSourcePath(source.toString());
+        task.setDestinationPath(destination.toString());
+        task.setIntervalMinutes(60L * 24 * 365);
+        task.setActive(false); // Hors du planificateur
+        task.setUseChecksum(true);
+        task.setChangeDetection(changeDetection);
+        return context.getBean(SyncTaskRepository.class).save(task);
+    }
+
+    static void writeRandomFile(Path file, long size, Random random) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (long written = 0; written < size; written += buffer.length) {
+                random.nextBytes(buffer);
+                out.write(buffer, 0, (int) Math.min(buffer.length, size - written));
+            }
+        }
+    }
+
+    /**
+     * Renseigne un champ injecté par {@code @Value} sur un composant instancié hors de Spring.
+     */
+    static void setField(Object target, String name, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        if (field == null) {
+            throw new IllegalArgumentException("Champ inconnu: " + name);
+        }
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+
+    static void deleteRecursively(Path path) throws IOException {
+        FileSystemUtils.deleteRecursively(path);
+    }
+}
@@ -0,0 +1,105 @@
+package com.sync.app.service;
+
+import com.sync.app.entity.FileMetadata;
+import com.sync.app.entity.SyncTask;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût d'une décision de {@link FileSyncService#detectChange} pour un fichier de 1MB,
+ * selon le mode de détection et l'état des métadonnées enregistrées.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChangeDetectionBenchmark {
+
+    /**
+     * Situation comparée.
+     */
+    public enum Scenario {
+        SMART_TRUSTED,      // Métadonnées identiques et fiables : aucune lecture
+        SMART_MTIME_CHANGED, // Date différente, contenu identique : checksum puis REFRESH
+        SIZE_CHANGED,       // Taille différente : copie décidée sans lecture
+        METADATA_UNCHANGED, // Mode METADATA, date identique
+        CHECKSUM_UNCHANGED  // Mode CHECKSUM : checksum à chaque passage
+    }
+
+    @Param
+    public Scenario scenario;
+
+    private Path workDir;
+    private ConfigurableApplicationContext context;
+    private FileSyncService fileSyncService;
+    private Path source;
+    private Path destination;
+    private BasicFileAttributes sourceAttrs;
+    private FileState existing;
+    private SyncTask.ChangeDetection mode;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDir = BenchmarkSupport.createWorkDir("detect-bench");
+        context = BenchmarkSupport.startContext(workDir);
+        fileSyncService = (FileSyncService) AopProxyUtils.getSingletonTarget(context.getBean(FileSyncService.class));
+
+        source = workDir.resolve("source.bin");
+        destination = workDir.resolve("destination.bin");
+        BenchmarkSupport.writeRandomFile(source, 1024 * 1024, new Random(42));
+        Files.copy(source, destination);
+        FileTime modified = FileTime.from(Instant.now().minusSeconds(3600));
+        Files.setLastModifiedTime(source, modified);
+        Files.setLastModifiedTime(destination, modified);
+        sourceAttrs = Files.readAttributes(source, BasicFileAttributes.class);
+
+        FileHasher hasher = FileHashers.create(SyncTask.HashAlgorithm.XXH64);
+        context.getBean(FileCopier.class).hash(source, hasher);
+
+        FileMetadata metadata = new FileMetadata();
+        metadata.setId(1L);
+        metadata.setFilePath("source.bin");
+        metadata.setFileSize(sourceAttrs.size());
+        metadata.setLastModifiedNanos(FileMetadataWriter.epochNanos(sourceAttrs.lastModifiedTime()));
+        metadata.setFileKey(sourceAttrs.fileKey() != null ? sourceAttrs.fileKey().toString() : null);
+        metadata.setLastSynced(LocalDateTime.now());
+        metadata.setChecksum(hasher.digestHex());
+        metadata.setChecksumAlgorithm(SyncTask.HashAlgorithm.XXH64);
+
+        mode = SyncTask.ChangeDetection.SMART;
+        switch (scenario) {
+            case SMART_MTIME_CHANGED -> metadata.setLastModifiedNanos(metadata.getLastModifiedNanos() - 1_000_000_000L);
+            case SIZE_CHANGED -> metadata.setFileSize(metadata.getFileSize() + 1);
+            case METADATA_UNCHANGED -> mode = SyncTask.ChangeDetection.METADATA;
+            case CHECKSUM_UNCHANGED -> mode = SyncTask.ChangeDetection.CHECKSUM;
+            default -> {
+            }
+        }
+        existing = FileState.of(metadata);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        BenchmarkSupport.deleteRecursively(workDir);
+    }
+
+    @Benchmark
+    public FileSyncService.ChangeCheck detectChange() throws IOException {
+        return fileSyncService.detectChange(source, sourceAttrs, destination, existing, mode,
+            SyncTask.HashAlgorithm.XXH64, SyncTimings.NONE);
+    }
+}
@@ -0,0 +1,59 @@
+package com.sync.app.service;
+
+import com.sync.app.entity.SyncTask;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Débit de lecture + checksum d'un fichier de 32MB (sous le seuil mmap), par algorithme
+ * et par taille de buffer ({@code sync.chunk-size}). Score en opérations/s : multiplier
+ * par 32 pour obtenir des MB/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HashBenchmark {
+
+    private static final long FILE_SIZE = 32L * 1024 * 1024;
+
+    @Param({"SHA_256", "XXH64", "CRC32C"})
+    public SyncTask.HashAlgorithm algorithm;
+
+    @Param({"8192", "65536", "1048576"})
+    public int chunkSize;
+
+    private Path workDir;
+    private Path file;
+    private FileCopier fileCopier;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDir = BenchmarkSupport.createWorkDir("hash-bench");
+        file = workDir.resolve("data.bin");
+        BenchmarkSupport.writeRandomFile(file, FILE_SIZE, new Random(42));
+
+        fileCopier = new FileCopier();
+        BenchmarkSupport.setField(fileCopier, "chunkSize", chunkSize);
+        BenchmarkSupport.setField(fileCopier, "mmapThreshold", Long.MAX_VALUE);
+        BenchmarkSupport.setField(fileCopier, "mmapRegionSize", 64L * 1024 * 1024);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkSupport.deleteRecursively(workDir);
+    }
+
+    @Benchmark
+    public String hashFile() throws IOException {
+        FileHasher hasher = FileHashers.create(algorithm);
+        fileCopier.hash(file, hasher);
+        return hasher.digestHex();
+    }
+}
@@ -0,0 +1,112 @@
+package com.sync.app.service;
+
+import com.sync.app.entity.FileMetadata;
+import com.sync.app.entity.SyncTask;
+import com.sync.app.repository.FileMetadataBatchRepository;
+import com.sync.app.repository.FileMetadataRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Écriture des métadonnées de {@code rows} fichiers par {@link FileMetadataWriter} sur H2 fichier,
+ * en insertion (première synchro) et en mise à jour (fichiers modifiés), par taille de lot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+public class MetadataPersistenceBenchmark {
+
+    private static final String CHECKSUM = "0123456789abcdef";
+
+    @Param({"50", "500", "5000"})
+    public int batchSize;
+
+    @Param({"20000"})
+    public int rows;
+
+    private Path workDir;
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate transactionTemplate;
+    private FileMetadataRepository fileMetadataRepository;
+    private FileMetadataBatchRepository batchRepository;
+    private SyncTask task;
+    private BasicFileAttributes attrs;
+    private List<FileState> existing;
+    private List<String> paths;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDir = BenchmarkSupport.createWorkDir("metadata-bench");
+        context = BenchmarkSupport.startContext(workDir);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        fileMetadataRepository = context.getBean(FileMetadataRepository.class);
+        batchRepository = context.getBean(FileMetadataBatchRepository.class);
+        task = BenchmarkSupport.createTask(context, workDir, workDir.resolve("unused"), null);
+
+        Path sample = Files.writeString(workDir.resolve("sample.txt"), "sample");
+        attrs = Files.readAttributes(sample, BasicFileAttributes.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void prepare(BenchmarkParams params) {
+        transactionTemplate.executeWithoutResult(status -> fileMetadataRepository.deleteBySyncTask(task));
+        existing = null;
+        paths = null;
+        if (params.getBenchmark().endsWith("update")) {
+            insert();
+            List<FileMetadata> rows = fileMetadataRepository.findBySyncTask(task);
+            existing = rows.stream().map(FileState::of).toList();
+            paths = rows.stream().map(FileMetadata::getFilePath).toList();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        BenchmarkSupport.deleteRecursively(workDir);
+    }
+
+    @Benchmark
+    public void insert() {
+        transactionTemplate.executeWithoutResult(status -> {
+            FileMetadataWriter writer = new FileMetadataWriter(batchRepository, fileMetadataRepository, task,
+                new FileIndex(), batchSize);
+            for (int i = 0; i < rows; i++) {
+                writer.write(null, "dir-" + (i / 1000) + "/file-" + i + ".bin", attrs, CHECKSUM,
+                    SyncTask.HashAlgorithm.XXH64);
+                if (writer.isFull()) {
+                    writer.flush();
+                }
+            }
+            writer.flush();
+        });
+    }
+
+    @Benchmark
+    public void update() {
+        transactionTemplate.executeWithoutResult(status -> {
+            FileMetadataWriter writer = new FileMetadataWriter(batchRepository, fileMetadataRepository, task,
+                new FileIndex(), batchSize);
+            for (int i = 0; i < existing.size(); i++) {
+                writer.write(existing.get(i), paths.get(i), attrs, CHECKSUM, SyncTask.HashAlgorithm.XXH64);
+                if (writer.isFull()) {
+                    writer.flush();
+                }
+            }
+            writer.flush();
+        });
+    }
+}
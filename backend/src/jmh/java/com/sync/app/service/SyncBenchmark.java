@@ -0,0 +1,129 @@
+package com.sync.app.service;
+
+import com.sync.app.entity.SyncLog;
+import com.sync.app.entity.SyncTask;
+import com.sync.app.repository.FileMetadataRepository;
+import com.sync.app.repository.FileSignatureRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Synchronisation complète ({@link FileSyncService#executeSync}) d'arborescences synthétiques,
+ * métadonnées comprises (H2 fichier). {@code INITIAL} part d'une destination vide ;
+ * {@code NO_CHANGE} resynchronise une destination déjà à jour.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SyncBenchmark {
+
+    /**
+     * Formes d'arborescence source utilisées par les benchmarks de synchronisation.
+     */
+    public enum TreeShape {
+        SMALL_FILES,   // 20 répertoires de 500 fichiers de 4KB
+        LARGE_FILES,   // 4 fichiers de 96MB (au-delà du seuil mmap)
+        DEEP_NESTING;  // 50 niveaux de 20 fichiers de 16KB
+
+        void create(Path root) throws IOException {
+            Random random = new Random(42);
+            switch (this) {
+                case SMALL_FILES -> {
+                    for (int d = 0; d < 20; d++) {
+                        Path dir = Files.createDirectories(root.resolve("dir-" + d));
+                        for (int f = 0; f < 500; f++) {
+                            BenchmarkSupport.writeRandomFile(dir.resolve("file-" + f + ".bin"), 4 * 1024, random);
+                        }
+                    }
+                }
+                case LARGE_FILES -> {
+                    Files.createDirectories(root);
+                    for (int f = 0; f < 4; f++) {
+                        BenchmarkSupport.writeRandomFile(root.resolve("large-" + f + ".bin"), 96L * 1024 * 1024, random);
+                    }
+                }
+                case DEEP_NESTING -> {
+                    Path dir = root;
+                    for (int level = 0; level < 50; level++) {
+                        dir = Files.createDirectories(dir.resolve("level-" + level));
+                        for (int f = 0; f < 20; f++) {
+                            BenchmarkSupport.writeRandomFile(dir.resolve("file-" + f + ".bin"), 16 * 1024, random);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Param
+    public TreeShape shape;
+
+    @Param({"INITIAL", "NO_CHANGE"})
+    public String scenario;
+
+    private Path workDir;
+    private Path destination;
+    private ConfigurableApplicationContext context;
+    private FileSyncService fileSyncService;
+    private SyncTask task;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDir = BenchmarkSupport.createWorkDir("sync-bench");
+        Path source = workDir.resolve("source");
+        destination = workDir.resolve("destination");
+        shape.create(source);
+
+        context = BenchmarkSupport.startContext(workDir);
+        fileSyncService = context.getBean(FileSyncService.class);
+        task = BenchmarkSupport.createTask(context, source, destination, SyncTask.ChangeDetection.SMART);
+
+        if ("NO_CHANGE".equals(scenario)) {
+            sync();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetDestination() throws IOException {
+        if (!"INITIAL".equals(scenario)) {
+            return;
+        }
+        BenchmarkSupport.deleteRecursively(destination);
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class))
+            .executeWithoutResult(status -> {
+                context.getBean(FileMetadataRepository.class).deleteBySyncTask(task);
+                context.getBean(FileSignatureRepository.class).deleteBySyncTask(task);
+            });
+        context.getBean(FileMetadataCache.class).invalidate(task.getId());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        BenchmarkSupport.deleteRecursively(workDir);
+    }
+
+    @Benchmark
+    public SyncLog executeSync() {
+        return sync();
+    }
+
+    private SyncLog sync() {
+        SyncLog result = fileSyncService.executeSync(task);
+        if (result.getStatus() != SyncLog.SyncStatus.COMPLETED) {
+            throw new IllegalStateException("Synchronisation en échec: " + result.getErrorMessage());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,24 @@
+package com.sync.app.controller;
+
+import com.sync.app.dto.SyncExecutorStatsDto;
+import com.sync.app.service.SyncExecutor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Contrôleur REST exposant l'état de l'exécuteur de synchronisations.
+ */
+@RestController
+@RequestMapping("/api/sync-executor")
+@CrossOrigin(origins = "http://localhost:4200")
+@RequiredArgsConstructor
+public class SyncExecutorController {
+
+    private final SyncExecutor syncExecutor;
+
+    @GetMapping("/stats")
+    public ResponseEntity<SyncExecutorStatsDto> getStats() {
+        return ResponseEntity.ok(syncExecutor.getStats());
+    }
+}
@@ -1,19 +1,29 @@
 package com.sync.app.controller;
 
 import com.sync.app.dto.SyncLogDto;
-import com.sync.app.entity.SyncLog;
+import com.sync.app.dto.SyncLogPageDto;
+import com.sync.app.dto.SyncLogRollupDto;
+import com.sync.app.entity.SyncLogRollup;
 import com.sync.app.entity.SyncTask;
 import com.sync.app.repository.SyncLogRepository;
 import com.sync.app.repository.SyncTaskRepository;
+import com.sync.app.service.SyncHistoryService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
 /**
  * Contrôleur REST pour gérer les logs de synchronisation.
+ * Les logs sont lus directement sous forme de DTO (projection JPQL, tâche jointe) : une requête par page.
+ * <p>
+ * Pagination par curseur : une page suivante est demandée avec le {@code nextCursor} de la
+ * précédente, et lue dans l'index (tâche, date de début) sans parcourir les pages qui précèdent.
  */
 @RestController
 @RequestMapping("/api/sync-logs")
@@ -23,59 +33,131 @@ public class SyncLogController {
 
     private final SyncLogRepository syncLogRepository;
     private final SyncTaskRepository syncTaskRepository;
+    private final SyncHistoryService syncHistoryService;
+
+    private static final int MAX_PAGE_SIZE = 200;
 
     @GetMapping
-    public ResponseEntity<Page<SyncLogDto>> getAllLogs(
-            @RequestParam(defaultValue = "0") int page,
+    public ResponseEntity<SyncLogPageDto> getAllLogs(
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "20") int size) {
 
-        Pageable pageable = PageRequest.of(page, size);
-        Page<SyncLog> logs = syncLogRepository.findAllByOrderByStartTimeDesc(pageable);
+        Cursor position = Cursor.parse(cursor);
+        if (cursor != null && position == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        Pageable pageable = pageable(size);
+        List<SyncLogDto> logs = position == null
+            ? syncLogRepository.findDtoPage(pageable)
+            : syncLogRepository.findDtoPageBefore(position.startTime(), position.id(), pageable);
 
-        Page<SyncLogDto> dtos = logs.map(this::convertToDto);
-        return ResponseEntity.ok(dtos);
+        return ResponseEntity.ok(toPage(logs, pageable.getPageSize() - 1));
     }
 
     @GetMapping("/task/{taskId}")
-    public ResponseEntity<Page<SyncLogDto>> getLogsByTask(
+    public ResponseEntity<SyncLogPageDto> getLogsByTask(
             @PathVariable Long taskId,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "20") int size) {
 
+        if (!syncTaskRepository.existsById(taskId)) {
+            throw new RuntimeException("Tâche non trouvée: " + taskId);
+        }
+
+        Cursor position = Cursor.parse(cursor);
+        if (cursor != null && position == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        Pageable pageable = pageable(size);
+        List<SyncLogDto> logs = position == null
+            ? syncLogRepository.findDtoPageByTask(taskId, pageable)
+            : syncLogRepository.findDtoPageByTaskBefore(taskId, position.startTime(), position.id(), pageable);
+
+        return ResponseEntity.ok(toPage(logs, pageable.getPageSize() - 1));
+    }
+
+    /**
+     * Historique agrégé d'une tâche sur les {@code days} derniers jours, y compris la période
+     * dont les logs détaillés n'ont pas encore été repliés.
+     */
+    @GetMapping("/task/{taskId}/history")
+    public ResponseEntity<List<SyncLogRollupDto>> getTaskHistory(
+            @PathVariable Long taskId,
+            @RequestParam(defaultValue = "DAILY") SyncLogRollup.Granularity granularity,
+            @RequestParam(defaultValue = "30") int days) {
+
         SyncTask task = syncTaskRepository.findById(taskId)
             .orElseThrow(() -> new RuntimeException("Tâche non trouvée: " + taskId));
 
-        Pageable pageable = PageRequest.of(page, size);
-        Page<SyncLog> logs = syncLogRepository.findBySyncTaskOrderByStartTimeDesc(task, pageable);
-
-        Page<SyncLogDto> dtos = logs.map(this::convertToDto);
-        return ResponseEntity.ok(dtos);
+        List<SyncLogRollupDto> history = syncHistoryService
+            .getHistory(task, granularity, LocalDateTime.now().minusDays(Math.max(1, days)))
+            .stream()
+            .map(rollup -> convertToDto(taskId, rollup))
+            .toList();
+        return ResponseEntity.ok(history);
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<SyncLogDto> getLogById(@PathVariable Long id) {
-        SyncLog log = syncLogRepository.findById(id)
+        SyncLogDto log = syncLogRepository.findDtoById(id)
             .orElseThrow(() -> new RuntimeException("Log non trouvé: " + id));
 
-        return ResponseEntity.ok(convertToDto(log));
+        return ResponseEntity.ok(log);
+    }
+
+    /**
+     * Une ligne de plus que la taille demandée est lue pour savoir s'il existe une page suivante.
+     */
+    private static Pageable pageable(int size) {
+        return PageRequest.of(0, Math.min(Math.max(size, 1), MAX_PAGE_SIZE) + 1);
+    }
+
+    private static SyncLogPageDto toPage(List<SyncLogDto> logs, int size) {
+        boolean hasMore = logs.size() > size;
+        List<SyncLogDto> page = hasMore ? logs.subList(0, size) : logs;
+        String nextCursor = hasMore ? Cursor.of(page.get(page.size() - 1)).format() : null;
+        return new SyncLogPageDto(page, size, nextCursor);
     }
 
-    private SyncLogDto convertToDto(SyncLog log) {
-        SyncLogDto dto = new SyncLogDto();
-        dto.setId(log.getId());
-        dto.setSyncTaskId(log.getSyncTask().getId());
-        dto.setSyncTaskName(log.getSyncTask().getName());
-        dto.setStartTime(log.getStartTime());
-        dto.setEndTime(log.getEndTime());
-        dto.setStatus(log.getStatus());
-        dto.setFilesScanned(log.getFilesScanned());
-        dto.setFilesCopied(log.getFilesCopied());
-        dto.setFilesUpdated(log.getFilesUpdated());
-        dto.setFilesDeleted(log.getFilesDeleted());
-        dto.setFilesSkipped(log.getFilesSkipped());
-        dto.setTotalBytes(log.getTotalBytes());
-        dto.setErrorMessage(log.getErrorMessage());
-        dto.setDetails(log.getDetails());
-        return dto;
+    private SyncLogRollupDto convertToDto(Long taskId, SyncLogRollup rollup) {
+        return new SyncLogRollupDto(taskId, rollup.getGranularity(), rollup.getBucketStart(), rollup.getRuns(),
+            rollup.getFailedRuns(), rollup.getFilesScanned(), rollup.getFilesCopied(), rollup.getFilesUpdated(),
+            rollup.getFilesDeleted(), rollup.getTotalBytes(), rollup.getTotalDurationMillis(),
+            rollup.getMaxDurationMillis());
+    }
+
+    /**
+     * Position dans l'ordre (date de début, id) décroissant ; sérialisée en {@code <date ISO>_<id>}.
+     */
+    private record Cursor(LocalDateTime startTime, Long id) {
+
+        static Cursor of(SyncLogDto log) {
+            return new Cursor(log.getStartTime(), log.getId());
+        }
+
+        /**
+         * Renvoie null si le curseur est absent ou mal formé.
+         */
+        static Cursor parse(String value) {
+            if (value == null) {
+                return null;
+            }
+            int separator = value.lastIndexOf('_');
+            if (separator < 0) {
+                return null;
+            }
+            try {
+                return new Cursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+            } catch (DateTimeParseException | NumberFormatException e) {
+                return null;
+            }
+        }
+
+        String format() {
+            return startTime + "_" + id;
+        }
     }
 }
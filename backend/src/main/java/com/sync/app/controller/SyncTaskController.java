@@ -2,16 +2,21 @@ package com.sync.app.controller;
 
 import com.sync.app.dto.SyncTaskDto;
 import com.sync.app.entity.SyncTask;
+import com.sync.app.service.SyncExecutor;
+import com.sync.app.service.SyncProgressService;
 import com.sync.app.service.SyncTaskService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Contrôleur REST pour gérer les tâches de synchronisation.
@@ -23,6 +28,7 @@ import java.util.Map;
 public class SyncTaskController {
 
     private final SyncTaskService syncTaskService;
+    private final SyncProgressService syncProgressService;
 
     @GetMapping
     public ResponseEntity<List<SyncTask>> getAllTasks() {
@@ -59,10 +65,20 @@ public class SyncTaskController {
 
     @PostMapping("/{id}/trigger")
     public ResponseEntity<Map<String, String>> triggerSync(@PathVariable Long id) {
-        syncTaskService.triggerSync(id);
         Map<String, String> response = new HashMap<>();
-        response.put("message", "Synchronisation démarrée");
         response.put("taskId", id.toString());
+        try {
+            syncTaskService.triggerSync(id);
+        } catch (SyncExecutor.AlreadyRunningException e) {
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (RejectedExecutionException e) {
+            // File pleine : la demande peut être renouvelée plus tard
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+        }
+        response.put("message", syncTaskService.isSyncQueued(id)
+            ? "Synchronisation en attente" : "Synchronisation démarrée");
         return ResponseEntity.ok(response);
     }
 
@@ -71,6 +87,54 @@ public class SyncTaskController {
         boolean running = syncTaskService.isSyncRunning(id);
         Map<String, Boolean> response = new HashMap<>();
         response.put("running", running);
+        response.put("queued", syncTaskService.isSyncQueued(id));
+        response.put("paused", syncTaskService.isSyncPaused(id));
         return ResponseEntity.ok(response);
     }
+
+    @PostMapping("/{id}/cancel")
+    public ResponseEntity<Map<String, String>> cancelSync(@PathVariable Long id) {
+        return controlResponse(id, syncTaskService.cancelSync(id), "Annulation demandée",
+            "Aucune synchronisation en attente ou en cours");
+    }
+
+    @PostMapping("/{id}/pause")
+    public ResponseEntity<Map<String, String>> pauseSync(@PathVariable Long id) {
+        return controlResponse(id, syncTaskService.pauseSync(id), "Synchronisation en pause",
+            "Aucune synchronisation en cours");
+    }
+
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<Map<String, String>> resumeSync(@PathVariable Long id) {
+        return controlResponse(id, syncTaskService.resumeSync(id), "Synchronisation reprise",
+            "Aucune synchronisation en cours");
+    }
+
+    /**
+     * Réponse d'une commande de pilotage : 409 si aucune synchronisation n'était concernée.
+     */
+    private ResponseEntity<Map<String, String>> controlResponse(Long id, boolean applied, String message,
+                                                                String notApplied) {
+        Map<String, String> response = new HashMap<>();
+        response.put("message", applied ? message : notApplied);
+        response.put("taskId", id.toString());
+        return applied ? ResponseEntity.ok(response) : ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+    }
+
+    /**
+     * Flux SSE de l'avancement des synchronisations d'une tâche.
+     */
+    @GetMapping(value = "/{id}/progress", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamProgress(@PathVariable Long id) {
+        syncTaskService.getTaskById(id); // Erreur si la tâche n'existe pas
+        return syncProgressService.subscribe(id);
+    }
+
+    /**
+     * Flux SSE de l'avancement de toutes les tâches : une seule connexion pour la liste.
+     */
+    @GetMapping(value = "/progress", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAllProgress() {
+        return syncProgressService.subscribe(null);
+    }
 }
@@ -0,0 +1,32 @@
+package com.sync.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * État de l'exécuteur de synchronisations : occupation, file d'attente et compteurs cumulés
+ * depuis le démarrage de l'application.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncExecutorStatsDto {
+
+    private int maxConcurrentSyncs;
+    private int maxPerDevice;
+    private int running;
+    private int queueDepth;
+    private List<Long> runningTaskIds;
+    private List<Long> queuedTaskIds; // Dans l'ordre de démarrage prévu
+    private long submitted;
+    private long rejected;
+    private long completed;
+    private long failed;
+    private long cancelled;
+    private long averageWaitMillis;
+    private long maxWaitMillis;
+    private long oldestQueuedWaitMillis;
+}
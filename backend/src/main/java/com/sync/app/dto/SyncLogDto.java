@@ -27,6 +27,21 @@ public class SyncLogDto {
     private Long filesDeleted;
     private Long filesSkipped;
     private Long totalBytes;
+    private Long blocksRewritten;
+    private Long bytesSaved;
+    private Long filesConflicted;
+    private Long walkMillis;
+    private Long detectMillis;
+    private Long hashMillis;
+    private Long copyMillis;
+    private Long persistMillis;
+    private Long deleteMillis;
+    private Long throttledMillis;
+    private Long checkpointedFiles;
+    private String resumeCursor;
+    private LocalDateTime lastCheckpoint;
+    private Long resumedFromId;
     private String errorMessage;
     private String details;
+    private String conflicts;
 }
@@ -0,0 +1,21 @@
+package com.sync.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Page de logs, du plus récent au plus ancien. {@code nextCursor} désigne le dernier log
+ * de la page ; il est null s'il n'y a pas de page suivante.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncLogPageDto {
+
+    private List<SyncLogDto> content;
+    private int size;
+    private String nextCursor;
+}
@@ -0,0 +1,30 @@
+package com.sync.app.dto;
+
+import com.sync.app.entity.SyncLogRollup;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO pour l'historique agrégé d'une tâche (par heure ou par jour).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncLogRollupDto {
+
+    private Long syncTaskId;
+    private SyncLogRollup.Granularity granularity;
+    private LocalDateTime bucketStart;
+    private Long runs;
+    private Long failedRuns;
+    private Long filesScanned;
+    private Long filesCopied;
+    private Long filesUpdated;
+    private Long filesDeleted;
+    private Long totalBytes;
+    private Long totalDurationMillis;
+    private Long maxDurationMillis;
+}
@@ -0,0 +1,35 @@
+package com.sync.app.dto;
+
+import com.sync.app.service.SyncProgress;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Avancement d'une synchronisation, diffusé en Server-Sent Events.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncProgressDto {
+
+    private Long taskId;
+    private Long syncLogId;
+    private SyncProgress.Phase phase;
+    private boolean paused;
+    private LocalDateTime startTime;
+    private long elapsedSeconds;
+    private long filesScanned;
+    private long filesProcessed;
+    private long filesCopied; // Nouveaux et mis à jour
+    private long filesSkipped;
+    private long filesDeleted;
+    private long bytesScanned;
+    private long bytesProcessed;
+    private long bytesCopied;
+    private double copyMbPerSecond; // Débit d'écriture dans la destination
+    private double processingMbPerSecond; // Débit de traitement, fichiers inchangés compris
+    private Long etaSeconds; // null tant que le parcours n'est pas terminé
+}
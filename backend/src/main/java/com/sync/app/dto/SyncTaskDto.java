@@ -1,13 +1,18 @@
 package com.sync.app.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.sync.app.entity.SyncTask;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * DTO pour la création/modification d'une tâche de synchronisation.
@@ -28,15 +33,59 @@ public class SyncTaskDto {
     @NotBlank(message = "Le chemin de destination est obligatoire")
     private String destinationPath;
 
-    @NotNull(message = "L'intervalle est obligatoire")
+    private List<String> replicaPaths; // Destinations supplémentaires (null = inchangées)
+
     @Min(value = 1, message = "L'intervalle doit être au moins 1 minute")
     private Long intervalMinutes;
 
+    @Min(value = 0, message = "L'intervalle en secondes ne peut pas être négatif (0 = en minutes)")
+    private Long intervalSeconds; // Prioritaire sur intervalMinutes
+
     private Boolean active = true;
 
     private Boolean useChecksum = true;
 
+    @Min(value = 1, message = "Le parallélisme doit être au moins 1")
+    @Max(value = 64, message = "Le parallélisme ne peut pas dépasser 64")
+    private Integer parallelism;
+
+    private SyncTask.ChangeDetection changeDetection;
+
+    private SyncTask.HashAlgorithm hashAlgorithm;
+
+    private Boolean deltaTransfer;
+
+    private Boolean realtime;
+
+    private Boolean directoryPruning;
+
+    private Boolean moveDetection;
+
+    private Boolean hardLinkDedup;
+
+    private SyncTask.SyncMode syncMode;
+
+    private SyncTask.ConflictPolicy conflictPolicy;
+
+    private SyncTask.Durability durability;
+
+    @Min(value = 0, message = "Le débit maximal ne peut pas être négatif (0 = illimité)")
+    private Long maxBytesPerSecond;
+
+    @Min(value = 0, message = "Le nombre maximal de fichiers/s ne peut pas être négatif (0 = illimité)")
+    private Integer maxFilesPerSecond;
+
+    @Pattern(regexp = "^$|^\\d{2}:\\d{2}-\\d{2}:\\d{2}(,\\d{2}:\\d{2}-\\d{2}:\\d{2})*$",
+        message = "Plages horaires attendues au format HH:mm-HH:mm, séparées par des virgules")
+    private String fullSpeedHours;
+
     private LocalDateTime lastSyncTime;
 
     private LocalDateTime nextSyncTime;
+
+    @JsonIgnore
+    @AssertTrue(message = "L'intervalle est obligatoire")
+    public boolean isIntervalSpecified() {
+        return intervalMinutes != null || (intervalSeconds != null && intervalSeconds > 0);
+    }
 }
@@ -0,0 +1,57 @@
+package com.sync.app.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Index hiérarchique des répertoires source d'une tâche (arbre de Merkle).
+ * La date de modification d'un répertoire ne change qu'à l'ajout, la suppression ou le
+ * renommage d'une entrée : tant qu'elle est identique, la liste des fichiers et
+ * sous-répertoires enregistrée ici reste valable sans relister le répertoire.
+ */
+@Entity
+@Table(name = "directory_index", indexes = {
+    @Index(name = "idx_directory_task_path", columnList = "sync_task_id,dir_path")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DirectoryIndex {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "sync_task_id", nullable = false)
+    private SyncTask syncTask;
+
+    @Column(nullable = false, length = 1000)
+    private String dirPath; // Chemin relatif par rapport à la source ("" pour la racine)
+
+    @Column(nullable = false)
+    private Long lastModifiedNanos; // Date de modification du répertoire, en ns depuis l'epoch
+
+    @Column
+    private String fileKey; // Identifiant système du répertoire (inode), si disponible
+
+    @Column(nullable = false)
+    private Integer fileCount; // Nombre de fichiers directement dans le répertoire
+
+    @Column(nullable = false, length = 16)
+    private String filesDigest; // XXH64 des (nom, taille, date) des fichiers directs
+
+    @Column(nullable = false, length = 16)
+    private String digest; // XXH64 de filesDigest et des digests des sous-répertoires
+
+    @Lob
+    @Column
+    private String childDirectories; // Noms des sous-répertoires, un par ligne
+
+    @Column(nullable = false)
+    private LocalDateTime verifiedAt; // Dernière lecture effective du contenu du répertoire
+}
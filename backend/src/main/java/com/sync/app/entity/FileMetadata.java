@@ -37,8 +37,18 @@ public class FileMetadata {
     @Column(nullable = false)
     private LocalDateTime lastModified;
 
+    @Column
+    private Long lastModifiedNanos; // Date de modification en nanosecondes depuis l'epoch
+
+    @Column(length = 255)
+    private String fileKey; // Identifiant système du fichier (inode) s'il est disponible
+
     @Column(length = 64)
-    private String checksum; // SHA-256 ou MD5
+    private String checksum; // Empreinte hexadécimale du contenu
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10)
+    private SyncTask.HashAlgorithm checksumAlgorithm; // null = SHA-256 (lignes historiques)
 
     @Column
     private LocalDateTime lastSynced;
@@ -0,0 +1,41 @@
+package com.sync.app.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Signature par blocs d'un gros fichier synchronisé.
+ * Permet de ne réécrire que les blocs modifiés lors de la mise à jour de la destination.
+ */
+@Entity
+@Table(name = "file_signatures", indexes = {
+    @Index(name = "idx_signature_task_path", columnList = "sync_task_id,file_path")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileSignature {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "sync_task_id", nullable = false)
+    private SyncTask syncTask;
+
+    @Column(nullable = false, length = 1000)
+    private String filePath; // Chemin relatif par rapport à la source
+
+    @Column(nullable = false)
+    private Integer blockSize;
+
+    @Column(nullable = false)
+    private Long fileSize; // Taille du fichier au moment du calcul de la signature
+
+    @Lob
+    @Column(nullable = false)
+    private byte[] blockHashes; // XXH64 de chaque bloc, 8 octets little-endian par bloc
+}
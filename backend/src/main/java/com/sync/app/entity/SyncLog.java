@@ -9,9 +9,13 @@ import java.time.LocalDateTime;
 
 /**
  * Entité représentant un log d'exécution de synchronisation.
+ * Au-delà de la durée de conservation, les logs sont repliés en agrégats ({@link SyncLogRollup}).
  */
 @Entity
-@Table(name = "sync_logs")
+@Table(name = "sync_logs", indexes = {
+    @Index(name = "idx_sync_log_task_start", columnList = "sync_task_id,start_time"),
+    @Index(name = "idx_sync_log_start", columnList = "start_time")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -53,12 +57,62 @@ public class SyncLog {
     @Column
     private Long totalBytes = 0L;
 
+    @Column
+    private Long blocksRewritten = 0L; // Blocs réécrits par les mises à jour delta
+
+    @Column
+    private Long bytesSaved = 0L; // Octets non réécrits : mises à jour delta, déplacements et liens
+
+    @Column
+    private Long filesConflicted; // Fichiers modifiés des deux côtés (synchronisation bidirectionnelle)
+
+    // Répartition du temps par étape (ms) ; les étapes des workers sont cumulées sur tous les threads
+    @Column
+    private Long walkMillis;
+
+    @Column
+    private Long detectMillis; // Hachage de vérification compris
+
+    @Column
+    private Long hashMillis;
+
+    @Column
+    private Long copyMillis;
+
+    @Column
+    private Long persistMillis;
+
+    @Column
+    private Long deleteMillis;
+
+    @Column
+    private Long throttledMillis; // Attente imposée par la limitation de débit, cumulée sur les workers
+
+    // Points de reprise : métadonnées validées au fil de l'exécution
+    @Column
+    private Long checkpointedFiles = 0L;
+
+    @Column(length = 1000)
+    private String resumeCursor; // Dernier chemin validé
+
+    @Column
+    private LocalDateTime lastCheckpoint;
+
+    @Column
+    private Long resumedFromId; // Exécution interrompue reprise par celle-ci
+
+    @Column
+    private LocalDateTime resumeSince; // Métadonnées validées depuis cette date : déjà vérifiées
+
     @Column(length = 2000)
     private String errorMessage;
 
     @Column(length = 5000)
     private String details;
 
+    @Column(length = 5000)
+    private String conflicts; // Chemins en conflit et décision appliquée, un par ligne (liste tronquée)
+
     public enum SyncStatus {
         RUNNING,
         COMPLETED,
@@ -0,0 +1,70 @@
+package com.sync.app.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Agrégat des exécutions d'une tâche sur une heure ou un jour. Les logs détaillés
+ * dépassant la durée de conservation y sont repliés, puis les agrégats horaires
+ * en agrégats journaliers (voir {@code SyncHistoryService}).
+ */
+@Entity
+@Table(name = "sync_log_rollups", indexes = {
+    @Index(name = "idx_rollup_task_bucket", columnList = "sync_task_id,granularity,bucket_start", unique = true)
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncLogRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "sync_task_id", nullable = false)
+    private SyncTask syncTask;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Granularity granularity;
+
+    @Column(nullable = false)
+    private LocalDateTime bucketStart; // Début de l'heure ou du jour agrégé
+
+    @Column(nullable = false)
+    private Long runs = 0L;
+
+    @Column(nullable = false)
+    private Long failedRuns = 0L; // Échecs et annulations
+
+    @Column(nullable = false)
+    private Long filesScanned = 0L;
+
+    @Column(nullable = false)
+    private Long filesCopied = 0L;
+
+    @Column(nullable = false)
+    private Long filesUpdated = 0L;
+
+    @Column(nullable = false)
+    private Long filesDeleted = 0L;
+
+    @Column(nullable = false)
+    private Long totalBytes = 0L;
+
+    @Column(nullable = false)
+    private Long totalDurationMillis = 0L;
+
+    @Column(nullable = false)
+    private Long maxDurationMillis = 0L;
+
+    public enum Granularity {
+        HOURLY,
+        DAILY
+    }
+}
@@ -6,12 +6,17 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * Entité représentant une tâche de synchronisation configurée par l'utilisateur.
  */
 @Entity
-@Table(name = "sync_tasks")
+@Table(name = "sync_tasks", indexes = {
+    // Chargement des échéances au démarrage du planificateur
+    @Index(name = "idx_sync_task_next", columnList = "active,next_sync_time"),
+    @Index(name = "idx_sync_task_primary", columnList = "primary_task_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -30,15 +35,71 @@ public class SyncTask {
     @Column(nullable = false)
     private String destinationPath;
 
+    @Column
+    private Long primaryTaskId; // Tâche dont celle-ci est une destination supplémentaire (null = tâche ordinaire)
+
+    @Transient
+    private List<String> replicaPaths; // Destinations supplémentaires, renseignées par SyncTaskService
+
     @Column(nullable = false)
     private Long intervalMinutes; // Intervalle en minutes entre chaque synchro
 
+    @Column
+    private Long intervalSeconds; // Intervalle en secondes, prioritaire sur intervalMinutes (null = en minutes)
+
     @Column(nullable = false)
     private Boolean active = true;
 
     @Column(nullable = false)
     private Boolean useChecksum = true; // Utiliser checksum pour détecter les changements
 
+    @Column
+    private Integer parallelism; // Nombre de workers de copie (null = valeur par défaut)
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private ChangeDetection changeDetection; // null = déduit de useChecksum
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10)
+    private HashAlgorithm hashAlgorithm; // null = algorithme par défaut de l'application
+
+    @Column
+    private Boolean deltaTransfer = false; // Mise à jour par blocs des gros fichiers
+
+    @Column
+    private Boolean realtime = false; // Synchronisation sur événements du système de fichiers
+
+    @Column
+    private Boolean directoryPruning = false; // Élagage des répertoires inchangés via l'index
+
+    @Column
+    private Boolean moveDetection = false; // Fichiers renommés ou déplacés dans la source : déplacés dans la destination
+
+    @Column
+    private Boolean hardLinkDedup = false; // Contenus identiques liés (lien physique) plutôt que recopiés
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private SyncMode syncMode; // null = MIRROR
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private ConflictPolicy conflictPolicy; // null = NEWEST_WINS
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10)
+    private Durability durability; // null = durabilité par défaut de l'application
+
+    @Column
+    private Long maxBytesPerSecond; // Débit maximal de lecture/écriture, null = illimité
+
+    @Column
+    private Integer maxFilesPerSecond; // Fichiers ouverts par seconde, null = illimité
+
+    @Column
+    private String fullSpeedHours; // Plages sans limite de débit, ex. "22:00-06:00,12:00-13:30"
+
     @Column
     private LocalDateTime lastSyncTime;
 
@@ -64,4 +125,49 @@ public class SyncTask {
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
     }
+
+    /**
+     * Stratégie de détection des fichiers modifiés.
+     */
+    public enum ChangeDetection {
+        METADATA,  // Taille et date de modification uniquement
+        SMART,     // Taille, date et fileKey ; checksum seulement en cas d'ambiguïté
+        CHECKSUM   // Checksum recalculé à chaque exécution
+    }
+
+    /**
+     * Sens de la synchronisation.
+     */
+    public enum SyncMode {
+        MIRROR,        // Source recopiée vers la destination
+        BIDIRECTIONAL  // Modifications propagées dans les deux sens depuis le dernier état synchronisé
+    }
+
+    /**
+     * Résolution d'un fichier modifié des deux côtés depuis la dernière synchronisation.
+     */
+    public enum ConflictPolicy {
+        NEWEST_WINS,  // La version la plus récente remplace l'autre
+        KEEP_BOTH,    // La version de la destination est conservée sous un nom « (conflit ...) »
+        MANUAL        // Aucun côté modifié, conflit signalé jusqu'à résolution par l'utilisateur
+    }
+
+    /**
+     * Garanties des écritures dans la destination, toujours faites dans un fichier temporaire
+     * renommé à sa place.
+     */
+    public enum Durability {
+        NONE,     // Renommage atomique seul, rien n'est forcé sur disque (fichier tronqué possible après une coupure)
+        BATCHED,  // fsync de chaque fichier avant son renommage, fsync des répertoires groupés
+        FULL      // fsync de chaque fichier avant son renommage, puis de son répertoire
+    }
+
+    /**
+     * Algorithme de calcul des checksums de fichiers.
+     */
+    public enum HashAlgorithm {
+        SHA_256,  // Cryptographique, historique
+        XXH64,    // Non cryptographique, 64 bits, très rapide
+        CRC32C    // Accéléré matériellement, 32 bits
+    }
 }
@@ -0,0 +1,60 @@
+package com.sync.app.repository;
+
+import com.sync.app.entity.DirectoryIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Écritures JDBC par lots sur la table directory_index, sur le modèle de
+ * {@link FileMetadataBatchRepository}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DirectoryIndexBatchRepository {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO directory_index (sync_task_id, dir_path, last_modified_nanos, file_key, file_count, "
+            + "files_digest, digest, child_directories, verified_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_SQL =
+        "UPDATE directory_index SET last_modified_nanos = ?, file_key = ?, file_count = ?, files_digest = ?, "
+            + "digest = ?, child_directories = ?, verified_at = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void batchInsert(List<DirectoryIndex> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(), (ps, di) -> {
+            ps.setLong(1, di.getSyncTask().getId());
+            ps.setString(2, di.getDirPath());
+            ps.setLong(3, di.getLastModifiedNanos());
+            ps.setString(4, di.getFileKey());
+            ps.setInt(5, di.getFileCount());
+            ps.setString(6, di.getFilesDigest());
+            ps.setString(7, di.getDigest());
+            ps.setString(8, di.getChildDirectories());
+            ps.setObject(9, di.getVerifiedAt());
+        });
+    }
+
+    public void batchUpdate(List<DirectoryIndex> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPDATE_SQL, rows, rows.size(), (ps, di) -> {
+            ps.setLong(1, di.getLastModifiedNanos());
+            ps.setString(2, di.getFileKey());
+            ps.setInt(3, di.getFileCount());
+            ps.setString(4, di.getFilesDigest());
+            ps.setString(5, di.getDigest());
+            ps.setString(6, di.getChildDirectories());
+            ps.setObject(7, di.getVerifiedAt());
+            ps.setLong(8, di.getId());
+        });
+    }
+}
@@ -0,0 +1,26 @@
+package com.sync.app.repository;
+
+import com.sync.app.entity.DirectoryIndex;
+import com.sync.app.entity.SyncTask;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DirectoryIndexRepository extends JpaRepository<DirectoryIndex, Long> {
+
+    List<DirectoryIndex> findBySyncTask(SyncTask syncTask);
+
+    @Modifying
+    @Query("DELETE FROM DirectoryIndex di WHERE di.syncTask = :syncTask AND di.dirPath IN :dirPaths")
+    int deleteByDirPaths(@Param("syncTask") SyncTask syncTask, @Param("dirPaths") Collection<String> dirPaths);
+
+    @Modifying
+    @Query("DELETE FROM DirectoryIndex di WHERE di.syncTask = :syncTask")
+    void deleteBySyncTask(@Param("syncTask") SyncTask syncTask);
+}
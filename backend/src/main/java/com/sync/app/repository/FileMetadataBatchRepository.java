@@ -0,0 +1,125 @@
+package com.sync.app.repository;
+
+import com.sync.app.entity.FileMetadata;
+import com.sync.app.entity.SyncTask;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Lectures et écritures JDBC par lots sur la table file_metadata.
+ * Contourne le contexte de persistance JPA pour les synchros volumineuses :
+ * l'identifiant IDENTITY empêche Hibernate de regrouper les insertions.
+ */
+@Repository
+@RequiredArgsConstructor
+public class FileMetadataBatchRepository {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO file_metadata (sync_task_id, file_path, file_size, last_modified, last_modified_nanos, file_key, "
+            + "checksum, checksum_algorithm, last_synced, is_directory) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_SQL =
+        "UPDATE file_metadata SET file_size = ?, last_modified = ?, last_modified_nanos = ?, file_key = ?, "
+            + "checksum = ?, checksum_algorithm = ?, last_synced = ?, is_directory = ? WHERE id = ?";
+
+    private static final String SELECT_BY_TASK_SQL =
+        "SELECT id, file_path, file_size, last_modified, last_modified_nanos, file_key, checksum, checksum_algorithm, "
+            + "last_synced FROM file_metadata WHERE sync_task_id = ?";
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Parcourt les métadonnées d'une tâche ligne à ligne, sans les retenir : chaque ligne
+     * est un objet détaché, hors contexte de persistance (relation vers la tâche non renseignée).
+     */
+    public void forEachBySyncTask(Long syncTaskId, Consumer<FileMetadata> action) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_BY_TASK_SQL);
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setLong(1, syncTaskId);
+            return ps;
+        }, rs -> {
+            FileMetadata metadata = new FileMetadata();
+            metadata.setId(rs.getLong("id"));
+            metadata.setFilePath(rs.getString("file_path"));
+            metadata.setFileSize(rs.getLong("file_size"));
+            metadata.setLastModified(rs.getObject("last_modified", LocalDateTime.class));
+            metadata.setLastModifiedNanos(rs.getObject("last_modified_nanos", Long.class));
+            metadata.setFileKey(rs.getString("file_key"));
+            metadata.setChecksum(rs.getString("checksum"));
+            String algorithm = rs.getString("checksum_algorithm");
+            metadata.setChecksumAlgorithm(algorithm != null ? SyncTask.HashAlgorithm.valueOf(algorithm) : null);
+            metadata.setLastSynced(rs.getObject("last_synced", LocalDateTime.class));
+            action.accept(metadata);
+        });
+    }
+
+    /**
+     * Insère les lignes et leur attribue l'identifiant généré, pour le cache des métadonnées.
+     */
+    public void batchInsert(List<FileMetadata> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    FileMetadata fm = rows.get(i);
+                    ps.setLong(1, fm.getSyncTask().getId());
+                    ps.setString(2, fm.getFilePath());
+                    ps.setLong(3, fm.getFileSize());
+                    ps.setObject(4, fm.getLastModified());
+                    ps.setObject(5, fm.getLastModifiedNanos());
+                    ps.setString(6, fm.getFileKey());
+                    ps.setString(7, fm.getChecksum());
+                    ps.setString(8, fm.getChecksumAlgorithm() != null ? fm.getChecksumAlgorithm().name() : null);
+                    ps.setObject(9, fm.getLastSynced());
+                    ps.setBoolean(10, Boolean.TRUE.equals(fm.getIsDirectory()));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return rows.size();
+                }
+            }, keys);
+
+        List<Map<String, Object>> generated = keys.getKeyList();
+        for (int i = 0; i < rows.size() && i < generated.size(); i++) {
+            Object id = generated.get(i).values().iterator().next();
+            rows.get(i).setId(((Number) id).longValue());
+        }
+    }
+
+    public void batchUpdate(List<FileMetadata> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPDATE_SQL, rows, rows.size(), (ps, fm) -> {
+            ps.setLong(1, fm.getFileSize());
+            ps.setObject(2, fm.getLastModified());
+            ps.setObject(3, fm.getLastModifiedNanos());
+            ps.setString(4, fm.getFileKey());
+            ps.setString(5, fm.getChecksum());
+            ps.setString(6, fm.getChecksumAlgorithm() != null ? fm.getChecksumAlgorithm().name() : null);
+            ps.setObject(7, fm.getLastSynced());
+            ps.setBoolean(8, Boolean.TRUE.equals(fm.getIsDirectory()));
+            ps.setLong(9, fm.getId());
+        });
+    }
+}
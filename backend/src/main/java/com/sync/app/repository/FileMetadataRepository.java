@@ -3,6 +3,9 @@ package com.sync.app.repository;
 import com.sync.app.entity.FileMetadata;
 import com.sync.app.entity.SyncTask;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -15,5 +18,9 @@ public interface FileMetadataRepository extends JpaRepository<FileMetadata, Long
 
     List<FileMetadata> findBySyncTask(SyncTask syncTask);
 
-    void deleteBySyncTask(SyncTask syncTask);
+    List<FileMetadata> findBySyncTaskAndFilePathStartingWith(SyncTask syncTask, String prefix);
+
+    @Modifying
+    @Query("DELETE FROM FileMetadata fm WHERE fm.syncTask = :syncTask")
+    void deleteBySyncTask(@Param("syncTask") SyncTask syncTask);
 }
@@ -0,0 +1,26 @@
+package com.sync.app.repository;
+
+import com.sync.app.entity.FileSignature;
+import com.sync.app.entity.SyncTask;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface FileSignatureRepository extends JpaRepository<FileSignature, Long> {
+
+    Optional<FileSignature> findBySyncTaskIdAndFilePath(Long syncTaskId, String filePath);
+
+    @Modifying
+    @Query("DELETE FROM FileSignature fs WHERE fs.syncTask = :syncTask AND NOT EXISTS "
+        + "(SELECT 1 FROM FileMetadata fm WHERE fm.syncTask = fs.syncTask AND fm.filePath = fs.filePath)")
+    int deleteOrphans(@Param("syncTask") SyncTask syncTask);
+
+    @Modifying
+    @Query("DELETE FROM FileSignature fs WHERE fs.syncTask = :syncTask")
+    void deleteBySyncTask(@Param("syncTask") SyncTask syncTask);
+}
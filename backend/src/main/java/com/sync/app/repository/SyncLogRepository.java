@@ -1,20 +1,78 @@
 package com.sync.app.repository;
 
+import com.sync.app.dto.SyncLogDto;
 import com.sync.app.entity.SyncLog;
 import com.sync.app.entity.SyncTask;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface SyncLogRepository extends JpaRepository<SyncLog, Long> {
 
-    Page<SyncLog> findBySyncTaskOrderByStartTimeDesc(SyncTask syncTask, Pageable pageable);
-
     List<SyncLog> findTop10BySyncTaskOrderByStartTimeDesc(SyncTask syncTask);
 
-    Page<SyncLog> findAllByOrderByStartTimeDesc(Pageable pageable);
+    List<SyncLog> findBySyncTaskAndStartTimeGreaterThanEqual(SyncTask syncTask, LocalDateTime from);
+
+    /**
+     * Projection des logs en DTO, nom de la tâche compris par jointure : une seule requête par page,
+     * sans charger les entités ni leur tâche.
+     */
+    String SELECT_DTO = "SELECT new com.sync.app.dto.SyncLogDto(sl.id, t.id, t.name, sl.startTime, sl.endTime, "
+        + "sl.status, sl.filesScanned, sl.filesCopied, sl.filesUpdated, sl.filesDeleted, sl.filesSkipped, "
+        + "sl.totalBytes, sl.blocksRewritten, sl.bytesSaved, sl.filesConflicted, sl.walkMillis, sl.detectMillis, "
+        + "sl.hashMillis, sl.copyMillis, sl.persistMillis, sl.deleteMillis, sl.throttledMillis, sl.checkpointedFiles, "
+        + "sl.resumeCursor, sl.lastCheckpoint, sl.resumedFromId, sl.errorMessage, sl.details, sl.conflicts) "
+        + "FROM SyncLog sl JOIN sl.syncTask t ";
+
+    String PAGE_ORDER = " ORDER BY sl.startTime DESC, sl.id DESC";
+
+    // Pagination par curseur (startTime, id) : chaque page est une lecture d'index, quelle que soit sa position
+
+    @Query(SELECT_DTO + PAGE_ORDER)
+    List<SyncLogDto> findDtoPage(Pageable pageable);
+
+    @Query(SELECT_DTO + "WHERE sl.startTime < :startTime OR (sl.startTime = :startTime AND sl.id < :id)" + PAGE_ORDER)
+    List<SyncLogDto> findDtoPageBefore(@Param("startTime") LocalDateTime startTime, @Param("id") Long id,
+                                       Pageable pageable);
+
+    @Query(SELECT_DTO + "WHERE t.id = :taskId" + PAGE_ORDER)
+    List<SyncLogDto> findDtoPageByTask(@Param("taskId") Long taskId, Pageable pageable);
+
+    @Query(SELECT_DTO + "WHERE t.id = :taskId "
+        + "AND (sl.startTime < :startTime OR (sl.startTime = :startTime AND sl.id < :id))" + PAGE_ORDER)
+    List<SyncLogDto> findDtoPageByTaskBefore(@Param("taskId") Long taskId, @Param("startTime") LocalDateTime startTime,
+                                             @Param("id") Long id, Pageable pageable);
+
+    @Query(SELECT_DTO + "WHERE sl.id = :id")
+    Optional<SyncLogDto> findDtoById(@Param("id") Long id);
+
+    /**
+     * Logs terminés avant {@code cutoff}, sauf le dernier de chaque tâche (point de reprise éventuel).
+     */
+    @Query("SELECT sl FROM SyncLog sl WHERE sl.startTime < :cutoff AND sl.status <> :running "
+        + "AND sl.id < (SELECT MAX(l2.id) FROM SyncLog l2 WHERE l2.syncTask = sl.syncTask) ORDER BY sl.id")
+    List<SyncLog> findExpired(@Param("cutoff") LocalDateTime cutoff, @Param("running") SyncLog.SyncStatus running,
+                              Pageable pageable);
+
+    List<SyncLog> findByStatus(SyncLog.SyncStatus status);
+
+    Optional<SyncLog> findFirstBySyncTaskOrderByStartTimeDesc(SyncTask syncTask);
+
+    @Modifying
+    @Query("UPDATE SyncLog sl SET sl.checkpointedFiles = :files, sl.resumeCursor = :cursor, "
+        + "sl.lastCheckpoint = :checkpointTime WHERE sl.id = :id")
+    void updateCheckpoint(@Param("id") Long id, @Param("files") Long files, @Param("cursor") String cursor,
+                          @Param("checkpointTime") LocalDateTime checkpointTime);
+
+    @Modifying
+    @Query("DELETE FROM SyncLog sl WHERE sl.syncTask = :syncTask")
+    void deleteBySyncTask(@Param("syncTask") SyncTask syncTask);
 }
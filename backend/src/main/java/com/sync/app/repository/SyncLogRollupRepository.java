@@ -0,0 +1,30 @@
+package com.sync.app.repository;
+
+import com.sync.app.entity.SyncLogRollup;
+import com.sync.app.entity.SyncTask;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SyncLogRollupRepository extends JpaRepository<SyncLogRollup, Long> {
+
+    List<SyncLogRollup> findBySyncTaskAndGranularityAndBucketStartBetween(
+        SyncTask syncTask, SyncLogRollup.Granularity granularity, LocalDateTime from, LocalDateTime to);
+
+    List<SyncLogRollup> findBySyncTaskAndGranularityAndBucketStartGreaterThanEqualOrderByBucketStart(
+        SyncTask syncTask, SyncLogRollup.Granularity granularity, LocalDateTime from);
+
+    List<SyncLogRollup> findByGranularityAndBucketStartBeforeOrderById(
+        SyncLogRollup.Granularity granularity, LocalDateTime cutoff, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM SyncLogRollup r WHERE r.syncTask = :syncTask")
+    void deleteBySyncTask(@Param("syncTask") SyncTask syncTask);
+}
@@ -4,7 +4,6 @@ import com.sync.app.entity.SyncTask;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -12,5 +11,13 @@ public interface SyncTaskRepository extends JpaRepository<SyncTask, Long> {
 
     List<SyncTask> findByActiveTrue();
 
-    List<SyncTask> findByActiveTrueAndNextSyncTimeBefore(LocalDateTime dateTime);
+    List<SyncTask> findByActiveTrueOrderByNextSyncTimeAsc();
+
+    List<SyncTask> findByPrimaryTaskIdIsNull();
+
+    // Destinations supplémentaires, dans l'ordre de leur création
+
+    List<SyncTask> findByPrimaryTaskIdOrderByIdAsc(Long primaryTaskId);
+
+    List<SyncTask> findByPrimaryTaskIdIsNotNullOrderByIdAsc();
 }
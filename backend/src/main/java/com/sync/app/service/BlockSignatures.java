@@ -0,0 +1,120 @@
+package com.sync.app.service;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Empreintes XXH64 des blocs de taille fixe d'un fichier.
+ */
+public final class BlockSignatures {
+
+    private static final VarHandle LONG_LE =
+        MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final int blockSize;
+    private final long fileSize;
+    private final long[] hashes;
+
+    private BlockSignatures(int blockSize, long fileSize, long[] hashes) {
+        this.blockSize = blockSize;
+        this.fileSize = fileSize;
+        this.hashes = hashes;
+    }
+
+    public static BlockSignatures fromBytes(int blockSize, long fileSize, byte[] bytes) {
+        long[] hashes = new long[bytes.length / Long.BYTES];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = (long) LONG_LE.get(bytes, i * Long.BYTES);
+        }
+        return new BlockSignatures(blockSize, fileSize, hashes);
+    }
+
+    public byte[] toBytes() {
+        byte[] bytes = new byte[hashes.length * Long.BYTES];
+        for (int i = 0; i < hashes.length; i++) {
+            LONG_LE.set(bytes, i * Long.BYTES, hashes[i]);
+        }
+        return bytes;
+    }
+
+    public int blockSize() {
+        return blockSize;
+    }
+
+    public long fileSize() {
+        return fileSize;
+    }
+
+    public int blockCount() {
+        return hashes.length;
+    }
+
+    /**
+     * Vrai si le bloc {@code index} avait déjà cette empreinte et cette longueur.
+     */
+    boolean matches(int index, long hash, int length) {
+        if (index >= hashes.length || hashes[index] != hash) {
+            return false;
+        }
+        long blockLength = Math.min(blockSize, fileSize - (long) index * blockSize);
+        return blockLength == length;
+    }
+
+    /**
+     * Construit une signature, soit à partir d'un flux d'octets quelconque
+     * ({@link #update}), soit bloc par bloc ({@link #add}).
+     */
+    public static final class Builder {
+
+        private final int blockSize;
+        private final XxHash64 current = new XxHash64();
+        private long[] hashes = new long[16];
+        private int count;
+        private int currentLength;
+        private long fileSize;
+
+        public Builder(int blockSize) {
+            this.blockSize = blockSize;
+        }
+
+        public int blockSize() {
+            return blockSize;
+        }
+
+        public void update(ByteBuffer buffer) {
+            while (buffer.hasRemaining()) {
+                int length = Math.min(blockSize - currentLength, buffer.remaining());
+                ByteBuffer slice = buffer.duplicate();
+                slice.limit(slice.position() + length);
+                current.update(slice);
+                buffer.position(buffer.position() + length);
+                currentLength += length;
+                if (currentLength == blockSize) {
+                    add(current.getValue(), blockSize);
+                    current.reset();
+                    currentLength = 0;
+                }
+            }
+        }
+
+        void add(long hash, int length) {
+            if (count == hashes.length) {
+                hashes = Arrays.copyOf(hashes, count * 2);
+            }
+            hashes[count++] = hash;
+            fileSize += length;
+        }
+
+        public BlockSignatures build() {
+            if (currentLength > 0) {
+                add(current.getValue(), currentLength);
+                current.reset();
+                currentLength = 0;
+            }
+            return new BlockSignatures(blockSize, fileSize, Arrays.copyOf(hashes, count));
+        }
+    }
+}
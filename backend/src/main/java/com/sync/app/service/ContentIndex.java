@@ -0,0 +1,88 @@
+package com.sync.app.service;
+
+import com.sync.app.entity.SyncTask;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fichiers de la destination réutilisables pour les nouveaux fichiers d'une exécution, par contenu :
+ * orphelins (chemin disparu de la source) pouvant être déplacés, et copies existantes pouvant être
+ * liées. Limité aux tailles des nouveaux fichiers. Rempli par le thread de parcours, puis consulté
+ * par les workers ; un orphelin n'est déplacé qu'une fois ({@link #claim}).
+ */
+final class ContentIndex {
+
+    /**
+     * Fichier de la destination, tel qu'enregistré lors de sa copie.
+     *
+     * @param modifiedNanos date de modification attendue dans la destination, en ns depuis l'epoch
+     */
+    record Candidate(String relativePath, long size, long modifiedNanos, FileState state) {
+    }
+
+    private record ContentKey(long size, String checksum) {
+    }
+
+    private final SyncTask.HashAlgorithm algorithm;
+    private final Map<Long, List<Candidate>> orphans = new HashMap<>();
+    private final Map<ContentKey, Candidate> copies = new ConcurrentHashMap<>();
+    private final Set<String> claimed = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param algorithm algorithme des empreintes comparées pour les liens (celui de la tâche)
+     */
+    ContentIndex(SyncTask.HashAlgorithm algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * Fichier connu dont le chemin a disparu de la source : déplaçable vers un nouveau chemin.
+     */
+    void addOrphan(String relativePath, FileState state) {
+        if (state.preciseModified()) {
+            orphans.computeIfAbsent(state.size(), size -> new ArrayList<>())
+                .add(new Candidate(relativePath, state.size(), state.modifiedNanos(), state));
+        }
+    }
+
+    /**
+     * Fichier connu toujours présent dans la source : cible possible d'un lien s'il a une empreinte
+     * de l'algorithme de la tâche.
+     */
+    void addCopy(String relativePath, FileState state) {
+        SyncTask.HashAlgorithm recorded = state.checksumAlgorithm() != null
+            ? state.checksumAlgorithm()
+            : SyncTask.HashAlgorithm.SHA_256;
+        if (state.preciseModified() && state.checksum() != null && recorded == algorithm) {
+            copies.putIfAbsent(new ContentKey(state.size(), state.checksumHex()),
+                new Candidate(relativePath, state.size(), state.modifiedNanos(), state));
+        }
+    }
+
+    /**
+     * Fichier copié pendant l'exécution (appelé par les workers).
+     */
+    void addCopy(String relativePath, long size, long modifiedNanos, String checksum) {
+        copies.putIfAbsent(new ContentKey(size, checksum), new Candidate(relativePath, size, modifiedNanos, null));
+    }
+
+    List<Candidate> orphans(long size) {
+        return orphans.getOrDefault(size, List.of());
+    }
+
+    /**
+     * Réserve un orphelin pour un déplacement ; faux s'il a déjà été réservé.
+     */
+    boolean claim(Candidate orphan) {
+        return claimed.add(orphan.relativePath());
+    }
+
+    Candidate copyOf(long size, String checksum) {
+        return copies.get(new ContentKey(size, checksum));
+    }
+}
@@ -0,0 +1,267 @@
+package com.sync.app.service;
+
+import com.sync.app.entity.DirectoryIndex;
+import com.sync.app.entity.SyncTask;
+import com.sync.app.repository.DirectoryIndexBatchRepository;
+import com.sync.app.repository.DirectoryIndexRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Maintient l'index des répertoires ({@link DirectoryIndex}) pendant un parcours complet
+ * et décide quels répertoires peuvent être élagués.
+ * <p>
+ * Un répertoire est élagué quand sa date de modification et son inode sont ceux de l'index,
+ * que cette date précède nettement la dernière lecture du répertoire et que cette lecture
+ * date de moins de {@code maxAge} : ses fichiers ne sont alors ni listés ni comparés, seuls
+ * ses sous-répertoires connus sont visités. La date d'un répertoire ne reflète pas les
+ * modifications en place de ses fichiers : celles-ci sont rattrapées au plus tard à
+ * l'expiration de {@code maxAge}, ou immédiatement en mode temps réel.
+ * <p>
+ * Les lignes ne sont écrites qu'à la fin d'un parcours réussi ({@link #flush()}) : une
+ * exécution interrompue ne doit pas laisser élaguer un répertoire dont les copies n'ont
+ * pas abouti.
+ * <p>
+ * Non thread-safe : utilisé uniquement par le thread de parcours.
+ */
+class DirectoryIndexer {
+
+    private static final char SEPARATOR = '\n';
+
+    private final DirectoryIndexRepository repository;
+    private final DirectoryIndexBatchRepository batchRepository;
+    private final SyncTask syncTask;
+    private final long granularityNanos;
+    private final LocalDateTime trustedSince;
+    private final int batchSize;
+
+    private final Map<String, DirectoryIndex> existing = new HashMap<>();
+    private final Deque<Node> stack = new ArrayDeque<>();
+    private final Set<String> prunedDirectories = new HashSet<>();
+    private final List<DirectoryIndex> inserts = new ArrayList<>();
+    private final List<DirectoryIndex> updates = new ArrayList<>();
+    private final XxHash64 hash = new XxHash64();
+    private String rootDigest;
+    private long prunedFileCount;
+
+    DirectoryIndexer(DirectoryIndexRepository repository, DirectoryIndexBatchRepository batchRepository,
+                     SyncTask syncTask, long granularityMillis, LocalDateTime trustedSince, int batchSize) {
+        this.repository = repository;
+        this.batchRepository = batchRepository;
+        this.syncTask = syncTask;
+        this.granularityNanos = granularityMillis * 1_000_000L;
+        this.trustedSince = trustedSince;
+        this.batchSize = Math.max(1, batchSize);
+        repository.findBySyncTask(syncTask).forEach(di -> existing.put(di.getDirPath(), di));
+    }
+
+    /**
+     * Renvoie les sous-répertoires connus de {@code dir} si son contenu peut être repris
+     * de l'index sans relecture, ou null s'il doit être parcouru normalement.
+     */
+    List<String> prunableChildren(String relativePath, Path dir, BasicFileAttributes attrs, Path destDir) {
+        DirectoryIndex index = existing.get(relativePath);
+        if (index == null || index.getChildDirectories() == null) {
+            return null;
+        }
+
+        long modifiedNanos = FileMetadataWriter.epochNanos(attrs.lastModifiedTime());
+        if (index.getLastModifiedNanos() != modifiedNanos) {
+            return null;
+        }
+        if (attrs.fileKey() != null && !attrs.fileKey().toString().equals(index.getFileKey())) {
+            return null;
+        }
+        if (index.getVerifiedAt().isBefore(trustedSince)) {
+            return null;
+        }
+        // Modifié trop près de la lecture : une entrée a pu être ajoutée dans le même pas d'horloge
+        long verifiedNanos = FileMetadataWriter.epochNanos(FileTime.from(
+            index.getVerifiedAt().atZone(ZoneId.systemDefault()).toInstant()));
+        if (verifiedNanos - modifiedNanos < granularityNanos) {
+            return null;
+        }
+        if (!Files.isDirectory(destDir)) {
+            return null;
+        }
+
+        List<String> children = splitNames(index.getChildDirectories());
+        for (String child : children) {
+            if (!Files.isDirectory(dir.resolve(child), LinkOption.NOFOLLOW_LINKS)) {
+                return null;
+            }
+        }
+        return children;
+    }
+
+    /**
+     * Ouvre un répertoire ; {@code pruned} indique que ses fichiers sont repris de l'index.
+     * {@code listedAt} (début de la lecture de son contenu, qui peut précéder l'appel) sert
+     * de date de vérification.
+     */
+    void enterDirectory(String relativePath, Path dir, BasicFileAttributes attrs, boolean pruned,
+                        LocalDateTime listedAt) {
+        if (pruned) {
+            prunedDirectories.add(relativePath);
+            prunedFileCount += existing.get(relativePath).getFileCount();
+        }
+        stack.push(new Node(relativePath, dir.getFileName() != null ? dir.getFileName().toString() : "",
+            attrs, pruned ? existing.get(relativePath) : null, listedAt != null ? listedAt : LocalDateTime.now()));
+    }
+
+    void addFile(Path file, BasicFileAttributes attrs) {
+        Node node = stack.peek();
+        if (node != null) {
+            node.files.add(file.getFileName() + "\0" + attrs.size() + "\0"
+                + FileMetadataWriter.epochNanos(attrs.lastModifiedTime()));
+        }
+    }
+
+    /**
+     * Ferme le répertoire courant : calcule son digest, le remonte au parent et
+     * planifie l'écriture de sa ligne d'index si elle a changé.
+     */
+    void exitDirectory() {
+        Node node = stack.pop();
+        DirectoryIndex previous = existing.remove(node.relativePath);
+
+        int fileCount;
+        String filesDigest;
+        if (node.index != null) {
+            fileCount = node.index.getFileCount();
+            filesDigest = node.index.getFilesDigest();
+        } else {
+            Collections.sort(node.files);
+            fileCount = node.files.size();
+            filesDigest = digest(node.files);
+        }
+
+        List<String> subdirectoryEntries = new ArrayList<>(node.subdirectories.size());
+        boolean indexable = true;
+        for (Map.Entry<String, String> child : node.subdirectories.entrySet()) {
+            subdirectoryEntries.add(child.getKey() + "\0" + child.getValue());
+            indexable &= child.getKey().indexOf(SEPARATOR) < 0;
+        }
+        List<String> entries = new ArrayList<>(subdirectoryEntries.size() + 1);
+        entries.add(filesDigest);
+        entries.addAll(subdirectoryEntries);
+        String digest = digest(entries);
+        String childDirectories = indexable ? String.join(String.valueOf(SEPARATOR), node.subdirectories.keySet()) : null;
+
+        Node parent = stack.peek();
+        if (parent != null) {
+            parent.subdirectories.put(node.name, digest);
+        } else {
+            rootDigest = digest;
+        }
+
+        if (node.index != null && digest.equals(previous.getDigest())
+            && Objects.equals(childDirectories, previous.getChildDirectories())) {
+            return; // Élagué et inchangé : rien à réécrire
+        }
+
+        DirectoryIndex row = new DirectoryIndex();
+        row.setSyncTask(syncTask);
+        row.setDirPath(node.relativePath);
+        row.setLastModifiedNanos(FileMetadataWriter.epochNanos(node.attrs.lastModifiedTime()));
+        row.setFileKey(node.attrs.fileKey() != null ? node.attrs.fileKey().toString() : null);
+        row.setFileCount(fileCount);
+        row.setFilesDigest(filesDigest);
+        row.setDigest(digest);
+        row.setChildDirectories(childDirectories);
+        // Un répertoire élagué n'a pas été relu : sa date de vérification ne change pas
+        row.setVerifiedAt(node.index != null ? node.index.getVerifiedAt() : node.enteredAt);
+
+        if (previous == null) {
+            inserts.add(row);
+        } else {
+            row.setId(previous.getId());
+            updates.add(row);
+        }
+    }
+
+    boolean isPruned(String relativeDirectory) {
+        return prunedDirectories.contains(relativeDirectory);
+    }
+
+    long prunedFileCount() {
+        return prunedFileCount;
+    }
+
+    int prunedCount() {
+        return prunedDirectories.size();
+    }
+
+    String rootDigest() {
+        return rootDigest;
+    }
+
+    /**
+     * Écrit les lignes en attente et supprime celles des répertoires qui n'ont pas été vus.
+     * À n'appeler qu'à l'issue d'un parcours complet réussi.
+     */
+    void flush() {
+        for (int from = 0; from < inserts.size(); from += batchSize) {
+            batchRepository.batchInsert(inserts.subList(from, Math.min(inserts.size(), from + batchSize)));
+        }
+        for (int from = 0; from < updates.size(); from += batchSize) {
+            batchRepository.batchUpdate(updates.subList(from, Math.min(updates.size(), from + batchSize)));
+        }
+        inserts.clear();
+        updates.clear();
+        if (!existing.isEmpty()) {
+            List<Long> ids = existing.values().stream().map(DirectoryIndex::getId).toList();
+            for (int from = 0; from < ids.size(); from += batchSize) {
+                repository.deleteAllByIdInBatch(ids.subList(from, Math.min(ids.size(), from + batchSize)));
+            }
+            existing.clear();
+        }
+    }
+
+    private String digest(List<String> entries) {
+        hash.reset();
+        for (String entry : entries) {
+            byte[] bytes = entry.getBytes(StandardCharsets.UTF_8);
+            hash.update(bytes, 0, bytes.length);
+            hash.update(SEPARATOR);
+        }
+        return FileHashers.toHex(hash.getValue(), 16);
+    }
+
+    private static List<String> splitNames(String names) {
+        if (names.isEmpty()) {
+            return List.of();
+        }
+        return Arrays.asList(names.split(String.valueOf(SEPARATOR), -1));
+    }
+
+    /**
+     * Répertoire en cours de parcours.
+     */
+    private static final class Node {
+        final String relativePath;
+        final String name;
+        final BasicFileAttributes attrs;
+        final DirectoryIndex index;
+        final LocalDateTime enteredAt;
+        final List<String> files = new ArrayList<>();
+        final SortedMap<String, String> subdirectories = new TreeMap<>();
+
+        Node(String relativePath, String name, BasicFileAttributes attrs, DirectoryIndex index,
+             LocalDateTime enteredAt) {
+            this.relativePath = relativePath;
+            this.name = name;
+            this.attrs = attrs;
+            this.index = index;
+            this.enteredAt = enteredAt;
+        }
+    }
+}
@@ -0,0 +1,549 @@
+package com.sync.app.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Copie et lecture de fichiers via NIO. La stratégie dépend de la taille du fichier :
+ * <ul>
+ *   <li>copie simple : {@link FileChannel#transferTo}, sans passage par le heap ;</li>
+ *   <li>copie avec checksum : buffer direct, ou projection mémoire au-delà de {@code mmap-threshold},
+ *       le checksum étant calculé sur les octets écrits.</li>
+ * </ul>
+ * Chaque bloc (ou région projetée) est un point de contrôle pour l'annulation et la pause
+ * de la synchronisation en cours ({@link SyncControl}), et le point où s'applique sa limite
+ * de débit ; l'ouverture de chaque fichier est décomptée de sa limite de fichiers/s.
+ * <p>
+ * Une copie complète n'écrit jamais directement la destination : elle écrit un fichier temporaire
+ * du même répertoire ({@code .<nom>.<id>.synctmp}, propre à cette écriture), y reporte les
+ * attributs, puis le renomme à sa place
+ * de façon atomique. Un lecteur, ou la reprise après un arrêt brutal, voit l'ancienne version ou
+ * la nouvelle, jamais un fichier à moitié écrit. Les fsync dépendent de la durabilité de
+ * l'exécution ({@link SyncDurability}).
+ */
+@Component
+public class FileCopier {
+
+    // Un buffer direct par worker, réutilisé d'un fichier à l'autre
+    private final ThreadLocal<ByteBuffer> directBuffers = new ThreadLocal<>();
+
+    @Value("${sync.chunk-size:1048576}")
+    private int chunkSize;
+
+    @Value("${sync.copy.mmap-threshold:67108864}")
+    private long mmapThreshold;
+
+    @Value("${sync.copy.mmap-region-size:67108864}")
+    private long mmapRegionSize;
+
+    private static final String STAGING_SUFFIX = ".synctmp";
+
+    // Identifiant aléatoire de chaque fichier temporaire, en hexadécimal
+    private static final int STAGING_ID_LENGTH = 8;
+
+    private static final int MAX_STAGING_ATTEMPTS = 8;
+
+    // Au-delà, le nom est tronqué dans le nom temporaire (limite de 255 octets des systèmes de fichiers)
+    private static final int MAX_STAGED_NAME_BYTES = 200;
+
+    /**
+     * Vrai pour un fichier temporaire de copie ({@code .<nom>.<id>.synctmp}).
+     */
+    static boolean isStagingFile(String name) {
+        int end = name.length() - STAGING_SUFFIX.length();
+        int start = end - STAGING_ID_LENGTH;
+        if (start < 2 || name.charAt(0) != '.' || name.charAt(start - 1) != '.' || !name.endsWith(STAGING_SUFFIX)) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            char c = name.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copie un fichier sans calcul de checksum, puis reporte date et permissions.
+     */
+    public void copy(Path source, Path dest, BasicFileAttributes attrs) throws IOException {
+        SyncControl.checkCurrentFile();
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            writeStaged(source, dest, attrs, out -> {
+                long size = in.size();
+                long position = 0;
+                while (position < size) {
+                    long count = Math.min(chunkSize, size - position);
+                    SyncControl.checkCurrent(count);
+                    long transferred = in.transferTo(position, count, out);
+                    if (transferred <= 0) {
+                        break; // Fichier tronqué pendant la copie
+                    }
+                    position += transferred;
+                }
+            });
+        }
+    }
+
+    /**
+     * Copie un fichier en calculant son checksum sur les mêmes octets, en une seule lecture.
+     */
+    public String copyAndHash(Path source, Path dest, BasicFileAttributes attrs, FileHasher hasher) throws IOException {
+        return copyAndHash(source, dest, attrs, hasher, null);
+    }
+
+    /**
+     * Variante qui calcule aussi, dans la même lecture, la signature par blocs du fichier.
+     */
+    public String copyAndHash(Path source, Path dest, BasicFileAttributes attrs, FileHasher hasher,
+                              BlockSignatures.Builder blocks) throws IOException {
+        SyncControl.checkCurrentFile();
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            writeStaged(source, dest, attrs, out -> {
+                long size = in.size();
+                if (size >= mmapThreshold) {
+                    copyMapped(in, out, size, hasher, blocks);
+                } else {
+                    copyBuffered(in, out, hasher, blocks);
+                }
+            });
+        }
+        return hasher.digestHex();
+    }
+
+    /**
+     * Copie un fichier vers plusieurs destinations en une seule lecture, en calculant au passage
+     * son checksum si {@code hasher} n'est pas null. Chaque bloc lu est écrit dans toutes les
+     * destinations (chacune via son fichier temporaire) ; la limite de débit porte sur la lecture.
+     * Une destination en échec (ouverture, écriture, attributs ou renommage) est abandonnée sans
+     * interrompre les autres.
+     *
+     * @return le checksum, et pour chaque destination l'erreur rencontrée ou null
+     * @throws IOException si la source ne peut pas être lue, ou si toutes les destinations ont échoué
+     */
+    public FanOutResult copyToAll(Path source, List<Path> dests, BasicFileAttributes attrs,
+                                  FileHasher hasher) throws IOException {
+        IOException[] failures = new IOException[dests.size()];
+        FileChannel[] outs = new FileChannel[dests.size()];
+        Path[] stagings = new Path[dests.size()];
+        SyncDurability durability = SyncControl.currentDurability();
+        SyncControl.checkCurrentFile();
+        try {
+            fanOut(source, outs, stagings, dests, failures, hasher, durability);
+        } catch (IOException | RuntimeException e) {
+            for (Path staging : stagings) {
+                deleteStaging(staging);
+            }
+            throw e;
+        }
+
+        boolean copied = false;
+        for (int i = 0; i < failures.length; i++) {
+            if (failures[i] == null) {
+                try {
+                    copyAttributes(source, stagings[i], attrs);
+                    commit(stagings[i], dests.get(i), durability);
+                    copied = true;
+                } catch (IOException e) {
+                    failures[i] = e;
+                }
+            }
+            if (failures[i] != null) {
+                deleteStaging(stagings[i]);
+            }
+        }
+        if (!copied && failures.length > 0) {
+            throw failures[0];
+        }
+        return new FanOutResult(hasher != null ? hasher.digestHex() : null, Arrays.asList(failures));
+    }
+
+    /**
+     * Lecture unique de la source et écriture des fichiers temporaires de {@link #copyToAll}.
+     */
+    private void fanOut(Path source, FileChannel[] outs, Path[] stagings, List<Path> dests, IOException[] failures,
+                        FileHasher hasher, SyncDurability durability) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            for (int i = 0; i < outs.length; i++) {
+                try {
+                    Staging staging = openStaging(dests.get(i));
+                    stagings[i] = staging.path();
+                    outs[i] = staging.channel();
+                } catch (IOException e) {
+                    failures[i] = e;
+                }
+            }
+            long size = in.size();
+            if (size >= mmapThreshold) {
+                for (long position = 0; position < size && writeToAll(outs, failures, null); position += mmapRegionSize) {
+                    long length = Math.min(mmapRegionSize, size - position);
+                    SyncControl.checkCurrent(length);
+                    MappedByteBuffer region = in.map(FileChannel.MapMode.READ_ONLY, position, length);
+                    if (hasher != null) {
+                        hasher.update(region.duplicate());
+                    }
+                    writeToAll(outs, failures, region);
+                }
+            } else {
+                ByteBuffer buffer = directBuffer();
+                while (writeToAll(outs, failures, null) && in.read(buffer) != -1) {
+                    buffer.flip();
+                    SyncControl.checkCurrent(buffer.remaining());
+                    if (hasher != null) {
+                        hasher.update(buffer.duplicate());
+                    }
+                    writeToAll(outs, failures, buffer);
+                    buffer.clear();
+                }
+            }
+            if (durability.forceBeforeCommit()) {
+                for (int i = 0; i < outs.length; i++) {
+                    if (outs[i] != null) {
+                        try {
+                            outs[i].force(false);
+                        } catch (IOException e) {
+                            failures[i] = e;
+                        }
+                    }
+                }
+            }
+        } finally {
+            for (int i = 0; i < outs.length; i++) {
+                if (outs[i] != null) {
+                    try {
+                        outs[i].close();
+                    } catch (IOException e) {
+                        failures[i] = e;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Met à jour la destination en place en ne réécrivant que les blocs dont l'empreinte
+     * diffère de {@code previous}. La destination doit correspondre à cette signature.
+     * La comparaison se fait à offsets alignés : une écriture en place ne peut pas réutiliser
+     * un bloc déplacé sans réécrire tout ce qui le suit.
+     * <p>
+     * Seule écriture qui ne passe pas par un fichier temporaire : la date de modification de la
+     * destination est invalidée avant le premier bloc réécrit, pour qu'une mise à jour interrompue
+     * ne corresponde plus à aucun état enregistré et soit recopiée entièrement au passage suivant.
+     */
+    public DeltaResult copyDelta(Path source, Path dest, BasicFileAttributes attrs, BlockSignatures previous,
+                                 FileHasher hasher, BlockSignatures.Builder blocks) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(previous.blockSize());
+        XxHash64 blockHash = new XxHash64();
+        long blocksRewritten = 0;
+        long bytesWritten = 0;
+        SyncDurability durability = SyncControl.currentDurability();
+
+        SyncControl.checkCurrentFile();
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(dest, StandardOpenOption.WRITE)) {
+            long position = 0;
+            int index = 0;
+            while (readBlock(in, buffer.clear()) > 0) {
+                buffer.flip();
+                int length = buffer.remaining();
+                SyncControl.checkCurrent(length);
+
+                hasher.update(buffer.duplicate());
+                blockHash.reset();
+                blockHash.update(buffer.duplicate());
+                long hash = blockHash.getValue();
+                blocks.add(hash, length);
+
+                if (!previous.matches(index, hash, length)) {
+                    if (blocksRewritten == 0) {
+                        Files.setLastModifiedTime(dest, FileTime.fromMillis(0));
+                    }
+                    long writePosition = position;
+                    while (buffer.hasRemaining()) {
+                        writePosition += out.write(buffer, writePosition);
+                    }
+                    blocksRewritten++;
+                    bytesWritten += length;
+                }
+
+                position += length;
+                index++;
+            }
+
+            if (out.size() > position) {
+                out.truncate(position);
+            }
+            if (durability.forceBeforeCommit()) {
+                out.force(false);
+            }
+        }
+        copyAttributes(source, dest, attrs);
+        return new DeltaResult(blocksRewritten, bytesWritten);
+    }
+
+    /**
+     * Lit un fichier une seule fois en alimentant chacun des hashers fournis.
+     */
+    public void hash(Path file, FileHasher... hashers) throws IOException {
+        SyncControl.checkCurrentFile();
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = in.size();
+            if (size >= mmapThreshold) {
+                for (long position = 0; position < size; position += mmapRegionSize) {
+                    long length = Math.min(mmapRegionSize, size - position);
+                    SyncControl.checkCurrent(length);
+                    MappedByteBuffer region = in.map(FileChannel.MapMode.READ_ONLY, position, length);
+                    feed(region, hashers);
+                }
+            } else {
+                ByteBuffer buffer = directBuffer();
+                while (in.read(buffer) != -1) {
+                    buffer.flip();
+                    SyncControl.checkCurrent(buffer.remaining());
+                    feed(buffer, hashers);
+                    buffer.clear();
+                }
+            }
+        }
+    }
+
+    private void copyBuffered(FileChannel in, FileChannel out, FileHasher hasher,
+                              BlockSignatures.Builder blocks) throws IOException {
+        ByteBuffer buffer = directBuffer();
+        while (in.read(buffer) != -1) {
+            buffer.flip();
+            SyncControl.checkCurrent(buffer.remaining());
+            hasher.update(buffer.duplicate());
+            if (blocks != null) {
+                blocks.update(buffer.duplicate());
+            }
+            writeFully(out, buffer);
+            buffer.clear();
+        }
+    }
+
+    private void copyMapped(FileChannel in, FileChannel out, long size, FileHasher hasher,
+                            BlockSignatures.Builder blocks) throws IOException {
+        for (long position = 0; position < size; position += mmapRegionSize) {
+            long length = Math.min(mmapRegionSize, size - position);
+            SyncControl.checkCurrent(length);
+            MappedByteBuffer region = in.map(FileChannel.MapMode.READ_ONLY, position, length);
+            hasher.update(region.duplicate());
+            if (blocks != null) {
+                blocks.update(region.duplicate());
+            }
+            writeFully(out, region);
+        }
+    }
+
+    /**
+     * Remplit le buffer autant que possible ; renvoie le nombre d'octets lus.
+     */
+    private static int readBlock(FileChannel in, ByteBuffer buffer) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = in.read(buffer);
+            if (read == -1) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * Écrit le buffer dans chaque destination encore valide ; une destination en erreur est fermée
+     * et abandonnée. Sans buffer, indique seulement s'il reste une destination valide.
+     */
+    private static boolean writeToAll(FileChannel[] outs, IOException[] failures, ByteBuffer buffer) {
+        boolean open = false;
+        for (int i = 0; i < outs.length; i++) {
+            if (outs[i] == null) {
+                continue;
+            }
+            if (buffer != null) {
+                try {
+                    writeFully(outs[i], buffer.duplicate());
+                } catch (IOException e) {
+                    failures[i] = e;
+                    try {
+                        outs[i].close();
+                    } catch (IOException ignored) {
+                        // Déjà en erreur
+                    }
+                    outs[i] = null;
+                    continue;
+                }
+            }
+            open = true;
+        }
+        return open;
+    }
+
+    private static void feed(ByteBuffer buffer, FileHasher... hashers) {
+        for (FileHasher hasher : hashers) {
+            hasher.update(buffer.duplicate());
+        }
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private ByteBuffer directBuffer() {
+        ByteBuffer buffer = directBuffers.get();
+        if (buffer == null || buffer.capacity() != chunkSize) {
+            buffer = ByteBuffer.allocateDirect(chunkSize);
+            directBuffers.set(buffer);
+        }
+        return buffer.clear();
+    }
+
+    /**
+     * Écrit la destination dans son fichier temporaire, y reporte les attributs puis le renomme à sa
+     * place ; le fichier temporaire est supprimé en cas d'échec ou d'annulation.
+     */
+    private static void writeStaged(Path source, Path dest, BasicFileAttributes attrs,
+                                    StagedWrite write) throws IOException {
+        SyncDurability durability = SyncControl.currentDurability();
+        Staging staging = openStaging(dest);
+        try {
+            try (FileChannel out = staging.channel()) {
+                write.to(out);
+                if (durability.forceBeforeCommit()) {
+                    out.force(false);
+                }
+            }
+            copyAttributes(source, staging.path(), attrs);
+            commit(staging.path(), dest, durability);
+        } catch (IOException | RuntimeException e) {
+            deleteStaging(staging.path());
+            throw e;
+        }
+    }
+
+    /**
+     * Renomme le fichier temporaire à la place de la destination, en remplaçant l'ancienne version.
+     */
+    private static void commit(Path staging, Path dest, SyncDurability durability) throws IOException {
+        try {
+            Files.move(staging, dest, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(staging, dest, StandardCopyOption.REPLACE_EXISTING);
+        }
+        durability.renamed(dest);
+    }
+
+    /**
+     * Crée un nouveau fichier temporaire pour {@code dest}. Son nom aléatoire le rend propre à cette
+     * écriture : deux workers copiant des fichiers voisins (ou de noms tronqués identiques) ne
+     * partagent jamais un fichier temporaire, et un reste d'exécution interrompue n'est pas réutilisé
+     * (il est supprimé par le parcours suivant, voir {@link TreeScanner}).
+     */
+    private static Staging openStaging(Path dest) throws IOException {
+        String prefix = "." + truncate(dest.getFileName().toString()) + ".";
+        for (int attempt = 1; ; attempt++) {
+            String id = Long.toHexString(0x1_0000_0000L | (ThreadLocalRandom.current().nextInt() & 0xFFFF_FFFFL))
+                .substring(1);
+            Path path = dest.resolveSibling(prefix + id + STAGING_SUFFIX);
+            try {
+                return new Staging(path, FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE));
+            } catch (FileAlreadyExistsException e) {
+                if (attempt == MAX_STAGING_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Début du nom d'au plus {@link #MAX_STAGED_NAME_BYTES} octets en UTF-8, sans couper un caractère.
+     */
+    private static String truncate(String name) {
+        if (name.length() * 3 <= MAX_STAGED_NAME_BYTES) {
+            return name; // Au plus 3 octets par char (4 pour une paire de substitution)
+        }
+        int bytes = 0;
+        int end = 0;
+        while (end < name.length()) {
+            int codePoint = name.codePointAt(end);
+            int length = codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+            if (bytes + length > MAX_STAGED_NAME_BYTES) {
+                break;
+            }
+            bytes += length;
+            end += Character.charCount(codePoint);
+        }
+        return name.substring(0, end);
+    }
+
+    private static void deleteStaging(Path staging) {
+        if (staging == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(staging);
+        } catch (IOException e) {
+            // Supprimé par le parcours suivant
+        }
+    }
+
+    private record Staging(Path path, FileChannel channel) {
+    }
+
+    @FunctionalInterface
+    private interface StagedWrite {
+        void to(FileChannel out) throws IOException;
+    }
+
+    /**
+     * Bilan d'une mise à jour par blocs.
+     */
+    public record DeltaResult(long blocksRewritten, long bytesWritten) {
+    }
+
+    /**
+     * Bilan d'une copie vers plusieurs destinations : checksum (null sans hasher) et erreur
+     * éventuelle de chaque destination, dans l'ordre des destinations.
+     */
+    public record FanOutResult(String checksum, List<IOException> failures) {
+    }
+
+    /**
+     * Équivalent de COPY_ATTRIBUTES pour la date de modification et les permissions POSIX.
+     */
+    private static void copyAttributes(Path source, Path dest, BasicFileAttributes attrs) throws IOException {
+        Files.setLastModifiedTime(dest, attrs.lastModifiedTime());
+
+        if (attrs instanceof PosixFileAttributes posixAttrs) {
+            Files.setPosixFilePermissions(dest, posixAttrs.permissions());
+        } else {
+            PosixFileAttributeView posixView = Files.getFileAttributeView(source, PosixFileAttributeView.class);
+            if (posixView != null) {
+                Files.setPosixFilePermissions(dest, posixView.readAttributes().permissions());
+            }
+        }
+    }
+}
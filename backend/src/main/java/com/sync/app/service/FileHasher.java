@@ -0,0 +1,23 @@
+package com.sync.app.service;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Calcul incrémental de l'empreinte d'un fichier.
+ * Une instance n'est pas thread-safe et ne sert qu'à un seul fichier.
+ */
+public interface FileHasher {
+
+    void update(byte[] buffer, int offset, int length);
+
+    /**
+     * Consomme les octets restants du buffer (heap ou direct).
+     */
+    void update(ByteBuffer buffer);
+
+    /**
+     * Termine le calcul et renvoie l'empreinte en hexadécimal.
+     * Le hasher ne doit plus être utilisé ensuite.
+     */
+    String digestHex();
+}
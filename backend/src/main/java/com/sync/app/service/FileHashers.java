@@ -0,0 +1,113 @@
+package com.sync.app.service;
+
+import com.sync.app.entity.SyncTask;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
+
+/**
+ * Fabrique des {@link FileHasher} pour chaque algorithme supporté.
+ */
+public final class FileHashers {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private FileHashers() {
+    }
+
+    public static FileHasher create(SyncTask.HashAlgorithm algorithm) {
+        return switch (algorithm) {
+            case SHA_256 -> new DigestFileHasher("SHA-256");
+            case XXH64 -> new ChecksumFileHasher(new XxHash64(), 16);
+            case CRC32C -> new ChecksumFileHasher(new CRC32C(), 8);
+        };
+    }
+
+    /**
+     * Encode un tableau d'octets en hexadécimal via une table de correspondance,
+     * sans chaîne intermédiaire par octet.
+     */
+    static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            chars[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Encode les {@code digits} quartets de poids faible d'une valeur, zéros de tête compris.
+     */
+    static String toHex(long value, int digits) {
+        char[] chars = new char[digits];
+        for (int i = digits - 1; i >= 0; i--) {
+            chars[i] = HEX_DIGITS[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Empreinte cryptographique via {@link MessageDigest}.
+     */
+    private static final class DigestFileHasher implements FileHasher {
+
+        private final MessageDigest digest;
+
+        DigestFileHasher(String algorithm) {
+            try {
+                this.digest = MessageDigest.getInstance(algorithm);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("Algorithme indisponible: " + algorithm, e);
+            }
+        }
+
+        @Override
+        public void update(byte[] buffer, int offset, int length) {
+            digest.update(buffer, offset, length);
+        }
+
+        @Override
+        public void update(ByteBuffer buffer) {
+            digest.update(buffer);
+        }
+
+        @Override
+        public String digestHex() {
+            return toHex(digest.digest());
+        }
+    }
+
+    /**
+     * Empreinte non cryptographique via {@link Checksum} (CRC32C, XXH64).
+     */
+    private static final class ChecksumFileHasher implements FileHasher {
+
+        private final Checksum checksum;
+        private final int hexDigits;
+
+        ChecksumFileHasher(Checksum checksum, int hexDigits) {
+            this.checksum = checksum;
+            this.hexDigits = hexDigits;
+        }
+
+        @Override
+        public void update(byte[] buffer, int offset, int length) {
+            checksum.update(buffer, offset, length);
+        }
+
+        @Override
+        public void update(ByteBuffer buffer) {
+            checksum.update(buffer);
+        }
+
+        @Override
+        public String digestHex() {
+            return toHex(checksum.getValue(), hexDigits);
+        }
+    }
+}
@@ -0,0 +1,414 @@
+package com.sync.app.service;
+
+import com.sync.app.entity.SyncTask;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.function.BiConsumer;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Métadonnées connues des fichiers d'une tâche, sous forme d'arbre des chemins : chaque nœud
+ * (répertoire ou fichier) ne porte que son nom et l'indice de son parent, un préfixe commun
+ * n'est donc stocké qu'une fois. Les champs des fichiers sont rangés dans des tableaux
+ * primitifs parallèles, indexés par nœud ; la recherche passe par une table de hachage
+ * ouverte (parent, nom) sans objet par entrée.
+ * <p>
+ * Les fichiers rencontrés par l'exécution en cours sont marqués dans un {@link BitSet} :
+ * les orphelins sont ensuite trouvés par un simple balayage des nœuds.
+ * <p>
+ * Conservé entre les exécutions par {@link FileMetadataCache} et tenu à jour par
+ * {@link FileMetadataWriter} à chaque lot écrit en base. Non thread-safe : utilisé par le
+ * seul thread de parcours de l'exécution en cours (une seule par tâche) ; les workers
+ * reçoivent des copies {@link FileState}.
+ */
+final class FileIndex {
+
+    private static final int ROOT = 0;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private static final byte LIVE = 1;
+    private static final byte FILE = 2;     // Nœud décrivant un fichier (sinon simple répertoire)
+    private static final byte PRECISE = 4;  // Date de modification connue à la nanoseconde
+
+    private static final SyncTask.HashAlgorithm[] ALGORITHMS = SyncTask.HashAlgorithm.values();
+
+    /**
+     * Callback de {@link #forEachFile}.
+     */
+    interface FileVisitor {
+        void accept(String relativePath, FileState state, boolean visited);
+    }
+
+    // Estimations d'occupation mémoire : octets par nœud dans les tableaux, en-têtes de chaînes et de tableaux
+    private static final long NODE_BYTES = 4 + 4 + 8 + 8 + 8 + 8 + 1 + 1 + 3 * 4;
+    private static final long STRING_OVERHEAD = 40;
+    private static final long ARRAY_OVERHEAD = 16;
+
+    private int[] parents;
+    private int[] childCounts;
+    private String[] names;
+    private byte[] flags;
+    private long[] ids;
+    private long[] sizes;
+    private long[] modifiedNanos;
+    private long[] syncedMicros;
+    private byte[] algorithms;      // ordinal + 1, 0 = aucun
+    private String[] fileKeys;
+    private byte[][] checksums;
+
+    private int[] table = new int[INITIAL_CAPACITY * 2]; // nœud + 1, 0 = case vide
+    private int used;
+    private int freeHead = -1;
+    private int nodeCount;
+    private int fileCount;
+    private long heapBytes;
+    private final BitSet visited = new BitSet();
+
+    FileIndex() {
+        allocate(INITIAL_CAPACITY);
+        used = 1;
+        nodeCount = 1;
+        parents[ROOT] = -1;
+        names[ROOT] = "";
+        flags[ROOT] = LIVE;
+    }
+
+    FileState get(String relativePath) {
+        int node = find(relativePath);
+        return node >= 0 && isFile(node) ? state(node) : null;
+    }
+
+    /**
+     * Marque un chemin comme rencontré par l'exécution en cours et renvoie son état connu.
+     */
+    FileState visit(String relativePath) {
+        int node = find(relativePath);
+        if (node < 0 || !isFile(node)) {
+            return null;
+        }
+        visited.set(node);
+        return state(node);
+    }
+
+    /**
+     * Efface les marques de l'exécution précédente.
+     */
+    void clearVisited() {
+        visited.clear();
+    }
+
+    /**
+     * Enregistre l'état d'un fichier ; un fichier nouveau est marqué rencontré
+     * (il ne peut provenir que de l'exécution en cours).
+     */
+    void put(String relativePath, FileState state) {
+        int node = ROOT;
+        int start = 0;
+        while (true) {
+            int end = segmentEnd(relativePath, start);
+            int child = lookup(node, relativePath, start, end);
+            if (child < 0) {
+                child = addNode(node, relativePath.substring(start, end));
+            }
+            node = child;
+            if (end == relativePath.length()) {
+                break;
+            }
+            start = end + 1;
+        }
+
+        if (isFile(node)) {
+            heapBytes -= fileHeapBytes(node);
+        } else {
+            flags[node] |= FILE;
+            fileCount++;
+            visited.set(node);
+        }
+        ids[node] = state.id();
+        sizes[node] = state.size();
+        modifiedNanos[node] = state.modifiedNanos();
+        syncedMicros[node] = state.lastSyncedMicros();
+        flags[node] = (byte) (state.preciseModified() ? flags[node] | PRECISE : flags[node] & ~PRECISE);
+        algorithms[node] = (byte) (state.checksumAlgorithm() != null ? state.checksumAlgorithm().ordinal() + 1 : 0);
+        fileKeys[node] = state.fileKey();
+        checksums[node] = state.checksum();
+        heapBytes += fileHeapBytes(node);
+    }
+
+    void remove(String relativePath) {
+        int node = find(relativePath);
+        if (node < 0 || !isFile(node)) {
+            return;
+        }
+        heapBytes -= fileHeapBytes(node);
+        flags[node] &= ~(FILE | PRECISE);
+        fileKeys[node] = null;
+        checksums[node] = null;
+        visited.clear(node);
+        fileCount--;
+
+        // Les répertoires devenus vides disparaissent avec leur dernier fichier
+        while (node != ROOT && !isFile(node) && childCounts[node] == 0) {
+            int parent = parents[node];
+            removeNode(node);
+            node = parent;
+        }
+    }
+
+    /**
+     * Parcourt les fichiers non rencontrés situés sous l'une des racines ({@code ""} : tous),
+     * hors répertoires exclus (testés une fois chacun), par balayage linéaire des nœuds.
+     */
+    void forEachOrphan(Collection<String> roots, Predicate<String> excludedDirectory,
+                       BiConsumer<String, FileState> action) {
+        BitSet rootNodes = new BitSet();
+        for (String root : roots) {
+            int node = find(root);
+            if (node >= 0) {
+                rootNodes.set(node);
+            }
+        }
+
+        // Par répertoire, calculé une fois : 0 inconnu, 1 oui, 2 non
+        byte[] covered = new byte[used];
+        byte[] eligible = new byte[used];
+        for (int node = visited.nextClearBit(1); node < used; node = visited.nextClearBit(node + 1)) {
+            if (!isFile(node)) {
+                continue;
+            }
+            int parent = parents[node];
+            if ((rootNodes.get(node) || isCovered(parent, rootNodes, covered))
+                && isEligible(parent, excludedDirectory, eligible)) {
+                action.accept(path(node), state(node));
+            }
+        }
+    }
+
+    /**
+     * Parcourt les fichiers dont la taille est retenue par {@code sizeFilter}, avec leur marque
+     * de l'exécution en cours.
+     */
+    void forEachFile(LongPredicate sizeFilter, FileVisitor action) {
+        for (int node = 1; node < used; node++) {
+            if (isFile(node) && sizeFilter.test(sizes[node])) {
+                action.accept(path(node), state(node), visited.get(node));
+            }
+        }
+    }
+
+    /**
+     * Tailles distinctes des fichiers connus, triées (recherche dichotomique).
+     */
+    long[] distinctSizes() {
+        long[] result = new long[fileCount];
+        int count = 0;
+        for (int node = 1; node < used && count < result.length; node++) {
+            if (isFile(node)) {
+                result[count++] = sizes[node];
+            }
+        }
+        return Arrays.stream(result, 0, count).sorted().distinct().toArray();
+    }
+
+    int size() {
+        return fileCount;
+    }
+
+    long estimatedBytes() {
+        return parents.length * NODE_BYTES + table.length * 4L + heapBytes + visited.size() / 8;
+    }
+
+    private int find(String relativePath) {
+        if (relativePath.isEmpty()) {
+            return ROOT;
+        }
+        int node = ROOT;
+        int start = 0;
+        while (true) {
+            int end = segmentEnd(relativePath, start);
+            node = lookup(node, relativePath, start, end);
+            if (node < 0 || end == relativePath.length()) {
+                return node;
+            }
+            start = end + 1;
+        }
+    }
+
+    private static int segmentEnd(String path, int start) {
+        int end = path.indexOf(File.separatorChar, start);
+        return end < 0 ? path.length() : end;
+    }
+
+    /**
+     * Enfant {@code path[start, end)} de {@code parent}, sans extraire la sous-chaîne.
+     */
+    private int lookup(int parent, String path, int start, int end) {
+        int nameHash = 0;
+        for (int i = start; i < end; i++) {
+            nameHash = 31 * nameHash + path.charAt(i); // Même valeur que String.hashCode()
+        }
+        int length = end - start;
+        int mask = table.length - 1;
+        for (int i = hash(parent, nameHash) & mask; table[i] != 0; i = (i + 1) & mask) {
+            int node = table[i] - 1;
+            if (parents[node] == parent && names[node].length() == length
+                && path.regionMatches(start, names[node], 0, length)) {
+                return node;
+            }
+        }
+        return -1;
+    }
+
+    private static int hash(int parent, int nameHash) {
+        int h = parent * 0x9E3779B9 + nameHash;
+        return h ^ (h >>> 16);
+    }
+
+    private int homeSlot(int node) {
+        return hash(parents[node], names[node].hashCode()) & (table.length - 1);
+    }
+
+    private int addNode(int parent, String name) {
+        int node;
+        if (freeHead >= 0) {
+            node = freeHead;
+            freeHead = parents[node];
+        } else {
+            if (used == parents.length) {
+                allocate(parents.length + (parents.length >> 1));
+            }
+            node = used++;
+        }
+        parents[node] = parent;
+        names[node] = name;
+        flags[node] = LIVE;
+        childCounts[node] = 0;
+        childCounts[parent]++;
+        nodeCount++;
+        heapBytes += STRING_OVERHEAD + name.length();
+
+        if (nodeCount * 2L > table.length) {
+            rehash(table.length * 2);
+        } else {
+            insert(node);
+        }
+        return node;
+    }
+
+    private void removeNode(int node) {
+        // Suppression par décalage arrière : aucune marque de case supprimée dans la table
+        int mask = table.length - 1;
+        int gap = homeSlot(node);
+        while (table[gap] != node + 1) {
+            gap = (gap + 1) & mask;
+        }
+        for (int next = (gap + 1) & mask; table[next] != 0; next = (next + 1) & mask) {
+            int home = homeSlot(table[next] - 1);
+            boolean movable = next > gap ? home <= gap || home > next : home <= gap && home > next;
+            if (movable) {
+                table[gap] = table[next];
+                gap = next;
+            }
+        }
+        table[gap] = 0;
+
+        childCounts[parents[node]]--;
+        heapBytes -= STRING_OVERHEAD + names[node].length();
+        names[node] = null;
+        flags[node] = 0;
+        parents[node] = freeHead;
+        freeHead = node;
+        nodeCount--;
+    }
+
+    private void insert(int node) {
+        int mask = table.length - 1;
+        int i = homeSlot(node);
+        while (table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        table[i] = node + 1;
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        for (int node = 1; node < used; node++) {
+            if ((flags[node] & LIVE) != 0) {
+                insert(node);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        parents = parents == null ? new int[capacity] : Arrays.copyOf(parents, capacity);
+        childCounts = childCounts == null ? new int[capacity] : Arrays.copyOf(childCounts, capacity);
+        names = names == null ? new String[capacity] : Arrays.copyOf(names, capacity);
+        flags = flags == null ? new byte[capacity] : Arrays.copyOf(flags, capacity);
+        ids = ids == null ? new long[capacity] : Arrays.copyOf(ids, capacity);
+        sizes = sizes == null ? new long[capacity] : Arrays.copyOf(sizes, capacity);
+        modifiedNanos = modifiedNanos == null ? new long[capacity] : Arrays.copyOf(modifiedNanos, capacity);
+        syncedMicros = syncedMicros == null ? new long[capacity] : Arrays.copyOf(syncedMicros, capacity);
+        algorithms = algorithms == null ? new byte[capacity] : Arrays.copyOf(algorithms, capacity);
+        fileKeys = fileKeys == null ? new String[capacity] : Arrays.copyOf(fileKeys, capacity);
+        checksums = checksums == null ? new byte[capacity][] : Arrays.copyOf(checksums, capacity);
+    }
+
+    private boolean isFile(int node) {
+        return (flags[node] & FILE) != 0;
+    }
+
+    private long fileHeapBytes(int node) {
+        return (fileKeys[node] != null ? STRING_OVERHEAD + fileKeys[node].length() : 0)
+            + (checksums[node] != null ? ARRAY_OVERHEAD + checksums[node].length : 0);
+    }
+
+    private FileState state(int node) {
+        return new FileState(ids[node], sizes[node], modifiedNanos[node], (flags[node] & PRECISE) != 0,
+            fileKeys[node], checksums[node], algorithms[node] != 0 ? ALGORITHMS[algorithms[node] - 1] : null,
+            syncedMicros[node]);
+    }
+
+    private String path(int node) {
+        if (node == ROOT) {
+            return "";
+        }
+        int length = -1;
+        for (int current = node; current != ROOT; current = parents[current]) {
+            length += names[current].length() + 1;
+        }
+        char[] chars = new char[length];
+        int end = length;
+        for (int current = node; current != ROOT; current = parents[current]) {
+            String name = names[current];
+            end -= name.length();
+            name.getChars(0, name.length(), chars, end);
+            if (end > 0) {
+                chars[--end] = File.separatorChar;
+            }
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Vrai si le répertoire ou l'un de ses ancêtres est une racine.
+     */
+    private boolean isCovered(int directory, BitSet rootNodes, byte[] covered) {
+        if (covered[directory] == 0) {
+            boolean result = rootNodes.get(directory)
+                || (directory != ROOT && isCovered(parents[directory], rootNodes, covered));
+            covered[directory] = (byte) (result ? 1 : 2);
+        }
+        return covered[directory] == 1;
+    }
+
+    private boolean isEligible(int directory, Predicate<String> excludedDirectory, byte[] eligible) {
+        if (eligible[directory] == 0) {
+            eligible[directory] = (byte) (excludedDirectory.test(path(directory)) ? 2 : 1);
+        }
+        return eligible[directory] == 1;
+    }
+}
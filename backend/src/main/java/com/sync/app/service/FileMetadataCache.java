@@ -0,0 +1,81 @@
+package com.sync.app.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sync.app.entity.SyncTask;
+import com.sync.app.repository.FileMetadataBatchRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache des métadonnées de fichiers par tâche, conservé entre les exécutions : une tâche
+ * planifiée ne recharge pas toute la table file_metadata à chaque intervalle.
+ * <p>
+ * Borné en mémoire par la taille estimée des index ({@code sync.metadata-cache.max-bytes}) ;
+ * l'éviction (W-TinyLFU) retire une tâche entière, rechargée en base à son exécution suivante.
+ * Pendant une exécution, l'index est sorti du cache et tenu à jour par {@link FileMetadataWriter}
+ * (écriture simultanée en base) ; il n'y est remis qu'après un succès ou une annulation propre.
+ * Taux de succès exposé par Micrometer ({@code cache.gets}, {@code cache="sync.metadata"}).
+ */
+@Component
+@Slf4j
+public class FileMetadataCache {
+
+    private final FileMetadataBatchRepository batchRepository;
+    private final Cache<Long, FileIndex> cache;
+
+    public FileMetadataCache(FileMetadataBatchRepository batchRepository, MeterRegistry meterRegistry,
+                             @Value("${sync.metadata-cache.max-bytes:268435456}") long maxBytes) {
+        this.batchRepository = batchRepository;
+        this.cache = Caffeine.newBuilder()
+            .maximumWeight(Math.max(0, maxBytes))
+            .weigher((Long taskId, FileIndex index) -> (int) Math.min(Integer.MAX_VALUE, index.estimatedBytes()))
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "sync.metadata");
+        Gauge.builder("sync.metadata.cache.bytes", cache, FileMetadataCache::weightedSize)
+            .description("Taille estimée des métadonnées en cache")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Index de la tâche pour une exécution : celui du cache s'il est présent, sinon chargé en base.
+     * L'appelant en a l'usage exclusif jusqu'à {@link #release} ou {@link #invalidate}.
+     */
+    FileIndex acquire(SyncTask task) {
+        FileIndex index = cache.getIfPresent(task.getId());
+        if (index != null) {
+            cache.invalidate(task.getId());
+            return index;
+        }
+        FileIndex loaded = new FileIndex();
+        batchRepository.forEachBySyncTask(task.getId(),
+            metadata -> loaded.put(metadata.getFilePath(), FileState.of(metadata)));
+        log.debug("Métadonnées de la tâche {} chargées: {} fichiers, ~{} octets",
+            task.getId(), loaded.size(), loaded.estimatedBytes());
+        return loaded;
+    }
+
+    /**
+     * Remet en cache l'index d'une exécution terminée, conforme à la base ; son poids est réévalué.
+     */
+    void release(SyncTask task, FileIndex index) {
+        cache.put(task.getId(), index);
+    }
+
+    /**
+     * Oublie l'index d'une tâche, qui sera rechargé en base à sa prochaine exécution.
+     */
+    void invalidate(Long taskId) {
+        cache.invalidate(taskId);
+    }
+
+    private static double weightedSize(Cache<Long, FileIndex> cache) {
+        return cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L);
+    }
+}
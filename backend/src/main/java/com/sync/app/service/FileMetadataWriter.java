@@ -0,0 +1,149 @@
+package com.sync.app.service;
+
+import com.sync.app.entity.FileMetadata;
+import com.sync.app.entity.SyncTask;
+import com.sync.app.repository.FileMetadataBatchRepository;
+import com.sync.app.repository.FileMetadataRepository;
+
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tampon d'écriture des métadonnées pour une exécution de synchronisation.
+ * Les insertions, mises à jour et suppressions sont accumulées puis envoyées
+ * ensemble par {@link #flush()}, sans relecture préalable en base : l'appelant
+ * choisit le moment (et la transaction) de chaque lot, dès que {@link #isFull()}.
+ * Chaque lot envoyé est aussitôt reporté dans l'index des métadonnées de la tâche.
+ * Non thread-safe : utilisé uniquement par le thread de parcours.
+ */
+class FileMetadataWriter {
+
+    private final FileMetadataBatchRepository batchRepository;
+    private final FileMetadataRepository fileMetadataRepository;
+    private final SyncTask syncTask;
+    private final FileIndex index;
+    private final int batchSize;
+
+    private final List<FileMetadata> inserts = new ArrayList<>();
+    private final List<FileMetadata> updates = new ArrayList<>();
+    private final List<Long> deletes = new ArrayList<>();
+    private final List<String> deletedPaths = new ArrayList<>();
+    private long written;
+    private String lastPath;
+
+    FileMetadataWriter(FileMetadataBatchRepository batchRepository, FileMetadataRepository fileMetadataRepository,
+                       SyncTask syncTask, FileIndex index, int batchSize) {
+        this.batchRepository = batchRepository;
+        this.fileMetadataRepository = fileMetadataRepository;
+        this.syncTask = syncTask;
+        this.index = index;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Enregistre l'état d'un fichier copié. {@code existing} provient de l'index des
+     * métadonnées : s'il est présent, la ligne est mise à jour par son id.
+     */
+    void write(FileState existing, String relativePath, BasicFileAttributes attrs,
+               String checksum, SyncTask.HashAlgorithm algorithm) {
+        FileMetadata metadata = new FileMetadata();
+        metadata.setSyncTask(syncTask);
+        metadata.setFilePath(relativePath);
+        metadata.setFileSize(attrs.size());
+        metadata.setLastModified(LocalDateTime.ofInstant(
+            attrs.lastModifiedTime().toInstant(), ZoneId.systemDefault()
+        ));
+        metadata.setLastModifiedNanos(epochNanos(attrs.lastModifiedTime()));
+        metadata.setFileKey(attrs.fileKey() != null ? attrs.fileKey().toString() : null);
+        metadata.setLastSynced(LocalDateTime.now());
+        metadata.setIsDirectory(attrs.isDirectory());
+        metadata.setChecksum(checksum);
+        metadata.setChecksumAlgorithm(checksum != null ? algorithm : null);
+
+        lastPath = relativePath;
+        if (existing == null) {
+            inserts.add(metadata);
+        } else {
+            metadata.setId(existing.id());
+            if (checksum == null) {
+                metadata.setChecksum(existing.checksumHex());
+                metadata.setChecksumAlgorithm(existing.checksumAlgorithm());
+            }
+            updates.add(metadata);
+        }
+    }
+
+    /**
+     * Planifie la suppression d'une ligne de métadonnées orpheline.
+     */
+    void delete(String relativePath, FileState existing) {
+        deletes.add(existing.id());
+        deletedPaths.add(relativePath);
+        lastPath = relativePath;
+    }
+
+    /**
+     * Vrai quand un lot complet est en attente.
+     */
+    boolean isFull() {
+        return inserts.size() + updates.size() + deletes.size() >= batchSize;
+    }
+
+    /**
+     * Envoie tous les lots en attente.
+     */
+    void flush() {
+        written += inserts.size() + updates.size() + deletes.size();
+        flushInserts();
+        flushUpdates();
+        flushDeletes();
+    }
+
+    /**
+     * Nombre de lignes envoyées depuis la création du tampon.
+     */
+    long written() {
+        return written;
+    }
+
+    /**
+     * Dernier chemin mis en tampon : après un flush, dernier chemin envoyé.
+     */
+    String lastPath() {
+        return lastPath;
+    }
+
+    /**
+     * Convertit une date système en nanosecondes depuis l'epoch.
+     */
+    static long epochNanos(FileTime time) {
+        Instant instant = time.toInstant();
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000_000L), instant.getNano());
+    }
+
+    private void flushInserts() {
+        batchRepository.batchInsert(inserts);
+        inserts.forEach(metadata -> index.put(metadata.getFilePath(), FileState.of(metadata)));
+        inserts.clear();
+    }
+
+    private void flushUpdates() {
+        batchRepository.batchUpdate(updates);
+        updates.forEach(metadata -> index.put(metadata.getFilePath(), FileState.of(metadata)));
+        updates.clear();
+    }
+
+    private void flushDeletes() {
+        if (!deletes.isEmpty()) {
+            fileMetadataRepository.deleteAllByIdInBatch(deletes);
+            deletedPaths.forEach(index::remove);
+            deletes.clear();
+            deletedPaths.clear();
+        }
+    }
+}
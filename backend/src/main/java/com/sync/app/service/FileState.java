@@ -0,0 +1,64 @@
+package com.sync.app.service;
+
+import com.sync.app.entity.FileMetadata;
+import com.sync.app.entity.SyncTask;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+
+/**
+ * État connu d'un fichier, tel qu'enregistré dans {@link FileMetadata} : dates en primitifs,
+ * empreinte en octets, sans chemin. Copie immuable d'une entrée de {@link FileIndex},
+ * transmise aux workers.
+ *
+ * @param id                 identifiant de la ligne file_metadata
+ * @param modifiedNanos      date de modification en ns depuis l'epoch
+ * @param preciseModified    faux pour les lignes antérieures à lastModifiedNanos : date précise à la µs
+ * @param checksum           empreinte du contenu, null si aucune
+ * @param checksumAlgorithm  null = SHA-256 (lignes historiques)
+ * @param lastSyncedMicros   dernier enregistrement, en µs depuis l'epoch ({@link #NEVER} si inconnu)
+ */
+record FileState(long id, long size, long modifiedNanos, boolean preciseModified, String fileKey,
+                 byte[] checksum, SyncTask.HashAlgorithm checksumAlgorithm, long lastSyncedMicros) {
+
+    static final long NEVER = Long.MIN_VALUE;
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    String checksumHex() {
+        return checksum != null ? HEX.formatHex(checksum) : null;
+    }
+
+    static FileState of(FileMetadata metadata) {
+        boolean precise = metadata.getLastModifiedNanos() != null;
+        long modifiedNanos = precise ? metadata.getLastModifiedNanos()
+            : metadata.getLastModified() != null ? epochMicros(metadata.getLastModified()) * 1000 : NEVER;
+        return new FileState(metadata.getId(), metadata.getFileSize(), modifiedNanos, precise, metadata.getFileKey(),
+            parseChecksum(metadata.getChecksum()), metadata.getChecksumAlgorithm(),
+            metadata.getLastSynced() != null ? epochMicros(metadata.getLastSynced()) : NEVER);
+    }
+
+    /**
+     * Empreinte hexadécimale en octets ; une valeur illisible est traitée comme absente.
+     */
+    static byte[] parseChecksum(String hex) {
+        if (hex == null) {
+            return null;
+        }
+        try {
+            return HEX.parseHex(hex);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    static long epochMicros(LocalDateTime time) {
+        if (time == null) {
+            return NEVER;
+        }
+        Instant instant = time.atZone(ZoneId.systemDefault()).toInstant();
+        return instant.getEpochSecond() * 1_000_000 + instant.getNano() / 1000;
+    }
+}
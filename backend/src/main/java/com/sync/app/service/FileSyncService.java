@@ -1,27 +1,53 @@
 package com.sync.app.service;
 
-import com.sync.app.entity.FileMetadata;
+import com.sync.app.entity.FileSignature;
 import com.sync.app.entity.SyncLog;
 import com.sync.app.entity.SyncTask;
+import com.sync.app.repository.DirectoryIndexBatchRepository;
+import com.sync.app.repository.DirectoryIndexRepository;
+import com.sync.app.repository.FileMetadataBatchRepository;
 import com.sync.app.repository.FileMetadataRepository;
+import com.sync.app.repository.FileSignatureRepository;
 import com.sync.app.repository.SyncLogRepository;
+import com.sync.app.repository.SyncTaskRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
-import java.security.MessageDigest;
+import java.nio.file.attribute.FileTime;
 import java.time.LocalDateTime;
-import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Service principal pour gérer la synchronisation de fichiers.
+ * Les répertoires sont lus à l'avance et en parallèle par {@link TreeScanner}, mais visités
+ * dans l'ordre par un seul thread ; la comparaison, le hachage et la copie des fichiers
+ * sont délégués à un pool borné de workers.
+ * <p>
+ * Une synchronisation n'est pas une transaction unique : les métadonnées sont validées
+ * par lots (points de reprise), chacun avec le curseur de reprise du {@link SyncLog}.
+ * Après un échec ou un arrêt de l'application, l'exécution suivante reprend : les fichiers
+ * validés par l'exécution interrompue et inchangés depuis ne sont pas revérifiés.
+ * <p>
+ * Une tâche peut avoir des destinations supplémentaires, synchronisées par le même parcours :
+ * chacune a ses propres métadonnées, son log et son point de reprise.
+ * <p>
+ * En mode bidirectionnel, le parcours couvre aussi les entrées propres à la destination et
+ * chaque côté est comparé au dernier état synchronisé (voir {@link #processBidirectional}).
+ * <p>
+ * Avec la détection des déplacements ou la déduplication, les nouveaux fichiers susceptibles
+ * de réutiliser un fichier de la destination sont traités après le parcours (voir {@link #relocate}).
  */
 @Service
 @Slf4j
@@ -29,247 +55,1755 @@ import java.util.concurrent.ConcurrentHashMap;
 public class FileSyncService {
 
     private final FileMetadataRepository fileMetadataRepository;
+    private final FileMetadataBatchRepository fileMetadataBatchRepository;
     private final SyncLogRepository syncLogRepository;
+    private final SyncTaskRepository syncTaskRepository;
+    private final EntityManager entityManager;
+    private final FileCopier fileCopier;
+    private final FileSignatureRepository fileSignatureRepository;
+    private final DirectoryIndexRepository directoryIndexRepository;
+    private final DirectoryIndexBatchRepository directoryIndexBatchRepository;
+    private final SyncProgressService syncProgressService;
+    private final SyncMetrics syncMetrics;
+    private final SyncThrottleService syncThrottleService;
+    private final FileMetadataCache fileMetadataCache;
+    private final TransactionTemplate transactionTemplate;
 
-    @Value("${sync.chunk-size:8192}")
-    private int chunkSize;
+    private static final int MAX_RECORDED_CONFLICTS = 100;
+    private static final long WORKER_STOP_SECONDS = 30;
+    private static final DateTimeFormatter CONFLICT_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
 
-    // Suivi des synchronisations en cours
-    private final Set<Long> runningSyncs = ConcurrentHashMap.newKeySet();
+    @Value("${sync.default-parallelism:4}")
+    private int defaultParallelism;
+
+    @Value("${sync.metadata-batch-size:500}")
+    private int metadataBatchSize;
+
+    @Value("${sync.mtime-granularity-ms:2000}")
+    private long mtimeGranularityMillis;
+
+    @Value("${sync.default-hash-algorithm:XXH64}")
+    private SyncTask.HashAlgorithm defaultHashAlgorithm;
+
+    @Value("${sync.delta.block-size:1048576}")
+    private int deltaBlockSize;
+
+    @Value("${sync.delta.min-file-size:16777216}")
+    private long deltaMinFileSize;
+
+    @Value("${sync.pruning.max-age-hours:24}")
+    private long pruningMaxAgeHours;
+
+    @Value("${sync.scan.parallelism:8}")
+    private int scanParallelism;
+
+    @Value("${sync.scan.prefetch-directories:16}")
+    private int scanPrefetchDirectories;
+
+    @Value("${sync.relocation.max-deferred-files:100000}")
+    private int maxDeferredFiles;
+
+    @Value("${sync.durability.default:BATCHED}")
+    private SyncTask.Durability defaultDurability;
+
+    @Value("${sync.durability.batch-files:256}")
+    private int durabilityBatchFiles;
 
     /**
      * Exécute une synchronisation pour une tâche donnée.
      */
-    @Transactional
     public SyncLog executeSync(SyncTask syncTask) {
-        if (!runningSyncs.add(syncTask.getId())) {
-            log.warn("Sync already running for task: {}", syncTask.getId());
-            return null;
-        }
+        return executeSync(syncTask, null);
+    }
 
-        SyncLog syncLog = new SyncLog();
-        syncLog.setSyncTask(syncTask);
-        syncLog.setStartTime(LocalDateTime.now());
-        syncLog.setStatus(SyncLog.SyncStatus.RUNNING);
-        syncLog = syncLogRepository.save(syncLog);
+    /**
+     * Exécute une synchronisation limitée aux chemins indiqués (relatifs à la source).
+     * Un chemin de répertoire couvre tout son sous-arbre ; un chemin absent de la source
+     * entraîne la suppression des fichiers correspondants dans la destination.
+     * Avec {@code changedPaths} null, toute l'arborescence est parcourue.
+     * <p>
+     * Aucune exclusion entre exécutions d'une même tâche ici : les appels passent par
+     * {@link SyncExecutor}, qui garantit qu'une seule synchronisation par tâche est en cours.
+     */
+    public SyncLog executeSync(SyncTask syncTask, Collection<String> changedPaths) {
+        return executeSync(syncTask, changedPaths, new SyncControl());
+    }
 
+    /**
+     * Variante pilotable : {@code control} permet d'annuler ou de mettre en pause l'exécution.
+     * Une exécution annulée se termine au statut CANCELLED, avec ses compteurs partiels et
+     * ses métadonnées validées jusque-là (elle est reprise comme une exécution en échec).
+     * <p>
+     * Les destinations supplémentaires de la tâche sont synchronisées dans la même exécution :
+     * un seul parcours de la source, une seule lecture de chaque fichier à copier. Chacune a
+     * son propre log ; une destination en échec est abandonnée sans interrompre les autres.
+     * Le log renvoyé est celui de la destination principale.
+     */
+    public SyncLog executeSync(SyncTask syncTask, Collection<String> changedPaths, SyncControl control) {
+        control.bind();
+        control.setThrottle(syncThrottleService.forTask(syncTask));
+        control.setDurability(new SyncDurability(resolveDurability(syncTask), durabilityBatchFiles));
+        List<SyncTask> replicas = syncTaskRepository.findByPrimaryTaskIdOrderByIdAsc(syncTask.getId());
+        List<Target> targets = new ArrayList<>(1 + replicas.size());
+        targets.add(startTarget(syncTask, 0, !replicas.isEmpty(), control));
+        for (SyncTask replica : replicas) {
+            targets.add(startTarget(replica, targets.size(), true, control));
+        }
+        Target primary = targets.get(0);
+        // Les destinations supplémentaires sont refusées pour une tâche bidirectionnelle (SyncTaskService)
+        boolean bidirectional = syncTask.getSyncMode() == SyncTask.SyncMode.BIDIRECTIONAL && targets.size() == 1;
+
+        ThreadPoolExecutor workers = null;
+        ForkJoinPool scanners = null;
         try {
             Path sourcePath = Paths.get(syncTask.getSourcePath());
-            Path destPath = Paths.get(syncTask.getDestinationPath());
 
             // Validation des chemins
             if (!Files.exists(sourcePath)) {
                 throw new IOException("Le chemin source n'existe pas: " + sourcePath);
             }
 
-            if (!Files.exists(destPath)) {
-                Files.createDirectories(destPath);
+            // Racines à parcourir
+            List<String> roots = changedPaths == null ? List.of("") : collapseToRoots(sourcePath, changedPaths);
+            boolean fullScan = roots.contains("");
+
+            // Index des répertoires : maintenu par les parcours complets vers une seule destination,
+            // invalidé par les autres
+            DirectoryIndexer indexer = null;
+            if (fullScan && targets.size() == 1 && !bidirectional && isPruningEnabled(syncTask)) {
+                indexer = new DirectoryIndexer(directoryIndexRepository, directoryIndexBatchRepository, syncTask,
+                    mtimeGranularityMillis, LocalDateTime.now().minusHours(pruningMaxAgeHours), metadataBatchSize);
+            }
+            DirectoryIndexer directoryIndexer = indexer;
+
+            // Déplacements et liens : vers une seule destination, en miroir
+            boolean moveDetection = targets.size() == 1 && !bidirectional
+                && Boolean.TRUE.equals(syncTask.getMoveDetection());
+            boolean dedup = targets.size() == 1 && !bidirectional && isDedupEnabled(syncTask);
+            List<TreeScanner.Entry> deferred = new ArrayList<>();
+
+            // Destinations et métadonnées connues de chacune (cache, sinon base)
+            for (Target target : targets) {
+                try {
+                    open(target, roots, fullScan, directoryIndexer != null);
+                } catch (IOException e) {
+                    fail(targets, target, e);
+                }
             }
 
-            // Récupération des métadonnées existantes
-            Map<String, FileMetadata> existingMetadata = new HashMap<>();
-            fileMetadataRepository.findBySyncTask(syncTask).forEach(fm ->
-                existingMetadata.put(fm.getFilePath(), fm)
-            );
+            // Tailles connues : un nouveau fichier d'une autre taille ne peut pas être un déplacement
+            long[] knownSizes = moveDetection && primary.live() ? primary.index.distinctSizes() : new long[0];
 
-            Set<String> processedFiles = new HashSet<>();
-            SyncStats stats = new SyncStats();
+            // Les workers ne touchent pas à la persistance : ils publient les métadonnées
+            // à enregistrer dans la file de chaque destination, vidée par le thread de parcours
+            // (porteur de la transaction)
+            AtomicReference<Throwable> workerError = new AtomicReference<>();
+            ThreadPoolExecutor pool = createWorkerPool(syncTask, control);
+            workers = pool;
 
-            // Parcours des fichiers source
-            Files.walkFileTree(sourcePath, new SimpleFileVisitor<Path>() {
+            // Parcours des fichiers source : répertoires lus à l'avance par le pool de scan,
+            // callbacks sur ce thread (porteur des index, des tampons d'écriture et des transactions)
+            ForkJoinPool scanPool = createScanPool(syncTask);
+            scanners = scanPool;
+            TreeScanner scanner = new TreeScanner(sourcePath, targets.stream().map(target -> target.root).toList(),
+                scanPool, scanPrefetchDirectories, bidirectional);
+            TreeScanner.Visitor visitor = new TreeScanner.Visitor() {
                 @Override
-                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                    String relativePath = sourcePath.relativize(file).toString();
-                    processedFiles.add(relativePath);
+                public List<String> prunedChildren(TreeScanner.Entry directory) {
+                    if (directoryIndexer == null) {
+                        return null;
+                    }
+                    return directoryIndexer.prunableChildren(sourcePath.relativize(directory.path()).toString(),
+                        directory.path(), directory.attrs(), directory.mirror(0).path());
+                }
 
-                    Path destFile = destPath.resolve(relativePath);
-                    stats.filesScanned++;
+                @Override
+                public void preVisitDirectory(TreeScanner.Entry directory, LocalDateTime listedAt)
+                        throws IOException {
+                    control.checkpoint();
+                    Path dir = directory.path();
+                    String relativePath = sourcePath.relativize(dir).toString();
+                    boolean pruned = listedAt == null;
+                    if (directoryIndexer != null) {
+                        // Liste de fichiers inchangée si élagué : seuls les sous-répertoires connus sont visités
+                        directoryIndexer.enterDirectory(relativePath, dir, directory.attrs(), pruned, listedAt);
+                    }
+                    if (pruned || dir.equals(sourcePath)) {
+                        return;
+                    }
+                    for (Target target : targets) {
+                        if (!target.live()) {
+                            continue;
+                        }
+                        target.index.visit(relativePath);
+                        if (bidirectional) {
+                            continue; // Répertoires parents créés à la copie, du côté qui en a besoin
+                        }
 
-                    FileMetadata existing = existingMetadata.get(relativePath);
-                    boolean needsCopy = shouldCopyFile(file, destFile, existing, syncTask.getUseChecksum());
+                        // Créé par le thread de parcours avant la soumission de tout fichier enfant
+                        TreeScanner.Mirror mirror = directory.mirror(target.position);
+                        try {
+                            if (mirror.read() == null) {
+                                Files.createDirectories(mirror.path());
+                            }
+                        } catch (IOException e) {
+                            fail(targets, target, e);
+                        }
+                    }
+                }
 
-                    if (needsCopy) {
-                        // Créer répertoire parent si nécessaire
-                        Files.createDirectories(destFile.getParent());
+                @Override
+                public void visitFile(TreeScanner.Entry entry) throws IOException {
+                    rethrowWorkerError(workerError);
+                    rethrowIfAllFailed(targets);
+                    control.checkpoint();
 
-                        // Copier le fichier
-                        Files.copy(file, destFile, StandardCopyOption.REPLACE_EXISTING,
-                                   StandardCopyOption.COPY_ATTRIBUTES);
+                    Path file = entry.path();
+                    BasicFileAttributes attrs = entry.attrs();
+                    String relativePath = sourcePath.relativize(file).toString();
+                    // Fichier absent de la source (mode bidirectionnel) : taille de la destination
+                    long size = attrs != null ? attrs.size() : entry.mirror(0).attrs().size();
+                    FileState[] existing = new FileState[targets.size()];
+                    for (Target target : targets) {
+                        if (target.live()) {
+                            existing[target.position] = target.index.visit(relativePath);
+                            target.stats.filesScanned.increment();
+                            target.stats.bytesScanned.add(size);
+                        }
+                    }
+                    if (directoryIndexer != null) {
+                        directoryIndexer.addFile(file, attrs);
+                    }
+                    if ((moveDetection || dedup) && existing[0] == null && primary.live() && attrs.size() > 0
+                        && entry.mirror(0).listed() && entry.mirror(0).attrs() == null
+                        && (dedup || Arrays.binarySearch(knownSizes, attrs.size()) >= 0)
+                        && deferred.size() < maxDeferredFiles) {
+                        // Nouveau fichier peut-être déplacé ou en double : traité une fois les orphelins connus
+                        deferred.add(entry);
+                        drainMetadataUpdates(targets);
+                        return;
+                    }
 
-                        if (existing == null) {
-                            stats.filesCopied++;
-                        } else {
-                            stats.filesUpdated++;
+                    pool.execute(() -> {
+                        if (workerError.get() != null) {
+                            return;
                         }
-                        stats.totalBytes += attrs.size();
+                        try {
+                            control.checkpoint();
+                            if (bidirectional) {
+                                processBidirectional(syncTask, relativePath, entry, existing[0], primary);
+                                if (primary.live()) {
+                                    primary.stats.fileProcessed(size);
+                                }
+                            } else {
+                                processFile(syncTask, relativePath, entry, existing, targets);
+                            }
+                        } catch (Throwable e) {
+                            workerError.compareAndSet(null, e);
+                        }
+                    });
 
-                        // Mettre à jour les métadonnées
-                        updateFileMetadata(syncTask, relativePath, file, attrs);
-                    } else {
-                        stats.filesSkipped++;
+                    drainMetadataUpdates(targets);
+                }
+
+                @Override
+                public void postVisitDirectory(TreeScanner.Entry directory) {
+                    if (directoryIndexer != null) {
+                        directoryIndexer.exitDirectory();
+                    }
+                }
+            };
+            long walkStart = SyncTimings.start();
+            for (String root : roots) {
+                Path rootPath = sourcePath.resolve(root);
+                if (fullScan) {
+                    scanner.walk(rootPath, visitor);
+                } else if (Files.exists(rootPath, LinkOption.NOFOLLOW_LINKS)) {
+                    for (Target target : targets) {
+                        try {
+                            if (target.live()) {
+                                Files.createDirectories(target.root.resolve(root).getParent());
+                            }
+                        } catch (IOException e) {
+                            fail(targets, target, e);
+                        }
                     }
+                    scanner.walk(rootPath, visitor);
+                }
+            }
+            scanPool.shutdown();
+            for (Target target : targets) {
+                target.timings.stop(SyncTimings.Step.WALK, walkStart);
+                target.stats.setPhase(SyncProgress.Phase.COPY);
+            }
 
-                    return FileVisitResult.CONTINUE;
+            // Attente de la fin des copies en cours
+            pool.shutdown();
+            while (!pool.awaitTermination(1, TimeUnit.SECONDS)) {
+                drainMetadataUpdates(targets);
+            }
+            rethrowWorkerError(workerError);
+            drainMetadataUpdates(targets);
+            rethrowIfAllFailed(targets);
+
+            // Nouveaux fichiers mis de côté : déplacés, liés ou copiés, par un second pool de workers
+            if (!deferred.isEmpty() && primary.live()) {
+                workers = createWorkerPool(syncTask, control);
+                relocate(syncTask, sourcePath, primary, deferred, moveDetection, dedup, workers, control);
+                deferred.clear();
+            }
+
+            // Suppression des fichiers qui n'existent plus dans la source (non rencontrés, hors
+            // répertoires élagués), destination par destination
+            for (Target target : targets) {
+                if (!target.live()) {
+                    continue;
+                }
+                target.stats.setPhase(SyncProgress.Phase.DELETE);
+                long deleteStart = SyncTimings.start();
+                try {
+                    if (bidirectional) {
+                        reconcileOrphans(syncTask, sourcePath, target, roots, control);
+                    } else {
+                        deleteOrphans(target, roots, directoryIndexer, control);
+                    }
+                } catch (IOException e) {
+                    fail(targets, target, e);
                 }
+                target.timings.stop(SyncTimings.Step.DELETE, deleteStart);
+            }
 
-                @Override
-                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-                    if (dir.equals(sourcePath)) {
-                        return FileVisitResult.CONTINUE;
+            // Dernier point de reprise de chaque destination, y compris celles abandonnées (leurs
+            // métadonnées en tampon correspondent à des copies terminées) ; l'index des répertoires
+            // n'est écrit qu'une fois toutes les copies faites
+            for (Target target : targets) {
+                target.stats.setPhase(SyncProgress.Phase.FINALIZE);
+                long persistStart = SyncTimings.start();
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (target.writer != null) {
+                        checkpoint(target.syncLog, target.writer);
                     }
+                    fileSignatureRepository.deleteOrphans(target.task);
+                    if (directoryIndexer != null && target.live()) {
+                        directoryIndexer.flush();
+                    }
+                });
+                target.timings.stop(SyncTimings.Step.PERSIST, persistStart);
+            }
+            if (directoryIndexer != null) {
+                primary.stats.filesSkipped.add(directoryIndexer.prunedFileCount());
+            }
 
-                    String relativePath = sourcePath.relativize(dir).toString();
-                    processedFiles.add(relativePath);
+            // Finalisation des logs
+            for (Target target : targets) {
+                if (!target.live()) {
+                    finishFailed(target, target.error, control);
+                    continue;
+                }
+                SyncLog syncLog = target.syncLog;
+                SyncProgress stats = target.stats;
+                syncLog.setEndTime(LocalDateTime.now());
+                syncLog.setStatus(SyncLog.SyncStatus.COMPLETED);
+                applyCounters(syncLog, stats);
+                applyTimings(syncLog, target.timings, control.getThrottle());
+                if (directoryIndexer != null) {
+                    syncLog.setDetails(String.format(
+                        "Synchronisation réussie: %d fichiers traités (%d workers), %d répertoires élagués (digest %s)",
+                        stats.filesScanned.sum(), pool.getMaximumPoolSize(), directoryIndexer.prunedCount(),
+                        directoryIndexer.rootDigest()));
+                } else if (fullScan) {
+                    syncLog.setDetails(String.format("Synchronisation réussie: %d fichiers traités (%d workers)",
+                        stats.filesScanned.sum(), pool.getMaximumPoolSize()));
+                } else {
+                    syncLog.setDetails(String.format(
+                        "Synchronisation incrémentale réussie: %d chemins modifiés, %d fichiers traités (%d workers)",
+                        roots.size(), stats.filesScanned.sum(), pool.getMaximumPoolSize()));
+                }
+                if (syncLog.getResumedFromId() != null) {
+                    syncLog.setDetails(syncLog.getDetails() + " - reprise de l'exécution #" + syncLog.getResumedFromId());
+                }
+                if (syncLog.getThrottledMillis() > 0) {
+                    syncLog.setDetails(String.format("%s - débit limité (%d ms d'attente)",
+                        syncLog.getDetails(), syncLog.getThrottledMillis()));
+                }
+                if (targets.size() > 1) {
+                    syncLog.setDetails(String.format("%s - destination %d/%d", syncLog.getDetails(),
+                        target.position + 1, targets.size()));
+                }
+                if (bidirectional) {
+                    syncLog.setDetails(String.format("%s - bidirectionnelle, %d conflits", syncLog.getDetails(),
+                        stats.filesConflicted.sum()));
+                }
+                if (stats.filesMoved.sum() > 0 || stats.filesLinked.sum() > 0) {
+                    syncLog.setDetails(String.format("%s - %d déplacés, %d liés", syncLog.getDetails(),
+                        stats.filesMoved.sum(), stats.filesLinked.sum()));
+                }
+
+                fileMetadataCache.release(target.task, target.index);
+                finish(target, syncLog, SyncProgress.Phase.COMPLETED);
+            }
+            return primary.syncLog;
 
-                    Path destDir = destPath.resolve(relativePath);
-                    if (!Files.exists(destDir)) {
-                        Files.createDirectories(destDir);
+        } catch (Exception e) {
+            boolean cancelled = e instanceof CancellationException;
+            if (cancelled) {
+                log.info("Synchronisation annulée pour la tâche: {}", syncTask.getName());
+            } else {
+                log.error("Erreur lors de la synchronisation", e);
+            }
+            if (workers != null) {
+                workers.shutdownNow();
+                awaitWorkers(workers);
+            }
+            for (Target target : targets) {
+                if (target.finished) {
+                    continue;
+                }
+                // Les métadonnées publiées et en tampon correspondent à des copies terminées : autant les valider
+                boolean consistent = false;
+                if (target.writer != null) {
+                    try {
+                        drainMetadataUpdates(List.of(target));
+                        checkpoint(target.syncLog, target.writer);
+                        consistent = true;
+                    } catch (RuntimeException checkpointError) {
+                        log.warn("Point de reprise impossible après l'échec: {}", checkpointError.getMessage());
                     }
+                }
+                if (!cancelled) {
+                    finishFailed(target, target.live() ? e : target.error, control);
+                    continue;
+                }
+                // Après une erreur, l'index peut devancer la base (lot annulé) : il sera rechargé
+                if (target.index != null && consistent && target.live()) {
+                    fileMetadataCache.release(target.task, target.index);
+                } else {
+                    fileMetadataCache.invalidate(target.task.getId());
+                }
+                SyncLog syncLog = target.syncLog;
+                syncLog.setEndTime(LocalDateTime.now());
+                applyCounters(syncLog, target.stats);
+                applyTimings(syncLog, target.timings, control.getThrottle());
+                syncLog.setStatus(SyncLog.SyncStatus.CANCELLED);
+                syncLog.setDetails(String.format("Synchronisation annulée: %d fichiers parcourus, %d traités",
+                    target.stats.filesScanned.sum(), target.stats.filesProcessed.sum()));
+                finish(target, syncLog, SyncProgress.Phase.CANCELLED);
+            }
+            return primary.syncLog;
+        } finally {
+            if (workers != null) {
+                workers.shutdownNow();
+            }
+            if (scanners != null) {
+                scanners.shutdownNow();
+            }
+            SyncControl.unbind();
+        }
+    }
+
+    /**
+     * Attend l'arrêt des workers après une annulation ou une erreur : ils s'arrêtent au prochain
+     * point de contrôle, et les copies qu'ils ont terminées entre-temps doivent être comptées et
+     * enregistrées avant la clôture du log.
+     */
+    private static void awaitWorkers(ThreadPoolExecutor workers) {
+        try {
+            if (!workers.awaitTermination(WORKER_STOP_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Workers toujours actifs {}s après l'arrêt de la synchronisation", WORKER_STOP_SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Crée le log d'une destination et démarre le suivi de son avancement.
+     */
+    private Target startTarget(SyncTask task, int position, boolean shared, SyncControl control) {
+        SyncLog newLog = new SyncLog();
+        newLog.setSyncTask(task);
+        newLog.setStartTime(LocalDateTime.now());
+        newLog.setStatus(SyncLog.SyncStatus.RUNNING);
+        LocalDateTime resumeSince = resumePoint(task, newLog);
+        SyncLog syncLog = syncLogRepository.save(newLog);
+        SyncProgress stats = syncProgressService.start(task, syncLog, control);
+        SyncTimings timings = syncMetrics.startRun(task);
+        return new Target(position, shared, task, Paths.get(task.getDestinationPath()), syncLog, stats, timings,
+            resumeSince);
+    }
+
+    /**
+     * Prépare une destination : répertoire racine, index des répertoires invalidé hors élagage,
+     * métadonnées connues (cache, sinon base) et tampon d'écriture.
+     */
+    private void open(Target target, List<String> roots, boolean fullScan, boolean pruning) throws IOException {
+        if (!Files.exists(target.root)) {
+            Files.createDirectories(target.root);
+        }
+        FileIndex index = fileMetadataCache.acquire(target.task);
+        index.clearVisited();
+        target.index = index;
+
+        SyncTask task = target.task;
+        if (pruning) {
+            // Maintenu par le DirectoryIndexer
+        } else if (fullScan) {
+            transactionTemplate.executeWithoutResult(status -> directoryIndexRepository.deleteBySyncTask(task));
+        } else if (!roots.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status ->
+                directoryIndexRepository.deleteByDirPaths(task, invalidatedDirectories(roots)));
+        }
+
+        target.writer = new FileMetadataWriter(fileMetadataBatchRepository, fileMetadataRepository, task, index,
+            metadataBatchSize);
+    }
+
+    /**
+     * Supprime de la destination les fichiers non rencontrés pendant le parcours : relevés
+     * d'abord, l'index étant modifié à chaque lot écrit.
+     */
+    private void deleteOrphans(Target target, List<String> roots, DirectoryIndexer directoryIndexer,
+                               SyncControl control) throws IOException {
+        Map<String, FileState> orphans = new LinkedHashMap<>();
+        target.index.forEachOrphan(roots,
+            directory -> directoryIndexer != null && directoryIndexer.isPruned(directory), orphans::put);
+        for (Map.Entry<String, FileState> entry : orphans.entrySet()) {
+            control.checkpoint();
+            Path fileToDelete = target.root.resolve(entry.getKey());
+            if (Files.exists(fileToDelete)) {
+                Files.delete(fileToDelete);
+                target.stats.filesDeleted.increment();
+            }
+            target.writer.delete(entry.getKey(), entry.getValue());
+            if (target.writer.isFull()) {
+                checkpoint(target.syncLog, target.writer);
+            }
+        }
+    }
+
+    /**
+     * Traite, en mode bidirectionnel, les fichiers connus non rencontrés pendant le parcours : absents
+     * des deux côtés, ou sous une racine modifiée disparue de la source. La destination n'est
+     * supprimée que si elle n'a pas changé depuis la dernière synchronisation.
+     */
+    private void reconcileOrphans(SyncTask syncTask, Path sourcePath, Target target, List<String> roots,
+                                  SyncControl control) throws IOException {
+        Map<String, FileState> orphans = new LinkedHashMap<>();
+        target.index.forEachOrphan(roots, directory -> false, orphans::put);
+        for (Map.Entry<String, FileState> orphan : orphans.entrySet()) {
+            control.checkpoint();
+            String relativePath = orphan.getKey();
+            TreeScanner.Entry entry = new TreeScanner.Entry(sourcePath.resolve(relativePath), null,
+                List.of(new TreeScanner.Mirror(target.root.resolve(relativePath), false, null)));
+            processBidirectional(syncTask, relativePath, entry, orphan.getValue(), target);
+            if (!target.live()) {
+                rethrow(target.error);
+            }
+            drainMetadataUpdates(List.of(target));
+        }
+    }
+
+    /**
+     * Termine le log d'une destination en échec ; son index, qui peut devancer la base, sera rechargé.
+     */
+    private void finishFailed(Target target, Throwable error, SyncControl control) {
+        fileMetadataCache.invalidate(target.task.getId());
+        SyncLog syncLog = target.syncLog;
+        syncLog.setEndTime(LocalDateTime.now());
+        applyCounters(syncLog, target.stats);
+        applyTimings(syncLog, target.timings, control.getThrottle());
+        syncLog.setStatus(SyncLog.SyncStatus.FAILED);
+        syncLog.setErrorMessage(error.getMessage());
+        finish(target, syncLog, SyncProgress.Phase.FAILED);
+    }
+
+    private void finish(Target target, SyncLog syncLog, SyncProgress.Phase phase) {
+        if (!target.conflicts.isEmpty()) {
+            String conflicts = String.join("\n", target.conflicts);
+            syncLog.setConflicts(conflicts.length() > 5000 ? conflicts.substring(0, 5000) : conflicts);
+        }
+        target.syncLog = syncLogRepository.save(syncLog);
+        target.finished = true;
+        syncProgressService.finish(target.stats, phase);
+        syncMetrics.recordRun(target.task, target.syncLog, target.timings);
+    }
+
+    /**
+     * Abandonne une destination (thread de parcours) ; l'exécution échoue si c'était la dernière.
+     */
+    private static void fail(List<Target> targets, Target target, Exception error) throws IOException {
+        target.fail(error);
+        rethrowIfAllFailed(targets);
+    }
+
+    /**
+     * Propage l'erreur de la destination principale si toutes les destinations ont été abandonnées.
+     */
+    private static void rethrowIfAllFailed(List<Target> targets) throws IOException {
+        for (Target target : targets) {
+            if (target.live()) {
+                return;
+            }
+        }
+        rethrow(targets.get(0).error);
+    }
+
+    /**
+     * Valide les métadonnées en tampon et enregistre le curseur de reprise, dans une même transaction,
+     * après avoir rendu durables les renommages effectués depuis le point précédent.
+     */
+    private void checkpoint(SyncLog syncLog, FileMetadataWriter metadataWriter) {
+        SyncControl.currentDurability().flush();
+        transactionTemplate.executeWithoutResult(status -> {
+            metadataWriter.flush();
+            LocalDateTime now = LocalDateTime.now();
+            syncLogRepository.updateCheckpoint(syncLog.getId(), metadataWriter.written(),
+                metadataWriter.lastPath(), now);
+            // Le log en mémoire est réenregistré à la fin : il doit refléter le dernier point
+            syncLog.setCheckpointedFiles(metadataWriter.written());
+            syncLog.setResumeCursor(metadataWriter.lastPath());
+            syncLog.setLastCheckpoint(now);
+        });
+    }
+
+    /**
+     * Si l'exécution précédente de la tâche a échoué (ou a été annulée) après avoir validé des métadonnées,
+     * renvoie le début de la fenêtre de confiance : les lignes enregistrées depuis ont été
+     * vérifiées par l'exécution interrompue (ou par une reprise antérieure).
+     */
+    private LocalDateTime resumePoint(SyncTask syncTask, SyncLog syncLog) {
+        SyncLog previous = syncLogRepository.findFirstBySyncTaskOrderByStartTimeDesc(syncTask).orElse(null);
+        if (previous == null || (previous.getStatus() != SyncLog.SyncStatus.FAILED
+            && previous.getStatus() != SyncLog.SyncStatus.CANCELLED)) {
+            return null;
+        }
+        boolean checkpointed = previous.getCheckpointedFiles() != null && previous.getCheckpointedFiles() > 0;
+        if (!checkpointed && previous.getResumeSince() == null) {
+            return null;
+        }
+
+        LocalDateTime since = previous.getResumeSince() != null ? previous.getResumeSince() : previous.getStartTime();
+        syncLog.setResumedFromId(previous.getId());
+        syncLog.setResumeSince(since);
+        log.info("Reprise de la synchronisation #{} (curseur: {})", previous.getId(), previous.getResumeCursor());
+        return since;
+    }
 
-                    return FileVisitResult.CONTINUE;
+    private static void applyCounters(SyncLog syncLog, SyncProgress stats) {
+        syncLog.setFilesScanned(stats.filesScanned.sum());
+        syncLog.setFilesCopied(stats.filesCopied.sum());
+        syncLog.setFilesUpdated(stats.filesUpdated.sum());
+        syncLog.setFilesDeleted(stats.filesDeleted.sum());
+        syncLog.setFilesSkipped(stats.filesSkipped.sum());
+        syncLog.setTotalBytes(stats.totalBytes.sum());
+        syncLog.setBlocksRewritten(stats.blocksRewritten.sum());
+        syncLog.setBytesSaved(stats.bytesSaved.sum());
+        syncLog.setFilesConflicted(stats.filesConflicted.sum());
+    }
+
+    /**
+     * Reporte dans le log la répartition du temps par étape, pour diagnostiquer a posteriori
+     * une synchronisation lente, y compris l'attente due à la limitation de débit.
+     */
+    private static void applyTimings(SyncLog syncLog, SyncTimings timings, SyncThrottle throttle) {
+        syncLog.setWalkMillis(timings.millis(SyncTimings.Step.WALK));
+        syncLog.setDetectMillis(timings.millis(SyncTimings.Step.DETECT));
+        syncLog.setHashMillis(timings.millis(SyncTimings.Step.HASH));
+        syncLog.setCopyMillis(timings.millis(SyncTimings.Step.COPY));
+        syncLog.setPersistMillis(timings.millis(SyncTimings.Step.PERSIST));
+        syncLog.setDeleteMillis(timings.millis(SyncTimings.Step.DELETE));
+        syncLog.setThrottledMillis(throttle.waitedMillis());
+    }
+
+    private boolean isPruningEnabled(SyncTask syncTask) {
+        return Boolean.TRUE.equals(syncTask.getDirectoryPruning())
+            && resolveChangeDetection(syncTask) != SyncTask.ChangeDetection.CHECKSUM;
+    }
+
+    /**
+     * Répertoires dont l'entrée d'index ne reflète plus le contenu après une synchronisation
+     * incrémentale : chaque racine modifiée et son parent.
+     */
+    private static Set<String> invalidatedDirectories(List<String> roots) {
+        Set<String> directories = new HashSet<>();
+        for (String root : roots) {
+            directories.add(root);
+            directories.add(parentDirectory(root));
+        }
+        return directories;
+    }
+
+    private static String parentDirectory(String relativePath) {
+        int separator = relativePath.lastIndexOf(File.separatorChar);
+        return separator < 0 ? "" : relativePath.substring(0, separator);
+    }
+
+    /**
+     * Normalise les chemins modifiés et retire ceux déjà couverts par un répertoire parent
+     * de la liste. Les chemins sortant de la source sont ignorés.
+     */
+    private static List<String> collapseToRoots(Path sourcePath, Collection<String> changedPaths) {
+        SortedSet<Path> candidates = new TreeSet<>();
+        for (String changed : changedPaths) {
+            Path resolved = sourcePath.resolve(changed).normalize();
+            if (resolved.startsWith(sourcePath) && !resolved.equals(sourcePath)) {
+                candidates.add(sourcePath.relativize(resolved));
+            } else if (resolved.equals(sourcePath)) {
+                return List.of("");
+            }
+        }
+
+        List<String> roots = new ArrayList<>();
+        for (Path candidate : candidates) {
+            boolean covered = false;
+            for (Path parent = candidate.getParent(); parent != null && !covered; parent = parent.getParent()) {
+                covered = candidates.contains(parent);
+            }
+            if (!covered) {
+                roots.add(candidate.toString());
+            }
+        }
+        return roots;
+    }
+
+    /**
+     * Traite les nouveaux fichiers mis de côté pendant le parcours, une fois toutes les copies
+     * terminées et les orphelins connus, en trois étapes parallèles : déplacement depuis un orphelin
+     * de même contenu (renommage dans la source), copie d'un exemplaire de chaque contenu nouveau,
+     * puis lien physique des doublons vers une copie identique. Un orphelin déplacé n'existe plus
+     * dans la destination : sa ligne est supprimée avec les autres.
+     */
+    private void relocate(SyncTask syncTask, Path sourcePath, Target target, List<TreeScanner.Entry> deferred,
+                          boolean moveDetection, boolean dedup, ThreadPoolExecutor pool, SyncControl control)
+            throws IOException, InterruptedException {
+        // Index à jour des copies du parcours avant d'y chercher les candidats
+        checkpoint(target.syncLog, target.writer);
+        Set<Long> sizes = new HashSet<>();
+        for (TreeScanner.Entry entry : deferred) {
+            sizes.add(entry.attrs().size());
+        }
+        SyncTask.HashAlgorithm algorithm = resolveHashAlgorithm(syncTask);
+        ContentIndex contents = new ContentIndex(algorithm);
+        target.index.forEachFile(sizes::contains, (relativePath, state, visited) -> {
+            if (visited || Files.exists(sourcePath.resolve(relativePath), LinkOption.NOFOLLOW_LINKS)) {
+                if (dedup) {
+                    contents.addCopy(relativePath, state);
+                }
+            } else if (moveDetection) {
+                contents.addOrphan(relativePath, state);
+            }
+        });
+
+        int count = deferred.size();
+        String[] relativePaths = new String[count];
+        String[] checksums = new String[count];
+        boolean[] moved = new boolean[count];
+        List<Integer> all = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            relativePaths[i] = sourcePath.relativize(deferred.get(i).path()).toString();
+            all.add(i);
+        }
+
+        // 1. Déplacements, et empreintes des autres fichiers pour la déduplication
+        runAll(pool, all, target, control, i -> {
+            SourceDigests digests = new SourceDigests(deferred.get(i).path());
+            moved[i] = moveDetection
+                && moveFromOrphan(syncTask, relativePaths[i], deferred.get(i), contents, digests, target);
+            if (!moved[i] && dedup) {
+                digests.compute(target.timings, algorithm);
+                checksums[i] = digests.get(algorithm);
+            }
+        });
+
+        // 2. Un exemplaire de chaque contenu absent de la destination est copié ; les autres seront liés
+        List<Integer> toCopy = new ArrayList<>();
+        List<Integer> toLink = new ArrayList<>();
+        Set<String> firstCopies = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            if (moved[i]) {
+                continue;
+            }
+            long size = deferred.get(i).attrs().size();
+            boolean duplicate = checksums[i] != null && (contents.copyOf(size, checksums[i]) != null
+                || !firstCopies.add(size + ":" + checksums[i]));
+            (duplicate ? toLink : toCopy).add(i);
+        }
+        runAll(pool, toCopy, target, control, i -> {
+            copyDeferred(syncTask, relativePaths[i], deferred.get(i), target);
+            if (checksums[i] != null && target.live()) {
+                BasicFileAttributes attrs = deferred.get(i).attrs();
+                contents.addCopy(relativePaths[i], attrs.size(),
+                    FileMetadataWriter.epochNanos(attrs.lastModifiedTime()), checksums[i]);
+            }
+        });
+
+        // 3. Doublons liés, ou copiés si le lien est impossible
+        runAll(pool, toLink, target, control, i -> {
+            if (!linkToCopy(syncTask, relativePaths[i], deferred.get(i), checksums[i], contents, target)) {
+                copyDeferred(syncTask, relativePaths[i], deferred.get(i), target);
+            }
+        });
+        pool.shutdown();
+    }
+
+    /**
+     * Exécute une étape pour chaque fichier mis de côté dans le pool, en vidant les métadonnées publiées
+     * jusqu'à la fin de toutes les exécutions. Une erreur d'entrée/sortie abandonne la destination.
+     */
+    private void runAll(ThreadPoolExecutor pool, List<Integer> items, Target target, SyncControl control,
+                        RelocationStep step) throws IOException, InterruptedException {
+        AtomicReference<Throwable> workerError = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(items.size());
+        for (int item : items) {
+            rethrowWorkerError(workerError);
+            rethrowIfAllFailed(List.of(target));
+            control.checkpoint();
+            pool.execute(() -> {
+                try {
+                    if (workerError.get() == null && target.live()) {
+                        control.checkpoint();
+                        step.run(item);
+                    }
+                } catch (IOException e) {
+                    target.fail(e);
+                } catch (Throwable e) {
+                    workerError.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
                 }
             });
+            drainMetadataUpdates(List.of(target));
+        }
+        while (!done.await(1, TimeUnit.SECONDS)) {
+            drainMetadataUpdates(List.of(target));
+        }
+        rethrowWorkerError(workerError);
+        drainMetadataUpdates(List.of(target));
+        rethrowIfAllFailed(List.of(target));
+    }
+
+    /**
+     * Copie normale d'un fichier mis de côté (inconnu, absent de la destination).
+     */
+    private void copyDeferred(SyncTask syncTask, String relativePath, TreeScanner.Entry entry, Target target) {
+        processFile(syncTask, relativePath, entry, new FileState[1], List.of(target));
+    }
+
+    /**
+     * Déplace dans la destination un orphelin de même contenu : même inode et même date (renommage
+     * dans la source), sinon même empreinte. L'orphelin doit être resté tel qu'il a été copié.
+     */
+    private boolean moveFromOrphan(SyncTask syncTask, String relativePath, TreeScanner.Entry entry,
+                                   ContentIndex contents, SourceDigests digests, Target target) throws IOException {
+        BasicFileAttributes attrs = entry.attrs();
+        SyncTask.ChangeDetection mode = resolveChangeDetection(syncTask);
+        SyncTask.HashAlgorithm algorithm = resolveHashAlgorithm(syncTask);
+        for (ContentIndex.Candidate orphan : contents.orphans(attrs.size())) {
+            FileState state = orphan.state();
+            SyncTask.HashAlgorithm recorded = state.checksumAlgorithm() != null
+                ? state.checksumAlgorithm()
+                : SyncTask.HashAlgorithm.SHA_256;
+            boolean renamed = attrs.fileKey() != null && sameFileKey(attrs, state)
+                && sameModifiedTime(attrs.lastModifiedTime(), state);
+            if (!renamed) {
+                if (mode == SyncTask.ChangeDetection.METADATA || state.checksum() == null) {
+                    continue;
+                }
+                digests.compute(target.timings, recorded, algorithm);
+                if (!digests.get(recorded).equals(state.checksumHex())) {
+                    continue;
+                }
+            }
+            Path orphanFile = target.root.resolve(orphan.relativePath());
+            if (!contents.claim(orphan) || !matchesRecorded(orphanFile, orphan.size(), orphan.modifiedNanos())) {
+                continue;
+            }
+
+            Path destFile = entry.mirror(target.position).path();
+            Files.createDirectories(destFile.getParent());
+            Files.move(orphanFile, destFile);
+            if (!renamed) {
+                Files.setLastModifiedTime(destFile, attrs.lastModifiedTime());
+            }
+            SyncControl.currentDurability().renamed(destFile);
+            target.stats.filesMoved.increment();
+            target.stats.bytesSaved.add(attrs.size());
+            target.stats.fileProcessed(attrs.size());
+            String checksum = renamed ? (recorded == algorithm ? state.checksumHex() : null) : digests.get(algorithm);
+            if (checksum != null) {
+                // Cible possible des doublons
+                contents.addCopy(relativePath, attrs.size(), FileMetadataWriter.epochNanos(attrs.lastModifiedTime()),
+                    checksum);
+            }
+            target.metadataUpdates.add(new MetadataUpdate(relativePath, attrs, checksum, algorithm, null, null, null));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Crée un lien physique vers une copie de même contenu dans la destination. Les fichiers liés
+     * partagent leur date : seule la source fait foi pour la détection des changements.
+     */
+    private boolean linkToCopy(SyncTask syncTask, String relativePath, TreeScanner.Entry entry, String checksum,
+                               ContentIndex contents, Target target) throws IOException {
+        BasicFileAttributes attrs = entry.attrs();
+        ContentIndex.Candidate copy = contents.copyOf(attrs.size(), checksum);
+        if (copy == null) {
+            return false;
+        }
+        Path copyFile = target.root.resolve(copy.relativePath());
+        if (!matchesRecorded(copyFile, copy.size(), copy.modifiedNanos())) {
+            return false;
+        }
+
+        Path destFile = entry.mirror(target.position).path();
+        Files.createDirectories(destFile.getParent());
+        try {
+            Files.createLink(destFile, copyFile);
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            return false; // Liens non supportés (ou destination apparue entre-temps) : copie normale
+        }
+        SyncControl.currentDurability().renamed(destFile);
+        target.stats.filesLinked.increment();
+        target.stats.bytesSaved.add(attrs.size());
+        target.stats.fileProcessed(attrs.size());
+        target.metadataUpdates.add(new MetadataUpdate(relativePath, attrs, checksum, resolveHashAlgorithm(syncTask),
+            null, null, null));
+        return true;
+    }
+
+    /**
+     * Le fichier de la destination est-il toujours celui enregistré à sa copie (taille et date) ?
+     */
+    private static boolean matchesRecorded(Path destFile, long size, long modifiedNanos) throws IOException {
+        try {
+            BasicFileAttributes destAttrs = Files.readAttributes(destFile, BasicFileAttributes.class,
+                LinkOption.NOFOLLOW_LINKS);
+            return destAttrs.isRegularFile() && destAttrs.size() == size
+                && FileMetadataWriter.epochNanos(destAttrs.lastModifiedTime()) == modifiedNanos;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
 
-            // Suppression des fichiers qui n'existent plus dans la source
-            for (String metaPath : existingMetadata.keySet()) {
-                if (!processedFiles.contains(metaPath)) {
-                    Path fileToDelete = destPath.resolve(metaPath);
-                    if (Files.exists(fileToDelete)) {
-                        Files.delete(fileToDelete);
-                        stats.filesDeleted++;
+    /**
+     * Un fichier lié (déduplication) ne doit pas être mis à jour en place (delta) : l'autre chemin
+     * changerait aussi. Il est supprimé, et recopié entièrement. Les copies complètes n'ont pas
+     * besoin de ce traitement : leur renommage remplace l'entrée sans toucher aux autres liens.
+     */
+    private static void breakHardLink(Path destFile) throws IOException {
+        if (!destFile.getFileSystem().supportedFileAttributeViews().contains("unix")) {
+            return;
+        }
+        try {
+            if ((Integer) Files.getAttribute(destFile, "unix:nlink", LinkOption.NOFOLLOW_LINKS) > 1) {
+                Files.delete(destFile);
+            }
+        } catch (NoSuchFileException e) {
+            // Destination absente : rien à délier
+        }
+    }
+
+    private static boolean isDedupEnabled(SyncTask syncTask) {
+        return Boolean.TRUE.equals(syncTask.getHardLinkDedup())
+            && resolveChangeDetection(syncTask) != SyncTask.ChangeDetection.METADATA;
+    }
+
+    /**
+     * Compare puis copie un fichier si nécessaire, pour chaque destination (exécuté par un worker).
+     * Les métadonnées à enregistrer sont publiées dans la file de chaque destination ;
+     * une erreur d'entrée/sortie n'abandonne que la destination concernée.
+     */
+    private void processFile(SyncTask syncTask, String relativePath, TreeScanner.Entry entry,
+                             FileState[] existing, List<Target> targets) {
+        Path file = entry.path();
+        BasicFileAttributes attrs = entry.attrs();
+        SyncTask.ChangeDetection mode = resolveChangeDetection(syncTask);
+        SyncTask.HashAlgorithm algorithm = resolveHashAlgorithm(syncTask);
+        SourceDigests digests = new SourceDigests(file);
+
+        List<Target> toCopy = new ArrayList<>(targets.size());
+        for (Target target : targets) {
+            if (!target.live()) {
+                continue;
+            }
+            FileState known = existing[target.position];
+            Path destFile = entry.mirror(target.position).path();
+            try {
+                BasicFileAttributes destAttrs = entry.mirror(target.position).read();
+                if (target.resumeSince != null && isCheckpointed(attrs, destAttrs, known, target.resumeSince)) {
+                    target.stats.filesSkipped.increment();
+                    continue;
+                }
+
+                long detectStart = SyncTimings.start();
+                ChangeCheck check = detectChange(file, attrs, destAttrs, known, mode, algorithm, target.timings,
+                    digests);
+                target.timings.stop(SyncTimings.Step.DETECT, detectStart);
+
+                if (check.decision() == Decision.UNCHANGED) {
+                    target.stats.filesSkipped.increment();
+                } else if (check.decision() == Decision.REFRESH) {
+                    // Contenu identique (vérifié par checksum) : seules la date et les métadonnées changent
+                    if (!attrs.lastModifiedTime().equals(Files.getLastModifiedTime(destFile))) {
+                        Files.setLastModifiedTime(destFile, attrs.lastModifiedTime());
                     }
-                    fileMetadataRepository.delete(existingMetadata.get(metaPath));
+                    target.stats.filesSkipped.increment();
+                    target.metadataUpdates.add(new MetadataUpdate(relativePath, attrs, check.checksum(), algorithm,
+                        known, null, null));
+                } else {
+                    // Créer répertoire parent si nécessaire
+                    Files.createDirectories(destFile.getParent());
+                    toCopy.add(target);
                 }
+            } catch (IOException e) {
+                target.fail(e);
             }
+        }
 
-            // Finalisation du log
-            syncLog.setEndTime(LocalDateTime.now());
-            syncLog.setStatus(SyncLog.SyncStatus.COMPLETED);
-            syncLog.setFilesScanned(stats.filesScanned);
-            syncLog.setFilesCopied(stats.filesCopied);
-            syncLog.setFilesUpdated(stats.filesUpdated);
-            syncLog.setFilesDeleted(stats.filesDeleted);
-            syncLog.setFilesSkipped(stats.filesSkipped);
-            syncLog.setTotalBytes(stats.totalBytes);
-            syncLog.setDetails(String.format("Synchronisation réussie: %d fichiers traités", stats.filesScanned));
+        if (!toCopy.isEmpty()) {
+            copy(syncTask, relativePath, entry, existing, toCopy, mode, algorithm);
+        }
+        for (Target target : targets) {
+            if (target.live()) {
+                target.stats.fileProcessed(attrs.size());
+            }
+        }
+    }
+
+    /**
+     * Copie un fichier vers les destinations qui l'attendent : une seule lecture de la source
+     * pour toutes, sauf en mode delta où chaque destination est mise à jour d'après sa propre signature.
+     */
+    private void copy(SyncTask syncTask, String relativePath, TreeScanner.Entry entry, FileState[] existing,
+                      List<Target> toCopy, SyncTask.ChangeDetection mode, SyncTask.HashAlgorithm algorithm) {
+        Path file = entry.path();
+        BasicFileAttributes attrs = entry.attrs();
+        boolean useDelta = Boolean.TRUE.equals(syncTask.getDeltaTransfer()) && attrs.size() >= deltaMinFileSize;
+        if (useDelta) {
+            for (Target target : toCopy) {
+                long copyStart = SyncTimings.start();
+                try {
+                    target.metadataUpdates.add(transferWithSignatures(target, relativePath, file,
+                        entry.mirror(target.position).path(), attrs, existing[target.position], algorithm));
+                    countCopied(target, existing[target.position]);
+                } catch (IOException e) {
+                    target.fail(e);
+                }
+                target.timings.stop(SyncTimings.Step.COPY, copyStart);
+            }
+            return;
+        }
 
-            return syncLogRepository.save(syncLog);
+        // Copier le fichier, en calculant le checksum au passage si la tâche en conserve un
+        long copyStart = SyncTimings.start();
+        FileHasher hasher = mode == SyncTask.ChangeDetection.METADATA ? null : FileHashers.create(algorithm);
+        List<String> checksums = new ArrayList<>(toCopy.size());
+        if (toCopy.size() == 1) {
+            Target target = toCopy.get(0);
+            Path destFile = entry.mirror(target.position).path();
+            try {
+                if (hasher == null) {
+                    fileCopier.copy(file, destFile, attrs);
+                    checksums.add(null);
+                } else {
+                    checksums.add(fileCopier.copyAndHash(file, destFile, attrs, hasher));
+                }
+            } catch (IOException e) {
+                target.fail(e);
+                return;
+            }
+        } else {
+            FileCopier.FanOutResult result;
+            try {
+                result = fileCopier.copyToAll(file,
+                    toCopy.stream().map(target -> entry.mirror(target.position).path()).toList(), attrs, hasher);
+            } catch (IOException e) {
+                toCopy.forEach(target -> target.fail(e));
+                return;
+            }
+            for (int i = 0; i < toCopy.size(); i++) {
+                IOException failure = result.failures().get(i);
+                if (failure != null) {
+                    toCopy.get(i).fail(failure);
+                }
+                checksums.add(result.checksum());
+            }
+        }
 
-        } catch (Exception e) {
-            log.error("Erreur lors de la synchronisation", e);
-            syncLog.setEndTime(LocalDateTime.now());
-            syncLog.setStatus(SyncLog.SyncStatus.FAILED);
-            syncLog.setErrorMessage(e.getMessage());
-            return syncLogRepository.save(syncLog);
-        } finally {
-            runningSyncs.remove(syncTask.getId());
+        for (int i = 0; i < toCopy.size(); i++) {
+            Target target = toCopy.get(i);
+            if (!target.live()) {
+                continue;
+            }
+            target.timings.stop(SyncTimings.Step.COPY, copyStart);
+            target.stats.totalBytes.add(attrs.size());
+            countCopied(target, existing[target.position]);
+            target.metadataUpdates.add(new MetadataUpdate(relativePath, attrs, checksums.get(i), algorithm,
+                existing[target.position], null, null));
         }
     }
 
     /**
-     * Détermine si un fichier doit être copié.
+     * Compte une copie terminée (nouveau fichier ou mise à jour) : une copie annulée ou en échec
+     * n'apparaît pas dans les compteurs du log.
      */
-    private boolean shouldCopyFile(Path sourceFile, Path destFile, FileMetadata existing, boolean useChecksum) throws IOException {
-        if (!Files.exists(destFile)) {
-            return true;
+    private static void countCopied(Target target, FileState known) {
+        if (known == null) {
+            target.stats.filesCopied.increment();
+        } else {
+            target.stats.filesUpdated.increment();
         }
+    }
+
+    /**
+     * Synchronisation bidirectionnelle d'un fichier (exécuté par un worker, ou par le thread de
+     * parcours pour les orphelins). Après chaque synchronisation, les deux côtés ont la taille et
+     * la date enregistrées dans {@code known} : chaque côté est comparé à cet état pour déterminer
+     * le sens de la propagation, et un fichier modifié des deux côtés avec des contenus différents
+     * est un conflit, résolu selon la politique de la tâche. Une suppression n'est propagée que
+     * si l'autre côté n'a pas changé ; sinon le fichier modifié est restauré.
+     */
+    private void processBidirectional(SyncTask syncTask, String relativePath, TreeScanner.Entry entry,
+                                      FileState known, Target target) {
+        Path sourceFile = entry.path();
+        Path destFile = entry.mirror(target.position).path();
+        BasicFileAttributes sourceAttrs = entry.attrs();
+        SyncTask.ConflictPolicy policy = syncTask.getConflictPolicy() != null
+            ? syncTask.getConflictPolicy()
+            : SyncTask.ConflictPolicy.NEWEST_WINS;
+        try {
+            BasicFileAttributes destAttrs = entry.mirror(target.position).read();
+            if ((sourceAttrs != null && sourceAttrs.isDirectory()) || (destAttrs != null && destAttrs.isDirectory())) {
+                conflict(target, relativePath, "fichier d'un côté, répertoire de l'autre : non résolu");
+                return;
+            }
 
+            long detectStart = SyncTimings.start();
+            boolean sourceChanged = sourceAttrs != null && (known == null || changedSince(sourceAttrs, known));
+            boolean destChanged = destAttrs != null && (known == null || changedSince(destAttrs, known));
+            target.timings.stop(SyncTimings.Step.DETECT, detectStart);
+
+            if (sourceAttrs != null && destAttrs != null) {
+                if (!sourceChanged && !destChanged) {
+                    target.stats.filesSkipped.increment();
+                } else if (!destChanged) {
+                    push(syncTask, relativePath, sourceFile, sourceAttrs, destFile, known, target);
+                } else if (!sourceChanged) {
+                    pull(syncTask, relativePath, destFile, destAttrs, sourceFile, known, target);
+                } else {
+                    SourceDigests sourceDigests = new SourceDigests(sourceFile);
+                    if (sameContent(syncTask, sourceAttrs, sourceDigests, destAttrs, new SourceDigests(destFile),
+                            target.timings)) {
+                        // Même contenu des deux côtés : seul l'état synchronisé est enregistré
+                        if (!sourceAttrs.lastModifiedTime().equals(destAttrs.lastModifiedTime())) {
+                            Files.setLastModifiedTime(destFile, sourceAttrs.lastModifiedTime());
+                        }
+                        target.stats.filesSkipped.increment();
+                        target.metadataUpdates.add(new MetadataUpdate(relativePath, sourceAttrs,
+                            sourceDigests.get(resolveHashAlgorithm(syncTask)), resolveHashAlgorithm(syncTask),
+                            known, null, null));
+                    } else {
+                        resolveConflict(syncTask, relativePath, sourceFile, sourceAttrs, destFile, destAttrs, known,
+                            policy, target);
+                    }
+                }
+            } else if (sourceAttrs != null) {
+                if (known == null) {
+                    push(syncTask, relativePath, sourceFile, sourceAttrs, destFile, null, target);
+                } else if (!sourceChanged) {
+                    delete(sourceFile, relativePath, known, target);
+                } else if (policy == SyncTask.ConflictPolicy.MANUAL) {
+                    conflict(target, relativePath, "supprimé dans la destination, modifié dans la source : non résolu");
+                } else {
+                    conflict(target, relativePath, "supprimé dans la destination, modifié dans la source : restauré");
+                    push(syncTask, relativePath, sourceFile, sourceAttrs, destFile, known, target);
+                }
+            } else if (destAttrs != null) {
+                if (known == null) {
+                    pull(syncTask, relativePath, destFile, destAttrs, sourceFile, null, target);
+                } else if (!destChanged) {
+                    delete(destFile, relativePath, known, target);
+                } else if (policy == SyncTask.ConflictPolicy.MANUAL) {
+                    conflict(target, relativePath, "supprimé dans la source, modifié dans la destination : non résolu");
+                } else {
+                    conflict(target, relativePath, "supprimé dans la source, modifié dans la destination : restauré");
+                    pull(syncTask, relativePath, destFile, destAttrs, sourceFile, known, target);
+                }
+            } else if (known != null) {
+                // Supprimé des deux côtés
+                target.metadataUpdates.add(MetadataUpdate.deleted(relativePath, known));
+            }
+        } catch (IOException e) {
+            target.fail(e);
+        }
+    }
+
+    /**
+     * Fichier modifié des deux côtés avec des contenus différents.
+     */
+    private void resolveConflict(SyncTask syncTask, String relativePath, Path sourceFile,
+                                 BasicFileAttributes sourceAttrs, Path destFile, BasicFileAttributes destAttrs,
+                                 FileState known, SyncTask.ConflictPolicy policy, Target target) throws IOException {
+        switch (policy) {
+            case NEWEST_WINS -> {
+                if (destAttrs.lastModifiedTime().compareTo(sourceAttrs.lastModifiedTime()) > 0) {
+                    conflict(target, relativePath, "modifié des deux côtés : destination conservée (plus récente)");
+                    pull(syncTask, relativePath, destFile, destAttrs, sourceFile, known, target);
+                } else {
+                    conflict(target, relativePath, "modifié des deux côtés : source conservée (plus récente)");
+                    push(syncTask, relativePath, sourceFile, sourceAttrs, destFile, known, target);
+                }
+            }
+            case KEEP_BOTH -> {
+                // La copie renommée est une nouvelle entrée de la destination : recopiée dans la
+                // source à la prochaine exécution
+                Path conflictCopy = destFile.resolveSibling(conflictName(destFile.getFileName().toString()));
+                Files.move(destFile, conflictCopy);
+                conflict(target, relativePath, "modifié des deux côtés : destination conservée sous "
+                    + conflictCopy.getFileName());
+                push(syncTask, relativePath, sourceFile, sourceAttrs, destFile, known, target);
+            }
+            case MANUAL -> conflict(target, relativePath, "modifié des deux côtés : non résolu");
+        }
+    }
+
+    /**
+     * Propage la source vers la destination.
+     */
+    private void push(SyncTask syncTask, String relativePath, Path sourceFile, BasicFileAttributes sourceAttrs,
+                      Path destFile, FileState known, Target target) throws IOException {
+        String checksum = transfer(syncTask, sourceFile, sourceAttrs, destFile, known, target);
+        target.metadataUpdates.add(new MetadataUpdate(relativePath, sourceAttrs, checksum,
+            resolveHashAlgorithm(syncTask), known, null, null));
+    }
+
+    /**
+     * Propage la destination vers la source ; l'état enregistré est celui de la source recopiée.
+     */
+    private void pull(SyncTask syncTask, String relativePath, Path destFile, BasicFileAttributes destAttrs,
+                      Path sourceFile, FileState known, Target target) throws IOException {
+        String checksum = transfer(syncTask, destFile, destAttrs, sourceFile, known, target);
         BasicFileAttributes sourceAttrs = Files.readAttributes(sourceFile, BasicFileAttributes.class);
-        BasicFileAttributes destAttrs = Files.readAttributes(destFile, BasicFileAttributes.class);
+        target.metadataUpdates.add(new MetadataUpdate(relativePath, sourceAttrs, checksum,
+            resolveHashAlgorithm(syncTask), known, null, null));
+    }
 
-        // Comparaison par taille
+    /**
+     * Copie un fichier d'un côté vers l'autre, avec son checksum si la tâche en conserve un.
+     */
+    private String transfer(SyncTask syncTask, Path from, BasicFileAttributes attrs, Path to, FileState known,
+                            Target target) throws IOException {
+        Files.createDirectories(to.getParent());
+        long copyStart = SyncTimings.start();
+        String checksum = null;
+        if (resolveChangeDetection(syncTask) == SyncTask.ChangeDetection.METADATA) {
+            fileCopier.copy(from, to, attrs);
+        } else {
+            checksum = fileCopier.copyAndHash(from, to, attrs, FileHashers.create(resolveHashAlgorithm(syncTask)));
+        }
+        target.timings.stop(SyncTimings.Step.COPY, copyStart);
+        target.stats.totalBytes.add(attrs.size());
+        countCopied(target, known);
+        return checksum;
+    }
+
+    private static void delete(Path file, String relativePath, FileState known, Target target) throws IOException {
+        Files.deleteIfExists(file);
+        target.stats.filesDeleted.increment();
+        target.metadataUpdates.add(MetadataUpdate.deleted(relativePath, known));
+    }
+
+    /**
+     * Les deux côtés ont-ils le même contenu ? Même taille et même date suffisent, sauf en
+     * mode CHECKSUM ; sinon les empreintes sont comparées (jamais en mode METADATA).
+     */
+    private boolean sameContent(SyncTask syncTask, BasicFileAttributes sourceAttrs, SourceDigests sourceDigests,
+                                BasicFileAttributes destAttrs, SourceDigests destDigests,
+                                SyncTimings timings) throws IOException {
         if (sourceAttrs.size() != destAttrs.size()) {
+            return false;
+        }
+        SyncTask.ChangeDetection mode = resolveChangeDetection(syncTask);
+        if (mode != SyncTask.ChangeDetection.CHECKSUM
+            && sourceAttrs.lastModifiedTime().equals(destAttrs.lastModifiedTime())) {
             return true;
         }
+        if (mode == SyncTask.ChangeDetection.METADATA) {
+            return false;
+        }
+        SyncTask.HashAlgorithm algorithm = resolveHashAlgorithm(syncTask);
+        sourceDigests.compute(timings, algorithm);
+        destDigests.compute(timings, algorithm);
+        return sourceDigests.get(algorithm).equals(destDigests.get(algorithm));
+    }
 
-        // Comparaison par date de modification
-        LocalDateTime sourceModified = LocalDateTime.ofInstant(
-            sourceAttrs.lastModifiedTime().toInstant(), ZoneId.systemDefault()
-        );
+    /**
+     * Un côté a-t-il changé depuis la dernière synchronisation (taille ou date) ?
+     */
+    private static boolean changedSince(BasicFileAttributes attrs, FileState known) {
+        return attrs.size() != known.size() || !sameModifiedTime(attrs.lastModifiedTime(), known);
+    }
 
-        if (existing != null && !sourceModified.equals(existing.getLastModified())) {
-            return true;
+    /**
+     * Enregistre un conflit : compté, et conservé dans le log (liste tronquée).
+     */
+    private static void conflict(Target target, String relativePath, String resolution) {
+        target.stats.filesConflicted.increment();
+        if (target.stats.filesConflicted.sum() <= MAX_RECORDED_CONFLICTS) {
+            target.conflicts.add(relativePath + " : " + resolution);
         }
+    }
+
+    /**
+     * Nom de la copie conservée en cas de conflit : « rapport (conflit 20240131-142500).pdf ».
+     */
+    private static String conflictName(String fileName) {
+        String suffix = " (conflit " + LocalDateTime.now().format(CONFLICT_STAMP) + ")";
+        int extension = fileName.lastIndexOf('.');
+        return extension > 0
+            ? fileName.substring(0, extension) + suffix + fileName.substring(extension)
+            : fileName + suffix;
+    }
 
-        // Comparaison par checksum si activé
-        if (useChecksum && existing != null) {
-            String currentChecksum = calculateChecksum(sourceFile);
-            return !currentChecksum.equals(existing.getChecksum());
+    /**
+     * Fichier déjà traité par l'exécution interrompue que l'on reprend : métadonnées validées
+     * depuis {@code resumeSince}, source inchangée depuis, destination de la bonne taille.
+     * Évite de recalculer son checksum.
+     */
+    private static boolean isCheckpointed(BasicFileAttributes attrs, BasicFileAttributes destAttrs,
+                                          FileState existing, LocalDateTime resumeSince) {
+        if (existing == null || existing.lastSyncedMicros() < FileState.epochMicros(resumeSince)
+            || !existing.preciseModified()) {
+            return false;
         }
+        if (attrs.size() != existing.size() || !sameModifiedTime(attrs.lastModifiedTime(), existing)
+            || !sameFileKey(attrs, existing)) {
+            return false;
+        }
+        return destAttrs != null && destAttrs.size() == attrs.size();
+    }
 
-        return false;
+    /**
+     * Copie d'un gros fichier en mode delta : si la destination correspond encore à la
+     * signature enregistrée, seuls les blocs modifiés sont réécrits ; sinon copie complète.
+     * Dans les deux cas, la nouvelle signature est calculée pendant la lecture de la source.
+     */
+    private MetadataUpdate transferWithSignatures(Target target, String relativePath, Path file, Path destFile,
+                                                  BasicFileAttributes attrs, FileState existing,
+                                                  SyncTask.HashAlgorithm algorithm) throws IOException {
+        SyncProgress stats = target.stats;
+        FileHasher hasher = FileHashers.create(algorithm);
+        breakHardLink(destFile);
+        FileSignature previousSignature = existing == null ? null : fileSignatureRepository
+            .findBySyncTaskIdAndFilePath(target.task.getId(), relativePath)
+            .orElse(null);
+
+        String checksum = null;
+        BlockSignatures.Builder blocks = null;
+        // Une destination en lecture seule (permissions reportées de la source) ne peut pas être
+        // mise à jour en place : elle est recopiée, le renommage ne dépendant que du répertoire
+        if (previousSignature != null && destinationMatches(destFile, previousSignature, existing)
+            && Files.isWritable(destFile)) {
+            BlockSignatures previous = BlockSignatures.fromBytes(previousSignature.getBlockSize(),
+                previousSignature.getFileSize(), previousSignature.getBlockHashes());
+            blocks = new BlockSignatures.Builder(previous.blockSize());
+
+            try {
+                FileCopier.DeltaResult delta = fileCopier.copyDelta(file, destFile, attrs, previous, hasher, blocks);
+                checksum = hasher.digestHex();
+                stats.blocksRewritten.add(delta.blocksRewritten());
+                stats.bytesSaved.add(attrs.size() - delta.bytesWritten());
+                stats.totalBytes.add(delta.bytesWritten());
+            } catch (AccessDeniedException e) {
+                if (!destFile.toString().equals(e.getFile())) {
+                    throw e;
+                }
+                // Refus à l'ouverture malgré isWritable (ACL, système de fichiers) : rien n'a été écrit
+                blocks = null;
+                hasher = FileHashers.create(algorithm);
+            }
+        }
+        if (blocks == null) {
+            blocks = new BlockSignatures.Builder(deltaBlockSize);
+            checksum = fileCopier.copyAndHash(file, destFile, attrs, hasher, blocks);
+            stats.totalBytes.add(attrs.size());
+        }
+
+        return new MetadataUpdate(relativePath, attrs, checksum, algorithm, existing,
+            blocks.build(), previousSignature);
     }
 
     /**
-     * Calcule le checksum SHA-256 d'un fichier.
+     * La destination est-elle toujours celle décrite par la signature ? Sa date est
+     * alignée sur la source à chaque copie : toute modification externe la fait diverger.
      */
-    private String calculateChecksum(Path file) throws IOException {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] buffer = new byte[chunkSize];
+    private static boolean destinationMatches(Path destFile, FileSignature signature,
+                                              FileState existing) throws IOException {
+        return existing.preciseModified() && signature.getFileSize() == existing.size()
+            && matchesRecorded(destFile, existing.size(), existing.modifiedNanos());
+    }
+
+    /**
+     * Crée le pool de workers d'une synchronisation. La file est bornée : lorsqu'elle est
+     * pleine, le thread de parcours exécute lui-même la copie, ce qui freine le scan.
+     * Les workers sont associés au jeton d'annulation de l'exécution.
+     */
+    private ThreadPoolExecutor createWorkerPool(SyncTask syncTask, SyncControl control) {
+        int parallelism = syncTask.getParallelism() != null ? syncTask.getParallelism() : defaultParallelism;
+        parallelism = Math.max(1, parallelism);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(() -> {
+                control.bind();
+                runnable.run();
+            },
+                "sync-" + syncTask.getId() + "-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        return new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(parallelism * 4), threadFactory,
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Crée le pool de lecture des répertoires d'une synchronisation. Les relevés d'attributs
+     * sont des appels bloquants : sur un montage réseau, la latence se recouvre avec plus de
+     * threads que de cœurs.
+     */
+    private ForkJoinPool createScanPool(SyncTask syncTask) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ForkJoinPool.ForkJoinWorkerThreadFactory threadFactory = forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("sync-" + syncTask.getId() + "-scan-" + threadCount.incrementAndGet());
+            return thread;
+        };
+        return new ForkJoinPool(Math.max(1, scanParallelism), threadFactory, null, false);
+    }
 
-            try (var is = Files.newInputStream(file)) {
-                int bytesRead;
-                while ((bytesRead = is.read(buffer)) != -1) {
-                    digest.update(buffer, 0, bytesRead);
+    /**
+     * Transmet au tampon d'écriture de chaque destination les métadonnées produites par les workers,
+     * avec un point de reprise dès qu'un lot est complet. Celles d'une destination abandonnée
+     * correspondent à des copies terminées : elles sont enregistrées aussi.
+     */
+    private void drainMetadataUpdates(List<Target> targets) {
+        for (Target target : targets) {
+            if (target.writer == null || target.metadataUpdates.isEmpty()) {
+                continue;
+            }
+            long persistStart = SyncTimings.start();
+            MetadataUpdate update;
+            while ((update = target.metadataUpdates.poll()) != null) {
+                if (update.attrs() == null) {
+                    target.writer.delete(update.relativePath(), update.existing());
+                    continue;
+                }
+                target.writer.write(update.existing(), update.relativePath(), update.attrs(),
+                    update.checksum(), update.algorithm());
+                if (update.signatures() != null) {
+                    saveSignatures(target.task, update);
                 }
             }
+            if (target.writer.isFull()) {
+                checkpoint(target.syncLog, target.writer);
+            }
+            target.timings.stop(SyncTimings.Step.PERSIST, persistStart);
+        }
+    }
+
+    /**
+     * Enregistre la signature par blocs d'un fichier, en réutilisant la ligne précédente s'il y en a une.
+     */
+    private void saveSignatures(SyncTask syncTask, MetadataUpdate update) {
+        FileSignature signature = update.previousSignature() != null
+            ? update.previousSignature()
+            : new FileSignature();
+        signature.setSyncTask(syncTask);
+        signature.setFilePath(update.relativePath());
+        signature.setBlockSize(update.signatures().blockSize());
+        signature.setFileSize(update.signatures().fileSize());
+        signature.setBlockHashes(update.signatures().toBytes());
+
+        // Écrite puis détachée aussitôt : le contexte de persistance ne doit pas accumuler ces blobs
+        entityManager.detach(fileSignatureRepository.saveAndFlush(signature));
+    }
+
+    /**
+     * Propage la première erreur rencontrée par un worker.
+     */
+    private static void rethrowWorkerError(AtomicReference<Throwable> workerError) throws IOException {
+        rethrow(workerError.get());
+    }
+
+    private static void rethrow(Throwable error) throws IOException {
+        if (error instanceof IOException ioException) {
+            throw ioException;
+        }
+        if (error instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        if (error != null) {
+            throw new IOException("Erreur dans un worker de synchronisation", error);
+        }
+    }
 
-            byte[] hashBytes = digest.digest();
-            StringBuilder sb = new StringBuilder();
-            for (byte b : hashBytes) {
-                sb.append(String.format("%02x", b));
+    /**
+     * Mode de détection effectif : celui de la tâche, sinon déduit de useChecksum.
+     */
+    private static SyncTask.ChangeDetection resolveChangeDetection(SyncTask syncTask) {
+        if (syncTask.getChangeDetection() != null) {
+            return syncTask.getChangeDetection();
+        }
+        return Boolean.TRUE.equals(syncTask.getUseChecksum())
+            ? SyncTask.ChangeDetection.SMART
+            : SyncTask.ChangeDetection.METADATA;
+    }
+
+    /**
+     * Algorithme de checksum effectif : celui de la tâche, sinon celui de l'application.
+     */
+    private SyncTask.HashAlgorithm resolveHashAlgorithm(SyncTask syncTask) {
+        return syncTask.getHashAlgorithm() != null ? syncTask.getHashAlgorithm() : defaultHashAlgorithm;
+    }
+
+    /**
+     * Durabilité effective des écritures : celle de la tâche, sinon celle de l'application.
+     */
+    private SyncTask.Durability resolveDurability(SyncTask syncTask) {
+        return syncTask.getDurability() != null ? syncTask.getDurability() : defaultDurability;
+    }
+
+    /**
+     * Détermine si un fichier doit être copié, en relisant les attributs de la destination.
+     * Visible dans le package pour les benchmarks (src/jmh).
+     */
+    ChangeCheck detectChange(Path sourceFile, BasicFileAttributes sourceAttrs, Path destFile,
+                                     FileState existing, SyncTask.ChangeDetection mode,
+                                     SyncTask.HashAlgorithm algorithm, SyncTimings timings) throws IOException {
+        BasicFileAttributes destAttrs;
+        try {
+            destAttrs = Files.readAttributes(destFile, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            destAttrs = null;
+        }
+        return detectChange(sourceFile, sourceAttrs, destAttrs, existing, mode, algorithm, timings,
+            new SourceDigests(sourceFile));
+    }
+
+    /**
+     * Détermine si un fichier doit être copié. Les attributs source et destination sont
+     * ceux relevés pendant le parcours ({@code destAttrs} null : destination absente) ;
+     * les empreintes de la source sont partagées entre les destinations.
+     */
+    private ChangeCheck detectChange(Path sourceFile, BasicFileAttributes sourceAttrs, BasicFileAttributes destAttrs,
+                                     FileState existing, SyncTask.ChangeDetection mode,
+                                     SyncTask.HashAlgorithm algorithm, SyncTimings timings,
+                                     SourceDigests digests) throws IOException {
+        if (destAttrs == null) {
+            return ChangeCheck.COPY;
+        }
+
+        // Comparaison par taille
+        if (sourceAttrs.size() != destAttrs.size()) {
+            return ChangeCheck.COPY;
+        }
+
+        if (existing == null) {
+            return ChangeCheck.UNCHANGED;
+        }
+
+        if (sourceAttrs.size() != existing.size()) {
+            return ChangeCheck.COPY;
+        }
+
+        boolean sameModified = sameModifiedTime(sourceAttrs.lastModifiedTime(), existing);
+
+        if (mode == SyncTask.ChangeDetection.METADATA) {
+            return sameModified ? ChangeCheck.UNCHANGED : ChangeCheck.COPY;
+        }
+
+        // Métadonnées fiables : même date, même inode, relevées hors de la fenêtre d'horodatage
+        boolean trusted = sameModified && sameFileKey(sourceAttrs, existing) && !isRacilyRecorded(existing);
+        if (mode == SyncTask.ChangeDetection.SMART && trusted) {
+            return ChangeCheck.UNCHANGED;
+        }
+
+        // Cas ambigu (ou mode CHECKSUM) : seul le contenu permet de trancher
+        String recordedChecksum = existing.checksumHex();
+        if (recordedChecksum == null) {
+            return ChangeCheck.COPY;
+        }
+        // Vérification avec l'algorithme de la ligne existante ; si la tâche en a changé,
+        // la nouvelle empreinte est calculée dans la même lecture (migration progressive)
+        SyncTask.HashAlgorithm recorded = existing.checksumAlgorithm() != null
+            ? existing.checksumAlgorithm()
+            : SyncTask.HashAlgorithm.SHA_256;
+        digests.compute(timings, recorded, algorithm);
+        if (!digests.get(recorded).equals(recordedChecksum)) {
+            return ChangeCheck.COPY;
+        }
+        if (recorded == algorithm) {
+            // Contenu identique : on réenregistre les métadonnées pour lever l'ambiguïté au prochain passage
+            return trusted ? ChangeCheck.UNCHANGED : new ChangeCheck(Decision.REFRESH, digests.get(algorithm));
+        }
+        return new ChangeCheck(Decision.REFRESH, digests.get(algorithm));
+    }
+
+    /**
+     * Compare la date de modification à la nanoseconde, ou à la microseconde
+     * pour les métadonnées enregistrées avant l'ajout de lastModifiedNanos.
+     */
+    private static boolean sameModifiedTime(FileTime modified, FileState existing) {
+        long modifiedNanos = FileMetadataWriter.epochNanos(modified);
+        if (existing.preciseModified()) {
+            return modifiedNanos == existing.modifiedNanos();
+        }
+        return existing.modifiedNanos() != FileState.NEVER
+            && Math.floorDiv(modifiedNanos, 1000) == existing.modifiedNanos() / 1000;
+    }
+
+    /**
+     * Un fichier remplacé (nouvel inode) avec la même taille et la même date est suspect.
+     */
+    private static boolean sameFileKey(BasicFileAttributes attrs, FileState existing) {
+        if (attrs.fileKey() == null) {
+            return true; // Système de fichiers sans identifiant stable
+        }
+        return attrs.fileKey().toString().equals(existing.fileKey());
+    }
+
+    /**
+     * Vrai si les métadonnées ont été relevées moins d'une granularité d'horodatage après
+     * la dernière modification : une écriture ultérieure aurait pu conserver la même date.
+     */
+    private boolean isRacilyRecorded(FileState existing) {
+        if (existing.lastSyncedMicros() == FileState.NEVER || !existing.preciseModified()) {
+            return true;
+        }
+        return existing.lastSyncedMicros() * 1000 - existing.modifiedNanos() < mtimeGranularityMillis * 1_000_000L;
+    }
+
+    /**
+     * Destination d'une exécution : la tâche elle-même, ou l'une de ses destinations supplémentaires
+     * (tâche secondaire, clé de ses métadonnées, de son log et de ses métriques). Une destination
+     * en échec est abandonnée pour le reste de l'exécution.
+     */
+    private static final class Target {
+        final int position;
+        final boolean shared;
+        final SyncTask task;
+        final Path root;
+        final SyncProgress stats;
+        final SyncTimings timings;
+        final LocalDateTime resumeSince;
+        final Queue<MetadataUpdate> metadataUpdates = new ConcurrentLinkedQueue<>();
+        final Queue<String> conflicts = new ConcurrentLinkedQueue<>(); // Au plus MAX_RECORDED_CONFLICTS
+        SyncLog syncLog;
+        FileIndex index;
+        FileMetadataWriter writer;
+        boolean finished;
+        private volatile Throwable error;
+
+        Target(int position, boolean shared, SyncTask task, Path root, SyncLog syncLog, SyncProgress stats,
+               SyncTimings timings, LocalDateTime resumeSince) {
+            this.position = position;
+            this.shared = shared;
+            this.task = task;
+            this.root = root;
+            this.syncLog = syncLog;
+            this.stats = stats;
+            this.timings = timings;
+            this.resumeSince = resumeSince;
+        }
+
+        boolean live() {
+            return error == null;
+        }
+
+        /**
+         * Abandonne la destination ; seule la première erreur est retenue.
+         */
+        synchronized void fail(Throwable cause) {
+            if (error != null) {
+                return;
+            }
+            error = cause;
+            if (shared) {
+                log.warn("Destination {} abandonnée pour la tâche {}: {}", root, task.getName(), cause.getMessage());
             }
-            return sb.toString();
-        } catch (Exception e) {
-            throw new IOException("Erreur lors du calcul du checksum", e);
         }
     }
 
     /**
-     * Met à jour les métadonnées d'un fichier.
+     * Empreintes de la source calculées pendant la détection, partagées entre les destinations
+     * d'un même fichier : une seule lecture pour tous les algorithmes demandés ensemble.
+     * Sert aussi, en mode bidirectionnel, à comparer le contenu de la destination.
      */
-    private void updateFileMetadata(SyncTask syncTask, String relativePath, Path file, BasicFileAttributes attrs) {
-        FileMetadata metadata = fileMetadataRepository
-            .findBySyncTaskAndFilePath(syncTask, relativePath)
-            .orElse(new FileMetadata());
+    private final class SourceDigests {
+        private final Path file;
+        private final Map<SyncTask.HashAlgorithm, String> digests = new EnumMap<>(SyncTask.HashAlgorithm.class);
 
-        metadata.setSyncTask(syncTask);
-        metadata.setFilePath(relativePath);
-        metadata.setFileSize(attrs.size());
-        metadata.setLastModified(LocalDateTime.ofInstant(
-            attrs.lastModifiedTime().toInstant(), ZoneId.systemDefault()
-        ));
-        metadata.setLastSynced(LocalDateTime.now());
-        metadata.setIsDirectory(attrs.isDirectory());
+        SourceDigests(Path file) {
+            this.file = file;
+        }
 
-        if (syncTask.getUseChecksum() && !attrs.isDirectory()) {
-            try {
-                metadata.setChecksum(calculateChecksum(file));
-            } catch (IOException e) {
-                log.warn("Impossible de calculer le checksum pour: {}", relativePath);
+        void compute(SyncTimings timings, SyncTask.HashAlgorithm... algorithms) throws IOException {
+            List<SyncTask.HashAlgorithm> missing = Arrays.stream(algorithms).distinct()
+                .filter(algorithm -> !digests.containsKey(algorithm))
+                .toList();
+            if (missing.isEmpty()) {
+                return;
             }
+            FileHasher[] hashers = missing.stream().map(FileHashers::create).toArray(FileHasher[]::new);
+            long hashStart = SyncTimings.start();
+            fileCopier.hash(file, hashers);
+            timings.stop(SyncTimings.Step.HASH, hashStart);
+            for (int i = 0; i < hashers.length; i++) {
+                digests.put(missing.get(i), hashers[i].digestHex());
+            }
+        }
+
+        String get(SyncTask.HashAlgorithm algorithm) {
+            return digests.get(algorithm);
         }
+    }
 
-        fileMetadataRepository.save(metadata);
+    /**
+     * Étape du traitement des fichiers mis de côté, pour le fichier d'indice donné.
+     */
+    @FunctionalInterface
+    private interface RelocationStep {
+        void run(int index) throws IOException;
     }
 
     /**
-     * Vérifie si une synchronisation est en cours.
+     * Fichier traité par un worker, en attente d'enregistrement de ses métadonnées
+     * ({@code attrs} null : fichier supprimé des deux côtés, ligne {@code existing} à supprimer).
      */
-    public boolean isSyncRunning(Long taskId) {
-        return runningSyncs.contains(taskId);
+    private record MetadataUpdate(String relativePath, BasicFileAttributes attrs, String checksum,
+                                  SyncTask.HashAlgorithm algorithm, FileState existing,
+                                  BlockSignatures signatures, FileSignature previousSignature) {
+
+        static MetadataUpdate deleted(String relativePath, FileState existing) {
+            return new MetadataUpdate(relativePath, null, null, null, existing, null, null);
+        }
+    }
+
+    enum Decision {
+        COPY,
+        UNCHANGED,
+        REFRESH  // Contenu identique mais date différente : mise à jour des métadonnées seules
     }
 
     /**
-     * Classe interne pour les statistiques de synchronisation.
+     * Résultat de la détection de changement, avec le checksum s'il a été calculé.
      */
-    private static class SyncStats {
-        long filesScanned = 0;
-        long filesCopied = 0;
-        long filesUpdated = 0;
-        long filesDeleted = 0;
-        long filesSkipped = 0;
-        long totalBytes = 0;
+    record ChangeCheck(Decision decision, String checksum) {
+        static final ChangeCheck COPY = new ChangeCheck(Decision.COPY, null);
+        static final ChangeCheck UNCHANGED = new ChangeCheck(Decision.UNCHANGED, null);
     }
 }
@@ -0,0 +1,306 @@
+package com.sync.app.service;
+
+import com.sync.app.entity.SyncLog;
+import com.sync.app.entity.SyncTask;
+import com.sync.app.repository.SyncTaskRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Synchronisation en temps réel : surveille la source des tâches {@code realtime} via
+ * {@link WatchService} et ne resynchronise que les chemins modifiés.
+ * <p>
+ * Les événements sont regroupés : la synchronisation part après {@code debounce-ms} sans
+ * nouvel événement, ou au plus tard {@code max-delay-ms} après le premier. En cas de
+ * débordement de la file d'événements (ou de trop nombreux chemins), on revient au
+ * parcours complet. La synchronisation planifiée reste active comme filet de sécurité.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class RealtimeSyncService {
+
+    private final SyncTaskRepository syncTaskRepository;
+    private final SyncExecutor syncExecutor;
+
+    @Value("${sync.realtime.debounce-ms:2000}")
+    private long debounceMillis;
+
+    @Value("${sync.realtime.max-delay-ms:30000}")
+    private long maxDelayMillis;
+
+    @Value("${sync.realtime.max-paths:1000}")
+    private int maxPaths;
+
+    private final Map<Long, TaskWatcher> watchers = new ConcurrentHashMap<>();
+
+    /**
+     * Démarre la surveillance des tâches temps réel au lancement de l'application.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWatchers() {
+        for (SyncTask task : syncTaskRepository.findAll()) {
+            refresh(task);
+        }
+    }
+
+    /**
+     * (Re)démarre ou arrête la surveillance d'une tâche selon sa configuration actuelle.
+     */
+    public void refresh(SyncTask task) {
+        stop(task.getId());
+
+        if (!Boolean.TRUE.equals(task.getActive()) || !Boolean.TRUE.equals(task.getRealtime())) {
+            return;
+        }
+
+        TaskWatcher watcher = new TaskWatcher(task);
+        try {
+            watcher.start();
+            watchers.put(task.getId(), watcher);
+            log.info("Surveillance temps réel démarrée pour: {}", task.getName());
+        } catch (IOException e) {
+            // La tâche reste synchronisée par le planificateur
+            log.error("Impossible de surveiller la source de la tâche: {}", task.getName(), e);
+            watcher.close();
+        }
+    }
+
+    /**
+     * Arrête la surveillance d'une tâche, si elle existe.
+     */
+    public void stop(Long taskId) {
+        TaskWatcher watcher = watchers.remove(taskId);
+        if (watcher != null) {
+            watcher.close();
+        }
+    }
+
+    public boolean isWatching(Long taskId) {
+        return watchers.containsKey(taskId);
+    }
+
+    @PreDestroy
+    public void stopAll() {
+        new ArrayList<>(watchers.keySet()).forEach(this::stop);
+    }
+
+    /**
+     * Surveillance récursive de la source d'une tâche, avec son propre thread.
+     * Les événements ne sont manipulés que par ce thread.
+     */
+    private class TaskWatcher implements Runnable {
+
+        private final SyncTask task;
+        private final Path sourcePath;
+        private final Map<WatchKey, Path> directories = new HashMap<>();
+        private final Set<String> pendingPaths = new LinkedHashSet<>();
+        private WatchService watchService;
+        private Thread thread;
+        private volatile boolean running;
+
+        private boolean overflow;
+        private long firstEventAt;
+        private long lastEventAt;
+        // Exécution en cours lors de la dernière soumission : les chemins attendent sa fin
+        private CompletableFuture<SyncLog> currentRun;
+
+        TaskWatcher(SyncTask task) {
+            this.task = task;
+            this.sourcePath = Paths.get(task.getSourcePath());
+        }
+
+        void start() throws IOException {
+            if (!Files.isDirectory(sourcePath)) {
+                throw new IOException("Le chemin source n'existe pas: " + sourcePath);
+            }
+            watchService = sourcePath.getFileSystem().newWatchService();
+            registerTree(sourcePath);
+
+            running = true;
+            thread = new Thread(this, "sync-" + task.getId() + "-watcher");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void close() {
+            running = false;
+            if (watchService != null) {
+                try {
+                    watchService.close();
+                } catch (IOException e) {
+                    log.warn("Erreur à la fermeture du WatchService de la tâche: {}", task.getName(), e);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    WatchKey key = watchService.poll(pollTimeout(), TimeUnit.MILLISECONDS);
+                    while (key != null) {
+                        processEvents(key);
+                        key = watchService.poll();
+                    }
+                    if (isDue()) {
+                        flush();
+                    }
+                }
+            } catch (ClosedWatchServiceException e) {
+                // Arrêt demandé
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("Surveillance temps réel interrompue pour: {}", task.getName(), e);
+                watchers.remove(task.getId(), this);
+                close();
+            }
+        }
+
+        private void processEvents(WatchKey key) {
+            Path dir = directories.get(key);
+
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW || dir == null) {
+                    overflow = true;
+                    markEvent();
+                    continue;
+                }
+
+                Path child = dir.resolve((Path) event.context());
+                boolean isDirectory = Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS);
+                if (event.kind() == StandardWatchEventKinds.ENTRY_MODIFY && isDirectory) {
+                    continue; // Le contenu du répertoire est couvert par sa propre surveillance
+                }
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && isDirectory) {
+                    // Son contenu initial sera pris en compte par le parcours du répertoire
+                    registerTreeQuietly(child);
+                }
+                pendingPaths.add(sourcePath.relativize(child).toString());
+                markEvent();
+            }
+
+            if (!key.reset()) {
+                directories.remove(key); // Répertoire supprimé : signalé par son parent
+            }
+        }
+
+        private void flush() {
+            boolean fullScan = overflow || pendingPaths.size() > maxPaths;
+            try {
+                if (fullScan) {
+                    log.info("Parcours complet pour la tâche temps réel: {}", task.getName());
+                    // Des répertoires créés pendant le débordement peuvent ne pas être surveillés
+                    registerTreeQuietly(sourcePath);
+                }
+                // Sans attendre la fin : une demande encore en file absorbe les suivantes
+                syncExecutor.submit(task, SyncExecutor.Priority.REALTIME,
+                    fullScan ? null : new ArrayList<>(pendingPaths));
+            } catch (SyncExecutor.AlreadyRunningException e) {
+                // Les chemins modifiés pendant l'exécution en cours seront soumis à sa fin
+                currentRun = e.getRunning();
+                return;
+            } catch (RejectedExecutionException e) {
+                // File pleine : nouvel essai après le délai de regroupement
+                lastEventAt = System.currentTimeMillis();
+                return;
+            }
+            clearPending();
+        }
+
+        /**
+         * Vrai tant que l'exécution en cours lors de la dernière soumission n'est pas terminée.
+         */
+        private boolean waitingForRun() {
+            if (currentRun != null && currentRun.isDone()) {
+                currentRun = null;
+            }
+            return currentRun != null;
+        }
+
+        private long pollTimeout() {
+            if (!overflow && pendingPaths.isEmpty()) {
+                return 1000;
+            }
+            if (waitingForRun()) {
+                return Math.min(debounceMillis, 1000);
+            }
+            long now = System.currentTimeMillis();
+            long wait = Math.min(lastEventAt + debounceMillis, firstEventAt + maxDelayMillis) - now;
+            return Math.max(wait, 1);
+        }
+
+        private boolean isDue() {
+            if ((!overflow && pendingPaths.isEmpty()) || waitingForRun()) {
+                return false;
+            }
+            long now = System.currentTimeMillis();
+            return now - lastEventAt >= debounceMillis || now - firstEventAt >= maxDelayMillis;
+        }
+
+        private void markEvent() {
+            long now = System.currentTimeMillis();
+            if (firstEventAt == 0) {
+                firstEventAt = now;
+            }
+            lastEventAt = now;
+        }
+
+        private void clearPending() {
+            pendingPaths.clear();
+            overflow = false;
+            firstEventAt = 0;
+        }
+
+        private void registerTreeQuietly(Path root) {
+            try {
+                registerTree(root);
+            } catch (IOException e) {
+                // Sous-arbre non surveillé : seul un parcours complet le rattrapera
+                log.warn("Surveillance impossible de {}: {}", root, e.getMessage());
+                overflow = true;
+            }
+        }
+
+        private void registerTree(Path root) throws IOException {
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    try {
+                        WatchKey key = dir.register(watchService,
+                            StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_DELETE,
+                            StandardWatchEventKinds.ENTRY_MODIFY);
+                        directories.put(key, dir);
+                    } catch (IOException e) {
+                        // Répertoire non surveillé (droits, limite de surveillances) : le reste de
+                        // l'arbre l'est quand même, le planificateur rattrape ce répertoire
+                        log.warn("Surveillance impossible de {}: {}", dir, e.getMessage());
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    // Supprimé entre l'événement et l'enregistrement : rien à surveiller
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.sync.app.service;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jeton d'annulation et de pause d'une synchronisation, vérifié de façon coopérative par le
+ * parcours, par les workers entre deux fichiers et par {@link FileCopier} entre deux blocs.
+ * <p>
+ * Le jeton est associé aux threads de l'exécution ({@link #bind}) : {@link FileCopier} le
+ * retrouve via {@link #checkCurrent(long)} sans qu'il faille le passer à chaque appel.
+ * Il porte aussi la limitation de débit de l'exécution ({@link SyncThrottle}) : l'attente
+ * imposée par le limiteur a lieu aux mêmes points de contrôle et reste interruptible,
+ * ainsi que le niveau de durabilité de ses écritures ({@link SyncDurability}).
+ */
+public class SyncControl {
+
+    private static final ThreadLocal<SyncControl> CURRENT = new ThreadLocal<>();
+
+    private volatile boolean cancelled;
+    private volatile boolean paused;
+    private volatile SyncThrottle throttle = SyncThrottle.NONE;
+    private volatile SyncDurability durability = SyncDurability.NONE;
+
+    /**
+     * Demande l'annulation ; réveille les threads en pause.
+     */
+    public synchronized void cancel() {
+        cancelled = true;
+        notifyAll();
+    }
+
+    public synchronized void pause() {
+        paused = true;
+    }
+
+    public synchronized void resume() {
+        paused = false;
+        notifyAll();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isPaused() {
+        return paused && !cancelled;
+    }
+
+    /**
+     * Point de contrôle : attend tant que l'exécution est en pause, puis échoue si elle a été annulée.
+     *
+     * @throws CancellationException si l'annulation a été demandée (ou le thread interrompu)
+     */
+    public void checkpoint() {
+        if (paused) {
+            awaitResume();
+        }
+        if (cancelled) {
+            throw new CancellationException("Synchronisation annulée");
+        }
+    }
+
+    /**
+     * Point de contrôle avant de lire ou d'écrire {@code bytes} octets : attend si le débit est limité.
+     */
+    public void checkpoint(long bytes) {
+        checkpoint();
+        throttle(throttle.reserveBytes(bytes));
+    }
+
+    /**
+     * Point de contrôle avant d'ouvrir un fichier : attend si le nombre de fichiers/s est limité.
+     */
+    public void fileCheckpoint() {
+        checkpoint();
+        throttle(throttle.reserveFile());
+    }
+
+    void setThrottle(SyncThrottle throttle) {
+        this.throttle = throttle;
+    }
+
+    SyncThrottle getThrottle() {
+        return throttle;
+    }
+
+    void setDurability(SyncDurability durability) {
+        this.durability = durability;
+    }
+
+    SyncDurability getDurability() {
+        return durability;
+    }
+
+    /**
+     * Attente imposée par le limiteur ; l'annulation y met fin, une pause la prolonge.
+     */
+    private void throttle(long waitNanos) {
+        if (waitNanos <= 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        long deadline = start + waitNanos;
+        synchronized (this) {
+            try {
+                for (long remaining = waitNanos; remaining > 0 && !cancelled; remaining = deadline - System.nanoTime()) {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Synchronisation interrompue");
+            } finally {
+                throttle.recordWait(System.nanoTime() - start);
+            }
+        }
+        checkpoint();
+    }
+
+    private synchronized void awaitResume() {
+        try {
+            while (paused && !cancelled) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Synchronisation interrompue");
+        }
+    }
+
+    /**
+     * Associe ce jeton au thread courant, jusqu'à {@link #unbind()}.
+     */
+    void bind() {
+        CURRENT.set(this);
+    }
+
+    static void unbind() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Point de contrôle du jeton associé au thread courant, s'il y en a un, avant de traiter
+     * {@code bytes} octets.
+     */
+    static void checkCurrent(long bytes) {
+        SyncControl control = CURRENT.get();
+        if (control != null) {
+            control.checkpoint(bytes);
+        }
+    }
+
+    /**
+     * Point de contrôle du jeton associé au thread courant, s'il y en a un, avant d'ouvrir un fichier.
+     */
+    static void checkCurrentFile() {
+        SyncControl control = CURRENT.get();
+        if (control != null) {
+            control.fileCheckpoint();
+        }
+    }
+
+    /**
+     * Durabilité des écritures de l'exécution associée au thread courant ({@code NONE} sans exécution).
+     */
+    static SyncDurability currentDurability() {
+        SyncControl control = CURRENT.get();
+        return control != null ? control.durability : SyncDurability.NONE;
+    }
+}
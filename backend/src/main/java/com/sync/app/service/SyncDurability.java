@@ -0,0 +1,118 @@
+package com.sync.app.service;
+
+import com.sync.app.entity.SyncTask;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Durabilité des écritures d'une synchronisation. Chaque fichier est écrit dans un fichier
+ * temporaire puis renommé à sa place ({@link FileCopier}) ; selon le niveau de la tâche :
+ * <ul>
+ *   <li>{@code NONE} : rien n'est forcé sur disque. Après une coupure de courant, le système de
+ *       fichiers peut avoir conservé le renommage sans le contenu : fichier vide ou tronqué ;</li>
+ *   <li>{@code BATCHED} : le contenu de chaque fichier est forcé avant son renommage (ou, pour une
+ *       mise à jour en place, avant la fin de l'écriture) : un fichier n'est jamais publié à moitié
+ *       écrit. Seuls les renommages (entrées de répertoire) sont mis en lot, puis forcés tous les
+ *       {@code batchFiles} fichiers et avant chaque point de reprise ({@link #flush}), chaque
+ *       répertoire une seule fois par lot : une coupure peut faire revenir les derniers fichiers à
+ *       leur version précédente, recopiée au passage suivant ;</li>
+ *   <li>{@code FULL} : comme {@code BATCHED}, mais le répertoire est forcé après chaque renommage.</li>
+ * </ul>
+ * Porté par {@link SyncControl}, comme la limitation de débit.
+ */
+final class SyncDurability {
+
+    /**
+     * Sans garantie : pour les appels hors synchronisation.
+     */
+    static final SyncDurability NONE = new SyncDurability(SyncTask.Durability.NONE, 0);
+
+    private final SyncTask.Durability level;
+    private final int batchFiles;
+    private final Object flushLock = new Object();
+    private Set<Path> directories = new LinkedHashSet<>();
+    private int pending;
+
+    SyncDurability(SyncTask.Durability level, int batchFiles) {
+        this.level = level;
+        this.batchFiles = batchFiles;
+    }
+
+    /**
+     * Vrai si le contenu de chaque fichier écrit doit être forcé sur disque avant d'être publié
+     * (tout niveau sauf {@code NONE}).
+     */
+    boolean forceBeforeCommit() {
+        return level != SyncTask.Durability.NONE;
+    }
+
+    /**
+     * Entrée de répertoire créée ou remplacée pour un contenu déjà sur disque : fichier temporaire
+     * renommé (forcé avant, voir {@link #forceBeforeCommit}), fichier déplacé ou lien physique.
+     */
+    void renamed(Path file) throws IOException {
+        switch (level) {
+            case FULL -> syncDirectory(file.getParent());
+            case BATCHED -> {
+                if (enqueue(file.getParent()) >= batchFiles) {
+                    flush();
+                }
+            }
+            default -> {
+                // Renommage atomique seul
+            }
+        }
+    }
+
+    /**
+     * Force sur disque les répertoires des renommages du lot, une fois chacun.
+     * Appelé avant chaque point de reprise : la base n'avance jamais au-delà du disque. Les vidages
+     * sont sérialisés, pour qu'un appel ne rende pas la main pendant qu'un lot retiré est encore en cours.
+     */
+    void flush() {
+        synchronized (flushLock) {
+            Set<Path> batchedDirectories;
+            synchronized (this) {
+                if (pending == 0) {
+                    return;
+                }
+                batchedDirectories = directories;
+                directories = new LinkedHashSet<>();
+                pending = 0;
+            }
+            for (Path directory : batchedDirectories) {
+                syncDirectory(directory);
+            }
+        }
+    }
+
+    /**
+     * Ajoute un renommage au lot ; renvoie le nombre de renommages en attente.
+     */
+    private synchronized int enqueue(Path directory) {
+        if (directory != null) {
+            directories.add(directory);
+        }
+        return ++pending;
+    }
+
+    /**
+     * Rend durable l'entrée d'un répertoire (renommage, création). Ignoré sur les plateformes
+     * où un répertoire ne peut pas être ouvert (Windows).
+     */
+    private static void syncDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Non supporté : le renommage reste atomique, sans garantie de durabilité
+        }
+    }
+}
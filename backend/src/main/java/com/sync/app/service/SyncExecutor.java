@@ -0,0 +1,401 @@
+package com.sync.app.service;
+
+import com.sync.app.dto.SyncExecutorStatsDto;
+import com.sync.app.entity.SyncLog;
+import com.sync.app.entity.SyncTask;
+import com.sync.app.repository.SyncTaskRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Point d'entrée unique de toutes les synchronisations (manuelles, planifiées, temps réel).
+ * <p>
+ * Au plus {@code max-concurrent-syncs} synchronisations s'exécutent en même temps, et au plus
+ * {@code max-per-device} par périphérique source ou destination. Les demandes en attente sont
+ * servies par priorité puis par ordre d'arrivée ; une demande qui ne peut pas démarrer faute de
+ * place sur son périphérique laisse passer les suivantes. Une seule demande par tâche est
+ * en attente ou en cours : les demandes ultérieures sont fusionnées avec elle.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class SyncExecutor {
+
+    /**
+     * Priorité d'une demande, de la plus urgente à la moins urgente.
+     */
+    public enum Priority {
+        MANUAL,
+        REALTIME,
+        SCHEDULED
+    }
+
+    /**
+     * Refus d'une demande parce que la tâche est déjà en cours (à distinguer d'une file pleine).
+     * Porte le résultat de l'exécution en cours, pour resoumettre à sa fin plutôt qu'à intervalles.
+     */
+    public static class AlreadyRunningException extends RejectedExecutionException {
+        private final transient CompletableFuture<SyncLog> running;
+
+        public AlreadyRunningException(String message, CompletableFuture<SyncLog> running) {
+            super(message);
+            this.running = running;
+        }
+
+        /**
+         * Résultat de l'exécution en cours, complété une fois sa place libérée.
+         */
+        public CompletableFuture<SyncLog> getRunning() {
+            return running;
+        }
+    }
+
+    private final FileSyncService fileSyncService;
+    private final SyncTaskRepository syncTaskRepository;
+
+    @Value("${sync.max-concurrent-syncs:3}")
+    private int maxConcurrentSyncs;
+
+    @Value("${sync.executor.max-per-device:2}")
+    private int maxPerDevice;
+
+    @Value("${sync.executor.queue-capacity:1000}")
+    private int queueCapacity;
+
+    // État partagé, protégé par lock
+    private final Object lock = new Object();
+    private final NavigableSet<SyncRequest> queue = new TreeSet<>();
+    private final Map<Long, SyncRequest> queuedByTask = new HashMap<>();
+    private final Map<Long, SyncRequest> runningByTask = new HashMap<>();
+    private final Map<Object, Integer> deviceUsage = new HashMap<>();
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder started = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    private ThreadPoolExecutor runners;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        // Les démarrages sont réglés par dispatch() : la file du pool reste vide
+        runners = new ThreadPoolExecutor(maxConcurrentSyncs, maxConcurrentSyncs, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "sync-runner-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        runners.shutdownNow();
+    }
+
+    /**
+     * Soumet une synchronisation. Si une demande est déjà en attente pour la tâche, elle est
+     * fusionnée avec celle-ci (priorité la plus haute, union des chemins, parcours complet
+     * si l'une des deux l'exige) et le même résultat est renvoyé.
+     *
+     * @param changedPaths chemins modifiés, ou null pour un parcours complet
+     * @throws AlreadyRunningException si la tâche est déjà en cours
+     * @throws RejectedExecutionException si la file est pleine
+     */
+    public CompletableFuture<SyncLog> submit(SyncTask task, Priority priority, Collection<String> changedPaths) {
+        Set<Object> devices = devicesOf(task);
+
+        synchronized (lock) {
+            SyncRequest running = runningByTask.get(task.getId());
+            if (running != null) {
+                rejected.increment();
+                throw new AlreadyRunningException("Une synchronisation est déjà en cours pour cette tâche",
+                    running.future);
+            }
+
+            SyncRequest pending = queuedByTask.get(task.getId());
+            if (pending != null) {
+                queue.remove(pending);
+                pending.merge(task, priority, changedPaths, devices);
+                queue.add(pending);
+                dispatch();
+                return pending.future;
+            }
+
+            if (queuedByTask.size() >= queueCapacity) {
+                rejected.increment();
+                throw new RejectedExecutionException("File d'attente des synchronisations pleine");
+            }
+
+            SyncRequest request = new SyncRequest(task, priority, changedPaths, devices, sequence.incrementAndGet());
+            queuedByTask.put(task.getId(), request);
+            queue.add(request);
+            submitted.increment();
+            dispatch();
+            return request.future;
+        }
+    }
+
+    /**
+     * Indique si une synchronisation de la tâche est en cours d'exécution.
+     */
+    public boolean isRunning(Long taskId) {
+        synchronized (lock) {
+            return runningByTask.containsKey(taskId);
+        }
+    }
+
+    /**
+     * Indique si une synchronisation de la tâche est en attente.
+     */
+    public boolean isQueued(Long taskId) {
+        synchronized (lock) {
+            return queuedByTask.containsKey(taskId);
+        }
+    }
+
+    /**
+     * Annule la synchronisation de la tâche : retirée de la file si elle attend (son résultat
+     * échoue avec une {@link CancellationException}), arrêtée au prochain point de contrôle
+     * si elle s'exécute.
+     *
+     * @return false si aucune synchronisation de la tâche n'est en attente ou en cours
+     */
+    public boolean cancel(Long taskId) {
+        SyncRequest pending;
+        synchronized (lock) {
+            SyncRequest running = runningByTask.get(taskId);
+            if (running != null) {
+                running.control.cancel();
+                return true;
+            }
+            pending = queuedByTask.remove(taskId);
+            if (pending == null) {
+                return false;
+            }
+            queue.remove(pending);
+            cancelled.increment();
+        }
+        pending.future.completeExceptionally(new CancellationException("Synchronisation annulée avant son démarrage"));
+        return true;
+    }
+
+    /**
+     * Met en pause la synchronisation en cours de la tâche : ses lectures et écritures s'arrêtent
+     * au prochain bloc, mais elle conserve sa place dans l'exécuteur.
+     *
+     * @return false si aucune synchronisation de la tâche n'est en cours
+     */
+    public boolean pause(Long taskId) {
+        synchronized (lock) {
+            SyncRequest running = runningByTask.get(taskId);
+            if (running == null) {
+                return false;
+            }
+            running.control.pause();
+            return true;
+        }
+    }
+
+    /**
+     * Reprend une synchronisation mise en pause.
+     *
+     * @return false si aucune synchronisation de la tâche n'est en cours
+     */
+    public boolean resume(Long taskId) {
+        synchronized (lock) {
+            SyncRequest running = runningByTask.get(taskId);
+            if (running == null) {
+                return false;
+            }
+            running.control.resume();
+            return true;
+        }
+    }
+
+    public boolean isPaused(Long taskId) {
+        synchronized (lock) {
+            SyncRequest running = runningByTask.get(taskId);
+            return running != null && running.control.isPaused();
+        }
+    }
+
+    public SyncExecutorStatsDto getStats() {
+        synchronized (lock) {
+            long startedCount = started.sum();
+            long now = System.nanoTime();
+            long oldestWaitNanos = queue.stream().mapToLong(r -> now - r.enqueuedAt).max().orElse(0);
+            return new SyncExecutorStatsDto(
+                maxConcurrentSyncs,
+                maxPerDevice,
+                runningByTask.size(),
+                queuedByTask.size(),
+                new ArrayList<>(runningByTask.keySet()),
+                queue.stream().map(r -> r.task.getId()).toList(),
+                submitted.sum(),
+                rejected.sum(),
+                completed.sum(),
+                failed.sum(),
+                cancelled.sum(),
+                startedCount > 0 ? TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.sum() / startedCount) : 0,
+                TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()),
+                TimeUnit.NANOSECONDS.toMillis(oldestWaitNanos)
+            );
+        }
+    }
+
+    /**
+     * Démarre autant de demandes que le permettent les limites globale et par périphérique.
+     * Appelé sous lock.
+     */
+    private void dispatch() {
+        Iterator<SyncRequest> iterator = queue.iterator();
+        while (runningByTask.size() < maxConcurrentSyncs && iterator.hasNext()) {
+            SyncRequest request = iterator.next();
+            if (!devicesAvailable(request.devices)) {
+                continue;
+            }
+
+            iterator.remove();
+            queuedByTask.remove(request.task.getId());
+            runningByTask.put(request.task.getId(), request);
+            request.devices.forEach(device -> deviceUsage.merge(device, 1, Integer::sum));
+
+            long waitNanos = System.nanoTime() - request.enqueuedAt;
+            started.increment();
+            totalWaitNanos.add(waitNanos);
+            maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+
+            runners.execute(() -> run(request));
+        }
+    }
+
+    private void run(SyncRequest request) {
+        SyncLog result = null;
+        Throwable error = null;
+        try {
+            result = fileSyncService.executeSync(request.task, request.changedPaths, request.control);
+        } catch (Throwable e) {
+            log.error("Erreur lors de l'exécution de la tâche: {}", request.task.getName(), e);
+            error = e;
+        } finally {
+            synchronized (lock) {
+                runningByTask.remove(request.task.getId());
+                request.devices.forEach(device -> deviceUsage.computeIfPresent(device, (d, n) -> n > 1 ? n - 1 : null));
+                if (result != null && result.getStatus() == SyncLog.SyncStatus.CANCELLED) {
+                    cancelled.increment();
+                } else if (error != null || result == null || result.getStatus() == SyncLog.SyncStatus.FAILED) {
+                    failed.increment();
+                } else {
+                    completed.increment();
+                }
+                dispatch();
+            }
+        }
+
+        // Après libération de la place : un enchaînement peut resoumettre la tâche
+        if (error != null) {
+            request.future.completeExceptionally(error);
+        } else {
+            request.future.complete(result);
+        }
+    }
+
+    private boolean devicesAvailable(Set<Object> devices) {
+        for (Object device : devices) {
+            if (deviceUsage.getOrDefault(device, 0) >= maxPerDevice) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Périphériques sollicités par une tâche : ceux de la source et de chacune de ses destinations.
+     */
+    private Set<Object> devicesOf(SyncTask task) {
+        Set<Object> devices = new HashSet<>(2);
+        devices.add(deviceOf(Paths.get(task.getSourcePath())));
+        devices.add(deviceOf(Paths.get(task.getDestinationPath())));
+        for (SyncTask replica : syncTaskRepository.findByPrimaryTaskIdOrderByIdAsc(task.getId())) {
+            devices.add(deviceOf(Paths.get(replica.getDestinationPath())));
+        }
+        return devices;
+    }
+
+    private static Object deviceOf(Path path) {
+        Path absolute = path.toAbsolutePath();
+        // La destination peut ne pas encore exister : on remonte au premier parent existant
+        for (Path candidate = absolute; candidate != null; candidate = candidate.getParent()) {
+            if (Files.exists(candidate)) {
+                try {
+                    return Files.getFileStore(candidate);
+                } catch (IOException e) {
+                    break;
+                }
+            }
+        }
+        return String.valueOf(absolute.getRoot());
+    }
+
+    /**
+     * Demande de synchronisation en attente ou en cours.
+     */
+    private static final class SyncRequest implements Comparable<SyncRequest> {
+        SyncTask task;
+        Priority priority;
+        Collection<String> changedPaths;
+        Set<Object> devices;
+        final long sequence;
+        final long enqueuedAt = System.nanoTime();
+        final CompletableFuture<SyncLog> future = new CompletableFuture<>();
+        final SyncControl control = new SyncControl();
+
+        SyncRequest(SyncTask task, Priority priority, Collection<String> changedPaths, Set<Object> devices,
+                    long sequence) {
+            this.task = task;
+            this.priority = priority;
+            this.changedPaths = changedPaths != null ? new LinkedHashSet<>(changedPaths) : null;
+            this.devices = devices;
+            this.sequence = sequence;
+        }
+
+        void merge(SyncTask newTask, Priority newPriority, Collection<String> newPaths, Set<Object> newDevices) {
+            task = newTask;
+            devices = newDevices;
+            if (newPriority.compareTo(priority) < 0) {
+                priority = newPriority;
+            }
+            if (changedPaths == null || newPaths == null) {
+                changedPaths = null;
+            } else {
+                changedPaths.addAll(newPaths);
+            }
+        }
+
+        @Override
+        public int compareTo(SyncRequest other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+}
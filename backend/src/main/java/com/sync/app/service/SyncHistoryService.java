@@ -0,0 +1,211 @@
+package com.sync.app.service;
+
+import com.sync.app.entity.SyncLog;
+import com.sync.app.entity.SyncLogRollup;
+import com.sync.app.entity.SyncTask;
+import com.sync.app.repository.SyncLogRepository;
+import com.sync.app.repository.SyncLogRollupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Historique des exécutions : conservation et sous-échantillonnage.
+ * <p>
+ * Les logs détaillés sont conservés {@code raw-retention-days} jours, puis repliés en agrégats
+ * horaires ; ceux-ci sont conservés {@code hourly-retention-days} jours, puis repliés en agrégats
+ * journaliers, conservés sans limite. Le dernier log de chaque tâche n'est jamais replié :
+ * il porte l'éventuel point de reprise d'une exécution interrompue.
+ * <p>
+ * Le compactage avance par lots, chacun dans sa propre transaction : un arrêt en cours de
+ * route ne perd ni ne compte deux fois aucune exécution.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class SyncHistoryService {
+
+    private final SyncLogRepository syncLogRepository;
+    private final SyncLogRollupRepository syncLogRollupRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${sync.history.raw-retention-days:7}")
+    private long rawRetentionDays;
+
+    @Value("${sync.history.hourly-retention-days:90}")
+    private long hourlyRetentionDays;
+
+    @Value("${sync.history.batch-size:1000}")
+    private int batchSize;
+
+    @Scheduled(cron = "${sync.history.compaction-cron:0 17 * * * *}")
+    public void compact() {
+        LocalDateTime now = LocalDateTime.now();
+        long logs = compactLogs(now.minusDays(rawRetentionDays));
+        long hourly = compactHourlyRollups(now.minusDays(hourlyRetentionDays).truncatedTo(ChronoUnit.DAYS));
+        if (logs > 0 || hourly > 0) {
+            log.info("Historique compacté: {} logs repliés par heure, {} agrégats horaires repliés par jour",
+                logs, hourly);
+        }
+    }
+
+    /**
+     * Série d'agrégats d'une tâche depuis {@code from}, période en cours comprise : les agrégats
+     * enregistrés sont complétés à la volée par les données plus fines pas encore repliées.
+     */
+    @Transactional(readOnly = true)
+    public List<SyncLogRollup> getHistory(SyncTask task, SyncLogRollup.Granularity granularity, LocalDateTime from) {
+        LocalDateTime start = bucketStart(from, granularity);
+        Map<LocalDateTime, SyncLogRollup> buckets = new TreeMap<>();
+
+        // Copies : les entités chargées ne doivent pas être modifiées par les cumuls
+        syncLogRollupRepository
+            .findBySyncTaskAndGranularityAndBucketStartGreaterThanEqualOrderByBucketStart(task, granularity, start)
+            .forEach(rollup -> merge(bucket(buckets, task, granularity, rollup.getBucketStart()), rollup));
+        if (granularity == SyncLogRollup.Granularity.DAILY) {
+            syncLogRollupRepository
+                .findBySyncTaskAndGranularityAndBucketStartGreaterThanEqualOrderByBucketStart(
+                    task, SyncLogRollup.Granularity.HOURLY, start)
+                .forEach(rollup -> merge(bucket(buckets, task, granularity, rollup.getBucketStart()), rollup));
+        }
+        for (SyncLog syncLog : syncLogRepository.findBySyncTaskAndStartTimeGreaterThanEqual(task, start)) {
+            if (syncLog.getStatus() != SyncLog.SyncStatus.RUNNING) {
+                merge(bucket(buckets, task, granularity, syncLog.getStartTime()), toRollup(syncLog));
+            }
+        }
+        return new ArrayList<>(buckets.values());
+    }
+
+    private long compactLogs(LocalDateTime cutoff) {
+        return compactInBatches(() -> {
+            List<SyncLog> expired = syncLogRepository.findExpired(cutoff, SyncLog.SyncStatus.RUNNING,
+                PageRequest.of(0, batchSize));
+            if (expired.isEmpty()) {
+                return 0;
+            }
+            fold(expired, SyncLog::getSyncTask, SyncLog::getStartTime, SyncHistoryService::toRollup,
+                SyncLogRollup.Granularity.HOURLY);
+            syncLogRepository.deleteAllByIdInBatch(expired.stream().map(SyncLog::getId).toList());
+            return expired.size();
+        });
+    }
+
+    private long compactHourlyRollups(LocalDateTime cutoff) {
+        return compactInBatches(() -> {
+            List<SyncLogRollup> expired = syncLogRollupRepository.findByGranularityAndBucketStartBeforeOrderById(
+                SyncLogRollup.Granularity.HOURLY, cutoff, PageRequest.of(0, batchSize));
+            if (expired.isEmpty()) {
+                return 0;
+            }
+            fold(expired, SyncLogRollup::getSyncTask, SyncLogRollup::getBucketStart, Function.identity(),
+                SyncLogRollup.Granularity.DAILY);
+            syncLogRollupRepository.deleteAllByIdInBatch(expired.stream().map(SyncLogRollup::getId).toList());
+            return expired.size();
+        });
+    }
+
+    private long compactInBatches(Supplier<Integer> batch) {
+        long total = 0;
+        int count;
+        do {
+            count = Objects.requireNonNull(transactionTemplate.execute(status -> batch.get()));
+            total += count;
+        } while (count == batchSize);
+        return total;
+    }
+
+    /**
+     * Cumule des éléments dans les agrégats de {@code granularity}, existants ou nouveaux.
+     */
+    private <T> void fold(List<T> items, Function<T, SyncTask> taskOf, Function<T, LocalDateTime> timeOf,
+                          Function<T, SyncLogRollup> toRollup, SyncLogRollup.Granularity granularity) {
+        // Regroupement par identifiant : les tâches sont des proxys non initialisés
+        Map<Long, List<T>> byTask = new HashMap<>();
+        for (T item : items) {
+            byTask.computeIfAbsent(taskOf.apply(item).getId(), id -> new ArrayList<>()).add(item);
+        }
+
+        List<SyncLogRollup> touched = new ArrayList<>();
+        for (List<T> taskItems : byTask.values()) {
+            SyncTask task = taskOf.apply(taskItems.get(0));
+            LocalDateTime min = null;
+            LocalDateTime max = null;
+            for (T item : taskItems) {
+                LocalDateTime bucket = bucketStart(timeOf.apply(item), granularity);
+                min = min == null || bucket.isBefore(min) ? bucket : min;
+                max = max == null || bucket.isAfter(max) ? bucket : max;
+            }
+
+            Map<LocalDateTime, SyncLogRollup> buckets = new HashMap<>();
+            syncLogRollupRepository.findBySyncTaskAndGranularityAndBucketStartBetween(task, granularity, min, max)
+                .forEach(rollup -> buckets.put(rollup.getBucketStart(), rollup));
+            for (T item : taskItems) {
+                merge(bucket(buckets, task, granularity, timeOf.apply(item)), toRollup.apply(item));
+            }
+            touched.addAll(buckets.values());
+        }
+        syncLogRollupRepository.saveAll(touched);
+    }
+
+    private static SyncLogRollup bucket(Map<LocalDateTime, SyncLogRollup> buckets, SyncTask task,
+                                        SyncLogRollup.Granularity granularity, LocalDateTime time) {
+        return buckets.computeIfAbsent(bucketStart(time, granularity), start -> {
+            SyncLogRollup rollup = new SyncLogRollup();
+            rollup.setSyncTask(task);
+            rollup.setGranularity(granularity);
+            rollup.setBucketStart(start);
+            return rollup;
+        });
+    }
+
+    private static LocalDateTime bucketStart(LocalDateTime time, SyncLogRollup.Granularity granularity) {
+        return time.truncatedTo(granularity == SyncLogRollup.Granularity.HOURLY ? ChronoUnit.HOURS : ChronoUnit.DAYS);
+    }
+
+    /**
+     * Agrégat d'une seule exécution.
+     */
+    private static SyncLogRollup toRollup(SyncLog syncLog) {
+        long duration = syncLog.getEndTime() != null
+            ? Duration.between(syncLog.getStartTime(), syncLog.getEndTime()).toMillis() : 0;
+        SyncLogRollup rollup = new SyncLogRollup();
+        rollup.setRuns(1L);
+        rollup.setFailedRuns(syncLog.getStatus() == SyncLog.SyncStatus.COMPLETED ? 0L : 1L);
+        rollup.setFilesScanned(valueOf(syncLog.getFilesScanned()));
+        rollup.setFilesCopied(valueOf(syncLog.getFilesCopied()));
+        rollup.setFilesUpdated(valueOf(syncLog.getFilesUpdated()));
+        rollup.setFilesDeleted(valueOf(syncLog.getFilesDeleted()));
+        rollup.setTotalBytes(valueOf(syncLog.getTotalBytes()));
+        rollup.setTotalDurationMillis(duration);
+        rollup.setMaxDurationMillis(duration);
+        return rollup;
+    }
+
+    private static void merge(SyncLogRollup target, SyncLogRollup source) {
+        target.setRuns(target.getRuns() + source.getRuns());
+        target.setFailedRuns(target.getFailedRuns() + source.getFailedRuns());
+        target.setFilesScanned(target.getFilesScanned() + source.getFilesScanned());
+        target.setFilesCopied(target.getFilesCopied() + source.getFilesCopied());
+        target.setFilesUpdated(target.getFilesUpdated() + source.getFilesUpdated());
+        target.setFilesDeleted(target.getFilesDeleted() + source.getFilesDeleted());
+        target.setTotalBytes(target.getTotalBytes() + source.getTotalBytes());
+        target.setTotalDurationMillis(target.getTotalDurationMillis() + source.getTotalDurationMillis());
+        target.setMaxDurationMillis(Math.max(target.getMaxDurationMillis(), source.getMaxDurationMillis()));
+    }
+
+    private static long valueOf(Long value) {
+        return value != null ? value : 0;
+    }
+}
@@ -0,0 +1,91 @@
+package com.sync.app.service;
+
+import com.sync.app.entity.SyncLog;
+import com.sync.app.entity.SyncTask;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Métriques Micrometer des synchronisations, étiquetées par tâche (identifiant : le nom
+ * peut changer) : durée par étape, durée totale, fichiers et octets traités, attente imposée
+ * par la limitation de débit.
+ * Exposées par Actuator, notamment sur {@code /actuator/prometheus}.
+ */
+@Component
+@RequiredArgsConstructor
+public class SyncMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Prépare les timers d'une exécution ; ils sont partagés avec les exécutions
+     * précédentes de la même tâche.
+     */
+    SyncTimings startRun(SyncTask task) {
+        Map<SyncTimings.Step, Timer> timers = new EnumMap<>(SyncTimings.Step.class);
+        for (SyncTimings.Step step : SyncTimings.Step.values()) {
+            timers.put(step, Timer.builder("sync.phase")
+                .description("Durée des étapes de synchronisation")
+                .tags(taskTags(task).and("phase", step.name().toLowerCase(Locale.ROOT)))
+                .publishPercentileHistogram(step.perFile)
+                .register(meterRegistry));
+        }
+        return new SyncTimings(timers);
+    }
+
+    /**
+     * Enregistre le résultat d'une exécution terminée.
+     */
+    void recordRun(SyncTask task, SyncLog syncLog, SyncTimings timings) {
+        timings.complete();
+
+        Tags tags = taskTags(task);
+        Timer.builder("sync.run")
+            .description("Durée totale des synchronisations")
+            .tags(tags.and("status", syncLog.getStatus().name()))
+            .register(meterRegistry)
+            .record(Duration.between(syncLog.getStartTime(), syncLog.getEndTime()));
+
+        countFiles(tags, "copied", syncLog.getFilesCopied());
+        countFiles(tags, "updated", syncLog.getFilesUpdated());
+        countFiles(tags, "skipped", syncLog.getFilesSkipped());
+        countFiles(tags, "deleted", syncLog.getFilesDeleted());
+        if (syncLog.getFilesConflicted() != null) {
+            countFiles(tags, "conflicted", syncLog.getFilesConflicted());
+        }
+        Counter.builder("sync.bytes.copied")
+            .description("Octets écrits dans la destination")
+            .baseUnit("bytes")
+            .tags(tags)
+            .register(meterRegistry)
+            .increment(syncLog.getTotalBytes());
+        if (syncLog.getThrottledMillis() != null) {
+            Timer.builder("sync.throttled")
+                .description("Attente imposée par la limitation de débit, cumulée sur les workers")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(Duration.ofMillis(syncLog.getThrottledMillis()));
+        }
+    }
+
+    private void countFiles(Tags tags, String outcome, long count) {
+        Counter.builder("sync.files")
+            .description("Fichiers traités, par résultat")
+            .tags(tags.and("outcome", outcome))
+            .register(meterRegistry)
+            .increment(count);
+    }
+
+    private static Tags taskTags(SyncTask task) {
+        return Tags.of("task", String.valueOf(task.getId()));
+    }
+}
@@ -0,0 +1,159 @@
+package com.sync.app.service;
+
+import com.sync.app.dto.SyncProgressDto;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Avancement d'une synchronisation en cours. Les compteurs sont incrémentés sans verrou
+ * par le thread de parcours et les workers ; seule la prise d'instantané est synchronisée,
+ * pour le calcul des débits.
+ */
+public class SyncProgress {
+
+    /**
+     * Étape courante. Le parcours et les copies se chevauchent : {@code SCAN} couvre
+     * le parcours, {@code COPY} la fin des copies une fois le parcours terminé.
+     */
+    public enum Phase {
+        SCAN,
+        COPY,
+        DELETE,
+        FINALIZE,
+        COMPLETED,
+        FAILED,
+        CANCELLED
+    }
+
+    // Lissage exponentiel des débits entre deux instantanés
+    private static final double RATE_SMOOTHING = 0.3;
+    private static final long MIN_SAMPLE_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    final LongAdder filesScanned = new LongAdder();
+    final LongAdder filesCopied = new LongAdder();
+    final LongAdder filesUpdated = new LongAdder();
+    final LongAdder filesDeleted = new LongAdder();
+    final LongAdder filesSkipped = new LongAdder();
+    final LongAdder totalBytes = new LongAdder(); // Octets écrits dans la destination
+    final LongAdder blocksRewritten = new LongAdder();
+    final LongAdder bytesSaved = new LongAdder();
+    final LongAdder filesConflicted = new LongAdder(); // Synchronisation bidirectionnelle
+    final LongAdder filesMoved = new LongAdder(); // Déplacés dans la destination plutôt que recopiés
+    final LongAdder filesLinked = new LongAdder(); // Liés à une copie identique plutôt que recopiés
+    final LongAdder bytesScanned = new LongAdder(); // Taille cumulée des fichiers parcourus
+    final LongAdder filesProcessed = new LongAdder(); // Fichiers comparés (copiés ou non)
+    final LongAdder bytesProcessed = new LongAdder();
+
+    private final Long taskId;
+    private final Long syncLogId;
+    private final SyncControl control;
+    private final LocalDateTime startTime = LocalDateTime.now();
+    private final long startNanos = System.nanoTime();
+    private volatile Phase phase = Phase.SCAN;
+    private volatile long endNanos;
+
+    private long sampleNanos = startNanos;
+    private long sampleBytesCopied;
+    private long sampleBytesProcessed;
+    private long sampleFilesProcessed;
+    private double copyRate;
+    private double bytesRate;
+    private double filesRate;
+
+    SyncProgress(Long taskId, Long syncLogId, SyncControl control) {
+        this.taskId = taskId;
+        this.syncLogId = syncLogId;
+        this.control = control;
+    }
+
+    public Long getTaskId() {
+        return taskId;
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    public boolean isFinished() {
+        return phase == Phase.COMPLETED || phase == Phase.FAILED || phase == Phase.CANCELLED;
+    }
+
+    void setPhase(Phase phase) {
+        if (phase == Phase.COMPLETED || phase == Phase.FAILED || phase == Phase.CANCELLED) {
+            endNanos = System.nanoTime();
+        }
+        this.phase = phase;
+    }
+
+    /**
+     * Comptabilise un fichier dont la comparaison (et la copie éventuelle) est terminée.
+     */
+    void fileProcessed(long size) {
+        filesProcessed.increment();
+        bytesProcessed.add(size);
+    }
+
+    /**
+     * Instantané de l'avancement, avec débits lissés et estimation du temps restant
+     * (connue seulement une fois le parcours terminé).
+     */
+    public synchronized SyncProgressDto snapshot() {
+        long now = isFinished() ? endNanos : System.nanoTime();
+        long copied = totalBytes.sum();
+        long processedBytes = bytesProcessed.sum();
+        long processedFiles = filesProcessed.sum();
+
+        long elapsed = now - sampleNanos;
+        if (elapsed >= MIN_SAMPLE_NANOS) {
+            double seconds = elapsed / 1e9;
+            copyRate = smooth(copyRate, (copied - sampleBytesCopied) / seconds);
+            bytesRate = smooth(bytesRate, (processedBytes - sampleBytesProcessed) / seconds);
+            filesRate = smooth(filesRate, (processedFiles - sampleFilesProcessed) / seconds);
+            sampleNanos = now;
+            sampleBytesCopied = copied;
+            sampleBytesProcessed = processedBytes;
+            sampleFilesProcessed = processedFiles;
+        }
+
+        long totalSeconds = TimeUnit.NANOSECONDS.toSeconds(now - startNanos);
+        Long eta = null;
+        if (isFinished()) {
+            eta = 0L;
+        } else if (phase != Phase.SCAN && !control.isPaused()) {
+            // Le plus pessimiste des deux : les petits fichiers coûtent plus que leur taille
+            double byBytes = bytesRate > 0 ? (bytesScanned.sum() - processedBytes) / bytesRate : 0;
+            double byFiles = filesRate > 0 ? (filesScanned.sum() - processedFiles) / filesRate : 0;
+            eta = (long) Math.ceil(Math.max(byBytes, byFiles));
+        }
+
+        return new SyncProgressDto(
+            taskId,
+            syncLogId,
+            phase,
+            !isFinished() && control.isPaused(),
+            startTime,
+            totalSeconds,
+            filesScanned.sum(),
+            processedFiles,
+            filesCopied.sum() + filesUpdated.sum(),
+            filesSkipped.sum(),
+            filesDeleted.sum(),
+            bytesScanned.sum(),
+            processedBytes,
+            copied,
+            toMegabytes(copyRate),
+            toMegabytes(bytesRate),
+            eta
+        );
+    }
+
+    private static double smooth(double previous, double sample) {
+        return previous == 0 ? sample : RATE_SMOOTHING * sample + (1 - RATE_SMOOTHING) * previous;
+    }
+
+    private static double toMegabytes(double bytesPerSecond) {
+        return Math.round(bytesPerSecond / (1024.0 * 1024.0) * 100) / 100.0;
+    }
+}
@@ -0,0 +1,127 @@
+package com.sync.app.service;
+
+import com.sync.app.dto.SyncProgressDto;
+import com.sync.app.entity.SyncLog;
+import com.sync.app.entity.SyncTask;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Diffusion de l'avancement des synchronisations en Server-Sent Events.
+ * <p>
+ * Les synchronisations ne font qu'incrémenter leurs compteurs ; l'émission est cadencée
+ * par {@code emit-interval-ms}, quel que soit le nombre de fichiers traités entre deux
+ * émissions. Une synchronisation terminée fait l'objet d'un dernier événement puis
+ * n'est plus diffusée.
+ */
+@Service
+@Slf4j
+public class SyncProgressService {
+
+    private static final String EVENT_NAME = "progress";
+
+    @Value("${sync.progress.sse-timeout-ms:3600000}")
+    private long sseTimeoutMillis;
+
+    private final Map<Long, SyncProgress> progressByTask = new ConcurrentHashMap<>();
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    /**
+     * Enregistre le début d'une synchronisation et renvoie ses compteurs.
+     */
+    SyncProgress start(SyncTask task, SyncLog syncLog, SyncControl control) {
+        SyncProgress progress = new SyncProgress(task.getId(), syncLog.getId(), control);
+        progressByTask.put(task.getId(), progress);
+        return progress;
+    }
+
+    /**
+     * Marque une synchronisation comme terminée ; elle sera diffusée une dernière fois.
+     */
+    void finish(SyncProgress progress, SyncProgress.Phase phase) {
+        progress.setPhase(phase);
+    }
+
+    /**
+     * Abonnement à l'avancement d'une tâche, ou de toutes les tâches si {@code taskId} est null.
+     * L'état courant est envoyé immédiatement.
+     */
+    public SseEmitter subscribe(Long taskId) {
+        SseEmitter emitter = new SseEmitter(sseTimeoutMillis);
+        Subscriber subscriber = new Subscriber(taskId, emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+
+        for (SyncProgress progress : progressByTask.values()) {
+            if (subscriber.accepts(progress.getTaskId()) && !send(subscriber, progress.snapshot())) {
+                break;
+            }
+        }
+        return emitter;
+    }
+
+    /**
+     * Renvoie l'avancement courant d'une tâche, ou null si aucune synchronisation n'est suivie.
+     */
+    public SyncProgressDto getProgress(Long taskId) {
+        SyncProgress progress = progressByTask.get(taskId);
+        return progress != null ? progress.snapshot() : null;
+    }
+
+    /**
+     * Émission périodique : un instantané par synchronisation suivie, envoyé aux abonnés concernés.
+     */
+    @Scheduled(fixedRateString = "${sync.progress.emit-interval-ms:1000}")
+    public void emitProgress() {
+        for (SyncProgress progress : new ArrayList<>(progressByTask.values())) {
+            boolean finished = progress.isFinished();
+            SyncProgressDto snapshot = progress.snapshot();
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.accepts(progress.getTaskId())) {
+                    send(subscriber, snapshot);
+                }
+            }
+            if (finished) {
+                // Une nouvelle synchronisation de la tâche a pu la remplacer entre-temps
+                progressByTask.remove(progress.getTaskId(), progress);
+            }
+        }
+    }
+
+    private boolean send(Subscriber subscriber, SyncProgressDto snapshot) {
+        try {
+            subscriber.emitter.send(SseEmitter.event()
+                .name(EVENT_NAME)
+                .data(snapshot, MediaType.APPLICATION_JSON));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // Client déconnecté
+            log.debug("Abonné à l'avancement déconnecté: {}", e.getMessage());
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    /**
+     * Abonné SSE, filtré sur une tâche ou sur toutes.
+     */
+    private record Subscriber(Long taskId, SseEmitter emitter) {
+        boolean accepts(Long candidate) {
+            return taskId == null || taskId.equals(candidate);
+        }
+    }
+}
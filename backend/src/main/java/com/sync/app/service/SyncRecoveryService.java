@@ -0,0 +1,63 @@
+package com.sync.app.service;
+
+import com.sync.app.entity.SyncLog;
+import com.sync.app.entity.SyncTask;
+import com.sync.app.repository.SyncLogRepository;
+import com.sync.app.repository.SyncTaskRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Reprise après un arrêt de l'application : les synchronisations restées RUNNING ont été
+ * interrompues. Elles sont marquées en échec (avec leur dernier point de reprise) et leurs
+ * tâches actives sont replanifiées immédiatement : l'exécution suivante reprend là où
+ * l'exécution interrompue s'est arrêtée (voir {@link FileSyncService}).
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class SyncRecoveryService {
+
+    private final SyncLogRepository syncLogRepository;
+    private final SyncTaskRepository syncTaskRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${sync.recovery.resume-on-startup:true}")
+    private boolean resumeOnStartup;
+
+    /**
+     * Exécuté avant le démarrage du planificateur : aucune synchronisation n'est encore en cours.
+     * (Transaction explicite : les proxys transactionnels ne s'appliquent pas à @PostConstruct.)
+     */
+    @PostConstruct
+    public void recoverInterruptedRuns() {
+        transactionTemplate.executeWithoutResult(status -> recover());
+    }
+
+    private void recover() {
+        List<SyncLog> interrupted = syncLogRepository.findByStatus(SyncLog.SyncStatus.RUNNING);
+        for (SyncLog syncLog : interrupted) {
+            syncLog.setStatus(SyncLog.SyncStatus.FAILED);
+            syncLog.setEndTime(syncLog.getLastCheckpoint() != null ? syncLog.getLastCheckpoint() : syncLog.getStartTime());
+            syncLog.setErrorMessage("Synchronisation interrompue par l'arrêt de l'application");
+            syncLogRepository.save(syncLog);
+
+            SyncTask task = syncLog.getSyncTask();
+            log.warn("Synchronisation #{} interrompue pour la tâche {} ({} fichiers validés)",
+                syncLog.getId(), task.getId(), syncLog.getCheckpointedFiles());
+
+            if (resumeOnStartup && Boolean.TRUE.equals(task.getActive())) {
+                // Prise en charge dès le chargement du planificateur
+                task.setNextSyncTime(LocalDateTime.now());
+                syncTaskRepository.save(task);
+            }
+        }
+    }
+}
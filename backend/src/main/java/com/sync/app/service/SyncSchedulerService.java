@@ -2,64 +2,256 @@ package com.sync.app.service;
 
 import com.sync.app.entity.SyncTask;
 import com.sync.app.repository.SyncTaskRepository;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Service pour gérer la planification automatique des synchronisations.
+ * <p>
+ * Les prochaines échéances ({@code nextSyncTime}) des tâches actives sont tenues en mémoire
+ * dans une file de priorité, chargée au démarrage puis mise à jour par {@link SyncTaskService}
+ * et à la fin de chaque exécution. Un thread dédié dort jusqu'à l'échéance la plus proche :
+ * ni interrogation périodique de la base, ni retard de déclenchement.
+ * <p>
+ * Pour que des tâches de même intervalle ne partent pas toutes dans la même seconde, chaque
+ * échéance calculée reçoit un décalage aléatoire (au plus {@code max-jitter-seconds}, et au
+ * plus {@code jitter-ratio} de l'intervalle) ; les tâches en retard au démarrage sont étalées
+ * de la même façon.
  */
 @Service
 @Slf4j
 @RequiredArgsConstructor
-public class SyncSchedulerService {
+public class SyncSchedulerService implements Runnable {
 
     private final SyncTaskRepository syncTaskRepository;
-    private final FileSyncService fileSyncService;
+    private final SyncExecutor syncExecutor;
+
+    @Value("${sync.scheduler.max-jitter-seconds:30}")
+    private long maxJitterSeconds;
+
+    @Value("${sync.scheduler.jitter-ratio:0.1}")
+    private double jitterRatio;
+
+    @Value("${sync.scheduler.retry-delay-seconds:60}")
+    private long retryDelaySeconds;
+
+    private final PriorityQueue<Scheduled> queue = new PriorityQueue<>(
+        Comparator.comparing(Scheduled::dueAt).thenComparingLong(Scheduled::sequence));
+    private final Map<Long, Scheduled> scheduled = new HashMap<>();
+    private long sequence;
+    private Thread thread;
+    private volatile boolean running;
 
     /**
-     * Vérifie toutes les minutes si des tâches doivent être exécutées.
+     * Charge les échéances des tâches actives et démarre le thread de planification
+     * (après la reprise des exécutions interrompues, voir {@link SyncRecoveryService}).
      */
-    @Scheduled(fixedRate = 60000) // Toutes les minutes
-    @Transactional
-    public void checkAndExecutePendingTasks() {
-        log.debug("Vérification des tâches de synchronisation...");
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        LocalDateTime now = LocalDateTime.now();
+        for (SyncTask task : syncTaskRepository.findByActiveTrueOrderByNextSyncTimeAsc()) {
+            LocalDateTime dueAt = task.getNextSyncTime() != null ? task.getNextSyncTime() : now;
+            scheduleAt(task.getId(), dueAt.isAfter(now) ? dueAt : now.plus(jitter(task)));
+        }
+        log.info("Planificateur démarré: {} tâches planifiées", scheduled.size());
 
-        List<SyncTask> tasks = syncTaskRepository
-            .findByActiveTrueAndNextSyncTimeBefore(LocalDateTime.now());
+        running = true;
+        thread = new Thread(this, "sync-scheduler");
+        thread.setDaemon(true);
+        thread.start();
+    }
 
-        for (SyncTask task : tasks) {
-            if (!fileSyncService.isSyncRunning(task.getId())) {
-                log.info("Démarrage de la synchronisation pour: {}", task.getName());
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
 
-                // Exécution asynchrone pour ne pas bloquer le scheduler
-                executeTaskAsync(task);
-            }
+    /**
+     * (Re)planifie une tâche à son {@code nextSyncTime}, ou la retire si elle est inactive.
+     * Appliqué après la validation de la transaction en cours, le cas échéant.
+     */
+    public void schedule(SyncTask task) {
+        Long taskId = task.getId();
+        if (!Boolean.TRUE.equals(task.getActive())) {
+            unschedule(taskId);
+            return;
         }
+        LocalDateTime dueAt = task.getNextSyncTime() != null ? task.getNextSyncTime() : LocalDateTime.now();
+        afterCommit(() -> scheduleAt(taskId, dueAt));
+    }
+
+    public void unschedule(Long taskId) {
+        afterCommit(() -> {
+            synchronized (this) {
+                scheduled.remove(taskId); // L'entrée restée dans la file est ignorée à son échéance
+            }
+        });
     }
 
     /**
-     * Exécute une tâche de manière asynchrone et met à jour les timestamps.
+     * Prochaine échéance d'une tâche exécutée à {@code from} : l'intervalle plus un décalage aléatoire.
      */
-    private void executeTaskAsync(SyncTask task) {
-        new Thread(() -> {
+    public LocalDateTime nextRunAfter(SyncTask task, LocalDateTime from) {
+        return from.plus(interval(task)).plus(jitter(task));
+    }
+
+    /**
+     * Intervalle d'une tâche : en secondes s'il est défini ainsi, sinon en minutes.
+     */
+    private static Duration interval(SyncTask task) {
+        return task.getIntervalSeconds() != null
+            ? Duration.ofSeconds(task.getIntervalSeconds())
+            : Duration.ofMinutes(task.getIntervalMinutes());
+    }
+
+    /**
+     * Enregistre la fin d'une exécution : dates de la tâche mises à jour (relue, pour ne pas écraser
+     * une modification faite entre-temps) et prochaine échéance planifiée.
+     */
+    public void recordRun(Long taskId) {
+        syncTaskRepository.findById(taskId).ifPresent(task -> {
+            LocalDateTime now = LocalDateTime.now();
+            task.setLastSyncTime(now);
+            task.setNextSyncTime(nextRunAfter(task, now));
+            schedule(syncTaskRepository.save(task));
+        });
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            Long taskId;
+            try {
+                taskId = awaitNextDue();
+            } catch (InterruptedException e) {
+                return;
+            }
             try {
-                fileSyncService.executeSync(task);
+                fire(taskId);
+            } catch (RuntimeException e) {
+                log.error("Erreur de planification de la tâche {}", taskId, e);
+                retryLater(taskId);
+            }
+        }
+    }
 
-                // Mise à jour des timestamps
-                task.setLastSyncTime(LocalDateTime.now());
-                task.setNextSyncTime(LocalDateTime.now().plusMinutes(task.getIntervalMinutes()));
-                syncTaskRepository.save(task);
+    /**
+     * Attend la prochaine échéance, réveillé plus tôt si la file change.
+     */
+    private synchronized Long awaitNextDue() throws InterruptedException {
+        while (true) {
+            Scheduled head = queue.peek();
+            if (head == null) {
+                wait();
+                continue;
+            }
+            if (scheduled.get(head.taskId()) != head) {
+                queue.poll(); // Replanifiée ou retirée depuis
+                continue;
+            }
+            long waitMillis = Duration.between(LocalDateTime.now(), head.dueAt()).toMillis();
+            if (waitMillis > 0) {
+                wait(waitMillis);
+                continue;
+            }
+            queue.poll();
+            scheduled.remove(head.taskId());
+            return head.taskId();
+        }
+    }
 
-                log.info("Synchronisation terminée pour: {}", task.getName());
-            } catch (Exception e) {
-                log.error("Erreur lors de l'exécution de la tâche: {}", task.getName(), e);
+    private void fire(Long taskId) {
+        SyncTask task = syncTaskRepository.findById(taskId).orElse(null);
+        if (task == null || !Boolean.TRUE.equals(task.getActive())) {
+            return;
+        }
+        if (syncExecutor.isRunning(taskId) || syncExecutor.isQueued(taskId)) {
+            // Une tâche à intervalle court n'attend pas le délai de nouvelle tentative complet
+            Duration delay = Duration.ofSeconds(retryDelaySeconds);
+            scheduleAt(taskId, LocalDateTime.now().plus(interval(task).compareTo(delay) < 0 ? interval(task) : delay));
+            return;
+        }
+        log.info("Mise en file de la synchronisation pour: {}", task.getName());
+        submitTask(task);
+    }
+
+    /**
+     * Soumet une tâche à l'exécuteur et met à jour les timestamps à la fin de l'exécution.
+     */
+    private void submitTask(SyncTask task) {
+        try {
+            syncExecutor.submit(task, SyncExecutor.Priority.SCHEDULED, null)
+                .whenComplete((result, error) -> {
+                    if (error != null && !(error instanceof CancellationException)) {
+                        retryLater(task.getId()); // Déjà journalisé par l'exécuteur
+                        return;
+                    }
+                    // Mise à jour des timestamps (y compris après annulation : prochain passage à l'intervalle habituel)
+                    recordRun(task.getId());
+                    log.info("Synchronisation terminée pour: {}", task.getName());
+                });
+        } catch (RejectedExecutionException e) {
+            log.warn("Synchronisation non planifiée pour {}: {}", task.getName(), e.getMessage());
+            retryLater(task.getId());
+        }
+    }
+
+    private synchronized void retryLater(Long taskId) {
+        scheduleAt(taskId, LocalDateTime.now().plusSeconds(retryDelaySeconds));
+    }
+
+    private synchronized void scheduleAt(Long taskId, LocalDateTime dueAt) {
+        Scheduled entry = new Scheduled(taskId, dueAt, sequence++);
+        scheduled.put(taskId, entry);
+        queue.add(entry);
+        notifyAll();
+    }
+
+    /**
+     * Le thread de planification relit la tâche : il ne doit pas la voir avant la validation.
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
             }
-        }).start();
+        });
+    }
+
+    private Duration jitter(SyncTask task) {
+        long intervalMillis = interval(task).toMillis();
+        long maxMillis = Math.min(maxJitterSeconds * 1000, (long) (intervalMillis * jitterRatio));
+        return maxMillis > 0 ? Duration.ofMillis(ThreadLocalRandom.current().nextLong(maxMillis + 1)) : Duration.ZERO;
+    }
+
+    /**
+     * Échéance d'une tâche ; {@code sequence} départage les échéances égales.
+     */
+    private record Scheduled(Long taskId, LocalDateTime dueAt, long sequence) {
     }
 }
@@ -2,17 +2,29 @@ package com.sync.app.service;
 
 import com.sync.app.dto.SyncTaskDto;
 import com.sync.app.entity.SyncTask;
+import com.sync.app.repository.DirectoryIndexRepository;
 import com.sync.app.repository.FileMetadataRepository;
+import com.sync.app.repository.FileSignatureRepository;
+import com.sync.app.repository.SyncLogRepository;
+import com.sync.app.repository.SyncLogRollupRepository;
 import com.sync.app.repository.SyncTaskRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Service pour gérer les opérations CRUD sur les tâches de synchronisation.
+ * <p>
+ * Chaque destination supplémentaire d'une tâche est enregistrée comme une tâche secondaire
+ * ({@code primaryTaskId}) : elle porte ses propres métadonnées et son propre historique,
+ * mais n'est ni planifiée ni exposée seule ; elle est synchronisée avec sa tâche principale.
  */
 @Service
 @RequiredArgsConstructor
@@ -20,15 +32,34 @@ public class SyncTaskService {
 
     private final SyncTaskRepository syncTaskRepository;
     private final FileMetadataRepository fileMetadataRepository;
-    private final FileSyncService fileSyncService;
+    private final FileSignatureRepository fileSignatureRepository;
+    private final DirectoryIndexRepository directoryIndexRepository;
+    private final SyncLogRepository syncLogRepository;
+    private final SyncLogRollupRepository syncLogRollupRepository;
+    private final SyncExecutor syncExecutor;
+    private final RealtimeSyncService realtimeSyncService;
+    private final FileMetadataCache fileMetadataCache;
+    private final SyncSchedulerService syncSchedulerService;
 
     public List<SyncTask> getAllTasks() {
-        return syncTaskRepository.findAll();
+        Map<Long, List<String>> replicaPaths = new HashMap<>();
+        for (SyncTask replica : syncTaskRepository.findByPrimaryTaskIdIsNotNullOrderByIdAsc()) {
+            replicaPaths.computeIfAbsent(replica.getPrimaryTaskId(), id -> new ArrayList<>())
+                .add(replica.getDestinationPath());
+        }
+        List<SyncTask> tasks = syncTaskRepository.findByPrimaryTaskIdIsNull();
+        tasks.forEach(task -> task.setReplicaPaths(replicaPaths.getOrDefault(task.getId(), List.of())));
+        return tasks;
     }
 
     public SyncTask getTaskById(Long id) {
-        return syncTaskRepository.findById(id)
+        SyncTask task = syncTaskRepository.findById(id)
+            .filter(found -> found.getPrimaryTaskId() == null)
             .orElseThrow(() -> new RuntimeException("Tâche non trouvée: " + id));
+        task.setReplicaPaths(syncTaskRepository.findByPrimaryTaskIdOrderByIdAsc(id).stream()
+            .map(SyncTask::getDestinationPath)
+            .toList());
+        return task;
     }
 
     @Transactional
@@ -37,12 +68,48 @@ public class SyncTaskService {
         task.setName(dto.getName());
         task.setSourcePath(dto.getSourcePath());
         task.setDestinationPath(dto.getDestinationPath());
-        task.setIntervalMinutes(dto.getIntervalMinutes());
+        setInterval(task, dto);
         task.setActive(dto.getActive() != null ? dto.getActive() : true);
         task.setUseChecksum(dto.getUseChecksum() != null ? dto.getUseChecksum() : true);
+        task.setDeltaTransfer(dto.getDeltaTransfer() != null ? dto.getDeltaTransfer() : false);
+        task.setRealtime(dto.getRealtime() != null ? dto.getRealtime() : false);
+        task.setDirectoryPruning(dto.getDirectoryPruning() != null ? dto.getDirectoryPruning() : false);
+        task.setMoveDetection(dto.getMoveDetection() != null ? dto.getMoveDetection() : false);
+        task.setHardLinkDedup(dto.getHardLinkDedup() != null ? dto.getHardLinkDedup() : false);
+        if (dto.getParallelism() != null) {
+            task.setParallelism(dto.getParallelism());
+        }
+        if (dto.getChangeDetection() != null) {
+            task.setChangeDetection(dto.getChangeDetection());
+        }
+        if (dto.getHashAlgorithm() != null) {
+            task.setHashAlgorithm(dto.getHashAlgorithm());
+        }
+        if (dto.getSyncMode() != null) {
+            task.setSyncMode(dto.getSyncMode());
+        }
+        if (dto.getConflictPolicy() != null) {
+            task.setConflictPolicy(dto.getConflictPolicy());
+        }
+        if (dto.getDurability() != null) {
+            task.setDurability(dto.getDurability());
+        }
+        if (dto.getMaxBytesPerSecond() != null) {
+            task.setMaxBytesPerSecond(zeroToNull(dto.getMaxBytesPerSecond()));
+        }
+        if (dto.getMaxFilesPerSecond() != null) {
+            task.setMaxFilesPerSecond(zeroToNull(dto.getMaxFilesPerSecond()));
+        }
+        if (dto.getFullSpeedHours() != null) {
+            task.setFullSpeedHours(blankToNull(dto.getFullSpeedHours()));
+        }
         task.setNextSyncTime(LocalDateTime.now());
 
-        return syncTaskRepository.save(task);
+        task = syncTaskRepository.save(task);
+        task.setReplicaPaths(saveReplicas(task, dto.getReplicaPaths()));
+        realtimeSyncService.refresh(task);
+        syncSchedulerService.schedule(task);
+        return task;
     }
 
     @Transactional
@@ -52,7 +119,7 @@ public class SyncTaskService {
         task.setName(dto.getName());
         task.setSourcePath(dto.getSourcePath());
         task.setDestinationPath(dto.getDestinationPath());
-        task.setIntervalMinutes(dto.getIntervalMinutes());
+        setInterval(task, dto);
 
         if (dto.getActive() != null) {
             task.setActive(dto.getActive());
@@ -60,15 +127,67 @@ public class SyncTaskService {
         if (dto.getUseChecksum() != null) {
             task.setUseChecksum(dto.getUseChecksum());
         }
+        if (dto.getDeltaTransfer() != null) {
+            task.setDeltaTransfer(dto.getDeltaTransfer());
+        }
+        if (dto.getRealtime() != null) {
+            task.setRealtime(dto.getRealtime());
+        }
+        if (dto.getDirectoryPruning() != null) {
+            task.setDirectoryPruning(dto.getDirectoryPruning());
+        }
+        if (dto.getMoveDetection() != null) {
+            task.setMoveDetection(dto.getMoveDetection());
+        }
+        if (dto.getHardLinkDedup() != null) {
+            task.setHardLinkDedup(dto.getHardLinkDedup());
+        }
+        if (dto.getParallelism() != null) {
+            task.setParallelism(dto.getParallelism());
+        }
+        if (dto.getChangeDetection() != null) {
+            task.setChangeDetection(dto.getChangeDetection());
+        }
+        if (dto.getHashAlgorithm() != null) {
+            task.setHashAlgorithm(dto.getHashAlgorithm());
+        }
+        if (dto.getSyncMode() != null) {
+            task.setSyncMode(dto.getSyncMode());
+        }
+        if (dto.getConflictPolicy() != null) {
+            task.setConflictPolicy(dto.getConflictPolicy());
+        }
+        if (dto.getDurability() != null) {
+            task.setDurability(dto.getDurability());
+        }
+        // Limites absentes : conservées ; 0 (ou des plages vides) : retirées
+        if (dto.getMaxBytesPerSecond() != null) {
+            task.setMaxBytesPerSecond(zeroToNull(dto.getMaxBytesPerSecond()));
+        }
+        if (dto.getMaxFilesPerSecond() != null) {
+            task.setMaxFilesPerSecond(zeroToNull(dto.getMaxFilesPerSecond()));
+        }
+        if (dto.getFullSpeedHours() != null) {
+            task.setFullSpeedHours(blankToNull(dto.getFullSpeedHours()));
+        }
 
-        return syncTaskRepository.save(task);
+        List<String> replicaPaths = dto.getReplicaPaths() != null ? dto.getReplicaPaths() : task.getReplicaPaths();
+        task = syncTaskRepository.save(task);
+        task.setReplicaPaths(saveReplicas(task, replicaPaths));
+        realtimeSyncService.refresh(task);
+        syncSchedulerService.schedule(task);
+        return task;
     }
 
     @Transactional
     public void deleteTask(Long id) {
         SyncTask task = getTaskById(id);
-        fileMetadataRepository.deleteBySyncTask(task);
-        syncTaskRepository.delete(task);
+        realtimeSyncService.stop(id);
+        syncSchedulerService.unschedule(id);
+        for (SyncTask replica : syncTaskRepository.findByPrimaryTaskIdOrderByIdAsc(id)) {
+            deleteWithData(replica);
+        }
+        deleteWithData(task);
     }
 
     @Transactional
@@ -76,31 +195,138 @@ public class SyncTaskService {
         SyncTask task = getTaskById(id);
         task.setActive(!task.getActive());
         syncTaskRepository.save(task);
+        realtimeSyncService.refresh(task);
+        syncSchedulerService.schedule(task);
     }
 
     /**
      * Déclenche manuellement une synchronisation.
+     *
+     * @throws SyncExecutor.AlreadyRunningException si la tâche est déjà en cours
+     * @throws java.util.concurrent.RejectedExecutionException si la file d'attente est pleine
      */
     public void triggerSync(Long id) {
         SyncTask task = getTaskById(id);
 
-        if (fileSyncService.isSyncRunning(id)) {
-            throw new RuntimeException("Une synchronisation est déjà en cours pour cette tâche");
-        }
+        // Exécution en arrière-plan, en tête de file (refusée si la tâche est déjà en cours)
+        syncExecutor.submit(task, SyncExecutor.Priority.MANUAL, null)
+            .whenComplete((result, error) -> {
+                if (error == null) {
+                    syncSchedulerService.recordRun(id);
+                }
+            });
+    }
+
+    /**
+     * Annule la synchronisation en attente ou en cours de la tâche.
+     */
+    public boolean cancelSync(Long id) {
+        return syncExecutor.cancel(id);
+    }
 
-        // Exécution en arrière-plan
-        new Thread(() -> {
-            fileSyncService.executeSync(task);
-            task.setLastSyncTime(LocalDateTime.now());
-            task.setNextSyncTime(LocalDateTime.now().plusMinutes(task.getIntervalMinutes()));
-            syncTaskRepository.save(task);
-        }).start();
+    public boolean pauseSync(Long id) {
+        return syncExecutor.pause(id);
+    }
+
+    public boolean resumeSync(Long id) {
+        return syncExecutor.resume(id);
+    }
+
+    public boolean isSyncPaused(Long id) {
+        return syncExecutor.isPaused(id);
     }
 
     /**
      * Vérifie le statut d'une synchronisation.
      */
     public boolean isSyncRunning(Long id) {
-        return fileSyncService.isSyncRunning(id);
+        return syncExecutor.isRunning(id);
+    }
+
+    /**
+     * Indique si une synchronisation de la tâche attend une place dans l'exécuteur.
+     */
+    public boolean isSyncQueued(Long id) {
+        return syncExecutor.isQueued(id);
+    }
+
+    /**
+     * Aligne les destinations supplémentaires d'une tâche sur {@code paths} : les destinations
+     * conservées gardent leurs métadonnées, les retirées sont supprimées avec leur historique.
+     *
+     * @return les destinations retenues (sans doublon ni la destination principale)
+     * @throws RuntimeException si la tâche est bidirectionnelle : l'état synchronisé ne suit qu'une destination
+     */
+    private List<String> saveReplicas(SyncTask task, List<String> paths) {
+        Map<String, SyncTask> existing = new LinkedHashMap<>();
+        for (SyncTask replica : syncTaskRepository.findByPrimaryTaskIdOrderByIdAsc(task.getId())) {
+            existing.put(replica.getDestinationPath(), replica);
+        }
+
+        List<String> kept = new ArrayList<>();
+        for (String path : paths != null ? paths : List.<String>of()) {
+            String destination = blankToNull(path);
+            if (destination == null || destination.equals(task.getDestinationPath()) || kept.contains(destination)) {
+                continue;
+            }
+            SyncTask replica = existing.remove(destination);
+            if (replica == null) {
+                replica = new SyncTask();
+                replica.setPrimaryTaskId(task.getId());
+                replica.setDestinationPath(destination);
+                replica.setActive(false); // Jamais planifiée seule
+            }
+            replica.setName(task.getName() + " → " + destination);
+            replica.setSourcePath(task.getSourcePath());
+            replica.setIntervalMinutes(task.getIntervalMinutes());
+            replica.setIntervalSeconds(task.getIntervalSeconds());
+            syncTaskRepository.save(replica);
+            kept.add(destination);
+        }
+
+        if (!kept.isEmpty() && task.getSyncMode() == SyncTask.SyncMode.BIDIRECTIONAL) {
+            throw new RuntimeException("Une tâche bidirectionnelle ne peut pas avoir de destinations supplémentaires");
+        }
+        for (SyncTask removed : existing.values()) {
+            deleteWithData(removed);
+        }
+        return kept;
+    }
+
+    private void deleteWithData(SyncTask task) {
+        fileMetadataRepository.deleteBySyncTask(task);
+        fileSignatureRepository.deleteBySyncTask(task);
+        directoryIndexRepository.deleteBySyncTask(task);
+        syncLogRepository.deleteBySyncTask(task);
+        syncLogRollupRepository.deleteBySyncTask(task);
+        syncTaskRepository.delete(task);
+        fileMetadataCache.invalidate(task.getId());
+    }
+
+    /**
+     * Intervalle en secondes s'il est fourni (0 revient aux minutes), sinon en minutes. Avec un intervalle
+     * en secondes, intervalMinutes en garde l'arrondi supérieur (colonne obligatoire, anciens clients).
+     */
+    private static void setInterval(SyncTask task, SyncTaskDto dto) {
+        if (dto.getIntervalSeconds() != null) {
+            task.setIntervalSeconds(zeroToNull(dto.getIntervalSeconds()));
+        }
+        if (task.getIntervalSeconds() != null) {
+            task.setIntervalMinutes(Math.max(1, (task.getIntervalSeconds() + 59) / 60));
+        } else if (dto.getIntervalMinutes() != null) {
+            task.setIntervalMinutes(dto.getIntervalMinutes());
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static Long zeroToNull(Long value) {
+        return value == null || value == 0 ? null : value;
+    }
+
+    private static Integer zeroToNull(Integer value) {
+        return value == null || value == 0 ? null : value;
     }
 }
@@ -0,0 +1,140 @@
+package com.sync.app.service;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limitation de débit d'une synchronisation : limites de la tâche et plafond global,
+ * partagé par toutes les exécutions. Chaque demande est prélevée sur les deux niveaux,
+ * l'attente retenue étant la plus longue.
+ * <p>
+ * Ne fait que calculer les attentes : c'est {@link SyncControl} qui attend, de façon
+ * interruptible par l'annulation, et qui reporte ici le temps effectivement attendu.
+ */
+class SyncThrottle {
+
+    /**
+     * Sans limite : pour les appels hors synchronisation et les tâches non limitées.
+     */
+    static final SyncThrottle NONE = new SyncThrottle(Limiter.NONE, Limiter.NONE);
+
+    private final Limiter task;
+    private final Limiter global;
+    private final LongAdder waitedNanos = new LongAdder();
+
+    SyncThrottle(Limiter task, Limiter global) {
+        this.task = task;
+        this.global = global;
+    }
+
+    /**
+     * Réserve {@code bytes} octets de lecture ou d'écriture ; renvoie l'attente en nanosecondes.
+     */
+    long reserveBytes(long bytes) {
+        return Math.max(task.reserve(task.bytes, bytes), global.reserve(global.bytes, bytes));
+    }
+
+    /**
+     * Réserve l'ouverture d'un fichier ; renvoie l'attente en nanosecondes.
+     */
+    long reserveFile() {
+        return Math.max(task.reserve(task.files, 1), global.reserve(global.files, 1));
+    }
+
+    void recordWait(long nanos) {
+        waitedNanos.add(nanos);
+    }
+
+    /**
+     * Temps passé à attendre le limiteur, cumulé sur tous les threads de l'exécution.
+     */
+    long waitedMillis() {
+        return waitedNanos.sum() / 1_000_000;
+    }
+
+    boolean isLimited() {
+        return task.isLimited() || global.isLimited();
+    }
+
+    /**
+     * Limites d'un niveau : débit en octets/s et en fichiers/s (null = illimité),
+     * levées pendant les plages horaires « pleine vitesse ».
+     */
+    static final class Limiter {
+
+        static final Limiter NONE = new Limiter(0, 0, List.of());
+
+        final TokenBucket bytes;
+        final TokenBucket files;
+        private final List<TimeWindow> fullSpeedWindows;
+
+        Limiter(long bytesPerSecond, long filesPerSecond, List<TimeWindow> fullSpeedWindows) {
+            this.bytes = bytesPerSecond > 0 ? new TokenBucket(bytesPerSecond) : null;
+            this.files = filesPerSecond > 0 ? new TokenBucket(filesPerSecond) : null;
+            this.fullSpeedWindows = fullSpeedWindows;
+        }
+
+        boolean isLimited() {
+            return bytes != null || files != null;
+        }
+
+        private long reserve(TokenBucket bucket, long tokens) {
+            if (bucket == null || isFullSpeed(LocalTime.now())) {
+                return 0;
+            }
+            return bucket.reserve(tokens);
+        }
+
+        boolean isFullSpeed(LocalTime time) {
+            for (TimeWindow window : fullSpeedWindows) {
+                if (window.contains(time)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Plage horaire ; elle passe minuit si sa fin précède son début (ex. 22:00-06:00).
+     */
+    record TimeWindow(LocalTime start, LocalTime end) {
+
+        boolean contains(LocalTime time) {
+            if (start.equals(end)) {
+                return true;
+            }
+            if (start.isBefore(end)) {
+                return !time.isBefore(start) && time.isBefore(end);
+            }
+            return !time.isBefore(start) || time.isBefore(end);
+        }
+
+        /**
+         * Lit une liste de plages séparées par des virgules, ex. {@code "22:00-06:00,12:00-13:30"}.
+         *
+         * @throws IllegalArgumentException si une plage est mal formée
+         */
+        static List<TimeWindow> parseList(String value) {
+            List<TimeWindow> windows = new ArrayList<>();
+            if (value == null || value.isBlank()) {
+                return windows;
+            }
+            for (String part : value.split(",")) {
+                String[] bounds = part.trim().split("-");
+                if (bounds.length != 2) {
+                    throw new IllegalArgumentException("Plage horaire invalide: " + part.trim());
+                }
+                try {
+                    windows.add(new TimeWindow(LocalTime.parse(bounds[0].trim()), LocalTime.parse(bounds[1].trim())));
+                } catch (DateTimeParseException e) {
+                    throw new IllegalArgumentException("Plage horaire invalide: " + part.trim(), e);
+                }
+            }
+            return windows;
+        }
+    }
+}
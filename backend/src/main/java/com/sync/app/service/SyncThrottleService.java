@@ -0,0 +1,62 @@
+package com.sync.app.service;
+
+import com.sync.app.entity.SyncTask;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Limiteurs de débit des synchronisations : plafond global, commun à toutes les exécutions
+ * en cours, et limites propres à chaque tâche ({@link SyncTask#getMaxBytesPerSecond()},
+ * {@link SyncTask#getMaxFilesPerSecond()}). Chaque niveau a ses plages horaires sans limite,
+ * typiquement la nuit.
+ */
+@Service
+@Slf4j
+public class SyncThrottleService {
+
+    @Value("${sync.throttle.max-bytes-per-second:0}")
+    private long globalBytesPerSecond;
+
+    @Value("${sync.throttle.max-files-per-second:0}")
+    private long globalFilesPerSecond;
+
+    @Value("${sync.throttle.full-speed-hours:}")
+    private String globalFullSpeedHours;
+
+    private SyncThrottle.Limiter globalLimiter;
+
+    @PostConstruct
+    void init() {
+        globalLimiter = new SyncThrottle.Limiter(globalBytesPerSecond, globalFilesPerSecond,
+            SyncThrottle.TimeWindow.parseList(globalFullSpeedHours));
+        if (globalLimiter.isLimited()) {
+            log.info("Plafond global de débit: {} octets/s, {} fichiers/s (pleine vitesse: {})",
+                globalBytesPerSecond, globalFilesPerSecond,
+                globalFullSpeedHours.isBlank() ? "jamais" : globalFullSpeedHours);
+        }
+    }
+
+    /**
+     * Limiteur d'une exécution ; les seaux de la tâche repartent pleins à chaque exécution.
+     */
+    SyncThrottle forTask(SyncTask task) {
+        long bytesPerSecond = task.getMaxBytesPerSecond() != null ? task.getMaxBytesPerSecond() : 0;
+        long filesPerSecond = task.getMaxFilesPerSecond() != null ? task.getMaxFilesPerSecond() : 0;
+        if (bytesPerSecond <= 0 && filesPerSecond <= 0 && !globalLimiter.isLimited()) {
+            return SyncThrottle.NONE;
+        }
+
+        List<SyncThrottle.TimeWindow> windows;
+        try {
+            windows = SyncThrottle.TimeWindow.parseList(task.getFullSpeedHours());
+        } catch (IllegalArgumentException e) {
+            log.warn("Plages pleine vitesse ignorées pour la tâche {}: {}", task.getName(), e.getMessage());
+            windows = List.of();
+        }
+        return new SyncThrottle(new SyncThrottle.Limiter(bytesPerSecond, filesPerSecond, windows), globalLimiter);
+    }
+}
@@ -0,0 +1,85 @@
+package com.sync.app.service;
+
+import io.micrometer.core.instrument.Timer;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Temps passé dans chaque étape d'une synchronisation. Les étapes exécutées par les workers
+ * sont cumulées sur tous les threads : leur somme peut dépasser la durée de l'exécution.
+ * <p>
+ * Les étapes par fichier alimentent leur timer Micrometer à chaque mesure ; les autres
+ * n'y sont enregistrées qu'une fois, avec leur total, à la fin de l'exécution.
+ */
+class SyncTimings {
+
+    /**
+     * Étapes mesurées.
+     */
+    enum Step {
+        WALK(false),     // Parcours de la source, temps mural (inclut les étapes faites par ce thread)
+        DETECT(true),    // Détection de changement, hachage de vérification compris
+        HASH(true),      // Hachage de vérification seul
+        COPY(true),      // Copie (et checksum calculé au passage)
+        PERSIST(false),  // Écriture des métadonnées et signatures
+        DELETE(false);   // Suppression des fichiers disparus de la source
+
+        final boolean perFile;
+
+        Step(boolean perFile) {
+            this.perFile = perFile;
+        }
+    }
+
+    /**
+     * Sans timers : pour les appels hors synchronisation (benchmarks).
+     */
+    static final SyncTimings NONE = new SyncTimings(Map.of());
+
+    private final Map<Step, LongAdder> nanos = new EnumMap<>(Step.class);
+    private final Map<Step, Timer> timers;
+
+    SyncTimings(Map<Step, Timer> timers) {
+        this.timers = timers;
+        for (Step step : Step.values()) {
+            nanos.put(step, new LongAdder());
+        }
+    }
+
+    static long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Comptabilise le temps écoulé depuis {@code startNanos} pour une étape.
+     */
+    void stop(Step step, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        nanos.get(step).add(elapsed);
+        if (step.perFile) {
+            Timer timer = timers.get(step);
+            if (timer != null) {
+                timer.record(elapsed, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    long millis(Step step) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos.get(step).sum());
+    }
+
+    /**
+     * Enregistre le total des étapes mesurées une fois par exécution.
+     */
+    void complete() {
+        for (Step step : Step.values()) {
+            Timer timer = timers.get(step);
+            if (!step.perFile && timer != null) {
+                timer.record(nanos.get(step).sum(), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
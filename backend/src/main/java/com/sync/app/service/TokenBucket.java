@@ -0,0 +1,51 @@
+package com.sync.app.service;
+
+/**
+ * Seau à jetons : {@code ratePerSecond} jetons par seconde, avec une réserve d'une seconde
+ * pour absorber les rafales.
+ * <p>
+ * Une demande n'est jamais refusée : les jetons manquants sont empruntés et le demandeur
+ * attend le temps nécessaire pour les regagner. Les demandes suivantes attendent en plus
+ * le remboursement de cette dette, ce qui maintient le débit moyen même lorsque plusieurs
+ * workers partagent le seau et qu'une demande dépasse la réserve (bloc plus gros que le débit).
+ */
+class TokenBucket {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final double ratePerNano;
+    private final double capacity;
+    private double available;
+    private long lastRefill;
+
+    TokenBucket(long ratePerSecond) {
+        this(ratePerSecond, System.nanoTime());
+    }
+
+    /**
+     * Seau plein à l'instant {@code now} ({@link System#nanoTime()}) ; visible dans le package pour les tests.
+     */
+    TokenBucket(long ratePerSecond, long now) {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("Débit invalide: " + ratePerSecond);
+        }
+        this.ratePerNano = (double) ratePerSecond / NANOS_PER_SECOND;
+        this.capacity = ratePerSecond;
+        this.available = capacity;
+        this.lastRefill = now;
+    }
+
+    /**
+     * Prélève {@code tokens} jetons et renvoie l'attente nécessaire, en nanosecondes (0 si disponibles).
+     */
+    long reserve(long tokens) {
+        return reserve(tokens, System.nanoTime());
+    }
+
+    synchronized long reserve(long tokens, long now) {
+        available = Math.min(capacity, available + (now - lastRefill) * ratePerNano);
+        lastRefill = now;
+        available -= tokens;
+        return available >= 0 ? 0 : (long) Math.ceil(-available / ratePerNano);
+    }
+}
@@ -0,0 +1,492 @@
+package com.sync.app.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Predicate;
+
+/**
+ * Parcours en profondeur d'une arborescence source, avec lecture anticipée et parallèle
+ * des répertoires dans un {@link ForkJoinPool}.
+ * <p>
+ * Le visiteur est appelé sur le seul thread de parcours, dans un ordre déterministe
+ * (fichiers d'un répertoire, puis ses sous-répertoires). Pendant qu'il traite un répertoire,
+ * les suivants sont déjà listés : chaque lecture liste la source et les répertoires
+ * correspondants de chaque destination en parallèle (une {@link DirectoryStream} chacun) et
+ * relève les attributs de leurs entrées, par tranches pour les grands répertoires. Le visiteur
+ * reçoit ainsi ceux des destinations sans nouvel appel système. Une destination illisible
+ * n'interrompt pas le parcours : ses entrées sont relues une à une, à la demande.
+ * <p>
+ * Le visiteur décide, dès la découverte d'un répertoire, s'il est élagué : un répertoire
+ * élagué n'est jamais listé. L'anticipation est limitée à {@code prefetchWindow} répertoires
+ * frères, pour borner la mémoire sur les répertoires très larges.
+ * <p>
+ * Avec {@code includeDestinationOnly} (synchronisation bidirectionnelle), les entrées présentes
+ * dans une destination mais pas dans la source sont visitées aussi, après celles de la source,
+ * avec des attributs source null ; leurs répertoires sont parcourus de la même façon.
+ * <p>
+ * Les fichiers temporaires de copie ({@link FileCopier#isStagingFile}) trouvés dans un répertoire
+ * où la synchronisation écrit (destinations, et source d'une synchronisation bidirectionnelle)
+ * sont des restes d'une exécution interrompue : un répertoire est listé avant toute écriture de
+ * l'exécution en cours. Ils sont supprimés et ne sont pas visités, sauf si l'autre côté a une
+ * entrée de même nom : c'est alors un fichier de l'utilisateur qui en a seulement la forme,
+ * synchronisé comme les autres. Ceux de la source d'un miroir sont des fichiers comme les autres.
+ * <p>
+ * Un lien symbolique de la source vers un fichier est visité avec les attributs de sa cible, dont
+ * le contenu est copié. Les liens vers un répertoire (cycles possibles) et les liens cassés sont
+ * ignorés : ni copiés, ni pris pour une suppression.
+ */
+@Slf4j
+class TreeScanner {
+
+    private static final int STAT_BATCH = 64;
+
+    /**
+     * Callbacks du parcours, appelés sur le thread de parcours.
+     */
+    interface Visitor {
+
+        /**
+         * Sous-répertoires connus si {@code directory} est élagué (son contenu n'est pas lu), sinon null.
+         */
+        List<String> prunedChildren(Entry directory) throws IOException;
+
+        /**
+         * @param listedAt début de la lecture du contenu du répertoire, null s'il est élagué
+         */
+        void preVisitDirectory(Entry directory, LocalDateTime listedAt) throws IOException;
+
+        void visitFile(Entry file) throws IOException;
+
+        void postVisitDirectory(Entry directory) throws IOException;
+    }
+
+    /**
+     * Entrée source et ses équivalents dans chaque destination, dans l'ordre des racines.
+     * {@code attrs} est null pour une entrée absente de la source (voir {@code includeDestinationOnly}).
+     */
+    record Entry(Path path, BasicFileAttributes attrs, List<Mirror> mirrors) {
+
+        Mirror mirror(int destination) {
+            return mirrors.get(destination);
+        }
+    }
+
+    /**
+     * Équivalent d'une entrée dans une destination, avec son état s'il a été relevé.
+     */
+    record Mirror(Path path, boolean listed, BasicFileAttributes attrs) {
+
+        /**
+         * Attributs de la destination (null si elle n'existe pas), relus seulement s'ils
+         * n'ont pas été relevés avec le répertoire parent.
+         */
+        BasicFileAttributes read() throws IOException {
+            if (listed) {
+                return attrs;
+            }
+            try {
+                return Files.readAttributes(path, BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                return null;
+            }
+        }
+    }
+
+    private final Path sourceRoot;
+    private final List<Path> destinationRoots;
+    private final ForkJoinPool pool;
+    private final int prefetchWindow;
+    private final boolean includeDestinationOnly;
+
+    TreeScanner(Path sourceRoot, List<Path> destinationRoots, ForkJoinPool pool, int prefetchWindow) {
+        this(sourceRoot, destinationRoots, pool, prefetchWindow, false);
+    }
+
+    TreeScanner(Path sourceRoot, List<Path> destinationRoots, ForkJoinPool pool, int prefetchWindow,
+                boolean includeDestinationOnly) {
+        this.sourceRoot = sourceRoot;
+        this.destinationRoots = List.copyOf(destinationRoots);
+        this.pool = pool;
+        this.prefetchWindow = Math.max(1, prefetchWindow);
+        this.includeDestinationOnly = includeDestinationOnly;
+    }
+
+    /**
+     * Parcourt {@code start} (fichier ou répertoire de la source). La racine de la source est
+     * suivie si c'est un lien ; en dessous, seuls les liens vers un fichier le sont.
+     */
+    void walk(Path start, Visitor visitor) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(start, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        if (attrs.isSymbolicLink()) {
+            attrs = start.equals(sourceRoot) ? Files.readAttributes(start, BasicFileAttributes.class)
+                : resolveLink(start);
+            if (attrs == null) {
+                return;
+            }
+        }
+        Entry entry = new Entry(start, attrs, unlisted(start));
+        if (entry.attrs().isDirectory()) {
+            Pending pending = discover(entry, visitor);
+            pending.prefetch();
+            walkDirectory(pending, visitor);
+        } else {
+            visitor.visitFile(entry);
+        }
+    }
+
+    private void walkDirectory(Pending directory, Visitor visitor) throws IOException {
+        Entry entry = directory.entry;
+        List<Pending> subdirectories = new ArrayList<>();
+
+        if (directory.prunedChildren != null) {
+            visitor.preVisitDirectory(entry, null);
+            for (String child : directory.prunedChildren) {
+                Path childPath = entry.path().resolve(child);
+                BasicFileAttributes attrs = Files.readAttributes(childPath, BasicFileAttributes.class,
+                    LinkOption.NOFOLLOW_LINKS);
+                subdirectories.add(discover(new Entry(childPath, attrs, unlisted(childPath)), visitor));
+            }
+        } else {
+            Listing listing = join(directory.listing);
+            visitor.preVisitDirectory(entry, listing.listedAt());
+            // Sous-répertoires découverts d'abord : leur lecture avance pendant le traitement des fichiers
+            for (Entry child : listing.directories()) {
+                subdirectories.add(discover(child, visitor));
+            }
+            prefetch(subdirectories, 0);
+            for (Entry file : listing.files()) {
+                visitor.visitFile(file);
+            }
+        }
+
+        for (int i = 0; i < subdirectories.size(); i++) {
+            prefetch(subdirectories, i);
+            walkDirectory(subdirectories.get(i), visitor);
+            subdirectories.set(i, null); // Lecture consommée : libérée avant les frères suivants
+        }
+        visitor.postVisitDirectory(entry);
+    }
+
+    private Pending discover(Entry directory, Visitor visitor) throws IOException {
+        return new Pending(directory, visitor.prunedChildren(directory));
+    }
+
+    /**
+     * Lance la lecture des répertoires {@code from} à {@code from + prefetchWindow}.
+     */
+    private void prefetch(List<Pending> subdirectories, int from) {
+        for (int i = from; i < Math.min(subdirectories.size(), from + prefetchWindow); i++) {
+            subdirectories.get(i).prefetch();
+        }
+    }
+
+    private static Listing join(ForkJoinTask<Listing> task) throws IOException {
+        try {
+            return task.join();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Équivalents d'une entrée source dans les destinations, sans leur état.
+     */
+    private List<Mirror> unlisted(Path sourcePath) {
+        String relativePath = sourceRoot.relativize(sourcePath).toString();
+        List<Mirror> mirrors = new ArrayList<>(destinationRoots.size());
+        for (Path destinationRoot : destinationRoots) {
+            mirrors.add(new Mirror(destinationRoot.resolve(relativePath), false, null));
+        }
+        return mirrors;
+    }
+
+    /**
+     * Répertoire découvert, pas encore visité.
+     */
+    private final class Pending {
+        final Entry entry;
+        final List<String> prunedChildren;
+        ForkJoinTask<Listing> listing;
+
+        Pending(Entry entry, List<String> prunedChildren) {
+            this.entry = entry;
+            this.prunedChildren = prunedChildren;
+        }
+
+        void prefetch() {
+            if (prunedChildren == null && listing == null) {
+                listing = pool.submit(new ListingTask(entry.path(), entry.mirrors(), includeDestinationOnly));
+            }
+        }
+    }
+
+    /**
+     * Contenu d'un répertoire source, avec l'état des entrées de la destination.
+     */
+    private record Listing(LocalDateTime listedAt, List<Entry> files, List<Entry> directories) {
+    }
+
+    /**
+     * Liste un répertoire source ; chaque destination est listée en parallèle par une sous-tâche.
+     * Avec {@code includeDestinationOnly}, un répertoire source absent est traité comme vide.
+     */
+    private static final class ListingTask extends RecursiveTask<Listing> {
+
+        private final Path directory;
+        private final List<Mirror> destinations;
+        private final boolean includeDestinationOnly;
+
+        ListingTask(Path directory, List<Mirror> destinations, boolean includeDestinationOnly) {
+            this.directory = directory;
+            this.destinations = destinations;
+            this.includeDestinationOnly = includeDestinationOnly;
+        }
+
+        @Override
+        protected Listing compute() {
+            List<DestinationTask> destinationTasks = new ArrayList<>(destinations.size());
+            for (Mirror destination : destinations) {
+                DestinationTask destinationTask = new DestinationTask(destination.path());
+                destinationTask.fork();
+                destinationTasks.add(destinationTask);
+            }
+            LocalDateTime listedAt = LocalDateTime.now();
+            Map<String, BasicFileAttributes> sourceEntries;
+            Set<String> ignoredLinks = new HashSet<>();
+            try {
+                sourceEntries = readEntries(directory, ignoredLinks);
+            } catch (NoSuchFileException e) {
+                if (!includeDestinationOnly) {
+                    destinationTasks.forEach(ForkJoinTask::join);
+                    throw new UncheckedIOException(e);
+                }
+                sourceEntries = Map.of();
+            } catch (IOException e) {
+                destinationTasks.forEach(ForkJoinTask::join);
+                throw new UncheckedIOException(e);
+            }
+            List<Map<String, BasicFileAttributes>> destinationEntries = new ArrayList<>(destinationTasks.size());
+            for (DestinationTask destinationTask : destinationTasks) {
+                destinationEntries.add(destinationTask.join());
+            }
+            for (int i = 0; i < destinationEntries.size(); i++) {
+                if (destinationEntries.get(i) != null) {
+                    deleteLeftovers(destinations.get(i).path(), destinationEntries.get(i), sourceEntries::containsKey);
+                }
+            }
+            if (includeDestinationOnly) {
+                deleteLeftovers(directory, sourceEntries, name -> destinationEntries.stream()
+                    .anyMatch(listed -> listed != null && listed.containsKey(name)));
+            }
+
+            List<Entry> files = new ArrayList<>();
+            List<Entry> directories = new ArrayList<>();
+            for (Map.Entry<String, BasicFileAttributes> source : sourceEntries.entrySet()) {
+                Entry entry = entry(source.getKey(), source.getValue(), destinationEntries);
+                (source.getValue().isDirectory() ? directories : files).add(entry);
+            }
+            if (includeDestinationOnly) {
+                // Un lien ignoré n'est pas une entrée propre à la destination
+                Set<String> seen = new HashSet<>(sourceEntries.keySet());
+                seen.addAll(ignoredLinks);
+                for (Map<String, BasicFileAttributes> listed : destinationEntries) {
+                    if (listed == null) {
+                        continue;
+                    }
+                    for (Map.Entry<String, BasicFileAttributes> destination : listed.entrySet()) {
+                        if (seen.add(destination.getKey())) {
+                            Entry entry = entry(destination.getKey(), null, destinationEntries);
+                            (destination.getValue().isDirectory() ? directories : files).add(entry);
+                        }
+                    }
+                }
+            }
+            return new Listing(listedAt, files, directories);
+        }
+
+        private Entry entry(String name, BasicFileAttributes attrs,
+                            List<Map<String, BasicFileAttributes>> destinationEntries) {
+            List<Mirror> mirrors = new ArrayList<>(destinations.size());
+            for (int i = 0; i < destinations.size(); i++) {
+                Map<String, BasicFileAttributes> listed = destinationEntries.get(i);
+                mirrors.add(new Mirror(destinations.get(i).path().resolve(name), listed != null,
+                    listed != null ? listed.get(name) : null));
+            }
+            return new Entry(directory.resolve(name), attrs, mirrors);
+        }
+    }
+
+    /**
+     * Entrées d'un répertoire de destination ; vide s'il n'existe pas encore, null s'il est illisible
+     * (l'erreur est laissée à la relecture de chaque entrée, qui ne concerne que cette destination).
+     */
+    private static final class DestinationTask extends RecursiveTask<Map<String, BasicFileAttributes>> {
+
+        private final Path directory;
+
+        DestinationTask(Path directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        protected Map<String, BasicFileAttributes> compute() {
+            try {
+                return readEntries(directory, null);
+            } catch (NoSuchFileException | NotDirectoryException e) {
+                return Map.of();
+            } catch (IOException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Liste un répertoire puis relève les attributs de ses entrées, par tranches réparties
+     * dans le pool pour les grands répertoires. Appelé depuis une tâche du pool.
+     *
+     * @param ignoredLinks null pour une destination (liens non suivis) ; pour la source, reçoit le nom
+     *                     des liens ignorés (voir {@link #resolveLink})
+     */
+    private static Map<String, BasicFileAttributes> readEntries(Path directory,
+                                                                Set<String> ignoredLinks) throws IOException {
+        List<Path> children = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path child : stream) {
+                children.add(child);
+            }
+        }
+        BasicFileAttributes[] attrs = new BasicFileAttributes[children.size()];
+        try {
+            new StatTask(children, attrs, ignoredLinks != null, 0, children.size()).invoke();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        Map<String, BasicFileAttributes> entries = new LinkedHashMap<>();
+        for (int i = 0; i < attrs.length; i++) {
+            if (attrs[i] == null) {
+                continue;
+            }
+            String name = children.get(i).getFileName().toString();
+            if (attrs[i].isSymbolicLink()) {
+                ignoredLinks.add(name); // Lien source non résolu (les destinations n'en renvoient pas ici)
+            } else {
+                entries.put(name, attrs[i]);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Attributs de la cible d'un lien symbolique de la source s'il désigne un fichier, sinon null :
+     * un lien vers un répertoire (cycles possibles) ou cassé est ignoré.
+     */
+    private static BasicFileAttributes resolveLink(Path link) throws IOException {
+        try {
+            BasicFileAttributes target = Files.readAttributes(link, BasicFileAttributes.class);
+            if (target.isRegularFile()) {
+                return target;
+            }
+            log.info("Lien symbolique vers un répertoire ignoré: {}", link);
+        } catch (NoSuchFileException e) {
+            log.info("Lien symbolique sans cible ignoré: {}", link);
+        }
+        return null;
+    }
+
+    /**
+     * Supprime de {@code entries} (et du disque) les fichiers temporaires d'une exécution interrompue,
+     * sauf ceux dont le nom existe de l'autre côté ({@code otherSide}).
+     */
+    private static void deleteLeftovers(Path directory, Map<String, BasicFileAttributes> entries,
+                                        Predicate<String> otherSide) {
+        List<String> leftovers = new ArrayList<>();
+        for (Map.Entry<String, BasicFileAttributes> entry : entries.entrySet()) {
+            if (entry.getValue().isRegularFile() && FileCopier.isStagingFile(entry.getKey())
+                && !otherSide.test(entry.getKey())) {
+                leftovers.add(entry.getKey());
+            }
+        }
+        for (String name : leftovers) {
+            deleteLeftover(directory.resolve(name));
+            entries.remove(name);
+        }
+    }
+
+    private static void deleteLeftover(Path staging) {
+        try {
+            Files.deleteIfExists(staging);
+            log.info("Fichier temporaire d'une copie interrompue supprimé: {}", staging);
+        } catch (IOException e) {
+            log.warn("Fichier temporaire d'une copie interrompue non supprimé: {} ({})", staging, e.getMessage());
+        }
+    }
+
+    /**
+     * Relevé des attributs d'une tranche d'entrées, découpée tant qu'elle dépasse {@link #STAT_BATCH}.
+     * Une entrée disparue entre la liste et son relevé est ignorée. Avec {@code resolveLinks}, un lien
+     * vers un fichier reçoit les attributs de sa cible ; un lien ignoré garde les siens.
+     */
+    private static final class StatTask extends RecursiveAction {
+
+        private final List<Path> children;
+        private final BasicFileAttributes[] attrs;
+        private final boolean resolveLinks;
+        private final int from;
+        private final int to;
+
+        StatTask(List<Path> children, BasicFileAttributes[] attrs, boolean resolveLinks, int from, int to) {
+            this.children = children;
+            this.attrs = attrs;
+            this.resolveLinks = resolveLinks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > STAT_BATCH) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new StatTask(children, attrs, resolveLinks, from, middle),
+                    new StatTask(children, attrs, resolveLinks, middle, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                try {
+                    attrs[i] = Files.readAttributes(children.get(i), BasicFileAttributes.class,
+                        LinkOption.NOFOLLOW_LINKS);
+                    if (resolveLinks && attrs[i].isSymbolicLink()) {
+                        BasicFileAttributes target = resolveLink(children.get(i));
+                        if (target != null) {
+                            attrs[i] = target;
+                        }
+                    }
+                } catch (NoSuchFileException e) {
+                    // Supprimée pendant le parcours : traitée comme absente
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+}
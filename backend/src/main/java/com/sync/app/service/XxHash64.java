@@ -0,0 +1,184 @@
+package com.sync.app.service;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.Checksum;
+
+/**
+ * Implémentation Java pure et incrémentale de XXH64 (graine 0).
+ * Non cryptographique : sert uniquement à détecter les modifications de contenu.
+ */
+public final class XxHash64 implements Checksum {
+
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+    private static final int STRIPE = 32;
+
+    private static final VarHandle LONG_LE =
+        MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INT_LE =
+        MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final byte[] pending = new byte[STRIPE];
+    private int pendingSize;
+    private long totalLength;
+    private long v1;
+    private long v2;
+    private long v3;
+    private long v4;
+
+    public XxHash64() {
+        reset();
+    }
+
+    @Override
+    public void update(int b) {
+        update(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void update(byte[] b, int off, int len) {
+        totalLength += len;
+
+        if (pendingSize + len < STRIPE) {
+            System.arraycopy(b, off, pending, pendingSize, len);
+            pendingSize += len;
+            return;
+        }
+
+        if (pendingSize > 0) {
+            int fill = STRIPE - pendingSize;
+            System.arraycopy(b, off, pending, pendingSize, fill);
+            processStripe(pending, 0);
+            off += fill;
+            len -= fill;
+            pendingSize = 0;
+        }
+
+        int end = off + len - STRIPE;
+        while (off <= end) {
+            processStripe(b, off);
+            off += STRIPE;
+        }
+
+        int remaining = end + STRIPE - off;
+        System.arraycopy(b, off, pending, 0, remaining);
+        pendingSize = remaining;
+    }
+
+    @Override
+    public void update(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            int position = buffer.position();
+            update(buffer.array(), buffer.arrayOffset() + position, buffer.remaining());
+            buffer.position(buffer.limit());
+            return;
+        }
+
+        // Buffer direct : complète le bloc en attente, puis lit les blocs complets sans copie
+        while (pendingSize > 0 && buffer.hasRemaining()) {
+            int length = Math.min(STRIPE - pendingSize, buffer.remaining());
+            buffer.get(pending, pendingSize, length);
+            totalLength += length;
+            pendingSize += length;
+            if (pendingSize == STRIPE) {
+                processStripe(pending, 0);
+                pendingSize = 0;
+            }
+        }
+
+        ByteOrder order = buffer.order();
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            while (buffer.remaining() >= STRIPE) {
+                int position = buffer.position();
+                v1 = round(v1, buffer.getLong(position));
+                v2 = round(v2, buffer.getLong(position + 8));
+                v3 = round(v3, buffer.getLong(position + 16));
+                v4 = round(v4, buffer.getLong(position + 24));
+                buffer.position(position + STRIPE);
+                totalLength += STRIPE;
+            }
+        } finally {
+            buffer.order(order);
+        }
+
+        int length = buffer.remaining();
+        buffer.get(pending, pendingSize, length);
+        totalLength += length;
+        pendingSize += length;
+    }
+
+    @Override
+    public long getValue() {
+        long hash;
+        if (totalLength >= STRIPE) {
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7)
+                + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = mergeRound(hash, v1);
+            hash = mergeRound(hash, v2);
+            hash = mergeRound(hash, v3);
+            hash = mergeRound(hash, v4);
+        } else {
+            hash = PRIME5;
+        }
+
+        hash += totalLength;
+
+        int i = 0;
+        for (; i + 8 <= pendingSize; i += 8) {
+            hash ^= round(0, (long) LONG_LE.get(pending, i));
+            hash = Long.rotateLeft(hash, 27) * PRIME1 + PRIME4;
+        }
+        if (i + 4 <= pendingSize) {
+            hash ^= ((int) INT_LE.get(pending, i) & 0xFFFFFFFFL) * PRIME1;
+            hash = Long.rotateLeft(hash, 23) * PRIME2 + PRIME3;
+            i += 4;
+        }
+        for (; i < pendingSize; i++) {
+            hash ^= (pending[i] & 0xFFL) * PRIME5;
+            hash = Long.rotateLeft(hash, 11) * PRIME1;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= PRIME2;
+        hash ^= hash >>> 29;
+        hash *= PRIME3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    @Override
+    public void reset() {
+        v1 = PRIME1 + PRIME2;
+        v2 = PRIME2;
+        v3 = 0;
+        v4 = -PRIME1;
+        pendingSize = 0;
+        totalLength = 0;
+    }
+
+    private void processStripe(byte[] b, int off) {
+        v1 = round(v1, (long) LONG_LE.get(b, off));
+        v2 = round(v2, (long) LONG_LE.get(b, off + 8));
+        v3 = round(v3, (long) LONG_LE.get(b, off + 16));
+        v4 = round(v4, (long) LONG_LE.get(b, off + 24));
+    }
+
+    private static long round(long acc, long input) {
+        acc += input * PRIME2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * PRIME1;
+    }
+
+    private static long mergeRound(long acc, long value) {
+        acc ^= round(0, value);
+        return acc * PRIME1 + PRIME4;
+    }
+}
@@ -0,0 +1,163 @@
+package com.sync.app.controller;
+
+import com.sync.app.dto.SyncLogDto;
+import com.sync.app.dto.SyncLogPageDto;
+import com.sync.app.entity.SyncLog;
+import com.sync.app.entity.SyncTask;
+import com.sync.app.repository.SyncLogRepository;
+import com.sync.app.service.SyncHistoryService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Pagination par curseur des logs, sur une base H2 en mémoire.
+ */
+@DataJpaTest
+@Import(SyncLogController.class)
+class SyncLogControllerTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 1, 10, 0);
+
+    @Autowired
+    private SyncLogController controller;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @MockBean
+    private SyncHistoryService syncHistoryService;
+
+    private SyncTask first;
+    private SyncTask second;
+    private final List<Long> firstTaskLogs = new ArrayList<>();
+    private final List<Long> allLogs = new ArrayList<>();
+
+    /**
+     * Sept logs sur deux tâches, dont trois avec la même date de début (départagés par l'id).
+     */
+    @BeforeEach
+    void setUp() {
+        first = task("première");
+        second = task("seconde");
+        log(first, START);
+        log(second, START.plusMinutes(1));
+        log(first, START.plusMinutes(2));
+        log(first, START.plusMinutes(2));
+        log(second, START.plusMinutes(2));
+        log(first, START.plusMinutes(3).plusNanos(123_456_000)); // Précision de la colonne : la µs
+        log(first, START.plusMinutes(4));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void walksEveryLogOnceFromNewestToOldest() {
+        assertThat(collect(cursor -> controller.getAllLogs(cursor, 3))).containsExactlyElementsOf(newestFirst(allLogs));
+        assertThat(collect(cursor -> controller.getLogsByTask(first.getId(), cursor, 2)))
+            .containsExactlyElementsOf(newestFirst(firstTaskLogs));
+    }
+
+    @Test
+    void cursorNamesTheLastLogOfThePage() {
+        SyncLogPageDto page = controller.getAllLogs(null, 2).getBody();
+
+        assertThat(page.getSize()).isEqualTo(2);
+        SyncLogDto last = page.getContent().get(1);
+        assertThat(page.getNextCursor()).isEqualTo(last.getStartTime() + "_" + last.getId());
+        assertThat(last.getStartTime()).isEqualTo(START.plusMinutes(3).plusNanos(123_456_000));
+
+        // Dernière page : pas de curseur suivant
+        SyncLogPageDto whole = controller.getAllLogs(null, 7).getBody();
+        assertThat(whole.getContent()).hasSize(7);
+        assertThat(whole.getNextCursor()).isNull();
+    }
+
+    @Test
+    void pageSizeIsClamped() {
+        assertThat(controller.getAllLogs(null, 0).getBody().getSize()).isEqualTo(1);
+        assertThat(controller.getAllLogs(null, 10_000).getBody().getSize()).isEqualTo(200);
+    }
+
+    @Test
+    void malformedCursorIsABadRequest() {
+        for (String cursor : List.of("", "42", "2024-03-01T10:00_", "2024-03-01T10:00_abc", "hier_12",
+                "2024-13-01T10:00_12")) {
+            assertThat(controller.getAllLogs(cursor, 20).getStatusCode()).as(cursor).isEqualTo(HttpStatus.BAD_REQUEST);
+            assertThat(controller.getLogsByTask(first.getId(), cursor, 20).getStatusCode()).as(cursor)
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @Test
+    void unknownTaskIsRejected() {
+        assertThatThrownBy(() -> controller.getLogsByTask(-1L, null, 20))
+            .isInstanceOf(RuntimeException.class)
+            .hasMessageContaining("Tâche non trouvée");
+    }
+
+    private static List<Long> collect(PageRequest request) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            ResponseEntity<SyncLogPageDto> response = request.get(cursor);
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+            response.getBody().getContent().forEach(log -> ids.add(log.getId()));
+            cursor = response.getBody().getNextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+
+    /**
+     * Ordre attendu : date de début décroissante, puis id décroissant.
+     */
+    private List<Long> newestFirst(List<Long> ids) {
+        return ids.stream()
+            .map(id -> entityManager.find(SyncLog.class, id))
+            .sorted((a, b) -> a.getStartTime().equals(b.getStartTime())
+                ? b.getId().compareTo(a.getId())
+                : b.getStartTime().compareTo(a.getStartTime()))
+            .map(SyncLog::getId)
+            .toList();
+    }
+
+    private SyncTask task(String name) {
+        SyncTask task = new SyncTask();
+        task.setName(name);
+        task.setSourcePath("/source/" + name);
+        task.setDestinationPath("/destination/" + name);
+        task.setIntervalMinutes(60L);
+        entityManager.persist(task);
+        return task;
+    }
+
+    private void log(SyncTask task, LocalDateTime startTime) {
+        SyncLog log = new SyncLog();
+        log.setSyncTask(task);
+        log.setStartTime(startTime);
+        log.setStatus(SyncLog.SyncStatus.COMPLETED);
+        entityManager.persist(log);
+        allLogs.add(log.getId());
+        if (task == first) {
+            firstTaskLogs.add(log.getId());
+        }
+    }
+
+    @FunctionalInterface
+    private interface PageRequest {
+        ResponseEntity<SyncLogPageDto> get(String cursor);
+    }
+}
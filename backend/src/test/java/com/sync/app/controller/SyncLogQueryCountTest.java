@@ -0,0 +1,126 @@
+package com.sync.app.controller;
+
+import com.sync.app.dto.SyncLogPageDto;
+import com.sync.app.entity.SyncLog;
+import com.sync.app.entity.SyncTask;
+import com.sync.app.repository.SyncLogRepository;
+import com.sync.app.service.SyncHistoryService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Nombre de requêtes SQL par page de logs, relevé par les statistiques Hibernate : les logs sont
+ * projetés en DTO avec le nom de leur tâche, sans chargement d'entité ni requête par ligne.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(SyncLogController.class)
+class SyncLogQueryCountTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 1, 10, 0);
+
+    @Autowired
+    private SyncLogController controller;
+
+    @Autowired
+    private SyncLogRepository syncLogRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private SyncHistoryService syncHistoryService;
+
+    private Statistics statistics;
+    private SyncTask first;
+
+    /**
+     * Trois tâches et trente logs : un chargement paresseux des tâches se verrait au décompte.
+     */
+    @BeforeEach
+    void setUp() {
+        first = task("première");
+        SyncTask[] tasks = {first, task("seconde"), task("troisième")};
+        for (int i = 0; i < 30; i++) {
+            SyncLog log = new SyncLog();
+            log.setSyncTask(tasks[i % tasks.length]);
+            log.setStartTime(START.plusMinutes(i));
+            log.setStatus(SyncLog.SyncStatus.COMPLETED);
+            entityManager.persist(log);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void repositoryPagesAreOneSelectEach() {
+        assertThat(syncLogRepository.findDtoPage(PageRequest.of(0, 21))).hasSize(21);
+        assertSelects(1);
+
+        assertThat(syncLogRepository.findDtoPageByTask(first.getId(), PageRequest.of(0, 21))).hasSize(10);
+        assertSelects(1);
+
+        assertThat(syncLogRepository.findDtoPageBefore(START.plusMinutes(10), 0L, PageRequest.of(0, 21)))
+            .hasSize(10);
+        assertSelects(1);
+    }
+
+    @Test
+    void globalPageIsOneSelect() {
+        SyncLogPageDto page = controller.getAllLogs(null, 20).getBody();
+        assertThat(page.getContent()).hasSize(20).allSatisfy(log -> assertThat(log.getSyncTaskName()).isNotNull());
+        assertSelects(1);
+
+        assertThat(controller.getAllLogs(page.getNextCursor(), 20).getBody().getContent()).hasSize(10);
+        assertSelects(1);
+    }
+
+    @Test
+    void taskPageIsTheExistenceCheckPlusOneSelect() {
+        SyncLogPageDto page = controller.getLogsByTask(first.getId(), null, 5).getBody();
+        assertThat(page.getContent()).hasSize(5);
+        assertSelects(2);
+
+        assertThat(controller.getLogsByTask(first.getId(), page.getNextCursor(), 5).getBody().getContent())
+            .hasSize(5);
+        assertSelects(2);
+    }
+
+    /**
+     * Requêtes préparées depuis le dernier appel, sans aucune entité chargée ni collection initialisée.
+     */
+    private void assertSelects(long expected) {
+        assertThat(statistics.getPrepareStatementCount()).as("requêtes SQL").isEqualTo(expected);
+        assertThat(statistics.getEntityLoadCount()).as("entités chargées").isZero();
+        assertThat(statistics.getCollectionLoadCount()).as("collections chargées").isZero();
+        statistics.clear();
+    }
+
+    private SyncTask task(String name) {
+        SyncTask task = new SyncTask();
+        task.setName(name);
+        task.setSourcePath("/source/" + name);
+        task.setDestinationPath("/destination/" + name);
+        task.setIntervalMinutes(60L);
+        entityManager.persist(task);
+        return task;
+    }
+}
@@ -0,0 +1,185 @@
+package com.sync.app.service;
+
+import com.sync.app.entity.SyncTask;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Décisions de {@link FileSyncService#detectChange} selon le mode de détection.
+ */
+class ChangeDetectionTest {
+
+    private static final long HOUR_NANOS = 3600L * 1_000_000_000L;
+
+    @TempDir
+    Path workDir;
+
+    private FileCopier fileCopier;
+    private FileSyncService service;
+    private Path source;
+    private Path destination;
+    private BasicFileAttributes sourceAttrs;
+    private long modifiedNanos;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        fileCopier = new FileCopier();
+        ReflectionTestUtils.setField(fileCopier, "chunkSize", 64 * 1024);
+        ReflectionTestUtils.setField(fileCopier, "mmapThreshold", Long.MAX_VALUE);
+        ReflectionTestUtils.setField(fileCopier, "mmapRegionSize", 64L * 1024 * 1024);
+        // Seul le copieur sert à la détection : les dépôts ne sont pas sollicités
+        service = new FileSyncService(null, null, null, null, null, fileCopier, null, null, null, null,
+            null, null, null, null);
+        ReflectionTestUtils.setField(service, "mtimeGranularityMillis", 2000L);
+
+        source = write("source.txt", "contenu d'origine");
+        destination = write("destination.txt", "contenu d'origine");
+        FileTime modified = FileTime.from(Instant.now().minusSeconds(3600));
+        Files.setLastModifiedTime(source, modified);
+        Files.setLastModifiedTime(destination, modified);
+        sourceAttrs = Files.readAttributes(source, BasicFileAttributes.class);
+        modifiedNanos = FileMetadataWriter.epochNanos(modified);
+    }
+
+    @Test
+    void copiesWhenTheDestinationIsMissingOrHasAnotherSize() throws IOException {
+        FileState known = recorded(modifiedNanos, SyncTask.HashAlgorithm.XXH64);
+
+        assertThat(detect(workDir.resolve("absent.txt"), known, SyncTask.ChangeDetection.SMART))
+            .isEqualTo(FileSyncService.ChangeCheck.COPY);
+        Files.writeString(destination, "autre taille");
+        assertThat(detect(destination, known, SyncTask.ChangeDetection.METADATA))
+            .isEqualTo(FileSyncService.ChangeCheck.COPY);
+    }
+
+    @Test
+    void unknownFileOfTheSameSizeIsLeftAlone() throws IOException {
+        assertThat(detect(destination, null, SyncTask.ChangeDetection.CHECKSUM))
+            .isEqualTo(FileSyncService.ChangeCheck.UNCHANGED);
+    }
+
+    @Test
+    void metadataModeComparesTheModifiedTimeOnly() throws IOException {
+        FileState sameDate = state(modifiedNanos, new byte[] {1, 2, 3}, SyncTask.HashAlgorithm.XXH64, syncedLater());
+        FileState otherDate = state(modifiedNanos - 1000, checksum(SyncTask.HashAlgorithm.XXH64),
+            SyncTask.HashAlgorithm.XXH64, syncedLater());
+
+        // Empreinte fausse : ignorée, le contenu n'est pas relu
+        assertThat(detect(destination, sameDate, SyncTask.ChangeDetection.METADATA))
+            .isEqualTo(FileSyncService.ChangeCheck.UNCHANGED);
+        assertThat(detect(destination, otherDate, SyncTask.ChangeDetection.METADATA))
+            .isEqualTo(FileSyncService.ChangeCheck.COPY);
+    }
+
+    @Test
+    void smartModeTrustsMetadataRecordedWellAfterTheModification() throws IOException {
+        FileState trusted = state(modifiedNanos, new byte[] {1, 2, 3}, SyncTask.HashAlgorithm.XXH64, syncedLater());
+
+        assertThat(detect(destination, trusted, SyncTask.ChangeDetection.SMART))
+            .isEqualTo(FileSyncService.ChangeCheck.UNCHANGED);
+    }
+
+    @Test
+    void smartModeHashesAmbiguousFiles() throws IOException {
+        String xxh64 = FileHashers.toHex(checksum(SyncTask.HashAlgorithm.XXH64));
+
+        // Enregistré dans la fenêtre d'horodatage : contenu identique, métadonnées à rafraîchir
+        FileState racy = state(modifiedNanos, checksum(SyncTask.HashAlgorithm.XXH64), SyncTask.HashAlgorithm.XXH64,
+            modifiedNanos / 1000 + 500_000);
+        assertThat(detect(destination, racy, SyncTask.ChangeDetection.SMART))
+            .isEqualTo(new FileSyncService.ChangeCheck(FileSyncService.Decision.REFRESH, xxh64));
+
+        // Date différente, même contenu : rafraîchissement également
+        FileState touched = recorded(modifiedNanos - HOUR_NANOS, SyncTask.HashAlgorithm.XXH64);
+        assertThat(detect(destination, touched, SyncTask.ChangeDetection.SMART))
+            .isEqualTo(new FileSyncService.ChangeCheck(FileSyncService.Decision.REFRESH, xxh64));
+
+        // Date différente, contenu différent
+        FileState changed = state(modifiedNanos - HOUR_NANOS, new byte[8], SyncTask.HashAlgorithm.XXH64,
+            syncedLater());
+        assertThat(detect(destination, changed, SyncTask.ChangeDetection.SMART))
+            .isEqualTo(FileSyncService.ChangeCheck.COPY);
+
+        // Sans empreinte enregistrée, rien ne permet de trancher
+        FileState noChecksum = state(modifiedNanos - HOUR_NANOS, null, null, syncedLater());
+        assertThat(detect(destination, noChecksum, SyncTask.ChangeDetection.SMART))
+            .isEqualTo(FileSyncService.ChangeCheck.COPY);
+    }
+
+    @Test
+    void smartModeDistrustsAReplacedFile() throws IOException {
+        FileState otherInode = new FileState(1, sourceAttrs.size(), modifiedNanos, true, "autre-inode",
+            new byte[8], SyncTask.HashAlgorithm.XXH64, syncedLater());
+
+        // Sans identifiant de fichier, l'inode ne peut pas être comparé
+        FileSyncService.ChangeCheck expected = sourceAttrs.fileKey() != null
+            ? FileSyncService.ChangeCheck.COPY
+            : FileSyncService.ChangeCheck.UNCHANGED;
+        assertThat(detect(destination, otherInode, SyncTask.ChangeDetection.SMART)).isEqualTo(expected);
+    }
+
+    @Test
+    void checksumModeAlwaysReadsTheContent() throws IOException {
+        FileState matching = recorded(modifiedNanos, SyncTask.HashAlgorithm.XXH64);
+        FileState mismatching = state(modifiedNanos, new byte[8], SyncTask.HashAlgorithm.XXH64, syncedLater());
+
+        assertThat(detect(destination, matching, SyncTask.ChangeDetection.CHECKSUM))
+            .isEqualTo(FileSyncService.ChangeCheck.UNCHANGED);
+        assertThat(detect(destination, mismatching, SyncTask.ChangeDetection.CHECKSUM))
+            .isEqualTo(FileSyncService.ChangeCheck.COPY);
+    }
+
+    @Test
+    void checksumFromAnotherAlgorithmIsVerifiedThenMigrated() throws IOException {
+        // Ligne historique : algorithme absent = SHA-256
+        FileState legacy = state(modifiedNanos, checksum(SyncTask.HashAlgorithm.SHA_256), null, syncedLater());
+
+        assertThat(detect(destination, legacy, SyncTask.ChangeDetection.CHECKSUM))
+            .isEqualTo(new FileSyncService.ChangeCheck(FileSyncService.Decision.REFRESH,
+                FileHashers.toHex(checksum(SyncTask.HashAlgorithm.XXH64))));
+    }
+
+    private FileSyncService.ChangeCheck detect(Path destFile, FileState existing,
+                                               SyncTask.ChangeDetection mode) throws IOException {
+        return service.detectChange(source, sourceAttrs, destFile, existing, mode, SyncTask.HashAlgorithm.XXH64,
+            SyncTimings.NONE);
+    }
+
+    private FileState recorded(long modified, SyncTask.HashAlgorithm algorithm) throws IOException {
+        return state(modified, checksum(algorithm), algorithm, syncedLater());
+    }
+
+    private FileState state(long modified, byte[] checksum, SyncTask.HashAlgorithm algorithm, long lastSyncedMicros) {
+        String fileKey = sourceAttrs.fileKey() != null ? sourceAttrs.fileKey().toString() : null;
+        return new FileState(1, sourceAttrs.size(), modified, true, fileKey, checksum, algorithm, lastSyncedMicros);
+    }
+
+    /**
+     * Enregistrement bien après la modification, hors de la fenêtre d'horodatage.
+     */
+    private long syncedLater() {
+        return (modifiedNanos + HOUR_NANOS) / 1000;
+    }
+
+    private byte[] checksum(SyncTask.HashAlgorithm algorithm) throws IOException {
+        FileHasher hasher = FileHashers.create(algorithm);
+        fileCopier.hash(source, hasher);
+        return FileState.parseChecksum(hasher.digestHex());
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(workDir.resolve(name), content, StandardCharsets.UTF_8);
+    }
+}
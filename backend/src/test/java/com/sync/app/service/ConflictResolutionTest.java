@@ -0,0 +1,146 @@
+package com.sync.app.service;
+
+import com.sync.app.entity.SyncLog;
+import com.sync.app.entity.SyncTask;
+import com.sync.app.repository.SyncTaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Résolution des conflits d'une synchronisation bidirectionnelle : fichier modifié des deux côtés
+ * depuis la dernière exécution, avec des contenus différents.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+    "spring.datasource.url=jdbc:h2:mem:conflicts;DB_CLOSE_DELAY=-1",
+    "spring.jpa.show-sql=false"
+})
+class ConflictResolutionTest {
+
+    private static final Instant SYNCED = Instant.now().minusSeconds(3600);
+
+    @Autowired
+    private FileSyncService fileSyncService;
+
+    @Autowired
+    private SyncTaskRepository syncTaskRepository;
+
+    @TempDir
+    Path workDir;
+
+    private Path source;
+    private Path destination;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        source = Files.createDirectory(workDir.resolve("source"));
+        destination = Files.createDirectory(workDir.resolve("destination"));
+        write(source.resolve("rapport.txt"), "version commune", SYNCED);
+    }
+
+    @Test
+    void newestWinsKeepsTheMostRecentSide() throws IOException {
+        SyncTask task = synchronizedTask(SyncTask.ConflictPolicy.NEWEST_WINS);
+        write(source.resolve("rapport.txt"), "modifié dans la source", SYNCED.plusSeconds(10));
+        write(destination.resolve("rapport.txt"), "modifié dans la destination", SYNCED.plusSeconds(20));
+
+        SyncLog log = fileSyncService.executeSync(task);
+
+        assertThat(log.getFilesConflicted()).isEqualTo(1);
+        assertThat(log.getConflicts()).contains("rapport.txt", "destination conservée");
+        assertThat(Files.readString(source.resolve("rapport.txt"))).isEqualTo("modifié dans la destination");
+        assertThat(Files.readString(destination.resolve("rapport.txt"))).isEqualTo("modifié dans la destination");
+
+        write(source.resolve("rapport.txt"), "source plus récente", SYNCED.plusSeconds(40));
+        write(destination.resolve("rapport.txt"), "destination", SYNCED.plusSeconds(30));
+
+        log = fileSyncService.executeSync(task);
+
+        assertThat(log.getConflicts()).contains("source conservée");
+        assertThat(Files.readString(destination.resolve("rapport.txt"))).isEqualTo("source plus récente");
+        assertThat(fileSyncService.executeSync(task).getFilesConflicted()).isZero();
+    }
+
+    @Test
+    void keepBothRenamesTheDestinationVersion() throws IOException {
+        SyncTask task = synchronizedTask(SyncTask.ConflictPolicy.KEEP_BOTH);
+        write(source.resolve("rapport.txt"), "modifié dans la source", SYNCED.plusSeconds(20));
+        write(destination.resolve("rapport.txt"), "modifié dans la destination", SYNCED.plusSeconds(10));
+
+        SyncLog log = fileSyncService.executeSync(task);
+
+        assertThat(log.getFilesConflicted()).isEqualTo(1);
+        assertThat(Files.readString(destination.resolve("rapport.txt"))).isEqualTo("modifié dans la source");
+        List<Path> copies = conflictCopies(destination);
+        assertThat(copies).hasSize(1);
+        assertThat(copies.get(0).getFileName().toString()).matches("rapport \\(conflit \\d{8}-\\d{6}\\)\\.txt");
+        assertThat(Files.readString(copies.get(0))).isEqualTo("modifié dans la destination");
+        assertThat(log.getConflicts()).contains(copies.get(0).getFileName().toString());
+
+        // La copie conservée est une nouvelle entrée : recopiée dans la source au passage suivant
+        log = fileSyncService.executeSync(task);
+        assertThat(log.getFilesConflicted()).isZero();
+        assertThat(conflictCopies(source)).hasSize(1);
+    }
+
+    @Test
+    void manualLeavesBothSidesUntouched() throws IOException {
+        SyncTask task = synchronizedTask(SyncTask.ConflictPolicy.MANUAL);
+        write(source.resolve("rapport.txt"), "modifié dans la source", SYNCED.plusSeconds(20));
+        write(destination.resolve("rapport.txt"), "modifié dans la destination", SYNCED.plusSeconds(10));
+
+        SyncLog log = fileSyncService.executeSync(task);
+
+        assertThat(log.getFilesConflicted()).isEqualTo(1);
+        assertThat(log.getConflicts()).contains("rapport.txt", "non résolu");
+        assertThat(Files.readString(source.resolve("rapport.txt"))).isEqualTo("modifié dans la source");
+        assertThat(Files.readString(destination.resolve("rapport.txt"))).isEqualTo("modifié dans la destination");
+        assertThat(conflictCopies(destination)).isEmpty();
+
+        // Signalé à chaque exécution jusqu'à résolution
+        assertThat(fileSyncService.executeSync(task).getFilesConflicted()).isEqualTo(1);
+    }
+
+    /**
+     * Tâche bidirectionnelle dont une première exécution a enregistré l'état commun.
+     */
+    private SyncTask synchronizedTask(SyncTask.ConflictPolicy policy) {
+        SyncTask task = new SyncTask();
+        task.setName("conflits " + policy);
+        task.setSourcePath(source.toString());
+        task.setDestinationPath(destination.toString());
+        task.setIntervalMinutes(60L);
+        task.setActive(false); // Hors du planificateur
+        task.setSyncMode(SyncTask.SyncMode.BIDIRECTIONAL);
+        task.setConflictPolicy(policy);
+        task = syncTaskRepository.save(task);
+
+        SyncLog log = fileSyncService.executeSync(task);
+        assertThat(log.getFilesCopied()).isEqualTo(1);
+        assertThat(destination.resolve("rapport.txt")).hasContent("version commune");
+        return task;
+    }
+
+    private static List<Path> conflictCopies(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().contains("(conflit ")).toList();
+        }
+    }
+
+    private static void write(Path file, String content, Instant modified) throws IOException {
+        Files.writeString(file, content);
+        Files.setLastModifiedTime(file, FileTime.from(modified));
+    }
+}
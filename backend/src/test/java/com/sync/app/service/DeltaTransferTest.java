@@ -0,0 +1,186 @@
+package com.sync.app.service;
+
+import com.sync.app.entity.SyncLog;
+import com.sync.app.entity.SyncTask;
+import com.sync.app.repository.SyncTaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Mise à jour en place par blocs ({@link FileCopier#copyDelta}) : contenu de la destination après
+ * insertion, troncature ou ajout, et mise à jour interrompue recopiée entièrement au passage suivant.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+    "spring.datasource.url=jdbc:h2:mem:delta;DB_CLOSE_DELAY=-1",
+    "spring.jpa.show-sql=false",
+    "sync.delta.block-size=" + DeltaTransferTest.BLOCK,
+    "sync.delta.min-file-size=0"
+})
+class DeltaTransferTest {
+
+    static final int BLOCK = 4096;
+
+    private static final Instant MODIFIED = Instant.parse("2024-03-04T05:06:07.123456Z");
+
+    @Autowired
+    private FileSyncService fileSyncService;
+
+    @Autowired
+    private SyncTaskRepository syncTaskRepository;
+
+    @TempDir
+    Path workDir;
+
+    private Path sourceFile;
+    private Path destFile;
+    private byte[] content;
+    private SyncTask task;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path source = Files.createDirectory(workDir.resolve("source"));
+        Path destination = workDir.resolve("destination");
+        sourceFile = source.resolve("image.bin");
+        destFile = destination.resolve("image.bin");
+        content = random(16 * BLOCK + 100, 7);
+        write(content, 0);
+
+        task = new SyncTask();
+        task.setName("delta");
+        task.setSourcePath(source.toString());
+        task.setDestinationPath(destination.toString());
+        task.setIntervalMinutes(60L);
+        task.setActive(false); // Hors du planificateur
+        task.setChangeDetection(SyncTask.ChangeDetection.SMART);
+        task.setDeltaTransfer(true);
+        task = syncTaskRepository.save(task);
+        fileSyncService.executeSync(task);
+    }
+
+    @Test
+    void insertedBlockRewritesTheShiftedBlocksOnly() throws IOException {
+        byte[] inserted = concat(Arrays.copyOf(content, 5 * BLOCK), random(BLOCK, 8),
+            Arrays.copyOfRange(content, 5 * BLOCK, content.length));
+        write(inserted, 1);
+
+        SyncLog log = fileSyncService.executeSync(task);
+
+        assertThat(Files.readAllBytes(destFile)).isEqualTo(inserted);
+        // Comparaison à offsets alignés : tout ce qui suit l'insertion est réécrit
+        assertThat(log.getBlocksRewritten()).isEqualTo(13);
+        assertThat(log.getBytesSaved()).isEqualTo(5L * BLOCK);
+    }
+
+    @Test
+    void truncatedFileRewritesNothing() throws IOException {
+        byte[] truncated = Arrays.copyOf(content, 10 * BLOCK);
+        write(truncated, 1);
+
+        SyncLog log = fileSyncService.executeSync(task);
+
+        assertThat(Files.readAllBytes(destFile)).isEqualTo(truncated);
+        assertThat(log.getBlocksRewritten()).isZero();
+    }
+
+    @Test
+    void grownFileRewritesTheLastBlockAndTheNewOnes() throws IOException {
+        byte[] grown = concat(content, random(3 * BLOCK, 9));
+        write(grown, 1);
+
+        SyncLog log = fileSyncService.executeSync(task);
+
+        assertThat(Files.readAllBytes(destFile)).isEqualTo(grown);
+        // Ancien dernier bloc (partiel, désormais complet), deux blocs complets et le nouveau bloc partiel
+        assertThat(log.getBlocksRewritten()).isEqualTo(4);
+    }
+
+    @Test
+    void interruptedUpdateIsCopiedEntirelyByTheNextRun() throws IOException {
+        FileTime copied = Files.getLastModifiedTime(destFile);
+        byte[] changed = content.clone();
+        changed[2 * BLOCK] ^= 1;
+        changed[12 * BLOCK] ^= 1;
+        write(changed, 1);
+
+        SyncLog cancelled = fileSyncService.executeSync(task, null, new CancelWhenWriting(destFile, copied));
+
+        // Premier bloc modifié réécrit, pas le second : la destination n'est ni l'ancienne ni la nouvelle version
+        assertThat(cancelled.getStatus()).isEqualTo(SyncLog.SyncStatus.CANCELLED);
+        assertThat(Files.readAllBytes(destFile)).isNotEqualTo(changed).isNotEqualTo(content);
+        assertThat(Files.getLastModifiedTime(destFile)).isNotEqualTo(copied);
+
+        SyncLog next = fileSyncService.executeSync(task);
+
+        assertThat(next.getStatus()).isEqualTo(SyncLog.SyncStatus.COMPLETED);
+        assertThat(next.getFilesUpdated()).isEqualTo(1);
+        assertThat(next.getBlocksRewritten()).isZero(); // Destination hors signature : copie complète
+        assertThat(Files.readAllBytes(destFile)).isEqualTo(changed);
+        assertThat(Files.getLastModifiedTime(destFile)).isEqualTo(Files.getLastModifiedTime(sourceFile));
+    }
+
+    /**
+     * Réécrit la source en place (même inode), avec une date propre à chaque version.
+     */
+    private void write(byte[] bytes, int version) throws IOException {
+        Files.write(sourceFile, bytes);
+        Files.setLastModifiedTime(sourceFile, FileTime.from(MODIFIED.plusSeconds(version)));
+    }
+
+    private static byte[] random(int size, long seed) {
+        byte[] bytes = new byte[size];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        int size = 0;
+        for (byte[] part : parts) {
+            size += part.length;
+        }
+        byte[] result = new byte[size];
+        int position = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, result, position, part.length);
+            position += part.length;
+        }
+        return result;
+    }
+
+    /**
+     * Annule l'exécution dès que la mise à jour en place a commencé (date de la destination modifiée).
+     */
+    private static final class CancelWhenWriting extends SyncControl {
+        private final Path destFile;
+        private final FileTime copied;
+
+        CancelWhenWriting(Path destFile, FileTime copied) {
+            this.destFile = destFile;
+            this.copied = copied;
+        }
+
+        @Override
+        public void checkpoint(long bytes) {
+            try {
+                if (!Files.getLastModifiedTime(destFile).equals(copied)) {
+                    cancel();
+                }
+            } catch (IOException e) {
+                // Destination absente : rien à annuler
+            }
+            super.checkpoint(bytes);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.sync.app.service;
+
+import com.sync.app.entity.SyncLog;
+import com.sync.app.entity.SyncTask;
+import com.sync.app.repository.SyncTaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Élagage des répertoires inchangés par l'index des répertoires : ni listés ni comparés au
+ * passage suivant, sauf ceux dont la date a changé.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+    "spring.datasource.url=jdbc:h2:mem:pruning;DB_CLOSE_DELAY=-1",
+    "spring.jpa.show-sql=false"
+})
+class DirectoryPruningTest {
+
+    private static final Pattern PRUNED = Pattern.compile("(\\d+) répertoires élagués \\(digest (\\w+)\\)");
+    private static final int DIRECTORIES = 4;
+    private static final int FILES = 5;
+
+    @Autowired
+    private FileSyncService fileSyncService;
+
+    @Autowired
+    private SyncTaskRepository syncTaskRepository;
+
+    @TempDir
+    Path workDir;
+
+    private Path source;
+    private Path destination;
+    private SyncTask task;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        source = Files.createDirectory(workDir.resolve("source"));
+        destination = workDir.resolve("destination");
+        for (int d = 0; d < DIRECTORIES; d++) {
+            Path dir = Files.createDirectories(source.resolve("d" + d).resolve("s"));
+            for (int f = 0; f < FILES; f++) {
+                Files.writeString(dir.getParent().resolve("fichier" + f + ".txt"), "contenu " + d + "/" + f);
+                Files.writeString(dir.resolve("fichier" + f + ".txt"), "sous " + d + "/" + f);
+            }
+            // Répertoires modifiés bien avant leur lecture : élagables au passage suivant
+            age(dir);
+            age(dir.getParent());
+        }
+        age(source);
+
+        task = new SyncTask();
+        task.setName("élagage");
+        task.setSourcePath(source.toString());
+        task.setDestinationPath(destination.toString());
+        task.setIntervalMinutes(60L);
+        task.setActive(false); // Hors du planificateur
+        task.setChangeDetection(SyncTask.ChangeDetection.SMART);
+        task.setDirectoryPruning(true);
+        task = syncTaskRepository.save(task);
+    }
+
+    @Test
+    void unchangedDirectoriesAreSkippedWithTheSameDigest() {
+        SyncLog first = fileSyncService.executeSync(task);
+        Matcher firstIndex = pruned(first);
+        assertThat(firstIndex.group(1)).isEqualTo("0");
+        assertThat(first.getFilesCopied()).isEqualTo(2L * DIRECTORIES * FILES);
+
+        SyncLog second = fileSyncService.executeSync(task);
+
+        Matcher secondIndex = pruned(second);
+        // Racine et chaque répertoire : leurs fichiers sont repris de l'index
+        assertThat(secondIndex.group(1)).isEqualTo(String.valueOf(1 + 2 * DIRECTORIES));
+        assertThat(secondIndex.group(2)).isEqualTo(firstIndex.group(2));
+        assertThat(second.getFilesScanned()).isZero();
+        assertThat(second.getFilesSkipped()).isEqualTo(2L * DIRECTORIES * FILES);
+        assertThat(second.getFilesCopied()).isZero();
+    }
+
+    @Test
+    void directoryWithANewFileIsReadAgain() throws IOException {
+        SyncLog first = fileSyncService.executeSync(task);
+        fileSyncService.executeSync(task);
+
+        Files.writeString(source.resolve("d2").resolve("s").resolve("nouveau.txt"), "nouveau");
+        age(source.resolve("d2").resolve("s"));
+        SyncLog third = fileSyncService.executeSync(task);
+
+        Matcher index = pruned(third);
+        assertThat(index.group(1)).isEqualTo(String.valueOf(2 * DIRECTORIES));
+        assertThat(index.group(2)).isNotEqualTo(pruned(first).group(2));
+        assertThat(third.getFilesCopied()).isEqualTo(1);
+        assertThat(third.getFilesScanned()).isEqualTo(FILES + 1);
+        assertThat(destination.resolve("d2").resolve("s").resolve("nouveau.txt")).hasContent("nouveau");
+    }
+
+    private static Matcher pruned(SyncLog log) {
+        Matcher matcher = PRUNED.matcher(log.getDetails());
+        assertThat(matcher.find()).as(log.getDetails()).isTrue();
+        return matcher;
+    }
+
+    /**
+     * Recule la date d'un répertoire d'une heure, pour la placer hors de la fenêtre d'horodatage.
+     */
+    private static void age(Path dir) throws IOException {
+        Files.setLastModifiedTime(dir, FileTime.from(Instant.now().minus(1, ChronoUnit.HOURS)));
+    }
+}
@@ -0,0 +1,257 @@
+package com.sync.app.service;
+
+import com.sync.app.entity.SyncTask;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Écritures par fichier temporaire de {@link FileCopier} : renommage à la place de la destination,
+ * aucun fichier temporaire laissé, ancienne version intacte après un échec. Copie et empreintes
+ * calculées dans la même lecture, par buffer ou par régions projetées en mémoire.
+ */
+class FileCopierTest {
+
+    private static final int CHUNK = 4096;
+
+    @TempDir
+    Path workDir;
+
+    private FileCopier fileCopier;
+    private Path source;
+    private byte[] content;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        fileCopier = new FileCopier();
+        ReflectionTestUtils.setField(fileCopier, "chunkSize", CHUNK);
+        ReflectionTestUtils.setField(fileCopier, "mmapThreshold", Long.MAX_VALUE);
+        ReflectionTestUtils.setField(fileCopier, "mmapRegionSize", 64L * 1024 * 1024);
+
+        content = new byte[10 * CHUNK + 123];
+        new Random(3).nextBytes(content);
+        source = Files.write(workDir.resolve("source.bin"), content);
+        Files.setLastModifiedTime(source, FileTime.from(Instant.parse("2024-01-02T03:04:05.123456Z")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SyncControl.unbind();
+    }
+
+    @Test
+    void copyReplacesTheDestinationAndLeavesNoStagingFile() throws IOException {
+        Path dest = Files.writeString(workDir.resolve("dest.bin"), "ancienne version");
+
+        fileCopier.copy(source, dest, attrs(source));
+
+        assertThat(Files.readAllBytes(dest)).isEqualTo(content);
+        assertThat(Files.getLastModifiedTime(dest)).isEqualTo(Files.getLastModifiedTime(source));
+        assertThat(names(workDir)).containsExactlyInAnyOrder("source.bin", "dest.bin");
+    }
+
+    @Test
+    void copyAndHashHashesTheWrittenBytesAtEveryDurabilityLevel() throws IOException {
+        FileHasher expected = FileHashers.create(SyncTask.HashAlgorithm.XXH64);
+        expected.update(content, 0, content.length);
+
+        for (SyncTask.Durability level : SyncTask.Durability.values()) {
+            SyncControl control = new SyncControl();
+            control.setDurability(new SyncDurability(level, 2));
+            control.bind();
+            Path dest = workDir.resolve(level.name()).resolve("dest.bin");
+            Files.createDirectories(dest.getParent());
+
+            String checksum = fileCopier.copyAndHash(source, dest, attrs(source),
+                FileHashers.create(SyncTask.HashAlgorithm.XXH64));
+            control.getDurability().flush();
+
+            assertThat(checksum).as(level.name()).isEqualTo(expected.digestHex());
+            assertThat(Files.readAllBytes(dest)).as(level.name()).isEqualTo(content);
+            assertThat(names(dest.getParent())).as(level.name()).containsExactly("dest.bin");
+        }
+    }
+
+    @Test
+    void onlyNoneSkipsTheForceBeforeRename() {
+        assertThat(new SyncDurability(SyncTask.Durability.NONE, 1).forceBeforeCommit()).isFalse();
+        assertThat(new SyncDurability(SyncTask.Durability.BATCHED, 1).forceBeforeCommit()).isTrue();
+        assertThat(new SyncDurability(SyncTask.Durability.FULL, 1).forceBeforeCommit()).isTrue();
+    }
+
+    @Test
+    void mappedAndBufferedReadsCopyAndHashTheSameBytes() throws Exception {
+        String expected = FileHashers.toHex(MessageDigest.getInstance("SHA-256").digest(content));
+        byte[] signature = null;
+
+        // Lecture par buffer, puis par régions projetées (plusieurs régions et une fin partielle)
+        for (long threshold : new long[] {Long.MAX_VALUE, 0}) {
+            ReflectionTestUtils.setField(fileCopier, "mmapThreshold", threshold);
+            ReflectionTestUtils.setField(fileCopier, "mmapRegionSize", 3L * CHUNK);
+            Path dest = workDir.resolve("dest-" + threshold + ".bin");
+            BlockSignatures.Builder blocks = new BlockSignatures.Builder(1000);
+
+            String checksum = fileCopier.copyAndHash(source, dest, attrs(source),
+                FileHashers.create(SyncTask.HashAlgorithm.SHA_256), blocks);
+
+            assertThat(checksum).isEqualTo(expected);
+            assertThat(Files.readAllBytes(dest)).isEqualTo(content);
+            BlockSignatures built = blocks.build();
+            assertThat(built.fileSize()).isEqualTo(content.length);
+            if (signature != null) {
+                assertThat(built.toBytes()).isEqualTo(signature);
+            }
+            signature = built.toBytes();
+        }
+    }
+
+    @Test
+    void hashFeedsEveryHasherFromASingleRead() throws Exception {
+        FileHasher xxh64 = FileHashers.create(SyncTask.HashAlgorithm.XXH64);
+        xxh64.update(content, 0, content.length);
+        String expectedSha = FileHashers.toHex(MessageDigest.getInstance("SHA-256").digest(content));
+
+        for (long threshold : new long[] {Long.MAX_VALUE, 0}) {
+            ReflectionTestUtils.setField(fileCopier, "mmapThreshold", threshold);
+            ReflectionTestUtils.setField(fileCopier, "mmapRegionSize", 3L * CHUNK);
+            FileHasher sha = FileHashers.create(SyncTask.HashAlgorithm.SHA_256);
+            FileHasher fast = FileHashers.create(SyncTask.HashAlgorithm.XXH64);
+
+            fileCopier.hash(source, sha, fast);
+
+            assertThat(sha.digestHex()).isEqualTo(expectedSha);
+            assertThat(fast.digestHex()).isEqualTo(xxh64.digestHex());
+        }
+    }
+
+    @Test
+    void plainCopyTransfersByChunk() throws IOException {
+        CountingControl control = new CountingControl();
+        control.bind();
+        Path dest = workDir.resolve("dest.bin");
+
+        fileCopier.copy(source, dest, attrs(source));
+
+        assertThat(Files.readAllBytes(dest)).isEqualTo(content);
+        // Un point de contrôle (limite de débit, annulation) par bloc transféré
+        assertThat(control.chunks).isEqualTo(11);
+        assertThat(control.bytes).isEqualTo(content.length);
+    }
+
+    @Test
+    void cancelledCopyKeepsThePreviousVersionAndRemovesItsStagingFile() throws IOException {
+        Path dest = Files.writeString(workDir.resolve("dest.bin"), "ancienne version");
+        new CancelAfterBlocks(3).bind();
+
+        assertThatThrownBy(() -> fileCopier.copyAndHash(source, dest, attrs(source),
+            FileHashers.create(SyncTask.HashAlgorithm.XXH64)))
+            .isInstanceOf(CancellationException.class);
+
+        assertThat(dest).hasContent("ancienne version");
+        assertThat(names(workDir)).containsExactlyInAnyOrder("source.bin", "dest.bin");
+    }
+
+    @Test
+    void fanOutCommitsTheWritableDestinationsOnly() throws IOException {
+        Path first = workDir.resolve("a").resolve("dest.bin");
+        Path missing = workDir.resolve("absent").resolve("dest.bin");
+        Path second = workDir.resolve("b").resolve("dest.bin");
+        Files.createDirectories(first.getParent());
+        Files.createDirectories(second.getParent());
+
+        FileCopier.FanOutResult result = fileCopier.copyToAll(source, List.of(first, missing, second), attrs(source),
+            FileHashers.create(SyncTask.HashAlgorithm.XXH64));
+
+        assertThat(result.failures().get(0)).isNull();
+        assertThat(result.failures().get(1)).isInstanceOf(IOException.class);
+        assertThat(result.failures().get(2)).isNull();
+        assertThat(Files.readAllBytes(first)).isEqualTo(content);
+        assertThat(Files.readAllBytes(second)).isEqualTo(content);
+        assertThat(names(first.getParent())).containsExactly("dest.bin");
+        assertThat(names(second.getParent())).containsExactly("dest.bin");
+    }
+
+    @Test
+    void longNamesAreTruncatedInTheStagingName() throws IOException {
+        Path dest = workDir.resolve("n".repeat(250) + ".bin");
+
+        fileCopier.copy(source, dest, attrs(source));
+
+        assertThat(Files.readAllBytes(dest)).isEqualTo(content);
+        assertThat(names(workDir)).hasSize(2);
+    }
+
+    @Test
+    void recognisesOnlyStagingNames() {
+        assertThat(FileCopier.isStagingFile(".rapport.pdf.0123abcd.synctmp")).isTrue();
+        assertThat(FileCopier.isStagingFile(".a.deadbeef.synctmp")).isTrue();
+
+        assertThat(FileCopier.isStagingFile("rapport.pdf.0123abcd.synctmp")).isFalse();
+        assertThat(FileCopier.isStagingFile(".rapport.pdf.0123ABCD.synctmp")).isFalse();
+        assertThat(FileCopier.isStagingFile(".rapport.pdf.0123abc.synctmp")).isFalse();
+        assertThat(FileCopier.isStagingFile(".rapport.pdf.synctmp")).isFalse();
+        assertThat(FileCopier.isStagingFile(".0123abcd.synctmp")).isFalse();
+        assertThat(FileCopier.isStagingFile(".rapport.pdf.0123abcd.tmp")).isFalse();
+    }
+
+    private static BasicFileAttributes attrs(Path file) throws IOException {
+        return Files.readAttributes(file, BasicFileAttributes.class);
+    }
+
+    private static List<String> names(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(Files::isRegularFile).map(file -> file.getFileName().toString()).toList();
+        }
+    }
+
+    /**
+     * Compte les blocs annoncés aux points de contrôle.
+     */
+    private static final class CountingControl extends SyncControl {
+        private int chunks;
+        private long bytes;
+
+        @Override
+        public void checkpoint(long bytes) {
+            chunks++;
+            this.bytes += bytes;
+            super.checkpoint(bytes);
+        }
+    }
+
+    /**
+     * Annule la copie au n-ième bloc.
+     */
+    private static final class CancelAfterBlocks extends SyncControl {
+        private int remaining;
+
+        CancelAfterBlocks(int blocks) {
+            remaining = blocks;
+        }
+
+        @Override
+        public void checkpoint(long bytes) {
+            if (--remaining == 0) {
+                cancel();
+            }
+            super.checkpoint(bytes);
+        }
+    }
+}
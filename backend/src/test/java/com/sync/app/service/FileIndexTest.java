@@ -0,0 +1,143 @@
+package com.sync.app.service;
+
+import com.sync.app.entity.SyncTask;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileIndexTest {
+
+    private final Map<Integer, FileState> states = new HashMap<>();
+
+    @Test
+    void findsEveryFileAfterTheTableAndArraysGrow() {
+        FileIndex index = new FileIndex();
+        for (int i = 0; i < 2000; i++) {
+            index.put(path("dir" + (i % 37), "sub" + (i % 5), "file" + i), state(i));
+        }
+
+        assertThat(index.size()).isEqualTo(2000);
+        for (int i = 0; i < 2000; i++) {
+            assertThat(index.get(path("dir" + (i % 37), "sub" + (i % 5), "file" + i)))
+                .as("file%d", i).isEqualTo(state(i));
+        }
+        assertThat(index.get(path("dir0", "sub0"))).as("répertoire").isNull();
+        assertThat(index.get(path("dir0", "sub0", "missing"))).isNull();
+    }
+
+    @Test
+    void putReplacesTheStateOfAKnownFile() {
+        FileIndex index = new FileIndex();
+        index.put(path("a", "b"), state(1));
+        index.put(path("a", "b"), state(2));
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.get(path("a", "b"))).isEqualTo(state(2));
+    }
+
+    @Test
+    void backwardShiftDeleteKeepsTheOtherEntriesReachable() {
+        FileIndex index = new FileIndex();
+        Map<String, FileState> expected = new HashMap<>();
+        Random random = new Random(7);
+
+        // Insertions et suppressions mêlées, à travers plusieurs agrandissements de la table
+        for (int step = 0; step < 20_000; step++) {
+            String path = path("d" + random.nextInt(20), "f" + random.nextInt(400));
+            if (random.nextInt(3) == 0) {
+                index.remove(path);
+                expected.remove(path);
+            } else {
+                FileState state = state(step);
+                index.put(path, state);
+                expected.put(path, state);
+            }
+        }
+
+        assertThat(index.size()).isEqualTo(expected.size());
+        for (int d = 0; d < 20; d++) {
+            for (int f = 0; f < 400; f++) {
+                String path = path("d" + d, "f" + f);
+                assertThat(index.get(path)).as(path).isEqualTo(expected.get(path));
+            }
+        }
+    }
+
+    @Test
+    void removingTheLastFileOfADirectoryRemovesTheDirectory() {
+        FileIndex index = new FileIndex();
+        index.put(path("a", "b", "c"), state(1));
+        index.remove(path("a", "b", "c"));
+
+        assertThat(index.size()).isZero();
+        List<String> files = new ArrayList<>();
+        index.forEachFile(size -> true, (path, state, visited) -> files.add(path));
+        assertThat(files).isEmpty();
+
+        // Le nœud libéré est réutilisé
+        index.put(path("a", "x"), state(2));
+        assertThat(index.get(path("a", "x"))).isEqualTo(state(2));
+        assertThat(index.get(path("a", "b", "c"))).isNull();
+    }
+
+    @Test
+    void forEachOrphanReturnsKnownFilesNotVisitedByTheRun() {
+        FileIndex index = new FileIndex();
+        index.put(path("a", "kept"), state(1));
+        index.put(path("a", "gone"), state(2));
+        index.put(path("a", "skip", "gone"), state(3));
+        index.put(path("b", "gone"), state(4));
+        index.clearVisited();
+
+        index.visit(path("a", "kept"));
+        index.put(path("a", "new"), state(5)); // Nouveau : marqué rencontré
+
+        assertThat(orphans(index, List.of(""), null))
+            .containsOnlyKeys(path("a", "gone"), path("a", "skip", "gone"), path("b", "gone"))
+            .containsEntry(path("b", "gone"), state(4));
+        assertThat(orphans(index, List.of("a"), null))
+            .containsOnlyKeys(path("a", "gone"), path("a", "skip", "gone"));
+        assertThat(orphans(index, List.of(path("a", "gone"), "b"), null))
+            .containsOnlyKeys(path("a", "gone"), path("b", "gone"));
+        assertThat(orphans(index, List.of(""), path("a", "skip")))
+            .containsOnlyKeys(path("a", "gone"), path("b", "gone"));
+        assertThat(orphans(index, List.of("missing"), null)).isEmpty();
+    }
+
+    @Test
+    void distinctSizesAreSortedAndUnique() {
+        FileIndex index = new FileIndex();
+        long[] sizes = {30, 10, 20, 10, 30};
+        for (int i = 0; i < sizes.length; i++) {
+            index.put("f" + i, new FileState(i, sizes[i], 0, true, null, null, null, FileState.NEVER));
+        }
+
+        assertThat(index.distinctSizes()).containsExactly(10, 20, 30);
+    }
+
+    private static Map<String, FileState> orphans(FileIndex index, List<String> roots, String excluded) {
+        Map<String, FileState> orphans = new TreeMap<>();
+        index.forEachOrphan(roots, directory -> directory.equals(excluded), orphans::put);
+        return orphans;
+    }
+
+    private static String path(String... segments) {
+        return String.join(File.separator, segments);
+    }
+
+    /**
+     * Même instance pour un même {@code i} : l'égalité du record compare l'empreinte par référence.
+     */
+    private FileState state(int i) {
+        return states.computeIfAbsent(i, key -> new FileState(i, 100L + i, 1_000_000_000L * i, i % 2 == 0,
+            "key" + i, new byte[] {(byte) i, 1, 2}, SyncTask.HashAlgorithm.XXH64, 1_000L * i));
+    }
+}
@@ -0,0 +1,139 @@
+package com.sync.app.service;
+
+import com.sync.app.entity.FileMetadata;
+import com.sync.app.entity.SyncTask;
+import com.sync.app.repository.FileMetadataBatchRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Cache des métadonnées par tâche : index repris d'une exécution à l'autre sans relecture de la
+ * base, usage exclusif pendant une exécution, éviction de tâches entières au-delà de la limite.
+ */
+class FileMetadataCacheTest {
+
+    private static final int FILES = 50;
+
+    private final FileMetadataBatchRepository repository = mock(FileMetadataBatchRepository.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void releasedIndexIsReusedWithoutReloading() {
+        FileMetadataCache cache = cache(Long.MAX_VALUE);
+        SyncTask task = task(1L);
+
+        FileIndex loaded = cache.acquire(task);
+        assertThat(loaded.size()).isEqualTo(FILES);
+        cache.release(task, loaded);
+
+        assertThat(cache.acquire(task)).isSameAs(loaded);
+        verify(repository, times(1)).forEachBySyncTask(eq(1L), any());
+        assertThat(gets("hit")).isEqualTo(1);
+        assertThat(gets("miss")).isEqualTo(1);
+    }
+
+    @Test
+    void acquiredIndexIsHeldExclusivelyUntilReleased() {
+        FileMetadataCache cache = cache(Long.MAX_VALUE);
+        SyncTask task = task(1L);
+        cache.release(task, cache.acquire(task));
+
+        FileIndex running = cache.acquire(task);
+        // Une seconde exécution ne partage pas l'index de la première : elle le recharge
+        FileIndex other = cache.acquire(task);
+
+        assertThat(other).isNotSameAs(running);
+        assertThat(other.size()).isEqualTo(FILES);
+        verify(repository, times(2)).forEachBySyncTask(eq(1L), any());
+    }
+
+    @Test
+    void invalidatedIndexIsReloaded() {
+        FileMetadataCache cache = cache(Long.MAX_VALUE);
+        SyncTask task = task(1L);
+        cache.release(task, cache.acquire(task));
+
+        cache.invalidate(1L);
+        cache.acquire(task);
+
+        verify(repository, times(2)).forEachBySyncTask(eq(1L), any());
+    }
+
+    @Test
+    void wholeTasksAreEvictedBeyondTheLimit() throws InterruptedException {
+        FileIndex sample = new FileIndex();
+        for (int i = 0; i < FILES; i++) {
+            sample.put(metadata(i).getFilePath(), FileState.of(metadata(i)));
+        }
+        long indexBytes = sample.estimatedBytes();
+        // Place pour un seul index
+        FileMetadataCache cache = cache(indexBytes + indexBytes / 2);
+
+        for (long id = 1; id <= 3; id++) {
+            cache.release(task(id), cache.acquire(task(id)));
+        }
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (cachedBytes() > indexBytes + indexBytes / 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10); // Éviction asynchrone
+        }
+
+        assertThat(cachedBytes()).isLessThanOrEqualTo(indexBytes + indexBytes / 2);
+        assertThat(meterRegistry.get("cache.evictions").tag("cache", "sync.metadata").functionCounter().count())
+            .isGreaterThanOrEqualTo(2);
+        // Les index évincés sont rechargés en entier
+        for (long id = 1; id <= 3; id++) {
+            assertThat(cache.acquire(task(id)).size()).isEqualTo(FILES);
+        }
+    }
+
+    private FileMetadataCache cache(long maxBytes) {
+        doAnswer(invocation -> {
+            Consumer<FileMetadata> action = invocation.getArgument(1);
+            for (int i = 0; i < FILES; i++) {
+                action.accept(metadata(i));
+            }
+            return null;
+        }).when(repository).forEachBySyncTask(any(), any());
+        return new FileMetadataCache(repository, meterRegistry, maxBytes);
+    }
+
+    private double gets(String result) {
+        return meterRegistry.get("cache.gets").tags("cache", "sync.metadata", "result", result)
+            .functionCounter().count();
+    }
+
+    private double cachedBytes() {
+        return meterRegistry.get("sync.metadata.cache.bytes").gauge().value();
+    }
+
+    private static SyncTask task(long id) {
+        SyncTask task = new SyncTask();
+        task.setId(id);
+        return task;
+    }
+
+    private static FileMetadata metadata(int i) {
+        FileMetadata metadata = new FileMetadata();
+        metadata.setId((long) i);
+        metadata.setFilePath("dossier" + (i % 5) + "/fichier" + i + ".txt");
+        metadata.setFileSize(100L + i);
+        metadata.setLastModified(LocalDateTime.of(2024, 1, 1, 0, 0).plusSeconds(i));
+        metadata.setLastModifiedNanos(1_704_067_200_000_000_000L + i * 1_000_000_000L);
+        metadata.setChecksum("00112233445566" + String.format("%02x", i));
+        metadata.setChecksumAlgorithm(SyncTask.HashAlgorithm.XXH64);
+        metadata.setLastSynced(LocalDateTime.of(2024, 1, 2, 0, 0));
+        return metadata;
+    }
+}
@@ -0,0 +1,133 @@
+package com.sync.app.service;
+
+import com.sync.app.entity.FileMetadata;
+import com.sync.app.entity.SyncLog;
+import com.sync.app.entity.SyncTask;
+import com.sync.app.repository.FileMetadataRepository;
+import com.sync.app.repository.SyncTaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Métadonnées écrites par lots JDBC pendant une synchronisation : lots plus petits que le nombre
+ * de fichiers, pour que chaque exécution en envoie plusieurs (insertions, mises à jour, suppressions).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+    "spring.datasource.url=jdbc:h2:mem:metadata;DB_CLOSE_DELAY=-1",
+    "spring.jpa.show-sql=false",
+    "sync.metadata-batch-size=7"
+})
+class FileMetadataPersistenceTest {
+
+    private static final int FILES = 50;
+
+    @Autowired
+    private FileSyncService fileSyncService;
+
+    @Autowired
+    private SyncTaskRepository syncTaskRepository;
+
+    @Autowired
+    private FileMetadataRepository fileMetadataRepository;
+
+    @Autowired
+    private FileCopier fileCopier;
+
+    @TempDir
+    Path workDir;
+
+    private Path source;
+    private SyncTask task;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        source = Files.createDirectory(workDir.resolve("source"));
+        Files.createDirectory(source.resolve("sous-dossier"));
+        for (int i = 0; i < FILES; i++) {
+            Files.writeString(file(i), "contenu " + i);
+        }
+        task = new SyncTask();
+        task.setName("métadonnées");
+        task.setSourcePath(source.toString());
+        task.setDestinationPath(workDir.resolve("destination").toString());
+        task.setIntervalMinutes(60L);
+        task.setActive(false); // Hors du planificateur
+        task.setChangeDetection(SyncTask.ChangeDetection.SMART);
+        task.setHashAlgorithm(SyncTask.HashAlgorithm.XXH64);
+        task = syncTaskRepository.save(task);
+    }
+
+    @Test
+    void everyCopiedFileHasOneRowWithItsState() throws IOException {
+        fileSyncService.executeSync(task);
+
+        Map<String, FileMetadata> rows = rows();
+        assertThat(rows).hasSize(FILES);
+        for (int i = 0; i < FILES; i++) {
+            assertMatches(rows.get(relative(i)), file(i));
+        }
+    }
+
+    @Test
+    void updatesAndDeletionsRewriteTheExistingRows() throws IOException {
+        fileSyncService.executeSync(task);
+        Map<String, FileMetadata> before = rows();
+
+        for (int i = 0; i < 10; i++) {
+            Files.writeString(file(i), "contenu modifié, plus long " + i);
+        }
+        for (int i = 40; i < FILES; i++) {
+            Files.delete(file(i));
+        }
+        SyncLog log = fileSyncService.executeSync(task);
+
+        assertThat(log.getFilesUpdated()).isEqualTo(10);
+        assertThat(log.getFilesDeleted()).isEqualTo(10);
+        Map<String, FileMetadata> after = rows();
+        assertThat(after).hasSize(40);
+        for (int i = 0; i < 40; i++) {
+            FileMetadata row = after.get(relative(i));
+            // Mise à jour par id : pas de nouvelle ligne
+            assertThat(row.getId()).isEqualTo(before.get(relative(i)).getId());
+            assertMatches(row, file(i));
+        }
+    }
+
+    private void assertMatches(FileMetadata row, Path file) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        assertThat(row).as(file.toString()).isNotNull();
+        assertThat(row.getFileSize()).isEqualTo(attrs.size());
+        assertThat(row.getLastModifiedNanos()).isEqualTo(FileMetadataWriter.epochNanos(attrs.lastModifiedTime()));
+        assertThat(row.getChecksumAlgorithm()).isEqualTo(SyncTask.HashAlgorithm.XXH64);
+        FileHasher hasher = FileHashers.create(SyncTask.HashAlgorithm.XXH64);
+        fileCopier.hash(file, hasher);
+        assertThat(row.getChecksum()).isEqualTo(hasher.digestHex());
+        assertThat(row.getLastSynced()).isNotNull();
+    }
+
+    private Map<String, FileMetadata> rows() {
+        return fileMetadataRepository.findBySyncTask(task).stream()
+            .collect(Collectors.toMap(FileMetadata::getFilePath, Function.identity()));
+    }
+
+    private Path file(int i) {
+        return i % 2 == 0 ? source.resolve("fichier" + i + ".txt") : source.resolve("sous-dossier").resolve("f" + i);
+    }
+
+    private String relative(int i) {
+        return source.relativize(file(i)).toString();
+    }
+}
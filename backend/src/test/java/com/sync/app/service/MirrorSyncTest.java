@@ -0,0 +1,191 @@
+package com.sync.app.service;
+
+import com.sync.app.entity.SyncLog;
+import com.sync.app.entity.SyncTask;
+import com.sync.app.repository.FileMetadataRepository;
+import com.sync.app.repository.SyncTaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Synchronisation miroir par le pool de workers : chaque fichier est traité une seule fois,
+ * et les compteurs agrégés des workers correspondent à l'arborescence.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+    "spring.datasource.url=jdbc:h2:mem:mirror;DB_CLOSE_DELAY=-1",
+    "spring.jpa.show-sql=false"
+})
+class MirrorSyncTest {
+
+    private static final int FILES = 300;
+
+    @Autowired
+    private FileSyncService fileSyncService;
+
+    @Autowired
+    private SyncTaskRepository syncTaskRepository;
+
+    @Autowired
+    private FileMetadataRepository fileMetadataRepository;
+
+    @TempDir
+    Path workDir;
+
+    private Path source;
+    private Path destination;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        source = Files.createDirectory(workDir.resolve("source"));
+        destination = workDir.resolve("destination");
+        Random random = new Random(11);
+        for (int i = 0; i < FILES; i++) {
+            Path file = source.resolve("d" + (i % 7)).resolve("s" + (i % 3)).resolve("fichier" + i + ".bin");
+            Files.createDirectories(file.getParent());
+            byte[] content = new byte[random.nextInt(64 * 1024)];
+            random.nextBytes(content);
+            Files.write(file, content);
+        }
+    }
+
+    @Test
+    void parallelWorkersCopyEveryFileOnce() throws IOException {
+        SyncTask task = task(8, SyncTask.ChangeDetection.SMART);
+
+        SyncLog log = fileSyncService.executeSync(task);
+
+        assertThat(log.getStatus()).isEqualTo(SyncLog.SyncStatus.COMPLETED);
+        assertThat(log.getFilesScanned()).isEqualTo(FILES);
+        assertThat(log.getFilesCopied()).isEqualTo(FILES);
+        assertThat(log.getTotalBytes()).isEqualTo(treeSize(source));
+        assertThat(contents(destination)).isEqualTo(contents(source));
+
+        SyncLog again = fileSyncService.executeSync(task);
+        assertThat(again.getFilesCopied()).isZero();
+        assertThat(again.getFilesUpdated()).isZero();
+        assertThat(again.getFilesSkipped()).isEqualTo(FILES);
+    }
+
+    @Test
+    void changesAndDeletionsArePropagated() throws IOException {
+        SyncTask task = task(4, SyncTask.ChangeDetection.CHECKSUM);
+        fileSyncService.executeSync(task);
+
+        for (int i = 0; i < 5; i++) {
+            Files.writeString(source.resolve("d" + (i % 7)).resolve("s" + (i % 3)).resolve("fichier" + i + ".bin"),
+                "nouveau contenu " + i);
+        }
+        for (int i = 10; i < 13; i++) {
+            Files.delete(source.resolve("d" + (i % 7)).resolve("s" + (i % 3)).resolve("fichier" + i + ".bin"));
+        }
+        Files.writeString(source.resolve("nouveau.txt"), "nouveau fichier");
+
+        SyncLog log = fileSyncService.executeSync(task);
+
+        assertThat(log.getStatus()).isEqualTo(SyncLog.SyncStatus.COMPLETED);
+        assertThat(log.getFilesCopied()).isEqualTo(1);
+        assertThat(log.getFilesUpdated()).isEqualTo(5);
+        assertThat(log.getFilesDeleted()).isEqualTo(3);
+        assertThat(contents(destination)).isEqualTo(contents(source));
+    }
+
+    @Test
+    void fileLinksAreCopiedWithTheirTargetAndDirectoryLinksIgnored() throws IOException {
+        Path outside = Files.createDirectory(workDir.resolve("hors-source"));
+        Path target = Files.write(outside.resolve("cible.bin"), new byte[1000]);
+        Files.writeString(Files.createDirectory(outside.resolve("dossier")).resolve("interne.txt"), "interne");
+        Files.createSymbolicLink(source.resolve("lien.bin"), target);
+        Files.createSymbolicLink(source.resolve("d0").resolve("lien-dossier"), outside.resolve("dossier"));
+        Files.createSymbolicLink(source.resolve("lien-casse"), outside.resolve("absent"));
+        SyncTask task = task(4, SyncTask.ChangeDetection.SMART);
+
+        SyncLog log = fileSyncService.executeSync(task);
+
+        assertThat(log.getStatus()).isEqualTo(SyncLog.SyncStatus.COMPLETED);
+        assertThat(log.getFilesCopied()).isEqualTo(FILES + 1);
+        assertThat(log.getTotalBytes()).isEqualTo(treeSize(source));
+        assertThat(Files.isSymbolicLink(destination.resolve("lien.bin"))).isFalse();
+        assertThat(Files.readAllBytes(destination.resolve("lien.bin"))).isEqualTo(new byte[1000]);
+        assertThat(fileMetadataRepository.findBySyncTaskAndFilePath(task, "lien.bin").orElseThrow().getFileSize())
+            .isEqualTo(1000);
+        assertThat(destination.resolve("d0").resolve("lien-dossier")).doesNotExist();
+        assertThat(destination.resolve("lien-casse")).doesNotExist();
+        assertThat(contents(destination)).isEqualTo(contents(source));
+
+        // Taille et date de la cible enregistrées : le lien n'est pas recopié à chaque exécution
+        SyncLog again = fileSyncService.executeSync(task);
+        assertThat(again.getStatus()).isEqualTo(SyncLog.SyncStatus.COMPLETED);
+        assertThat(again.getFilesCopied()).isZero();
+        assertThat(again.getFilesUpdated()).isZero();
+        assertThat(again.getFilesDeleted()).isZero();
+    }
+
+    @Test
+    void leftoverStagingFilesAreRemovedButLookAlikeSourceFilesAreKept() throws IOException {
+        Files.writeString(source.resolve(".vrai.0123abcd.synctmp"), "fichier de l'utilisateur");
+        Path leftover = destination.resolve("d1").resolve(".fichier1.bin.deadbeef.synctmp");
+        Files.createDirectories(leftover.getParent());
+        Files.writeString(leftover, "copie interrompue");
+        SyncTask task = task(4, SyncTask.ChangeDetection.SMART);
+
+        SyncLog log = fileSyncService.executeSync(task);
+
+        assertThat(log.getFilesCopied()).isEqualTo(FILES + 1);
+        assertThat(leftover).doesNotExist();
+        assertThat(destination.resolve(".vrai.0123abcd.synctmp")).hasContent("fichier de l'utilisateur");
+
+        // Présent dans la source : ni supprimé de la destination, ni recopié
+        SyncLog again = fileSyncService.executeSync(task);
+        assertThat(again.getFilesCopied()).isZero();
+        assertThat(again.getFilesDeleted()).isZero();
+        assertThat(destination.resolve(".vrai.0123abcd.synctmp")).exists();
+        assertThat(contents(destination)).isEqualTo(contents(source));
+    }
+
+    private SyncTask task(int parallelism, SyncTask.ChangeDetection changeDetection) {
+        SyncTask task = new SyncTask();
+        task.setName("miroir");
+        task.setSourcePath(source.toString());
+        task.setDestinationPath(destination.toString());
+        task.setIntervalMinutes(60L);
+        task.setActive(false); // Hors du planificateur
+        task.setParallelism(parallelism);
+        task.setChangeDetection(changeDetection);
+        return syncTaskRepository.save(task);
+    }
+
+    /**
+     * Contenu de chaque fichier de l'arborescence, par chemin relatif.
+     */
+    private static Map<String, String> contents(Path root) throws IOException {
+        Map<String, String> contents = new TreeMap<>();
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                FileHasher hasher = FileHashers.create(SyncTask.HashAlgorithm.SHA_256);
+                byte[] content = Files.readAllBytes(file);
+                hasher.update(content, 0, content.length);
+                contents.put(root.relativize(file).toString(), hasher.digestHex());
+            }
+        }
+        return contents;
+    }
+
+    private static long treeSize(Path root) throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.sync.app.service;
+
+import com.sync.app.entity.SyncLog;
+import com.sync.app.entity.SyncTask;
+import com.sync.app.repository.SyncTaskRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Soumissions de la surveillance temps réel : une tâche déjà en cours est resoumise à la fin de
+ * son exécution, sans nouvel essai à chaque délai de regroupement.
+ */
+class RealtimeSyncServiceTest {
+
+    private static final long DEBOUNCE_MS = 50;
+
+    @TempDir
+    Path workDir;
+
+    private SyncExecutor syncExecutor;
+    private RealtimeSyncService realtimeSyncService;
+    private SyncTask task;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        syncExecutor = mock(SyncExecutor.class);
+        realtimeSyncService = new RealtimeSyncService(mock(SyncTaskRepository.class), syncExecutor);
+        ReflectionTestUtils.setField(realtimeSyncService, "debounceMillis", DEBOUNCE_MS);
+        ReflectionTestUtils.setField(realtimeSyncService, "maxDelayMillis", 10 * DEBOUNCE_MS);
+        ReflectionTestUtils.setField(realtimeSyncService, "maxPaths", 1000);
+
+        task = new SyncTask();
+        task.setId(1L);
+        task.setName("temps réel");
+        task.setSourcePath(Files.createDirectory(workDir.resolve("source")).toString());
+        task.setDestinationPath(workDir.resolve("destination").toString());
+        task.setActive(true);
+        task.setRealtime(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        realtimeSyncService.stopAll();
+    }
+
+    @Test
+    void changesDuringARunAreSubmittedWhenItEnds() throws IOException {
+        CompletableFuture<SyncLog> current = new CompletableFuture<>();
+        when(syncExecutor.submit(eq(task), eq(SyncExecutor.Priority.REALTIME), any()))
+            .thenThrow(new SyncExecutor.AlreadyRunningException("en cours", current))
+            .thenReturn(new CompletableFuture<>());
+        realtimeSyncService.refresh(task);
+        assertThat(realtimeSyncService.isWatching(1L)).isTrue();
+
+        Files.writeString(workDir.resolve("source").resolve("nouveau.txt"), "contenu");
+
+        // Refusée une fois, puis plus soumise tant que l'exécution en cours n'est pas terminée
+        verify(syncExecutor, timeout(5000)).submit(eq(task), eq(SyncExecutor.Priority.REALTIME), any());
+        verify(syncExecutor, after(20 * DEBOUNCE_MS).times(1))
+            .submit(eq(task), eq(SyncExecutor.Priority.REALTIME), any());
+
+        current.complete(new SyncLog());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<String>> paths = ArgumentCaptor.forClass(Collection.class);
+        verify(syncExecutor, timeout(5000).times(2))
+            .submit(eq(task), eq(SyncExecutor.Priority.REALTIME), paths.capture());
+        assertThat(paths.getValue()).containsExactly("nouveau.txt");
+    }
+
+    @Test
+    void fullQueueIsRetriedAfterTheDebounceDelay() throws IOException {
+        when(syncExecutor.submit(eq(task), eq(SyncExecutor.Priority.REALTIME), anyCollection()))
+            .thenThrow(new RejectedExecutionException("file pleine"))
+            .thenReturn(new CompletableFuture<>());
+        realtimeSyncService.refresh(task);
+
+        Files.writeString(workDir.resolve("source").resolve("nouveau.txt"), "contenu");
+
+        verify(syncExecutor, timeout(5000).times(2))
+            .submit(eq(task), eq(SyncExecutor.Priority.REALTIME), anyCollection());
+    }
+}
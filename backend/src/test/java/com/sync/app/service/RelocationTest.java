@@ -0,0 +1,169 @@
+package com.sync.app.service;
+
+import com.sync.app.entity.SyncLog;
+import com.sync.app.entity.SyncTask;
+import com.sync.app.repository.SyncTaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Nouveaux fichiers de la source placés dans la destination sans copie : déplacement d'un orphelin
+ * de même contenu (moveDetection) et lien physique vers une copie identique (hardLinkDedup).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+    "spring.datasource.url=jdbc:h2:mem:relocation;DB_CLOSE_DELAY=-1",
+    "spring.jpa.show-sql=false"
+})
+class RelocationTest {
+
+    private static final int SIZE = 100_000;
+
+    @Autowired
+    private FileSyncService fileSyncService;
+
+    @Autowired
+    private SyncTaskRepository syncTaskRepository;
+
+    @TempDir
+    Path workDir;
+
+    private Path source;
+    private Path destination;
+    private byte[] content;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        source = Files.createDirectory(workDir.resolve("source"));
+        destination = workDir.resolve("destination");
+        content = new byte[SIZE];
+        new Random(5).nextBytes(content);
+        Files.createDirectories(source.resolve("ancien"));
+        Files.write(source.resolve("ancien").resolve("rapport.bin"), content);
+    }
+
+    @Test
+    void movedSourceFileIsRenamedInTheDestination() throws IOException {
+        SyncTask task = task(SyncTask.ChangeDetection.SMART, true, false);
+        fileSyncService.executeSync(task);
+        Object copyKey = fileKey(destination.resolve("ancien").resolve("rapport.bin"));
+
+        Files.createDirectories(source.resolve("nouveau"));
+        Files.move(source.resolve("ancien").resolve("rapport.bin"), source.resolve("nouveau").resolve("rapport.bin"));
+        SyncLog log = fileSyncService.executeSync(task);
+
+        Path moved = destination.resolve("nouveau").resolve("rapport.bin");
+        assertThat(log.getStatus()).isEqualTo(SyncLog.SyncStatus.COMPLETED);
+        assertThat(log.getFilesCopied()).isZero();
+        assertThat(log.getBytesSaved()).isEqualTo(SIZE);
+        assertThat(destination.resolve("ancien").resolve("rapport.bin")).doesNotExist();
+        assertThat(Files.readAllBytes(moved)).isEqualTo(content);
+        assertThat(fileKey(moved)).isEqualTo(copyKey); // Même fichier, renommé
+
+        // État enregistré sous le nouveau chemin : rien à faire au passage suivant
+        SyncLog again = fileSyncService.executeSync(task);
+        assertThat(again.getFilesCopied() + again.getFilesUpdated() + again.getFilesDeleted()).isZero();
+    }
+
+    @Test
+    void orphanChangedInTheDestinationIsNotMoved() throws IOException {
+        SyncTask task = task(SyncTask.ChangeDetection.SMART, true, false);
+        fileSyncService.executeSync(task);
+        // La copie de la destination n'est plus celle enregistrée
+        Files.write(destination.resolve("ancien").resolve("rapport.bin"), new byte[SIZE]);
+
+        Files.move(source.resolve("ancien"), source.resolve("nouveau"));
+        SyncLog log = fileSyncService.executeSync(task);
+
+        assertThat(log.getFilesCopied()).isEqualTo(1);
+        assertThat(log.getBytesSaved()).isZero();
+        assertThat(Files.readAllBytes(destination.resolve("nouveau").resolve("rapport.bin"))).isEqualTo(content);
+        assertThat(destination.resolve("ancien").resolve("rapport.bin")).doesNotExist();
+    }
+
+    @Test
+    void orphanWithAnotherFileKeyAndContentIsNotMoved() throws IOException {
+        for (SyncTask.ChangeDetection mode : new SyncTask.ChangeDetection[] {
+                SyncTask.ChangeDetection.METADATA, SyncTask.ChangeDetection.SMART}) {
+            Path modeSource = Files.createDirectories(workDir.resolve("source-" + mode));
+            Path modeDestination = workDir.resolve("destination-" + mode);
+            Files.write(modeSource.resolve("ancien.bin"), content);
+            SyncTask task = task(mode, true, false);
+            task.setSourcePath(modeSource.toString());
+            task.setDestinationPath(modeDestination.toString());
+            task = syncTaskRepository.save(task);
+            fileSyncService.executeSync(task);
+
+            // Nouveau fichier de même taille, créé avant la suppression (autre inode), d'un autre contenu
+            byte[] other = new byte[SIZE];
+            new Random(6).nextBytes(other);
+            Files.write(modeSource.resolve("nouveau.bin"), other);
+            Files.delete(modeSource.resolve("ancien.bin"));
+            SyncLog log = fileSyncService.executeSync(task);
+
+            assertThat(log.getFilesCopied()).as(mode.name()).isEqualTo(1);
+            assertThat(log.getBytesSaved()).as(mode.name()).isZero();
+            assertThat(Files.readAllBytes(modeDestination.resolve("nouveau.bin"))).as(mode.name()).isEqualTo(other);
+            assertThat(modeDestination.resolve("ancien.bin")).as(mode.name()).doesNotExist();
+        }
+    }
+
+    @Test
+    void identicalFilesAreHardLinkedOnlyWithDedup() throws IOException {
+        Files.write(source.resolve("copie1.bin"), content);
+        Files.write(source.resolve("copie2.bin"), content);
+
+        SyncLog log = fileSyncService.executeSync(task(SyncTask.ChangeDetection.SMART, false, false));
+
+        assertThat(log.getFilesCopied()).isEqualTo(3);
+        assertThat(log.getBytesSaved()).isZero();
+        assertThat(links(destination.resolve("copie1.bin"))).isEqualTo(1);
+        assertThat(links(destination.resolve("copie2.bin"))).isEqualTo(1);
+
+        Path deduplicated = workDir.resolve("destination-dedup");
+        SyncTask dedup = task(SyncTask.ChangeDetection.SMART, false, true);
+        dedup.setDestinationPath(deduplicated.toString());
+        log = fileSyncService.executeSync(syncTaskRepository.save(dedup));
+
+        // Un seul exemplaire copié, les deux autres liés
+        assertThat(log.getFilesCopied()).isEqualTo(1);
+        assertThat(log.getBytesSaved()).isEqualTo(2L * SIZE);
+        Object copyKey = fileKey(deduplicated.resolve("ancien").resolve("rapport.bin"));
+        for (String name : new String[] {"ancien/rapport.bin", "copie1.bin", "copie2.bin"}) {
+            assertThat(Files.readAllBytes(deduplicated.resolve(name))).isEqualTo(content);
+            assertThat(fileKey(deduplicated.resolve(name))).isEqualTo(copyKey);
+            assertThat(links(deduplicated.resolve(name))).isEqualTo(3);
+        }
+    }
+
+    private SyncTask task(SyncTask.ChangeDetection changeDetection, boolean moveDetection, boolean hardLinkDedup) {
+        SyncTask task = new SyncTask();
+        task.setName("déplacements");
+        task.setSourcePath(source.toString());
+        task.setDestinationPath(destination.toString());
+        task.setIntervalMinutes(60L);
+        task.setActive(false); // Hors du planificateur
+        task.setChangeDetection(changeDetection);
+        task.setMoveDetection(moveDetection);
+        task.setHardLinkDedup(hardLinkDedup);
+        return syncTaskRepository.save(task);
+    }
+
+    private static Object fileKey(Path file) throws IOException {
+        return Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+    }
+
+    private static int links(Path file) throws IOException {
+        return (Integer) Files.getAttribute(file, "unix:nlink");
+    }
+}
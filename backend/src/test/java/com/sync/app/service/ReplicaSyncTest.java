@@ -0,0 +1,194 @@
+package com.sync.app.service;
+
+import com.sync.app.dto.SyncTaskDto;
+import com.sync.app.entity.SyncLog;
+import com.sync.app.entity.SyncTask;
+import com.sync.app.repository.FileMetadataRepository;
+import com.sync.app.repository.SyncLogRepository;
+import com.sync.app.repository.SyncTaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Destinations supplémentaires d'une tâche : une seule exécution copie la source dans chacune,
+ * chaque destination a son propre log et ses propres métadonnées, et une destination en échec
+ * n'interrompt pas les autres.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+    "spring.datasource.url=jdbc:h2:mem:replicas;DB_CLOSE_DELAY=-1",
+    "spring.jpa.show-sql=false"
+})
+class ReplicaSyncTest {
+
+    private static final int FILES = 60;
+
+    @Autowired
+    private FileSyncService fileSyncService;
+
+    @Autowired
+    private SyncTaskService syncTaskService;
+
+    @Autowired
+    private SyncTaskRepository syncTaskRepository;
+
+    @Autowired
+    private SyncLogRepository syncLogRepository;
+
+    @Autowired
+    private FileMetadataRepository fileMetadataRepository;
+
+    @TempDir
+    Path workDir;
+
+    private Path source;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        source = Files.createDirectory(workDir.resolve("source"));
+        Random random = new Random(5);
+        for (int i = 0; i < FILES; i++) {
+            Path file = source.resolve("d" + (i % 4)).resolve("fichier" + i + ".bin");
+            Files.createDirectories(file.getParent());
+            byte[] content = new byte[random.nextInt(32 * 1024)];
+            random.nextBytes(content);
+            Files.write(file, content);
+        }
+    }
+
+    @Test
+    void everyDestinationReceivesTheSourceWithItsOwnLog() throws IOException {
+        Path primary = workDir.resolve("principale");
+        Path first = workDir.resolve("copie1");
+        Path second = workDir.resolve("copie2");
+        SyncTask task = createTask(primary, first, second);
+        List<SyncTask> replicas = syncTaskRepository.findByPrimaryTaskIdOrderByIdAsc(task.getId());
+        assertThat(replicas).extracting(SyncTask::getDestinationPath).containsExactly(first.toString(), second.toString());
+
+        SyncLog log = fileSyncService.executeSync(task);
+
+        assertThat(log.getSyncTask().getId()).isEqualTo(task.getId());
+        assertThat(log.getStatus()).isEqualTo(SyncLog.SyncStatus.COMPLETED);
+        assertThat(log.getFilesCopied()).isEqualTo(FILES);
+        for (Path destination : List.of(primary, first, second)) {
+            assertThat(contents(destination)).isEqualTo(contents(source));
+        }
+        for (SyncTask replica : replicas) {
+            SyncLog replicaLog = syncLogRepository.findFirstBySyncTaskOrderByStartTimeDesc(replica).orElseThrow();
+            assertThat(replicaLog.getId()).isNotEqualTo(log.getId());
+            assertThat(replicaLog.getStatus()).isEqualTo(SyncLog.SyncStatus.COMPLETED);
+            assertThat(replicaLog.getFilesCopied()).isEqualTo(FILES);
+            assertThat(fileMetadataRepository.findBySyncTask(replica)).hasSize(FILES);
+        }
+
+        // Une destination modifiée seule est seule remise à jour
+        Files.delete(second.resolve("d0").resolve("fichier0.bin"));
+        SyncLog again = fileSyncService.executeSync(task);
+
+        assertThat(again.getFilesCopied()).isZero();
+        assertThat(again.getFilesSkipped()).isEqualTo(FILES);
+        assertThat(latestLog(replicas.get(0)).getFilesUpdated()).isZero();
+        assertThat(latestLog(replicas.get(1)).getFilesUpdated()).isEqualTo(1); // Fichier connu, recopié
+        assertThat(contents(second)).isEqualTo(contents(source));
+    }
+
+    @Test
+    void failingDestinationsDoNotStopTheOthers() throws IOException {
+        Path primary = workDir.resolve("principale");
+        Path healthy = workDir.resolve("saine");
+        // Racine impossible à créer : abandonnée dès l'ouverture
+        Path blocker = Files.writeString(workDir.resolve("fichier-bloquant"), "x");
+        Path unreachable = blocker.resolve("destination");
+        // Un fichier à la place d'un répertoire de la source : abandonnée en cours de copie
+        Path broken = Files.createDirectory(workDir.resolve("cassee"));
+        Files.writeString(broken.resolve("d1"), "pas un répertoire");
+        SyncTask task = createTask(primary, unreachable, healthy, broken);
+        List<SyncTask> replicas = syncTaskRepository.findByPrimaryTaskIdOrderByIdAsc(task.getId());
+
+        SyncLog log = fileSyncService.executeSync(task);
+
+        assertThat(log.getStatus()).isEqualTo(SyncLog.SyncStatus.COMPLETED);
+        assertThat(contents(primary)).isEqualTo(contents(source));
+        assertThat(contents(healthy)).isEqualTo(contents(source));
+        assertThat(latestLog(replicas.get(1)).getStatus()).isEqualTo(SyncLog.SyncStatus.COMPLETED);
+        assertThat(latestLog(replicas.get(0)).getStatus()).isEqualTo(SyncLog.SyncStatus.FAILED);
+        assertThat(latestLog(replicas.get(2)).getStatus()).isEqualTo(SyncLog.SyncStatus.FAILED);
+        assertThat(broken.resolve("d1")).isRegularFile();
+    }
+
+    @Test
+    void removedDestinationIsDeletedWithItsHistory() throws IOException {
+        Path primary = workDir.resolve("principale");
+        Path kept = workDir.resolve("conservee");
+        Path removed = workDir.resolve("retiree");
+        SyncTask task = createTask(primary, kept, removed);
+        fileSyncService.executeSync(task);
+        SyncTask removedReplica = syncTaskRepository.findByPrimaryTaskIdOrderByIdAsc(task.getId()).get(1);
+
+        SyncTaskDto dto = dto(primary);
+        dto.setReplicaPaths(List.of(kept.toString()));
+        syncTaskService.updateTask(task.getId(), dto);
+
+        assertThat(syncTaskRepository.findByPrimaryTaskIdOrderByIdAsc(task.getId()))
+            .extracting(SyncTask::getDestinationPath).containsExactly(kept.toString());
+        assertThat(syncTaskRepository.findById(removedReplica.getId())).isEmpty();
+        assertThat(syncLogRepository.findFirstBySyncTaskOrderByStartTimeDesc(removedReplica)).isEmpty();
+        assertThat(syncTaskService.getAllTasks()).extracting(SyncTask::getId).contains(task.getId())
+            .doesNotContain(removedReplica.getId());
+    }
+
+    private SyncTask createTask(Path destination, Path... replicas) {
+        SyncTaskDto dto = dto(destination);
+        dto.setReplicaPaths(Stream.of(replicas).map(Path::toString).toList());
+        Long id = syncTaskService.createTask(dto).getId();
+        return syncTaskRepository.findById(id).orElseThrow();
+    }
+
+    /**
+     * Tâche inactive, hors du planificateur.
+     */
+    private SyncTaskDto dto(Path destination) {
+        SyncTaskDto dto = new SyncTaskDto();
+        dto.setName("répliquée");
+        dto.setSourcePath(source.toString());
+        dto.setDestinationPath(destination.toString());
+        dto.setIntervalMinutes(60L);
+        dto.setActive(false);
+        dto.setParallelism(4);
+        dto.setChangeDetection(SyncTask.ChangeDetection.SMART);
+        return dto;
+    }
+
+    private SyncLog latestLog(SyncTask task) {
+        return syncLogRepository.findFirstBySyncTaskOrderByStartTimeDesc(task).orElseThrow();
+    }
+
+    /**
+     * Contenu de chaque fichier de l'arborescence, par chemin relatif.
+     */
+    private static Map<String, String> contents(Path root) throws IOException {
+        Map<String, String> contents = new TreeMap<>();
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                FileHasher hasher = FileHashers.create(SyncTask.HashAlgorithm.SHA_256);
+                byte[] content = Files.readAllBytes(file);
+                hasher.update(content, 0, content.length);
+                contents.put(root.relativize(file).toString(), hasher.digestHex());
+            }
+        }
+        return contents;
+    }
+}
@@ -0,0 +1,103 @@
+package com.sync.app.service;
+
+import com.sync.app.entity.SyncLog;
+import com.sync.app.entity.SyncTask;
+import com.sync.app.repository.SyncTaskRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Reprise d'une synchronisation annulée : les fichiers validés au dernier point de reprise
+ * ne sont ni recopiés ni revérifiés.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+    "spring.datasource.url=jdbc:h2:mem:resume;DB_CLOSE_DELAY=-1",
+    "spring.jpa.show-sql=false",
+    "sync.metadata-batch-size=5"
+})
+class ResumeSyncTest {
+
+    private static final int FILES = 60;
+
+    @Autowired
+    private FileSyncService fileSyncService;
+
+    @Autowired
+    private SyncTaskRepository syncTaskRepository;
+
+    @TempDir
+    Path workDir;
+
+    @Test
+    void cancelledRunIsResumedFromItsCheckpoint() throws IOException {
+        Path source = Files.createDirectory(workDir.resolve("source"));
+        Path destination = workDir.resolve("destination");
+        for (int i = 0; i < FILES; i++) {
+            Files.writeString(source.resolve("fichier" + i + ".txt"), "contenu " + i);
+        }
+        SyncTask task = new SyncTask();
+        task.setName("reprise");
+        task.setSourcePath(source.toString());
+        task.setDestinationPath(destination.toString());
+        task.setIntervalMinutes(60L);
+        task.setActive(false); // Hors du planificateur
+        task.setParallelism(1);
+        task.setChangeDetection(SyncTask.ChangeDetection.CHECKSUM);
+        task = syncTaskRepository.save(task);
+
+        SyncLog cancelled = fileSyncService.executeSync(task, null, new CancelAfter(20));
+
+        assertThat(cancelled.getStatus()).isEqualTo(SyncLog.SyncStatus.CANCELLED);
+        assertThat(cancelled.getCheckpointedFiles()).isPositive().isLessThan(FILES);
+        assertThat(cancelled.getResumeCursor()).isNotNull();
+
+        SyncLog resumed = fileSyncService.executeSync(task);
+
+        assertThat(resumed.getStatus()).isEqualTo(SyncLog.SyncStatus.COMPLETED);
+        assertThat(resumed.getResumedFromId()).isEqualTo(cancelled.getId());
+        // Relue en base : précise à la µs
+        assertThat(resumed.getResumeSince()).isCloseTo(cancelled.getStartTime(), within(1, ChronoUnit.MILLIS));
+        assertThat(resumed.getDetails()).contains("reprise de l'exécution #" + cancelled.getId());
+        // Les fichiers validés avant l'annulation sont passés ; seuls les autres sont copiés
+        assertThat(resumed.getFilesSkipped()).isGreaterThanOrEqualTo(cancelled.getCheckpointedFiles());
+        assertThat(resumed.getFilesCopied() + resumed.getFilesSkipped()).isEqualTo(FILES);
+        for (int i = 0; i < FILES; i++) {
+            assertThat(destination.resolve("fichier" + i + ".txt")).hasContent("contenu " + i);
+        }
+
+        // Exécution terminée : la suivante n'est plus une reprise
+        SyncLog next = fileSyncService.executeSync(task);
+        assertThat(next.getResumedFromId()).isNull();
+        assertThat(next.getFilesSkipped()).isEqualTo(FILES);
+    }
+
+    /**
+     * Annule l'exécution à l'ouverture du n-ième fichier.
+     */
+    private static final class CancelAfter extends SyncControl {
+        private final AtomicInteger remaining;
+
+        CancelAfter(int files) {
+            remaining = new AtomicInteger(files);
+        }
+
+        @Override
+        public void fileCheckpoint() {
+            if (remaining.decrementAndGet() == 0) {
+                cancel();
+            }
+            super.fileCheckpoint();
+        }
+    }
+}
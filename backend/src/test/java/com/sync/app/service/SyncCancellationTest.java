@@ -0,0 +1,144 @@
+package com.sync.app.service;
+
+import com.sync.app.entity.SyncLog;
+import com.sync.app.entity.SyncTask;
+import com.sync.app.repository.SyncTaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pause et annulation coopératives d'une synchronisation en cours : rien n'est écrit pendant
+ * la pause, une exécution annulée est clôturée avec ses compteurs partiels.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+    "spring.datasource.url=jdbc:h2:mem:cancellation;DB_CLOSE_DELAY=-1",
+    "spring.jpa.show-sql=false"
+})
+class SyncCancellationTest {
+
+    private static final int FILES = 40;
+
+    @Autowired
+    private FileSyncService fileSyncService;
+
+    @Autowired
+    private SyncTaskRepository syncTaskRepository;
+
+    @TempDir
+    Path workDir;
+
+    private Path destination;
+    private SyncTask task;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path source = Files.createDirectory(workDir.resolve("source"));
+        destination = workDir.resolve("destination");
+        for (int i = 0; i < FILES; i++) {
+            Files.writeString(source.resolve("fichier" + i + ".txt"), "contenu " + i);
+        }
+        task = new SyncTask();
+        task.setName("annulation");
+        task.setSourcePath(source.toString());
+        task.setDestinationPath(destination.toString());
+        task.setIntervalMinutes(60L);
+        task.setActive(false); // Hors du planificateur
+        task.setParallelism(1);
+        task = syncTaskRepository.save(task);
+    }
+
+    @Test
+    void pausedRunWritesNothingUntilResumed() throws Exception {
+        SyncControl control = new PauseAfter(10);
+        CompletableFuture<SyncLog> run = CompletableFuture.supplyAsync(
+            () -> fileSyncService.executeSync(task, null, control));
+
+        waitUntil(control::isPaused);
+        // Une copie déjà passée par son dernier point de contrôle peut encore se terminer
+        Thread.sleep(200);
+        long copied = copiedFiles();
+        Thread.sleep(300);
+        assertThat(copiedFiles()).isEqualTo(copied).isLessThan(FILES);
+        assertThat(run).isNotDone();
+
+        control.resume();
+        SyncLog log = run.get(30, TimeUnit.SECONDS);
+
+        assertThat(log.getStatus()).isEqualTo(SyncLog.SyncStatus.COMPLETED);
+        assertThat(log.getFilesCopied()).isEqualTo(FILES);
+        assertThat(copiedFiles()).isEqualTo(FILES);
+    }
+
+    @Test
+    void cancellingAPausedRunEndsItWithPartialCounters() throws Exception {
+        SyncControl control = new PauseAfter(10);
+        CompletableFuture<SyncLog> run = CompletableFuture.supplyAsync(
+            () -> fileSyncService.executeSync(task, null, control));
+
+        waitUntil(control::isPaused);
+        control.cancel();
+        SyncLog log = run.get(30, TimeUnit.SECONDS);
+
+        assertThat(log.getStatus()).isEqualTo(SyncLog.SyncStatus.CANCELLED);
+        assertThat(log.getEndTime()).isNotNull();
+        // Seules les copies terminées sont comptées, et enregistrées au dernier point de reprise
+        assertThat(log.getFilesCopied()).isPositive().isLessThan(FILES).isEqualTo(copiedFiles());
+        assertThat(log.getCheckpointedFiles()).isEqualTo(log.getFilesCopied());
+        assertThat(log.getFilesScanned()).isLessThanOrEqualTo(FILES);
+
+        // L'exécution suivante termine le travail
+        SyncLog next = fileSyncService.executeSync(task);
+        assertThat(next.getStatus()).isEqualTo(SyncLog.SyncStatus.COMPLETED);
+        assertThat(copiedFiles()).isEqualTo(FILES);
+    }
+
+    private long copiedFiles() throws IOException {
+        if (!Files.isDirectory(destination)) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.list(destination)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("fichier")).count();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("délai d'attente dépassé").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Se met en pause avant le n-ième fichier.
+     */
+    private static final class PauseAfter extends SyncControl {
+        private final AtomicInteger remaining;
+
+        PauseAfter(int files) {
+            remaining = new AtomicInteger(files);
+        }
+
+        @Override
+        public void fileCheckpoint() {
+            if (remaining.decrementAndGet() == 0) {
+                pause();
+            }
+            super.fileCheckpoint();
+        }
+    }
+}
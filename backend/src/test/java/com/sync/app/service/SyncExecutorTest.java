@@ -0,0 +1,188 @@
+package com.sync.app.service;
+
+import com.sync.app.entity.SyncLog;
+import com.sync.app.entity.SyncTask;
+import com.sync.app.repository.SyncTaskRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Ordonnancement de {@link SyncExecutor} : priorités, refus d'une tâche déjà en cours, limite par
+ * périphérique et annulation d'une demande en attente. Les synchronisations sont simulées.
+ */
+class SyncExecutorTest {
+
+    @TempDir
+    Path workDir;
+
+    private final FakeSync fakeSync = new FakeSync();
+    private SyncExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        fakeSync.release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void queuedRequestsStartByPriorityThenArrival() throws Exception {
+        executor(1, 2);
+        CompletableFuture<SyncLog> blocking = executor.submit(task(1), SyncExecutor.Priority.SCHEDULED, null);
+        assertThat(fakeSync.nextStarted()).isEqualTo(1);
+
+        List<CompletableFuture<SyncLog>> queued = new ArrayList<>();
+        queued.add(executor.submit(task(2), SyncExecutor.Priority.SCHEDULED, null));
+        queued.add(executor.submit(task(3), SyncExecutor.Priority.REALTIME, null));
+        queued.add(executor.submit(task(4), SyncExecutor.Priority.MANUAL, null));
+        queued.add(executor.submit(task(5), SyncExecutor.Priority.REALTIME, null));
+
+        assertThat(executor.getStats().getQueuedTaskIds()).containsExactly(4L, 3L, 5L, 2L);
+
+        fakeSync.release.countDown();
+        assertThat(blocking.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(SyncLog.SyncStatus.COMPLETED);
+        for (CompletableFuture<SyncLog> future : queued) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        assertThat(List.of(fakeSync.nextStarted(), fakeSync.nextStarted(), fakeSync.nextStarted(),
+            fakeSync.nextStarted())).containsExactly(4L, 3L, 5L, 2L);
+    }
+
+    @Test
+    void runningTaskIsRejectedAndQueuedOneIsMerged() throws Exception {
+        executor(1, 2);
+        executor.submit(task(1), SyncExecutor.Priority.SCHEDULED, List.of("a"));
+        assertThat(fakeSync.nextStarted()).isEqualTo(1);
+
+        assertThatThrownBy(() -> executor.submit(task(1), SyncExecutor.Priority.MANUAL, null))
+            .isInstanceOf(SyncExecutor.AlreadyRunningException.class);
+        assertThat(executor.getStats().getRejected()).isEqualTo(1);
+
+        // Une seule demande en attente par tâche : la seconde est fusionnée avec la première
+        executor.submit(task(2), SyncExecutor.Priority.SCHEDULED, null);
+        CompletableFuture<SyncLog> first = executor.submit(task(3), SyncExecutor.Priority.SCHEDULED, List.of("x"));
+        CompletableFuture<SyncLog> merged = executor.submit(task(3), SyncExecutor.Priority.MANUAL, List.of("y"));
+
+        assertThat(merged).isSameAs(first);
+        assertThat(executor.getStats().getQueuedTaskIds()).containsExactly(3L, 2L);
+        assertThat(executor.getStats().getSubmitted()).isEqualTo(3);
+
+        fakeSync.release.countDown();
+        merged.get(5, TimeUnit.SECONDS);
+        assertThat(fakeSync.nextStarted()).isEqualTo(3);
+        assertThat(fakeSync.paths.get(3L)).containsExactlyInAnyOrder("x", "y");
+    }
+
+    @Test
+    void requestWaitsForAPlaceOnItsDevice() throws Exception {
+        // Places libres dans l'exécuteur, mais un seul passage par périphérique (même disque temporaire)
+        executor(3, 1);
+        CompletableFuture<SyncLog> blocking = executor.submit(task(1), SyncExecutor.Priority.SCHEDULED, null);
+        assertThat(fakeSync.nextStarted()).isEqualTo(1);
+
+        CompletableFuture<SyncLog> waiting = executor.submit(task(2), SyncExecutor.Priority.MANUAL, null);
+
+        assertThat(fakeSync.started.poll(200, TimeUnit.MILLISECONDS)).isNull();
+        assertThat(executor.isQueued(2L)).isTrue();
+        assertThat(executor.getStats().getRunning()).isEqualTo(1);
+
+        fakeSync.release.countDown();
+        blocking.get(5, TimeUnit.SECONDS);
+        waiting.get(5, TimeUnit.SECONDS);
+        assertThat(fakeSync.nextStarted()).isEqualTo(2);
+        assertThat(executor.getStats().getCompleted()).isEqualTo(2);
+    }
+
+    @Test
+    void cancelledQueuedRequestNeverStarts() throws Exception {
+        executor(1, 2);
+        CompletableFuture<SyncLog> blocking = executor.submit(task(1), SyncExecutor.Priority.SCHEDULED, null);
+        assertThat(fakeSync.nextStarted()).isEqualTo(1);
+        CompletableFuture<SyncLog> queued = executor.submit(task(2), SyncExecutor.Priority.SCHEDULED, null);
+
+        assertThat(executor.cancel(2L)).isTrue();
+
+        assertThat(executor.isQueued(2L)).isFalse();
+        assertThat(queued).isCompletedExceptionally();
+        assertThatThrownBy(() -> queued.get(5, TimeUnit.SECONDS)).isInstanceOf(CancellationException.class);
+        assertThat(executor.cancel(2L)).isFalse();
+
+        fakeSync.release.countDown();
+        blocking.get(5, TimeUnit.SECONDS);
+        assertThat(fakeSync.started.poll(200, TimeUnit.MILLISECONDS)).isNull();
+        assertThat(executor.getStats().getCancelled()).isEqualTo(1);
+        assertThat(executor.getStats().getCompleted()).isEqualTo(1);
+    }
+
+    private void executor(int maxConcurrentSyncs, int maxPerDevice) {
+        executor = new SyncExecutor(fakeSync, mock(SyncTaskRepository.class));
+        ReflectionTestUtils.setField(executor, "maxConcurrentSyncs", maxConcurrentSyncs);
+        ReflectionTestUtils.setField(executor, "maxPerDevice", maxPerDevice);
+        ReflectionTestUtils.setField(executor, "queueCapacity", 10);
+        executor.start();
+    }
+
+    private SyncTask task(long id) {
+        SyncTask task = new SyncTask();
+        task.setId(id);
+        task.setName("tâche " + id);
+        task.setSourcePath(workDir.resolve("source" + id).toString());
+        task.setDestinationPath(workDir.resolve("destination" + id).toString());
+        return task;
+    }
+
+    /**
+     * Synchronisation simulée : relève l'ordre de démarrage ; la tâche 1 attend {@link #release}.
+     */
+    private static final class FakeSync extends FileSyncService {
+        final BlockingQueue<Long> started = new LinkedBlockingQueue<>();
+        final Map<Long, Collection<String>> paths = new ConcurrentHashMap<>();
+        final CountDownLatch release = new CountDownLatch(1);
+
+        FakeSync() {
+            super(null, null, null, null, null, null, null, null, null, null, null, null, null, null);
+        }
+
+        @Override
+        public SyncLog executeSync(SyncTask syncTask, Collection<String> changedPaths, SyncControl control) {
+            started.add(syncTask.getId());
+            if (changedPaths != null) {
+                paths.put(syncTask.getId(), changedPaths);
+            }
+            try {
+                if (syncTask.getId() == 1L) {
+                    release.await();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            SyncLog log = new SyncLog();
+            log.setStatus(SyncLog.SyncStatus.COMPLETED);
+            return log;
+        }
+
+        long nextStarted() throws InterruptedException {
+            Long id = started.poll(5, TimeUnit.SECONDS);
+            assertThat(id).as("synchronisation démarrée").isNotNull();
+            return id;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.sync.app.service;
+
+import com.sync.app.entity.SyncLog;
+import com.sync.app.entity.SyncTask;
+import com.sync.app.repository.SyncTaskRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Mesures des synchronisations : étapes par fichier enregistrées à chaque appel, étapes globales
+ * une fois par exécution, compteurs par tâche et répartition par étape conservée dans le log.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+    "spring.datasource.url=jdbc:h2:mem:metrics;DB_CLOSE_DELAY=-1",
+    "spring.jpa.show-sql=false"
+})
+class SyncMetricsTest {
+
+    private static final int FILES = 20;
+
+    @Autowired
+    private FileSyncService fileSyncService;
+
+    @Autowired
+    private SyncTaskRepository syncTaskRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @TempDir
+    Path workDir;
+
+    @Test
+    void runIsRecordedPerTaskAndInItsLog() throws IOException {
+        Path source = Files.createDirectory(workDir.resolve("source"));
+        for (int i = 0; i < FILES; i++) {
+            Files.writeString(source.resolve("fichier" + i + ".txt"), "contenu " + i);
+        }
+        SyncTask task = new SyncTask();
+        task.setName("mesures");
+        task.setSourcePath(source.toString());
+        task.setDestinationPath(workDir.resolve("destination").toString());
+        task.setIntervalMinutes(60L);
+        task.setActive(false); // Hors du planificateur
+        task = syncTaskRepository.save(task);
+        String tag = String.valueOf(task.getId());
+
+        SyncLog log = fileSyncService.executeSync(task);
+
+        assertThat(log.getStatus()).isEqualTo(SyncLog.SyncStatus.COMPLETED);
+        assertThat(log.getWalkMillis()).isNotNull();
+        assertThat(log.getCopyMillis()).isNotNull();
+        assertThat(log.getPersistMillis()).isNotNull();
+        assertThat(meterRegistry.get("sync.phase").tags("task", tag, "phase", "copy").timer().count())
+            .isEqualTo(FILES);
+        assertThat(meterRegistry.get("sync.phase").tags("task", tag, "phase", "walk").timer().count())
+            .isEqualTo(1);
+        assertThat(meterRegistry.get("sync.run").tags("task", tag, "status", "COMPLETED").timer().count())
+            .isEqualTo(1);
+        assertThat(meterRegistry.get("sync.files").tags("task", tag, "outcome", "copied").counter().count())
+            .isEqualTo(FILES);
+        assertThat(meterRegistry.get("sync.bytes.copied").tags("task", tag).counter().count())
+            .isEqualTo((double) log.getTotalBytes());
+
+        fileSyncService.executeSync(task);
+
+        assertThat(meterRegistry.get("sync.run").tags("task", tag, "status", "COMPLETED").timer().count())
+            .isEqualTo(2);
+        assertThat(meterRegistry.get("sync.files").tags("task", tag, "outcome", "skipped").counter().count())
+            .isEqualTo(FILES);
+    }
+
+    @Test
+    void perFileStepsAreTimedPerCallAndRunStepsOncePerRun() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        SyncMetrics metrics = new SyncMetrics(registry);
+        SyncTask task = new SyncTask();
+        task.setId(7L);
+        SyncTimings timings = metrics.startRun(task);
+
+        for (int i = 0; i < 3; i++) {
+            timings.stop(SyncTimings.Step.HASH, SyncTimings.start());
+            timings.stop(SyncTimings.Step.PERSIST, SyncTimings.start());
+        }
+        SyncLog log = new SyncLog();
+        log.setStatus(SyncLog.SyncStatus.COMPLETED);
+        LocalDateTime end = LocalDateTime.now();
+        log.setStartTime(end.minusSeconds(5));
+        log.setEndTime(end);
+        metrics.recordRun(task, log, timings);
+
+        assertThat(phase(registry, "hash").count()).isEqualTo(3);
+        assertThat(phase(registry, "persist").count()).isEqualTo(1);
+        assertThat(phase(registry, "delete").count()).isEqualTo(1);
+        assertThat(registry.get("sync.run").tags("task", "7").timer().totalTime(TimeUnit.SECONDS))
+            .isEqualTo(5.0);
+    }
+
+    private static Timer phase(MeterRegistry registry, String phase) {
+        return registry.get("sync.phase").tags("task", "7", "phase", phase).timer();
+    }
+}
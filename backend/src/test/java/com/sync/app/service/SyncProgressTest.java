@@ -0,0 +1,94 @@
+package com.sync.app.service;
+
+import com.sync.app.dto.SyncProgressDto;
+import com.sync.app.entity.SyncLog;
+import com.sync.app.entity.SyncTask;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Instantanés d'avancement : débits, estimation du temps restant selon l'étape, et fin de
+ * diffusion d'une synchronisation terminée.
+ */
+class SyncProgressTest {
+
+    private static final long MB = 1024 * 1024;
+
+    @Test
+    void etaIsUnknownDuringTheScanThenFollowsTheSlowerRate() throws InterruptedException {
+        SyncControl control = new SyncControl();
+        SyncProgress progress = new SyncProgress(1L, 10L, control);
+        progress.filesScanned.add(100);
+        progress.bytesScanned.add(100 * MB);
+
+        long start = System.nanoTime();
+        Thread.sleep(600);
+        for (int i = 0; i < 50; i++) {
+            progress.fileProcessed(MB / 5); // La moitié des fichiers, un dixième des octets
+        }
+        progress.totalBytes.add(10 * MB);
+
+        SyncProgressDto scanning = progress.snapshot();
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        assertThat(scanning.getEtaSeconds()).isNull();
+        assertThat(scanning.getFilesProcessed()).isEqualTo(50);
+        assertThat(scanning.getBytesCopied()).isEqualTo(10 * MB);
+        assertThat(scanning.getCopyMbPerSecond()).isPositive();
+
+        progress.setPhase(SyncProgress.Phase.COPY);
+        SyncProgressDto copying = progress.snapshot();
+
+        // Reste 90 % des octets contre 50 % des fichiers : l'estimation suit les octets
+        assertThat(copying.getEtaSeconds()).isBetween(5L, (long) Math.ceil(9 * elapsedSeconds));
+    }
+
+    @Test
+    void pausedRunHasNoEtaAndFinishedOneIsFrozen() throws InterruptedException {
+        SyncControl control = new SyncControl();
+        SyncProgress progress = new SyncProgress(1L, 10L, control);
+        progress.setPhase(SyncProgress.Phase.COPY);
+        progress.filesScanned.add(10);
+
+        control.pause();
+        SyncProgressDto paused = progress.snapshot();
+        assertThat(paused.isPaused()).isTrue();
+        assertThat(paused.getEtaSeconds()).isNull();
+        control.resume();
+
+        progress.setPhase(SyncProgress.Phase.COMPLETED);
+        SyncProgressDto finished = progress.snapshot();
+        Thread.sleep(1100);
+
+        assertThat(finished.isPaused()).isFalse();
+        assertThat(finished.getEtaSeconds()).isZero();
+        assertThat(progress.snapshot().getElapsedSeconds()).isEqualTo(finished.getElapsedSeconds());
+    }
+
+    @Test
+    void finishedRunIsEmittedOnceThenForgotten() {
+        SyncProgressService service = new SyncProgressService();
+        SyncTask task = new SyncTask();
+        task.setId(1L);
+        SyncLog first = new SyncLog();
+        first.setId(10L);
+        SyncLog second = new SyncLog();
+        second.setId(11L);
+
+        SyncProgress progress = service.start(task, first, new SyncControl());
+        service.subscribe(1L);
+        assertThat(service.getProgress(1L).getSyncLogId()).isEqualTo(10L);
+
+        service.finish(progress, SyncProgress.Phase.COMPLETED);
+        service.emitProgress();
+        assertThat(service.getProgress(1L)).isNull();
+
+        // Exécution suivante démarrée avant l'émission : elle n'est pas retirée avec la précédente
+        SyncProgress previous = service.start(task, first, new SyncControl());
+        service.start(task, second, new SyncControl());
+        service.finish(previous, SyncProgress.Phase.FAILED);
+        service.emitProgress();
+        assertThat(service.getProgress(1L).getSyncLogId()).isEqualTo(11L);
+    }
+}
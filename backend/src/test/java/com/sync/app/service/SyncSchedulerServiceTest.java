@@ -0,0 +1,146 @@
+package com.sync.app.service;
+
+import com.sync.app.entity.SyncLog;
+import com.sync.app.entity.SyncTask;
+import com.sync.app.repository.SyncTaskRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Planification des tâches : échéances à l'intervalle en secondes ou en minutes, décalage
+ * aléatoire borné, déclenchement à l'échéance la plus proche et nouvel essai d'une tâche
+ * encore en cours après son intervalle court plutôt qu'après le délai de nouvelle tentative.
+ */
+class SyncSchedulerServiceTest {
+
+    private SyncTaskRepository syncTaskRepository;
+    private SyncExecutor syncExecutor;
+    private SyncSchedulerService scheduler;
+
+    @BeforeEach
+    void setUp() {
+        syncTaskRepository = mock(SyncTaskRepository.class);
+        syncExecutor = mock(SyncExecutor.class);
+        when(syncTaskRepository.save(any(SyncTask.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(syncExecutor.submit(any(SyncTask.class), eq(SyncExecutor.Priority.SCHEDULED), isNull()))
+            .thenReturn(CompletableFuture.completedFuture(new SyncLog()));
+
+        scheduler = new SyncSchedulerService(syncTaskRepository, syncExecutor);
+        ReflectionTestUtils.setField(scheduler, "maxJitterSeconds", 30L);
+        ReflectionTestUtils.setField(scheduler, "jitterRatio", 0.1);
+        ReflectionTestUtils.setField(scheduler, "retryDelaySeconds", 60L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.stop();
+    }
+
+    @Test
+    void intervalInSecondsTakesPrecedenceWithAProportionalJitter() {
+        SyncTask task = task(1L, 10L);
+        task.setIntervalMinutes(60L);
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+        for (int i = 0; i < 200; i++) {
+            LocalDateTime next = scheduler.nextRunAfter(task, from);
+            assertThat(next).isBetween(from.plusSeconds(10), from.plusSeconds(11));
+        }
+    }
+
+    @Test
+    void intervalInMinutesJitterIsCappedByMaxJitterSeconds() {
+        SyncTask task = task(1L, null);
+        task.setIntervalMinutes(60L);
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+        LocalDateTime latest = from;
+        for (int i = 0; i < 200; i++) {
+            LocalDateTime next = scheduler.nextRunAfter(task, from);
+            assertThat(next).isBetween(from.plusMinutes(60), from.plusMinutes(60).plusSeconds(30));
+            latest = next.isAfter(latest) ? next : latest;
+        }
+        assertThat(latest).isAfter(from.plusMinutes(60)); // Décalage effectivement appliqué
+    }
+
+    @Test
+    void tasksFireInDueOrderAndRescheduleAtTheirIntervalInSeconds() {
+        LocalDateTime now = LocalDateTime.now();
+        SyncTask later = task(1L, 3600L);
+        later.setNextSyncTime(now.plusNanos(Duration.ofMillis(400).toNanos()));
+        SyncTask sooner = task(2L, 1L);
+        sooner.setNextSyncTime(now.plusNanos(Duration.ofMillis(200).toNanos()));
+        SyncTask distant = task(3L, 3600L);
+        distant.setNextSyncTime(now.plusHours(1));
+        when(syncTaskRepository.findByActiveTrueOrderByNextSyncTimeAsc()).thenReturn(List.of(sooner, later, distant));
+
+        scheduler.start();
+
+        var order = inOrder(syncExecutor);
+        order.verify(syncExecutor, timeout(2000)).submit(eq(sooner), any(), isNull());
+        order.verify(syncExecutor, timeout(2000)).submit(eq(later), any(), isNull());
+        // Intervalle d'une seconde : de nouveau planifiée à la fin de son exécution, sans attendre une minute
+        verify(syncExecutor, timeout(3000).times(2)).submit(eq(sooner), any(), isNull());
+        verify(syncExecutor, never()).submit(eq(distant), any(), any());
+
+        assertThat(sooner.getLastSyncTime()).isNotNull();
+        assertThat(later.getNextSyncTime()).isAfter(LocalDateTime.now().plusMinutes(59));
+    }
+
+    @Test
+    void runningTaskIsRetriedAfterItsShortIntervalRatherThanTheRetryDelay() {
+        SyncTask task = task(1L, 1L);
+        task.setNextSyncTime(LocalDateTime.now());
+        when(syncTaskRepository.findByActiveTrueOrderByNextSyncTimeAsc()).thenReturn(List.of(task));
+        when(syncExecutor.isRunning(1L)).thenReturn(true, true, false);
+
+        scheduler.start();
+
+        verify(syncExecutor, after(500).never()).submit(any(), any(), any());
+        verify(syncExecutor, timeout(4000)).submit(eq(task), any(), isNull());
+    }
+
+    @Test
+    void earlierDeadlineWakesTheScheduler() {
+        SyncTask task = task(1L, 3600L);
+        task.setNextSyncTime(LocalDateTime.now().plusHours(1));
+        when(syncTaskRepository.findByActiveTrueOrderByNextSyncTimeAsc()).thenReturn(List.of(task));
+        scheduler.start();
+
+        task.setNextSyncTime(LocalDateTime.now());
+        scheduler.schedule(task);
+
+        verify(syncExecutor, timeout(1000)).submit(eq(task), any(), isNull());
+    }
+
+    private SyncTask task(Long id, Long intervalSeconds) {
+        SyncTask task = new SyncTask();
+        task.setId(id);
+        task.setName("tâche " + id);
+        task.setIntervalMinutes(1L);
+        task.setIntervalSeconds(intervalSeconds);
+        task.setActive(true);
+        when(syncTaskRepository.findById(id)).thenReturn(Optional.of(task));
+        return task;
+    }
+}
@@ -0,0 +1,97 @@
+package com.sync.app.service;
+
+import com.sync.app.dto.SyncTaskDto;
+import com.sync.app.entity.SyncTask;
+import com.sync.app.repository.SyncTaskRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Mise à jour partielle d'une tâche : un champ absent (null) laisse la valeur enregistrée,
+ * 0 ou une chaîne vide retire une limite.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+    "spring.datasource.url=jdbc:h2:mem:tasks;DB_CLOSE_DELAY=-1",
+    "spring.jpa.show-sql=false"
+})
+class SyncTaskServiceTest {
+
+    @Autowired
+    private SyncTaskService syncTaskService;
+
+    @Autowired
+    private SyncTaskRepository syncTaskRepository;
+
+    @TempDir
+    Path workDir;
+
+    @Test
+    void partialUpdateKeepsTheOmittedSettings() {
+        SyncTaskDto full = required("complète");
+        full.setParallelism(6);
+        full.setChangeDetection(SyncTask.ChangeDetection.CHECKSUM);
+        full.setHashAlgorithm(SyncTask.HashAlgorithm.SHA_256);
+        full.setSyncMode(SyncTask.SyncMode.BIDIRECTIONAL);
+        full.setConflictPolicy(SyncTask.ConflictPolicy.KEEP_BOTH);
+        full.setDurability(SyncTask.Durability.FULL);
+        full.setMaxBytesPerSecond(1_000_000L);
+        full.setMaxFilesPerSecond(50);
+        full.setFullSpeedHours("22:00-06:00");
+        Long id = syncTaskService.createTask(full).getId();
+
+        syncTaskService.updateTask(id, required("renommée"));
+
+        SyncTask task = syncTaskRepository.findById(id).orElseThrow();
+        assertThat(task.getName()).isEqualTo("renommée");
+        assertThat(task.getParallelism()).isEqualTo(6);
+        assertThat(task.getChangeDetection()).isEqualTo(SyncTask.ChangeDetection.CHECKSUM);
+        assertThat(task.getHashAlgorithm()).isEqualTo(SyncTask.HashAlgorithm.SHA_256);
+        assertThat(task.getSyncMode()).isEqualTo(SyncTask.SyncMode.BIDIRECTIONAL);
+        assertThat(task.getConflictPolicy()).isEqualTo(SyncTask.ConflictPolicy.KEEP_BOTH);
+        assertThat(task.getDurability()).isEqualTo(SyncTask.Durability.FULL);
+        assertThat(task.getMaxBytesPerSecond()).isEqualTo(1_000_000L);
+        assertThat(task.getMaxFilesPerSecond()).isEqualTo(50);
+        assertThat(task.getFullSpeedHours()).isEqualTo("22:00-06:00");
+    }
+
+    @Test
+    void zeroOrBlankClearsTheLimits() {
+        SyncTaskDto full = required("limitée");
+        full.setMaxBytesPerSecond(1_000_000L);
+        full.setMaxFilesPerSecond(50);
+        full.setFullSpeedHours("22:00-06:00");
+        Long id = syncTaskService.createTask(full).getId();
+
+        SyncTaskDto cleared = required("limitée");
+        cleared.setMaxBytesPerSecond(0L);
+        cleared.setMaxFilesPerSecond(0);
+        cleared.setFullSpeedHours("");
+        cleared.setParallelism(2);
+        syncTaskService.updateTask(id, cleared);
+
+        SyncTask task = syncTaskRepository.findById(id).orElseThrow();
+        assertThat(task.getMaxBytesPerSecond()).isNull();
+        assertThat(task.getMaxFilesPerSecond()).isNull();
+        assertThat(task.getFullSpeedHours()).isNull();
+        assertThat(task.getParallelism()).isEqualTo(2);
+    }
+
+    /**
+     * Champs obligatoires seulement ; tâche inactive, hors du planificateur.
+     */
+    private SyncTaskDto required(String name) {
+        SyncTaskDto dto = new SyncTaskDto();
+        dto.setName(name);
+        dto.setSourcePath(workDir.resolve("source").toString());
+        dto.setDestinationPath(workDir.resolve("destination").toString());
+        dto.setIntervalMinutes(60L);
+        dto.setActive(false);
+        return dto;
+    }
+}
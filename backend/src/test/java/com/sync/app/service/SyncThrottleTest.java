@@ -0,0 +1,116 @@
+package com.sync.app.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class SyncThrottleTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void burstUpToOneSecondOfRatePassesWithoutWaiting() {
+        TokenBucket bucket = new TokenBucket(1000, 0);
+
+        assertThat(bucket.reserve(600, 0)).isZero();
+        assertThat(bucket.reserve(400, 0)).isZero();
+        // Réserve épuisée : 100 jetons empruntés = 100 ms d'attente
+        assertThat(bucket.reserve(100, 0)).isEqualTo(SECOND / 10);
+    }
+
+    @Test
+    void refillsAtTheRateWithoutExceedingTheReserve() {
+        TokenBucket bucket = new TokenBucket(1000, 0);
+        bucket.reserve(1000, 0);
+
+        assertThat(bucket.reserve(500, SECOND / 2)).isZero();
+        assertThat(bucket.reserve(1, SECOND / 2)).isEqualTo(SECOND / 1000);
+
+        // Inactif longtemps : la réserve reste plafonnée à une seconde de débit
+        long later = 60 * SECOND;
+        assertThat(bucket.reserve(1000, later)).isZero();
+        assertThat(bucket.reserve(1000, later)).isEqualTo(SECOND);
+    }
+
+    @Test
+    void debtDelaysLaterRequestsToKeepTheAverageRate() {
+        TokenBucket bucket = new TokenBucket(1000, 0);
+
+        // Bloc plus gros que la réserve : 2 s de dette
+        assertThat(bucket.reserve(3000, 0)).isEqualTo(2 * SECOND);
+        // Une seconde plus tard, la dette n'est remboursée qu'à moitié
+        assertThat(bucket.reserve(0, SECOND)).isEqualTo(SECOND);
+        assertThat(bucket.reserve(1000, 3 * SECOND)).isZero();
+    }
+
+    @Test
+    void rejectsANonPositiveRate() {
+        assertThatThrownBy(() -> new TokenBucket(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void timeWindowsMayWrapPastMidnight() {
+        SyncThrottle.TimeWindow night = new SyncThrottle.TimeWindow(LocalTime.of(22, 0), LocalTime.of(6, 0));
+        assertThat(night.contains(LocalTime.of(23, 30))).isTrue();
+        assertThat(night.contains(LocalTime.of(2, 0))).isTrue();
+        assertThat(night.contains(LocalTime.of(22, 0))).isTrue();
+        assertThat(night.contains(LocalTime.of(6, 0))).isFalse();
+        assertThat(night.contains(LocalTime.of(12, 0))).isFalse();
+
+        SyncThrottle.TimeWindow lunch = new SyncThrottle.TimeWindow(LocalTime.of(12, 0), LocalTime.of(13, 30));
+        assertThat(lunch.contains(LocalTime.of(12, 0))).isTrue();
+        assertThat(lunch.contains(LocalTime.of(13, 29))).isTrue();
+        assertThat(lunch.contains(LocalTime.of(13, 30))).isFalse();
+        assertThat(lunch.contains(LocalTime.of(11, 59))).isFalse();
+
+        SyncThrottle.TimeWindow allDay = new SyncThrottle.TimeWindow(LocalTime.MIDNIGHT, LocalTime.MIDNIGHT);
+        assertThat(allDay.contains(LocalTime.of(15, 0))).isTrue();
+    }
+
+    @Test
+    void parsesWindowListsAndRejectsMalformedOnes() {
+        assertThat(SyncThrottle.TimeWindow.parseList(" 22:00-06:00 , 12:00-13:30"))
+            .containsExactly(new SyncThrottle.TimeWindow(LocalTime.of(22, 0), LocalTime.of(6, 0)),
+                new SyncThrottle.TimeWindow(LocalTime.of(12, 0), LocalTime.of(13, 30)));
+        assertThat(SyncThrottle.TimeWindow.parseList(null)).isEmpty();
+        assertThat(SyncThrottle.TimeWindow.parseList(" ")).isEmpty();
+
+        assertThatThrownBy(() -> SyncThrottle.TimeWindow.parseList("22:00"))
+            .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("22:00");
+        assertThatThrownBy(() -> SyncThrottle.TimeWindow.parseList("25:00-06:00"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void fullSpeedWindowsLiftTheLimits() {
+        SyncThrottle.Limiter limiter = new SyncThrottle.Limiter(1000, 10,
+            SyncThrottle.TimeWindow.parseList("22:00-06:00"));
+
+        assertThat(limiter.isFullSpeed(LocalTime.of(23, 0))).isTrue();
+        assertThat(limiter.isFullSpeed(LocalTime.of(9, 0))).isFalse();
+
+        // Plage couvrant toute la journée : jamais d'attente, même au-delà de la réserve
+        SyncThrottle.Limiter alwaysFull = new SyncThrottle.Limiter(1000, 10,
+            List.of(new SyncThrottle.TimeWindow(LocalTime.MIDNIGHT, LocalTime.MIDNIGHT)));
+        SyncThrottle throttle = new SyncThrottle(alwaysFull, SyncThrottle.Limiter.NONE);
+        assertThat(throttle.reserveBytes(1_000_000)).isZero();
+        assertThat(throttle.reserveFile()).isZero();
+    }
+
+    @Test
+    void waitIsTheLongestOfTaskAndGlobalLevels() {
+        SyncThrottle throttle = new SyncThrottle(new SyncThrottle.Limiter(1000, 0, List.of()),
+            new SyncThrottle.Limiter(100, 0, List.of()));
+
+        assertThat(throttle.isLimited()).isTrue();
+        // 200 octets : dans la réserve de la tâche, 100 ms de dette au niveau global
+        assertThat((double) throttle.reserveBytes(200)).isCloseTo(SECOND, within(SECOND / 100.0));
+        assertThat(throttle.reserveFile()).isZero(); // Pas de limite de fichiers
+        assertThat(SyncThrottle.NONE.isLimited()).isFalse();
+    }
+}
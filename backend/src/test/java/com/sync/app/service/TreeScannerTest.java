@@ -0,0 +1,187 @@
+package com.sync.app.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Parcours de {@link TreeScanner} : ordre de visite déterministe quel que soit le parallélisme,
+ * attributs des destinations relevés avec la lecture du répertoire parent, répertoires élagués
+ * non listés mais dont les sous-répertoires connus sont parcourus.
+ */
+class TreeScannerTest {
+
+    @TempDir
+    Path workDir;
+
+    private Path source;
+    private Path destination;
+    private final List<ForkJoinPool> pools = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        source = Files.createDirectories(workDir.resolve("source"));
+        destination = Files.createDirectories(workDir.resolve("destination"));
+        for (String directory : List.of("a", "a/x", "a/y", "b", "b/z")) {
+            Files.createDirectories(source.resolve(directory));
+        }
+        for (String file : List.of("root.txt", "a/1.txt", "a/2.txt", "a/x/3.txt", "a/y/4.txt", "b/5.txt", "b/z/6.txt")) {
+            Files.writeString(source.resolve(file), file);
+        }
+        Files.createDirectories(destination.resolve("a"));
+        Files.writeString(destination.resolve("a/1.txt"), "ancien contenu");
+    }
+
+    @AfterEach
+    void tearDown() {
+        pools.forEach(ForkJoinPool::shutdownNow);
+    }
+
+    @Test
+    void filesAreVisitedBeforeSubdirectoriesInTheSameOrderWhateverTheParallelism() throws IOException {
+        Recorder sequential = new Recorder();
+        scanner(1, 1).walk(source, sequential);
+
+        assertThat(sequential.events).hasSize(7 + 2 * 6);
+        assertThat(sequential.events.get(0)).isEqualTo("pre:");
+        assertThat(sequential.events.get(sequential.events.size() - 1)).isEqualTo("post:");
+        assertFilesBeforeSubdirectories(sequential.events);
+        assertNested(sequential.events);
+
+        for (int run = 0; run < 5; run++) {
+            Recorder parallel = new Recorder();
+            scanner(8, 16).walk(source, parallel);
+            assertThat(parallel.events).containsExactlyElementsOf(sequential.events);
+        }
+    }
+
+    @Test
+    void destinationAttributesComeWithTheParentListing() throws IOException {
+        Recorder recorder = new Recorder();
+        scanner(4, 2).walk(source, recorder);
+
+        TreeScanner.Mirror existing = recorder.files.get("a/1.txt").mirror(0);
+        assertThat(existing.path()).isEqualTo(destination.resolve("a/1.txt"));
+        assertThat(existing.listed()).isTrue();
+        assertThat(existing.attrs().size()).isEqualTo("ancien contenu".length());
+
+        TreeScanner.Mirror missing = recorder.files.get("a/2.txt").mirror(0);
+        assertThat(missing.listed()).isTrue();
+        assertThat(missing.attrs()).isNull();
+        assertThat(missing.read()).isNull();
+
+        // Répertoire parent absent de la destination : listé comme vide
+        TreeScanner.Mirror underMissingDirectory = recorder.files.get("b/z/6.txt").mirror(0);
+        assertThat(underMissingDirectory.listed()).isTrue();
+        assertThat(underMissingDirectory.attrs()).isNull();
+    }
+
+    @Test
+    void prunedDirectoryIsNotListedButItsKnownChildrenAreWalked() throws IOException {
+        Recorder recorder = new Recorder() {
+            @Override
+            public List<String> prunedChildren(TreeScanner.Entry directory) {
+                return relative(directory.path()).equals("a") ? List.of("y") : null;
+            }
+        };
+        scanner(4, 2).walk(source, recorder);
+
+        assertThat(recorder.listedAt).containsEntry("a", null);
+        assertThat(recorder.listedAt.get("b")).isNotNull();
+        assertThat(recorder.events)
+            .contains("pre:a/y", "file:a/y/4.txt", "post:a/y", "file:b/5.txt", "file:b/z/6.txt")
+            .doesNotContain("file:a/1.txt", "file:a/2.txt", "pre:a/x", "file:a/x/3.txt");
+        assertNested(recorder.events);
+    }
+
+    private TreeScanner scanner(int parallelism, int prefetchWindow) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        pools.add(pool);
+        return new TreeScanner(source, List.of(destination), pool, prefetchWindow);
+    }
+
+    private String relative(Path path) {
+        return source.relativize(path).toString().replace('\\', '/');
+    }
+
+    /**
+     * Dans chaque répertoire, aucun fichier n'est visité après l'entrée dans un sous-répertoire.
+     */
+    private static void assertFilesBeforeSubdirectories(List<String> events) {
+        List<Boolean> subdirectoryEntered = new ArrayList<>();
+        for (String event : events) {
+            if (event.startsWith("pre:")) {
+                if (!subdirectoryEntered.isEmpty()) {
+                    subdirectoryEntered.set(subdirectoryEntered.size() - 1, true);
+                }
+                subdirectoryEntered.add(false);
+            } else if (event.startsWith("post:")) {
+                subdirectoryEntered.remove(subdirectoryEntered.size() - 1);
+            } else {
+                assertThat(subdirectoryEntered.get(subdirectoryEntered.size() - 1))
+                    .as("%s visité après un sous-répertoire", event).isFalse();
+            }
+        }
+    }
+
+    /**
+     * Chaque fichier est visité dans son répertoire, chaque répertoire fermé après ses descendants.
+     */
+    private static void assertNested(List<String> events) {
+        List<String> stack = new ArrayList<>();
+        for (String event : events) {
+            if (event.startsWith("pre:")) {
+                stack.add(event.substring(4));
+            } else if (event.startsWith("post:")) {
+                assertThat(stack.remove(stack.size() - 1)).isEqualTo(event.substring(5));
+            } else {
+                String file = event.substring(5);
+                String parent = file.contains("/") ? file.substring(0, file.lastIndexOf('/')) : "";
+                assertThat(stack.get(stack.size() - 1)).isEqualTo(parent);
+            }
+        }
+        assertThat(stack).isEmpty();
+    }
+
+    private class Recorder implements TreeScanner.Visitor {
+
+        final List<String> events = new ArrayList<>();
+        final Map<String, TreeScanner.Entry> files = new HashMap<>();
+        final Map<String, LocalDateTime> listedAt = new HashMap<>();
+
+        @Override
+        public List<String> prunedChildren(TreeScanner.Entry directory) {
+            return null;
+        }
+
+        @Override
+        public void preVisitDirectory(TreeScanner.Entry directory, LocalDateTime listedAt) {
+            events.add("pre:" + relative(directory.path()));
+            this.listedAt.put(relative(directory.path()), listedAt);
+        }
+
+        @Override
+        public void visitFile(TreeScanner.Entry file) {
+            events.add("file:" + relative(file.path()));
+            files.put(relative(file.path()), file);
+        }
+
+        @Override
+        public void postVisitDirectory(TreeScanner.Entry directory) {
+            events.add("post:" + relative(directory.path()));
+        }
+    }
+}
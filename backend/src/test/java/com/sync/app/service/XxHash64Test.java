@@ -0,0 +1,86 @@
+package com.sync.app.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class XxHash64Test {
+
+    @Test
+    void matchesReferenceVectors() {
+        assertThat(hash("")).isEqualTo(0xEF46DB3751D8E999L);
+        assertThat(hash("a")).isEqualTo(0xD24EC4F1A98C6E5BL);
+        assertThat(hash("abc")).isEqualTo(0x44BC2CF5AD770999L);
+        // Plus de 32 octets : passe par les bandes de 4 accumulateurs
+        assertThat(hash("The quick brown fox jumps over the lazy dog")).isEqualTo(0x0B242D361FDA71BCL);
+    }
+
+    @Test
+    void heapUpdatesSplitAnywhereGiveTheSameValue() {
+        byte[] data = randomBytes(1000);
+        long expected = oneShot(data);
+
+        for (int split : new int[] {1, 7, 31, 32, 33, 64, 500, 999}) {
+            XxHash64 hash = new XxHash64();
+            hash.update(data, 0, split);
+            hash.update(data, split, data.length - split);
+            assertThat(hash.getValue()).as("coupure à %d", split).isEqualTo(expected);
+        }
+
+        XxHash64 byteByByte = new XxHash64();
+        for (byte b : data) {
+            byteByByte.update(b);
+        }
+        assertThat(byteByByte.getValue()).isEqualTo(expected);
+    }
+
+    @Test
+    void heapAndDirectBuffersSplitAcrossUpdatesGiveTheSameValue() {
+        byte[] data = randomBytes(4099);
+        long expected = oneShot(data);
+
+        for (int chunk : new int[] {1, 13, 32, 100, 1024}) {
+            XxHash64 heap = new XxHash64();
+            XxHash64 direct = new XxHash64();
+            for (int offset = 0; offset < data.length; offset += chunk) {
+                int length = Math.min(chunk, data.length - offset);
+                heap.update(ByteBuffer.wrap(data, offset, length));
+                ByteBuffer buffer = ByteBuffer.allocateDirect(length).put(data, offset, length).flip();
+                direct.update(buffer);
+                assertThat(buffer.hasRemaining()).isFalse();
+            }
+            assertThat(heap.getValue()).as("tas, blocs de %d", chunk).isEqualTo(expected);
+            assertThat(direct.getValue()).as("direct, blocs de %d", chunk).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void resetStartsOver() {
+        XxHash64 hash = new XxHash64();
+        hash.update(randomBytes(100), 0, 100);
+        hash.reset();
+        byte[] abc = "abc".getBytes(StandardCharsets.US_ASCII);
+        hash.update(abc, 0, abc.length);
+        assertThat(hash.getValue()).isEqualTo(0x44BC2CF5AD770999L);
+    }
+
+    private static long hash(String value) {
+        return oneShot(value.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static long oneShot(byte[] data) {
+        XxHash64 hash = new XxHash64();
+        hash.update(data, 0, data.length);
+        return hash.getValue();
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] data = new byte[length];
+        new Random(42).nextBytes(data);
+        return data;
+    }
+}
@@ -2,7 +2,7 @@ import { Component, OnInit } from '@angular/core';
 import { CommonModule } from '@angular/common';
 import { ActivatedRoute, RouterModule } from '@angular/router';
 import { SyncLog } from '../../models/sync-task.model';
-import { SyncLogService, PageResponse } from '../../services/sync-log.service';
+import { SyncLogService, CursorPage } from '../../services/sync-log.service';
 
 @Component({
   selector: 'app-log-list',
@@ -14,8 +14,10 @@ import { SyncLogService, PageResponse } from '../../services/sync-log.service';
 export class LogListComponent implements OnInit {
   logs: SyncLog[] = [];
   currentPage = 0;
-  totalPages = 0;
   pageSize = 20;
+  // Curseur de chaque page visitée (null pour la première) : le retour arrière le réutilise
+  cursors: (string | null)[] = [null];
+  nextCursor: string | null = null;
   taskId?: number;
 
   constructor(
@@ -27,19 +29,22 @@ export class LogListComponent implements OnInit {
     this.route.paramMap.subscribe(params => {
       const taskIdParam = params.get('taskId');
       this.taskId = taskIdParam ? Number(taskIdParam) : undefined;
+      this.currentPage = 0;
+      this.cursors = [null];
       this.loadLogs();
     });
   }
 
   loadLogs(): void {
+    const cursor = this.cursors[this.currentPage];
     if (this.taskId) {
-      this.logService.getLogsByTask(this.taskId, this.currentPage, this.pageSize)
+      this.logService.getLogsByTask(this.taskId, cursor, this.pageSize)
         .subscribe({
           next: (response) => this.handleResponse(response),
           error: (err) => console.error('Erreur chargement logs', err)
         });
     } else {
-      this.logService.getAllLogs(this.currentPage, this.pageSize)
+      this.logService.getAllLogs(cursor, this.pageSize)
         .subscribe({
           next: (response) => this.handleResponse(response),
           error: (err) => console.error('Erreur chargement logs', err)
@@ -47,15 +52,15 @@ export class LogListComponent implements OnInit {
     }
   }
 
-  handleResponse(response: PageResponse<SyncLog>): void {
+  handleResponse(response: CursorPage<SyncLog>): void {
     this.logs = response.content;
-    this.totalPages = response.totalPages;
-    this.currentPage = response.number;
+    this.nextCursor = response.nextCursor ?? null;
   }
 
   nextPage(): void {
-    if (this.currentPage < this.totalPages - 1) {
+    if (this.nextCursor) {
       this.currentPage++;
+      this.cursors[this.currentPage] = this.nextCursor;
       this.loadLogs();
     }
   }
@@ -89,6 +94,13 @@ export class LogListComponent implements OnInit {
     return `${Math.floor(duration / 60)}m ${Math.round(duration % 60)}s`;
   }
 
+  getPhases(log: SyncLog): string | null {
+    if (log.walkMillis === undefined || log.walkMillis === null) return null;
+    return `parcours ${log.walkMillis} ms · détection ${log.detectMillis} ms (dont hachage ${log.hashMillis} ms)`
+      + ` · copie ${log.copyMillis} ms · métadonnées ${log.persistMillis} ms · suppression ${log.deleteMillis} ms`
+      + (log.throttledMillis ? ` · attente limiteur ${log.throttledMillis} ms` : '');
+  }
+
   getStatusClass(status: string): string {
     const classes: any = {
       'COMPLETED': 'status-success',
@@ -19,12 +19,57 @@ export class TaskFormComponent implements OnInit {
     destinationPath: '',
     intervalMinutes: 120,
     active: true,
-    useChecksum: true
+    useChecksum: true,
+    conflictPolicy: 'NEWEST_WINS'
   };
 
   isEditMode = false;
   taskId?: number;
 
+  // Une fois enregistrée, la durabilité ne peut plus revenir au défaut (champ null = inchangé)
+  defaultDurabilityAvailable = true;
+
+  // Intervalle saisi en minutes ou en secondes (intervalSeconds prioritaire)
+  intervalUnit: 'minutes' | 'seconds' = 'minutes';
+
+  get intervalValue(): number | null {
+    return this.intervalUnit === 'seconds' ? this.task.intervalSeconds ?? null : this.task.intervalMinutes;
+  }
+
+  set intervalValue(value: number | null) {
+    if (this.intervalUnit === 'seconds') {
+      this.task.intervalSeconds = value;
+    } else {
+      this.task.intervalMinutes = value ?? 0;
+    }
+  }
+
+  // Débit saisi en MB/s, stocké en octets/s
+  get maxMegabytesPerSecond(): number | null {
+    return this.task.maxBytesPerSecond ? this.task.maxBytesPerSecond / (1024 * 1024) : null;
+  }
+
+  set maxMegabytesPerSecond(value: number | null) {
+    this.task.maxBytesPerSecond = value ? Math.round(value * 1024 * 1024) : null;
+  }
+
+  // Destinations supplémentaires saisies une par ligne
+  get replicaPathsText(): string {
+    return (this.task.replicaPaths ?? []).join('\n');
+  }
+
+  set replicaPathsText(value: string) {
+    this.task.replicaPaths = value.split('\n').map(path => path.trim()).filter(path => path.length > 0);
+  }
+
+  get bidirectional(): boolean {
+    return this.task.syncMode === 'BIDIRECTIONAL';
+  }
+
+  set bidirectional(value: boolean) {
+    this.task.syncMode = value ? 'BIDIRECTIONAL' : 'MIRROR';
+  }
+
   constructor(
     private taskService: SyncTaskService,
     private route: ActivatedRoute,
@@ -42,20 +87,32 @@ export class TaskFormComponent implements OnInit {
   loadTask(): void {
     if (this.taskId) {
       this.taskService.getTaskById(this.taskId).subscribe({
-        next: (task) => this.task = task,
+        next: (task) => {
+          this.task = { ...task, conflictPolicy: task.conflictPolicy ?? 'NEWEST_WINS' }; // null = NEWEST_WINS
+          this.defaultDurabilityAvailable = !task.durability;
+          this.intervalUnit = task.intervalSeconds ? 'seconds' : 'minutes';
+        },
         error: (err) => console.error('Erreur chargement tâche', err)
       });
     }
   }
 
   onSubmit(): void {
+    // Limites vidées et intervalle en minutes : envoyés explicitement, un champ null laisse la valeur enregistrée
+    const task: SyncTask = {
+      ...this.task,
+      intervalSeconds: this.intervalUnit === 'seconds' ? this.task.intervalSeconds : 0,
+      maxBytesPerSecond: this.task.maxBytesPerSecond || 0,
+      maxFilesPerSecond: this.task.maxFilesPerSecond || 0,
+      fullSpeedHours: this.task.fullSpeedHours ?? ''
+    };
     if (this.isEditMode && this.taskId) {
-      this.taskService.updateTask(this.taskId, this.task).subscribe({
+      this.taskService.updateTask(this.taskId, task).subscribe({
         next: () => this.router.navigate(['/tasks']),
         error: (err) => console.error('Erreur mise à jour', err)
       });
     } else {
-      this.taskService.createTask(this.task).subscribe({
+      this.taskService.createTask(task).subscribe({
         next: () => this.router.navigate(['/tasks']),
         error: (err) => console.error('Erreur création', err)
       });
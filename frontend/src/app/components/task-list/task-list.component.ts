@@ -1,7 +1,8 @@
-import { Component, OnInit } from '@angular/core';
+import { Component, OnDestroy, OnInit } from '@angular/core';
 import { CommonModule } from '@angular/common';
 import { Router, RouterModule } from '@angular/router';
-import { SyncTask } from '../../models/sync-task.model';
+import { Subscription } from 'rxjs';
+import { SyncProgress, SyncTask } from '../../models/sync-task.model';
 import { SyncTaskService } from '../../services/sync-task.service';
 
 @Component({
@@ -11,9 +12,12 @@ import { SyncTaskService } from '../../services/sync-task.service';
   templateUrl: './task-list.component.html',
   styleUrl: './task-list.component.css'
 })
-export class TaskListComponent implements OnInit {
+export class TaskListComponent implements OnInit, OnDestroy {
   tasks: SyncTask[] = [];
   syncStatuses: Map<number, boolean> = new Map();
+  progress: Map<number, SyncProgress> = new Map();
+  private statusTimer?: ReturnType<typeof setInterval>;
+  private progressSubscription?: Subscription;
 
   constructor(
     private taskService: SyncTaskService,
@@ -23,7 +27,17 @@ export class TaskListComponent implements OnInit {
   ngOnInit(): void {
     this.loadTasks();
     // Rafraîchir les statuts toutes les 5 secondes
-    setInterval(() => this.updateSyncStatuses(), 5000);
+    this.statusTimer = setInterval(() => this.updateSyncStatuses(), 5000);
+    // Avancement en direct : un seul flux pour toutes les tâches
+    this.progressSubscription = this.taskService.watchProgress().subscribe(p => {
+      this.progress.set(p.taskId, p);
+      this.syncStatuses.set(p.taskId, p.phase !== 'COMPLETED' && p.phase !== 'FAILED' && p.phase !== 'CANCELLED');
+    });
+  }
+
+  ngOnDestroy(): void {
+    clearInterval(this.statusTimer);
+    this.progressSubscription?.unsubscribe();
   }
 
   loadTasks(): void {
@@ -63,11 +77,40 @@ export class TaskListComponent implements OnInit {
           alert('Synchronisation démarrée');
           this.updateSyncStatuses();
         },
-        error: (err) => console.error('Erreur trigger sync', err)
+        error: (err) => {
+          if (err.status === 409 || err.status === 503) {
+            alert(err.error?.message); // Déjà en cours, ou file d'attente pleine
+            this.updateSyncStatuses();
+          } else {
+            console.error('Erreur trigger sync', err);
+          }
+        }
+      });
+    }
+  }
+
+  cancelSync(task: SyncTask): void {
+    if (task.id && confirm(`Annuler la synchronisation de "${task.name}" ?`)) {
+      this.taskService.cancelSync(task.id).subscribe({
+        error: (err) => console.error('Erreur annulation', err)
       });
     }
   }
 
+  togglePause(task: SyncTask): void {
+    if (!task.id) return;
+    const request = this.progress.get(task.id)?.paused
+      ? this.taskService.resumeSync(task.id)
+      : this.taskService.pauseSync(task.id);
+    request.subscribe({
+      error: (err) => console.error('Erreur pause/reprise', err)
+    });
+  }
+
+  isActive(p: SyncProgress): boolean {
+    return p.phase !== 'COMPLETED' && p.phase !== 'FAILED' && p.phase !== 'CANCELLED';
+  }
+
   deleteTask(task: SyncTask): void {
     if (task.id && confirm(`Supprimer la tâche "${task.name}" ?`)) {
       this.taskService.deleteTask(task.id).subscribe({
@@ -86,6 +129,27 @@ export class TaskListComponent implements OnInit {
     return new Date(date).toLocaleString('fr-FR');
   }
 
+  phaseLabel(phase: SyncProgress['phase']): string {
+    const labels = {
+      SCAN: 'Parcours',
+      COPY: 'Copie',
+      DELETE: 'Suppression',
+      FINALIZE: 'Finalisation',
+      COMPLETED: 'Terminée',
+      FAILED: 'Échec',
+      CANCELLED: 'Annulée'
+    };
+    return labels[phase];
+  }
+
+  formatEta(seconds: number | undefined): string {
+    if (seconds === undefined || seconds === null) return '—';
+    if (seconds < 60) return `${seconds} s`;
+    const minutes = Math.floor(seconds / 60);
+    if (minutes < 60) return `${minutes} min ${seconds % 60} s`;
+    return `${Math.floor(minutes / 60)} h ${minutes % 60} min`;
+  }
+
   formatBytes(bytes: number): string {
     if (bytes === 0) return '0 B';
     const k = 1024;
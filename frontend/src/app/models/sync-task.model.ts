@@ -3,9 +3,25 @@ export interface SyncTask {
   name: string;
   sourcePath: string;
   destinationPath: string;
+  replicaPaths?: string[];
   intervalMinutes: number;
+  intervalSeconds?: number | null;
   active: boolean;
   useChecksum: boolean;
+  parallelism?: number;
+  changeDetection?: 'METADATA' | 'SMART' | 'CHECKSUM';
+  hashAlgorithm?: 'SHA_256' | 'XXH64' | 'CRC32C';
+  deltaTransfer?: boolean;
+  realtime?: boolean;
+  directoryPruning?: boolean;
+  moveDetection?: boolean;
+  hardLinkDedup?: boolean;
+  syncMode?: 'MIRROR' | 'BIDIRECTIONAL' | null;
+  conflictPolicy?: 'NEWEST_WINS' | 'KEEP_BOTH' | 'MANUAL' | null;
+  durability?: 'NONE' | 'BATCHED' | 'FULL' | null;
+  maxBytesPerSecond?: number | null;
+  maxFilesPerSecond?: number | null;
+  fullSpeedHours?: string | null;
   lastSyncTime?: string;
   nextSyncTime?: string;
   createdAt?: string;
@@ -25,6 +41,41 @@ export interface SyncLog {
   filesDeleted: number;
   filesSkipped: number;
   totalBytes: number;
+  blocksRewritten?: number;
+  bytesSaved?: number;
+  filesConflicted?: number;
+  walkMillis?: number;
+  detectMillis?: number;
+  hashMillis?: number;
+  copyMillis?: number;
+  persistMillis?: number;
+  deleteMillis?: number;
+  throttledMillis?: number;
+  checkpointedFiles?: number;
+  resumeCursor?: string;
+  lastCheckpoint?: string;
+  resumedFromId?: number;
   errorMessage?: string;
   details?: string;
+  conflicts?: string;
+}
+
+export interface SyncProgress {
+  taskId: number;
+  syncLogId: number;
+  phase: 'SCAN' | 'COPY' | 'DELETE' | 'FINALIZE' | 'COMPLETED' | 'FAILED' | 'CANCELLED';
+  paused: boolean;
+  startTime: string;
+  elapsedSeconds: number;
+  filesScanned: number;
+  filesProcessed: number;
+  filesCopied: number;
+  filesSkipped: number;
+  filesDeleted: number;
+  bytesScanned: number;
+  bytesProcessed: number;
+  bytesCopied: number;
+  copyMbPerSecond: number;
+  processingMbPerSecond: number;
+  etaSeconds?: number;
 }
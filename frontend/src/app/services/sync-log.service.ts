@@ -3,12 +3,11 @@ import { HttpClient, HttpParams } from '@angular/common/http';
 import { Observable } from 'rxjs';
 import { SyncLog } from '../models/sync-task.model';
 
-export interface PageResponse<T> {
+// Page par curseur : nextCursor est absent sur la dernière page
+export interface CursorPage<T> {
   content: T[];
-  totalElements: number;
-  totalPages: number;
   size: number;
-  number: number;
+  nextCursor?: string | null;
 }
 
 @Injectable({
@@ -19,20 +18,20 @@ export class SyncLogService {
 
   constructor(private http: HttpClient) {}
 
-  getAllLogs(page: number = 0, size: number = 20): Observable<PageResponse<SyncLog>> {
-    const params = new HttpParams()
-      .set('page', page.toString())
-      .set('size', size.toString());
-
-    return this.http.get<PageResponse<SyncLog>>(this.apiUrl, { params });
+  getAllLogs(cursor: string | null = null, size: number = 20): Observable<CursorPage<SyncLog>> {
+    return this.http.get<CursorPage<SyncLog>>(this.apiUrl, { params: this.pageParams(cursor, size) });
   }
 
-  getLogsByTask(taskId: number, page: number = 0, size: number = 20): Observable<PageResponse<SyncLog>> {
-    const params = new HttpParams()
-      .set('page', page.toString())
-      .set('size', size.toString());
+  getLogsByTask(taskId: number, cursor: string | null = null, size: number = 20): Observable<CursorPage<SyncLog>> {
+    return this.http.get<CursorPage<SyncLog>>(`${this.apiUrl}/task/${taskId}`, { params: this.pageParams(cursor, size) });
+  }
 
-    return this.http.get<PageResponse<SyncLog>>(`${this.apiUrl}/task/${taskId}`, { params });
+  private pageParams(cursor: string | null, size: number): HttpParams {
+    let params = new HttpParams().set('size', size.toString());
+    if (cursor) {
+      params = params.set('cursor', cursor);
+    }
+    return params;
   }
 
   getLogById(id: number): Observable<SyncLog> {
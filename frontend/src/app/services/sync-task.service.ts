@@ -1,7 +1,7 @@
 import { Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
 import { Observable } from 'rxjs';
-import { SyncTask } from '../models/sync-task.model';
+import { SyncProgress, SyncTask } from '../models/sync-task.model';
 
 @Injectable({
   providedIn: 'root'
@@ -39,7 +39,33 @@ export class SyncTaskService {
     return this.http.post(`${this.apiUrl}/${id}/trigger`, {});
   }
 
-  getSyncStatus(id: number): Observable<{running: boolean}> {
-    return this.http.get<{running: boolean}>(`${this.apiUrl}/${id}/status`);
+  getSyncStatus(id: number): Observable<{running: boolean, queued?: boolean, paused?: boolean}> {
+    return this.http.get<{running: boolean, queued?: boolean, paused?: boolean}>(`${this.apiUrl}/${id}/status`);
+  }
+
+  cancelSync(id: number): Observable<any> {
+    return this.http.post(`${this.apiUrl}/${id}/cancel`, {});
+  }
+
+  pauseSync(id: number): Observable<any> {
+    return this.http.post(`${this.apiUrl}/${id}/pause`, {});
+  }
+
+  resumeSync(id: number): Observable<any> {
+    return this.http.post(`${this.apiUrl}/${id}/resume`, {});
+  }
+
+  /**
+   * Avancement des synchronisations (flux SSE), pour une tâche ou pour toutes.
+   * EventSource se reconnecte seul après une coupure ou l'expiration du flux.
+   */
+  watchProgress(id?: number): Observable<SyncProgress> {
+    const url = id !== undefined ? `${this.apiUrl}/${id}/progress` : `${this.apiUrl}/progress`;
+    return new Observable<SyncProgress>(subscriber => {
+      const source = new EventSource(url);
+      source.addEventListener('progress', event =>
+        subscriber.next(JSON.parse((event as MessageEvent).data)));
+      return () => source.close();
+    });
   }
 }